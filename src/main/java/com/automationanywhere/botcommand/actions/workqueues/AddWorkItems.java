@@ -0,0 +1,216 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.data.model.table.Table;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.file.FileValidator;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkItemRowSource;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.*;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@BotCommand
+@CommandPkg(
+        label = "Add Work Items",
+        name = "workqueue_add_items",
+        description = "Encola ítems en Pending desde una tabla, un CSV o una hoja de Excel (inserts por lotes)",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign load report to"
+)
+public class AddWorkItems {
+
+    private static final String INPUT_TABLE = "table";
+    private static final String INPUT_CSV   = "csv";
+    private static final String INPUT_EXCEL = "excel";
+
+    // Máximo de Keys duplicados que se devuelven en el reporte (el total va en "Duplicates")
+    private static final int MAX_REPORTED_DUPLICATES = 1000;
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "Table variable", value = INPUT_TABLE)),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "CSV file", value = INPUT_CSV)),
+                    @Idx.Option(index = "2.3", pkg = @Pkg(label = "Excel sheet", value = INPUT_EXCEL))
+            })
+            @Pkg(label = "Read items from", default_value = INPUT_TABLE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String inputType,
+
+            @Idx(index = "2.1.1", type = AttributeType.VARIABLE)
+            @Pkg(label = "Table")
+            @NotEmpty
+            @VariableType(DataType.TABLE)
+            Table table,
+
+            @Idx(index = "2.2.1", type = AttributeType.FILE)
+            @Pkg(label = "CSV file path")
+            @NotEmpty
+            @FileExtension("csv")
+            String csvPath,
+
+            @Idx(index = "2.2.2", type = AttributeType.TEXT)
+            @Pkg(label = "Delimiter", default_value_type = DataType.STRING, default_value = ",")
+            @NotEmpty
+            String delimiter,
+
+            @Idx(index = "2.3.1", type = AttributeType.FILE)
+            @Pkg(label = "Excel file path")
+            @NotEmpty
+            String excelPath,
+
+            @Idx(index = "2.3.2", type = AttributeType.TEXT)
+            @Pkg(label = "Sheet name", description = "Vacío = primera hoja")
+            String sheetName,
+
+            @Idx(index = "3", type = AttributeType.TEXT)
+            @Pkg(label = "Key column", default_value_type = DataType.STRING, default_value = "Key")
+            @NotEmpty
+            String keyColumn,
+
+            @Idx(index = "4", type = AttributeType.TEXT)
+            @Pkg(label = "Priority column (optional)")
+            String priorityColumn,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "Default priority", default_value_type = DataType.NUMBER, default_value = "5")
+            @NumberInteger
+            Double defaultPriority,
+
+            @Idx(index = "6", type = AttributeType.TEXT)
+            @Pkg(label = "Step Workflow column (optional)")
+            String stepColumn,
+
+            @Idx(index = "7", type = AttributeType.NUMBER)
+            @Pkg(label = "Batch size (rows per commit)", default_value_type = DataType.NUMBER, default_value = "500")
+            @NumberInteger
+            @GreaterThan("0")
+            Double batchSize
+    ) {
+        long start = System.currentTimeMillis();
+        try (WorkItemRowSource rows = openSource(inputType, table, csvPath, delimiter, excelPath, sheetName)) {
+            if (!rows.getHeaders().contains(keyColumn)) {
+                throw new BotCommandException("No existe la columna Key '" + keyColumn + "'. Columnas: " + rows.getHeaders());
+            }
+            String prioCol = isBlank(priorityColumn) ? null : priorityColumn.trim();
+            String stepCol = isBlank(stepColumn) ? null : stepColumn.trim();
+            Long prioDefault = defaultPriority == null ? null : defaultPriority.longValue();
+            int size = batchSize == null ? 500 : batchSize.intValue();
+
+            Iterator<WorkqueueItemDao.NewItem> items = new Iterator<>() {
+                @Override
+                public boolean hasNext() { return rows.hasNext(); }
+
+                @Override
+                public WorkqueueItemDao.NewItem next() {
+                    return toNewItem(rows.next(), keyColumn, prioCol, prioDefault, stepCol);
+                }
+            };
+
+            WorkqueueItemDao.InsertReport report = AccessExecutor.executeDao(source, filePath, session,
+                    dao -> dao.insertBatch(items, size, null));
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("Processed", number(report.processed));
+            dict.put("Inserted", number(report.inserted));
+            dict.put("DataRows", number(report.dataRows));
+            dict.put("Batches", number(report.batches));
+            dict.put("Duplicates", number(report.duplicateKeys.size()));
+            List<Value> dups = new ArrayList<>();
+            for (String k : report.duplicateKeys) {
+                if (dups.size() >= MAX_REPORTED_DUPLICATES) break;
+                dups.add(new StringValue(k));
+            }
+            ListValue<StringValue> dupList = new ListValue<>();
+            dupList.set(dups);
+            dict.put("DuplicateKeys", dupList);
+            dict.put("ElapsedMs", number(System.currentTimeMillis() - start));
+            return new DictionaryValue(dict);
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BotCommandException("Add Work Items: " + e.getMessage(), e);
+        }
+    }
+
+    private static WorkItemRowSource openSource(String inputType, Table table, String csvPath, String delimiter,
+                                                String excelPath, String sheetName) throws Exception {
+        if (INPUT_CSV.equalsIgnoreCase(inputType)) {
+            new FileValidator(csvPath).validateFile(new String[]{"csv", "txt"});
+            char delim = isBlank(delimiter) ? ',' : delimiter.charAt(0);
+            return WorkItemRowSource.fromCsv(csvPath, delim, StandardCharsets.UTF_8);
+        } else if (INPUT_EXCEL.equalsIgnoreCase(inputType)) {
+            new FileValidator(excelPath).validateFile(new String[]{"xlsx", "xlsm", "xls"});
+            return WorkItemRowSource.fromExcel(excelPath, sheetName);
+        } else if (INPUT_TABLE.equalsIgnoreCase(inputType)) {
+            if (table == null) throw new BotCommandException("Debe indicar la tabla.");
+            return WorkItemRowSource.fromTable(table);
+        }
+        throw new BotCommandException("Valor inválido en 'Read items from': " + inputType);
+    }
+
+    private static WorkqueueItemDao.NewItem toNewItem(Map<String, String> row, String keyColumn, String prioCol,
+                                                      Long prioDefault, String stepCol) {
+        String key = row.get(keyColumn);
+        Long priority = prioDefault;
+        if (prioCol != null && !isBlank(row.get(prioCol))) {
+            try {
+                priority = new BigDecimal(row.get(prioCol).trim()).longValue();
+            } catch (NumberFormatException e) {
+                throw new BotCommandException("Prioridad no numérica para '" + key + "': " + row.get(prioCol));
+            }
+        }
+        String step = stepCol == null || isBlank(row.get(stepCol)) ? null : row.get(stepCol);
+
+        Map<String, String> data = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : row.entrySet()) {
+            String col = e.getKey();
+            if (col.equals(keyColumn) || col.equals(prioCol) || col.equals(stepCol) || col.isEmpty()) continue;
+            data.put(col, e.getValue());
+        }
+        return new WorkqueueItemDao.NewItem(key == null ? null : key.trim(), priority, null, step, data);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private static NumberValue number(long n) {
+        return new NumberValue(BigDecimal.valueOf(n));
+    }
+}
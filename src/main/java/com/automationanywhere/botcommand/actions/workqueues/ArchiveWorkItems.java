@@ -0,0 +1,154 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.QueueStats;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueArchiver;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.*;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Archive Work Items",
+        name = "workqueue_archive_items",
+        description = "Mueve ítems Completed/Exception anteriores a un corte (con su Item Data) a un archivo rotativo .accdb o CSV",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign archive report to"
+)
+public class ArchiveWorkItems {
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Older than (days)", description = "Según [Last Updated]",
+                    default_value_type = DataType.NUMBER, default_value = "30")
+            @NotEmpty
+            @GreaterThanEqualTo("0")
+            Double olderThanDays,
+
+            @Idx(index = "3", type = AttributeType.TEXT)
+            @Pkg(label = "Archive folder")
+            @NotEmpty
+            String archiveDir,
+
+            @Idx(index = "4", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "Access database (.accdb)", value = WorkqueueArchiver.TARGET_DATABASE)),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "CSV files", value = WorkqueueArchiver.TARGET_CSV))
+            })
+            @Pkg(label = "Archive format", default_value = WorkqueueArchiver.TARGET_DATABASE, default_value_type = DataType.STRING)
+            @NotEmpty
+            String target,
+
+            @Idx(index = "5", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Monthly", value = WorkqueueArchiver.ROTATE_MONTHLY)),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Yearly", value = WorkqueueArchiver.ROTATE_YEARLY)),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "Single file", value = WorkqueueArchiver.ROTATE_NONE))
+            })
+            @Pkg(label = "Rotate archive", default_value = WorkqueueArchiver.ROTATE_MONTHLY, default_value_type = DataType.STRING)
+            @NotEmpty
+            String rotation,
+
+            @Idx(index = "6", type = AttributeType.NUMBER)
+            @Pkg(label = "Chunk size", default_value_type = DataType.NUMBER, default_value = "500")
+            @NumberInteger
+            @GreaterThan("0")
+            Double chunkSize,
+
+            @Idx(index = "7", type = AttributeType.NUMBER)
+            @Pkg(label = "Max chunks per run", description = "0 = hasta vaciar lo archivable",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double maxChunks
+    ) {
+        try {
+            String location = AccessExecutor.SOURCE_SESSION.equalsIgnoreCase(source) && session != null
+                    ? session.getFilePath() : filePath;
+            Timestamp cutoff = Timestamp.from(Instant.now().minus(
+                    Duration.ofMinutes(Math.round(olderThanDays * 24 * 60))));
+            int chunk = chunkSize == null ? WorkqueueArchiver.DEFAULT_CHUNK_SIZE : chunkSize.intValue();
+            int max = maxChunks == null ? 0 : maxChunks.intValue();
+
+            // Cada shard se archiva con su propio prefijo
+            List<WorkqueueArchiver.Report> reports = AccessExecutor.executeEach(source, filePath, session, false,
+                    (shard, conn) -> new WorkqueueArchiver(conn).archive(cutoff, archiveDir, baseName(shard), target, rotation, chunk, max));
+            WorkqueueArchiver.Report report = WorkqueueArchiver.Report.merge(reports);
+            QueueStats.invalidate(location);
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("ItemsMoved", new NumberValue(BigDecimal.valueOf(report.itemsMoved)));
+            dict.put("DataRowsMoved", new NumberValue(BigDecimal.valueOf(report.dataRowsMoved)));
+            dict.put("Chunks", new NumberValue(BigDecimal.valueOf(report.chunks.size())));
+            List<Value> millis = new ArrayList<>();
+            long totalMillis = 0;
+            for (WorkqueueArchiver.ChunkReport c : report.chunks) {
+                millis.add(new NumberValue(BigDecimal.valueOf(c.millis)));
+                totalMillis += c.millis;
+            }
+            dict.put("ChunkMillis", toList(millis));
+            dict.put("TotalMillis", new NumberValue(BigDecimal.valueOf(totalMillis)));
+            List<Value> files = new ArrayList<>();
+            for (String f : report.archiveFiles) files.add(new StringValue(f));
+            dict.put("ArchiveFiles", toList(files));
+            return new DictionaryValue(dict);
+        } catch (Exception e) {
+            throw new BotCommandException("Archive Work Items: " + e.getMessage(), e);
+        }
+    }
+
+    // Prefijo de los archivos: nombre de la cola sin extensión
+    private static String baseName(String location) {
+        if (location == null || location.contains("://")) return "workqueue";
+        Path name = Paths.get(location).getFileName();
+        String n = name == null ? "workqueue" : name.toString();
+        int dot = n.lastIndexOf('.');
+        return dot > 0 ? n.substring(0, dot) : n;
+    }
+
+    private static ListValue<Value> toList(List<Value> values) {
+        ListValue<Value> lv = new ListValue<>();
+        lv.set(values);
+        return lv;
+    }
+}
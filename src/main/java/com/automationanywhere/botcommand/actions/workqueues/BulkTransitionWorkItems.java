@@ -0,0 +1,134 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.TableValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.*;
+
+@BotCommand
+@CommandPkg(
+        label = "Bulk Transition Work Items",
+        name = "workqueue_bulk_transition",
+        description = "Complete / Exception / Release / Defer para una lista de Ids o Keys en una sola transacción",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.TABLE,
+        return_required = false,
+        return_label = "Assign outcome per item to"
+)
+public class BulkTransitionWorkItems {
+
+    @Execute
+    public TableValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id",  value = "id")),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
+            })
+            @Pkg(label = "Select items by", default_value = "id", default_value_type = DataType.STRING)
+            @NotEmpty
+            String identifyBy,
+
+            @Idx(index = "3", type = AttributeType.LIST)
+            @Pkg(label = "Item Ids or Keys")
+            @NotEmpty
+            List<Value> identifiers,
+
+            @Idx(index = "4", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "Complete", value = "complete")),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "Exception", value = "exception")),
+                    @Idx.Option(index = "4.3", pkg = @Pkg(label = "Release", value = "release")),
+                    @Idx.Option(index = "4.4", pkg = @Pkg(label = "Defer", value = "defer"))
+            })
+            @Pkg(label = "Transition", default_value = "complete", default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String transition,
+
+            @Idx(index = "4.2.1", type = AttributeType.TEXT)
+            @Pkg(label = "Exception Reason")
+            @NotEmpty
+            String reason,
+
+            @Idx(index = "4.4.1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "4.4.1.1", pkg = @Pkg(label = "By date", value = "date")),
+                    @Idx.Option(index = "4.4.1.2", pkg = @Pkg(label = "By offset", value = "offset"))
+            })
+            @Pkg(label = "Defer items by", default_value = "offset", default_value_type = DataType.STRING)
+            @NotEmpty
+            String deferBy,
+
+            @Idx(index = "4.4.1.1.1", type = AttributeType.DATETIME)
+            @Pkg(label = "Defer Until (ISO-8601 o yyyy-MM-dd HH:mm:ss)")
+            @NotEmpty
+            String deferUntil,
+
+            @Idx(index = "4.4.1.2.1", type = AttributeType.NUMBER)
+            @Pkg(label = "Offset in minutes")
+            @NotEmpty
+            @GreaterThan("0")
+            Double deferOffset
+    ) {
+        try {
+            ItemIdentifierType by = ItemIdentifierType.from(identifyBy);
+            ItemTransition t = ItemTransition.from(transition);
+            List<String> ids = toIdentifiers(identifiers, by);
+            if (ids.isEmpty()) throw new BotCommandException("La lista de ítems está vacía.");
+
+            Timestamp ts = null;
+            if (t == ItemTransition.DEFER) {
+                if ("offset".equalsIgnoreCase(deferBy)) {
+                    if (deferOffset == null || deferOffset <= 0)
+                        throw new BotCommandException("El offset debe ser un número mayor a 0.");
+                    ts = Timestamp.from(Instant.now().plusSeconds((long) (deferOffset * 60)));
+                } else {
+                    if (deferUntil == null || deferUntil.isBlank())
+                        throw new BotCommandException("Debe indicar la fecha/hora destino.");
+                    ts = parseToTimestamp(deferUntil);
+                }
+            }
+            if (t == ItemTransition.EXCEPTION && (reason == null || reason.isBlank()))
+                throw new BotCommandException("Debe indicar la razón de la excepción.");
+
+            final Timestamp deferTs = ts;
+            List<WorkqueueItemDao.TransitionResult> results = AccessExecutor.executeClaimDao(source, filePath, session,
+                    dao -> dao.transitionBatch(t, by, ids, reason, deferTs));
+            return toOutcomeTable(results);
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BotCommandException("Bulk Transition Work Items: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+@BotCommand
+@CommandPkg(
+        label = "Close Workqueue Session",
+        name = "workqueue_close_session",
+        description = "Cierra la conexión persistente al archivo Access",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        node_label = "{{session}}"
+)
+public class CloseWorkqueueSession {
+
+    @Execute
+    public void close(
+            @Idx(index = "1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session) {
+        if (session.isClosed()) {
+            throw new BotCommandException("Workqueue session not found");
+        } else {
+            session.close();
+        }
+    }
+}
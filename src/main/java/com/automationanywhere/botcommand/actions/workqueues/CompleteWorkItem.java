@@ -1,8 +1,12 @@
 package com.automationanywhere.botcommand.actions.workqueues;
 
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemIdentifierType;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemTransition;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
@@ -11,22 +15,45 @@ import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
 
+import java.util.LinkedHashMap;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toProjection;
+
 @BotCommand
 @CommandPkg(
         label = "Complete Work Item",
         name = "workqueue_complete_item",
         description = "Marca un item como Completed",
         group_label = "Workqueues",
-        icon = "workqueue.svg"
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign item to"
 )
 public class CompleteWorkItem {
 
     @Execute
-    public void execute(
-            @Idx(index = "1", type = AttributeType.FILE)
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
             @Pkg(label = "Path to file Access") String filePath,
 
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
             // ---- Selector Id/Key ----
             @Idx(index = "2", type = AttributeType.SELECT, options = {
                     @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id",  value = "id")),
@@ -45,22 +72,56 @@ public class CompleteWorkItem {
             @Idx(index = "2.2.1", type = AttributeType.TEXT)
             @Pkg(label = "Item Key (workqueue.Key)")
             @NotEmpty
-            String itemKey
+            String itemKey,
+
+            @Idx(index = "3", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "Nothing", value = ItemProjection.MODE_NONE)),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Header only (no Item Data)", value = ItemProjection.MODE_HEADER)),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Header and selected Item Data keys", value = ItemProjection.MODE_SELECTED)),
+                    @Idx.Option(index = "3.4", pkg = @Pkg(label = "Full item", value = ItemProjection.MODE_FULL))
+            })
+            @Pkg(label = "Return item", description = "Qué se relee del ítem después de la transición; Nothing evita las consultas extra",
+                    default_value = ItemProjection.MODE_NONE, default_value_type = DataType.STRING)
+            @SelectModes
+            String returnMode,
+
+            @Idx(index = "3.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Item Data keys", description = "Separadas por coma")
+            String returnKeys
     ) {
         try {
-            AccessExecutor.executeVoidWithConnection(filePath, conn -> {
-                WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            // Write-behind: se registra en el journal de la sesión y se aplica en segundo plano
+            WorkqueueSession active = AccessExecutor.resolveSession(source, filePath, session);
+            if (active != null && active.isWriteBehind()) {
+                if ("id".equalsIgnoreCase(identifyBy)) {
+                    if (itemId == null) throw new BotCommandException("Debe indicar el Item Id.");
+                    active.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.ID,
+                            String.valueOf(itemId.longValue()), null);
+                } else if ("key".equalsIgnoreCase(identifyBy)) {
+                    if (itemKey == null || itemKey.isBlank())
+                        throw new BotCommandException("Debe indicar el Item Key.");
+                    active.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.KEY, itemKey, null);
+                } else {
+                    throw new BotCommandException("Valor inválido en 'Identificar ítem por': " + identifyBy);
+                }
+                return new DictionaryValue(new LinkedHashMap<>());
+            }
+
+            ItemProjection projection = toProjection(returnMode == null ? ItemProjection.MODE_NONE : returnMode, returnKeys);
+            WorkqueueItemDao.WorkItem item = AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+                dao.setTransitionReturn(projection);
                 if ("id".equalsIgnoreCase(identifyBy)) {
                     if (itemId == null) throw new BotCommandException("Debe indicar el Item Id.");
-                    dao.completeFromWorkingById(itemId.longValue());
+                    return dao.completeFromWorkingById(itemId.longValue());
                 } else if ("key".equalsIgnoreCase(identifyBy)) {
                     if (itemKey == null || itemKey.isBlank())
                         throw new BotCommandException("Debe indicar el Item Key.");
-                    dao.completeFromWorkingByKey(itemKey);
+                    return dao.completeFromWorkingByKey(itemKey);
                 } else {
                     throw new BotCommandException("Valor inválido en 'Identificar ítem por': " + identifyBy);
                 }
             });
+            return item == null ? new DictionaryValue(new LinkedHashMap<>()) : toDictionary(item);
         } catch (Exception e) {
             throw new BotCommandException("Complete Work Item: " + e.getMessage());
         }
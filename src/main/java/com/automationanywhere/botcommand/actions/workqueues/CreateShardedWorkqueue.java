@@ -0,0 +1,82 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ShardManifest;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Create Sharded Workqueue",
+        name = "workqueue_create_sharded",
+        description = "Crea un manifiesto .wqshards con N archivos Access y los inicializa; los comandos aceptan el manifiesto como ruta",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign manifest info to"
+)
+public class CreateShardedWorkqueue {
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.TEXT)
+            @Pkg(label = "Manifest path (.wqshards)")
+            @NotEmpty
+            String manifestPath,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Number of shards", default_value_type = DataType.NUMBER, default_value = "4")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThan("0")
+            Double shardCount,
+
+            @Idx(index = "3", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "Round-robin", value = ShardManifest.CLAIM_ROUND_ROBIN)),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Least-loaded shard first", value = ShardManifest.CLAIM_LEAST_LOADED))
+            })
+            @Pkg(label = "Claim strategy", default_value = ShardManifest.CLAIM_ROUND_ROBIN, default_value_type = DataType.STRING)
+            @NotEmpty
+            String claimStrategy
+    ) {
+        try {
+            if (!ShardManifest.isManifest(manifestPath))
+                throw new BotCommandException("El manifiesto debe tener extensión " + ShardManifest.EXTENSION);
+            ShardManifest manifest = ShardManifest.create(manifestPath, shardCount.intValue(), claimStrategy, ".accdb");
+            AccessExecutor.executeEach(AccessExecutor.SOURCE_FILE, manifestPath, null, true,
+                    (shard, conn) -> new WorkqueueSchema(conn).upgrade());
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("Manifest", new StringValue(manifest.getPath()));
+            dict.put("ShardCount", new NumberValue(BigDecimal.valueOf(manifest.size())));
+            List<Value> shards = new ArrayList<>();
+            for (String s : manifest.getShards()) shards.add(new StringValue(s));
+            ListValue<StringValue> lv = new ListValue<>();
+            lv.set(shards);
+            dict.put("Shards", lv);
+            return new DictionaryValue(dict);
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BotCommandException("Create Sharded Workqueue: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.automationanywhere.botcommand.actions.workqueues;
 
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
 
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.parseToTimestamp;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toProjection;
 
 
 @BotCommand
@@ -21,18 +28,34 @@ import java.time.format.DateTimeFormatter;
         name = "workqueue_defer_item",
         description = "Difiere un ítem hasta una fecha/hora (Status queda en Pending)",
         group_label = "Workqueues",
-        icon = "workqueue.svg"
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign item to"
 )
 public class DeferWorkItem {
 
-    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     @Execute
-    public void execute(
-            @Idx(index = "1", type = AttributeType.FILE)
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
             @Pkg(label = "Path to file Access") String filePath,
 
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
             @Idx(index = "2", type = AttributeType.SELECT, options = {
                     @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id", value = "id")),
                     @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
@@ -67,12 +90,27 @@ public class DeferWorkItem {
             @Idx(index = "3.2.1", type = AttributeType.NUMBER)
             @Pkg(label = "Offset in minutes")
             @NotEmpty
-            Double deferOffset
+            Double deferOffset,
+
+            @Idx(index = "4", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "Nothing", value = ItemProjection.MODE_NONE)),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "Header only (no Item Data)", value = ItemProjection.MODE_HEADER)),
+                    @Idx.Option(index = "4.3", pkg = @Pkg(label = "Header and selected Item Data keys", value = ItemProjection.MODE_SELECTED)),
+                    @Idx.Option(index = "4.4", pkg = @Pkg(label = "Full item", value = ItemProjection.MODE_FULL))
+            })
+            @Pkg(label = "Return item", description = "Qué se relee del ítem después de la transición; Nothing evita las consultas extra",
+                    default_value = ItemProjection.MODE_NONE, default_value_type = DataType.STRING)
+            @SelectModes
+            String returnMode,
+
+            @Idx(index = "4.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Item Data keys", description = "Separadas por coma")
+            String returnKeys
     ) {
         try {
-            AccessExecutor.executeVoidWithConnection(filePath, conn -> {
-                WorkqueueItemDao dao = new WorkqueueItemDao(conn);
-
+            ItemProjection projection = toProjection(returnMode == null ? ItemProjection.MODE_NONE : returnMode, returnKeys);
+            WorkqueueItemDao.WorkItem item = AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+                dao.setTransitionReturn(projection);
                 Timestamp ts;
                 if ("offset".equalsIgnoreCase(selectBy)) {
                     if (deferOffset == null || deferOffset <= 0) {
@@ -88,29 +126,18 @@ public class DeferWorkItem {
 
                 if ("id".equalsIgnoreCase(identifyBy)) {
                     if (itemId == null) throw new BotCommandException("Debe indicar el Item Id.");
-                    dao.deferFromWorkingById(itemId.longValue(), ts);
+                    return dao.deferFromWorkingById(itemId.longValue(), ts);
                 } else if ("key".equalsIgnoreCase(identifyBy)) {
                     if (itemKey == null || itemKey.isBlank())
                         throw new BotCommandException("Debe indicar el Item Key.");
-                    dao.deferFromWorkingByKey(itemKey, ts);
+                    return dao.deferFromWorkingByKey(itemKey, ts);
                 } else {
                     throw new BotCommandException("Valor inválido en 'Identificar ítem por': " + identifyBy);
                 }
             });
+            return item == null ? new DictionaryValue(new LinkedHashMap<>()) : toDictionary(item);
         } catch (Exception e) {
             throw new BotCommandException("Defer Work Item: " + e.getMessage(), e);
         }
     }
-
-    private static Timestamp parseToTimestamp(String input) {
-        try {
-            return Timestamp.from(OffsetDateTime.parse(input).toInstant()); // ISO-8601
-        } catch (Exception e) {
-            try {
-                return Timestamp.valueOf(LocalDateTime.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            } catch (Exception ex) {
-                throw new BotCommandException("Formato de fecha no válido: " + input);
-            }
-        }
-    }
 }
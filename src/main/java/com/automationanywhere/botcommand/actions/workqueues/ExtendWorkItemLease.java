@@ -0,0 +1,78 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+@BotCommand
+@CommandPkg(
+        label = "Extend Work Item Lease",
+        name = "workqueue_extend_lease",
+        description = "Heartbeat: extiende el lease de un item WORKING (por Id o Key).",
+        group_label = "Workqueues",
+        icon = "workqueue.svg"
+)
+public class ExtendWorkItemLease {
+
+    @Execute
+    public void execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id", value = "id")),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
+            })
+            @Pkg(label = "Select item by", default_value = "id", default_value_type = DataType.STRING)
+            @NotEmpty
+            String identifyBy,
+
+            @Idx(index = "2.1.1", type = AttributeType.NUMBER)
+            @NotEmpty
+            @Pkg(label = "Item Id") Double itemId,
+
+            @Idx(index = "2.2.1", type = AttributeType.TEXT)
+            @NotEmpty
+            @Pkg(label = "Item Key") String itemKey,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Extend lease by (seconds)", default_value_type = DataType.NUMBER, default_value = "300")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThan("0")
+            Double leaseSeconds
+    ) {
+        AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+            if ("id".equalsIgnoreCase(identifyBy)) {
+                dao.extendLeaseById(itemId.longValue(), leaseSeconds.longValue());
+            } else {
+                dao.extendLeaseByKey(itemKey, leaseSeconds.longValue());
+            }
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Find Work Items",
+        name = "workqueue_find_items",
+        description = "Busca ítems por pares Key=Value de Item Data y estados, en páginas por Id",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign page to"
+)
+public class FindWorkItems {
+
+    @Execute
+    public DictionaryValue find(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.DICTIONARY)
+            @Pkg(label = "Item Data criteria", description = "Pares Key=Value que el ítem debe tener (todos)")
+            Map<String, Value> criteria,
+
+            @Idx(index = "3", type = AttributeType.TEXT)
+            @Pkg(label = "Statuses", description = "Separados por coma (Pending, Working, Completed, Exception); vacío = todos")
+            String statuses,
+
+            @Idx(index = "4", type = AttributeType.NUMBER)
+            @Pkg(label = "Page size", default_value_type = DataType.NUMBER, default_value = "100")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThan("0")
+            Double pageSize,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "After Id", description = "NextAfterId de la página anterior; 0 = primera página",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double afterId,
+
+            @Idx(index = "6", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Include item data", default_value_type = DataType.BOOLEAN, default_value = "true")
+            Boolean includeData
+    ) {
+        Map<String, String> data = new LinkedHashMap<>();
+        if (criteria != null) {
+            criteria.forEach((k, v) -> data.put(k, v == null || v.get() == null ? "" : v.get().toString()));
+        }
+        List<String> statusList = new ArrayList<>();
+        if (statuses != null) {
+            for (String s : statuses.split(",")) {
+                if (!s.trim().isEmpty()) statusList.add(s.trim());
+            }
+        }
+        if (data.isEmpty() && statusList.isEmpty())
+            throw new BotCommandException("Find Work Items: indique al menos un criterio de Item Data o un estado.");
+
+        try {
+            return AccessExecutor.executeDao(source, filePath, session, dao -> toDictionary(
+                    dao.findItems(data, statusList, afterId == null ? 0 : afterId.longValue(), pageSize.intValue(),
+                            includeData == null || includeData)));
+        } catch (Exception e) {
+            throw new BotCommandException("Find Work Items: " + e.getMessage(), e);
+        }
+    }
+}
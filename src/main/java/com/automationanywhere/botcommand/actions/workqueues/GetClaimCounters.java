@@ -0,0 +1,43 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimStats;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Get Claim Counters",
+        name = "workqueue_get_claim_counters",
+        description = "Devuelve los contadores de claims del bot (claims, carreras perdidas, reintentos, cola vacía)",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_sub_type = DataType.NUMBER,
+        return_required = true,
+        return_label = "Assign counters to"
+)
+public class GetClaimCounters {
+
+    @Execute
+    public DictionaryValue get(
+            @Idx(index = "1", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Reset counters after reading", default_value_type = DataType.BOOLEAN, default_value = "false")
+            Boolean reset
+    ) {
+        Map<String, Value> dict = new LinkedHashMap<>();
+        // Con reset, leer y poner en cero van juntos: no se pierden los claims que ocurran entre medio
+        Map<String, Long> counters = reset != null && reset ? ClaimStats.snapshotAndReset() : ClaimStats.snapshot();
+        for (Map.Entry<String, Long> e : counters.entrySet()) {
+            dict.put(e.getKey(), new NumberValue(BigDecimal.valueOf(e.getValue())));
+        }
+        return new DictionaryValue(dict);
+    }
+}
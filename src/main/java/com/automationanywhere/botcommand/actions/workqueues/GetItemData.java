@@ -5,10 +5,10 @@ import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
-import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
 import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
@@ -33,10 +33,25 @@ public class GetItemData {
 
     @Execute
     public DictionaryValue get(
-            @Idx(index = "1", type = AttributeType.FILE)
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
             @Pkg(label = "Path to file Access") String filePath,
 
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
             @Idx(index = "2", type = AttributeType.SELECT, options = {
                     @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id",  value = "id")),
                     @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
@@ -56,8 +71,7 @@ public class GetItemData {
             String itemKey
     ) {
         try {
-            return AccessExecutor.executeWithConnection(filePath, conn -> {
-                WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            return AccessExecutor.executeDao(source, filePath, session, dao -> {
                 Map<String, String> rawDict;
 
                 if ("id".equalsIgnoreCase(identifyBy)) {
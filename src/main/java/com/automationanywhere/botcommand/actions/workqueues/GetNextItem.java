@@ -1,15 +1,26 @@
 package com.automationanywhere.botcommand.actions.workqueues;
 
+import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimFilter;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimRetryPolicy;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toClaimFilter;
 import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
 
 @BotCommand
@@ -25,15 +36,89 @@ import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDi
 )
 public class GetNextItem {
 
+    private static final String CLAIM_SINGLE = "single";
+    private static final String CLAIM_RETRY  = "retry";
+
     @Execute
     public DictionaryValue get(
-            @Idx(index = "1", type = AttributeType.FILE)
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
-            @Pkg(label = "Path to file Access") String filePath
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "Single attempt", value = CLAIM_SINGLE)),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "Retry on contention", value = CLAIM_RETRY))
+            })
+            @Pkg(label = "Claim mode", default_value = CLAIM_SINGLE, default_value_type = DataType.STRING)
+            @SelectModes
+            String claimMode,
+
+            @Idx(index = "2.2.1", type = AttributeType.NUMBER)
+            @Pkg(label = "Max attempts", default_value_type = DataType.NUMBER, default_value = "5")
+            @NumberInteger
+            @GreaterThan("0")
+            Double maxAttempts,
+
+            @Idx(index = "2.2.2", type = AttributeType.NUMBER)
+            @Pkg(label = "Base backoff (ms)", default_value_type = DataType.NUMBER, default_value = "50")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double baseBackoffMs,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Lease (seconds)", description = "0 = sin lease; vencido, el ítem vuelve a Pending",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double leaseSeconds,
+
+            @Idx(index = "4", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Return expired leases to Pending before claiming", default_value_type = DataType.BOOLEAN, default_value = "true")
+            Boolean reclaimExpired,
+
+            @Idx(index = "5", type = AttributeType.TEXT)
+            @Pkg(label = "Only step workflow", description = "Vacío = cualquier [Step Workflow]")
+            String stepFilter,
+
+            @Idx(index = "6", type = AttributeType.NUMBER)
+            @Pkg(label = "Only status workflow", description = "Vacío = cualquier [Status Workflow]")
+            @NumberInteger
+            Double statusWfFilter,
+
+            @Idx(index = "7", type = AttributeType.DICTIONARY)
+            @Pkg(label = "Only items with data", description = "Pares Key=Value que el ítem debe tener en [Item Data]")
+            Map<String, Value> dataFilter
     ) {
-        return AccessExecutor.executeWithConnection(filePath, conn -> {
-            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
-            WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+        final ClaimFilter claimFilter = toClaimFilter(stepFilter, statusWfFilter, dataFilter);
+        ClaimRetryPolicy policy = null;
+        if (CLAIM_RETRY.equalsIgnoreCase(claimMode)) {
+            int attempts = maxAttempts == null ? ClaimRetryPolicy.DEFAULT_MAX_ATTEMPTS : maxAttempts.intValue();
+            long base = baseBackoffMs == null ? ClaimRetryPolicy.DEFAULT_BASE_BACKOFF_MS : baseBackoffMs.longValue();
+            policy = new ClaimRetryPolicy(attempts, base, Math.max(base, ClaimRetryPolicy.DEFAULT_MAX_BACKOFF_MS),
+                    ClaimRetryPolicy.DEFAULT_CANDIDATES_PER_ATTEMPT);
+        }
+        final ClaimRetryPolicy claimPolicy = policy;
+
+        return AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+            if (leaseSeconds != null) dao.setLeaseSeconds(leaseSeconds.longValue());
+            if (reclaimExpired != null) dao.setReclaimExpiredOnClaim(reclaimExpired);
+            dao.setClaimFilter(claimFilter);
+            WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking(claimPolicy);
 
             if (item != null)
                 return toDictionary(item);
@@ -0,0 +1,105 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimFilter;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toClaimFilter;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toListValue;
+
+@BotCommand
+@CommandPkg(
+        label = "Get Next Items",
+        name = "workqueue_get_next_items",
+        description = "Get up to N 'Pending' items and check them as 'Working' in one transaction",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.LIST,
+        return_sub_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign items to"
+)
+public class GetNextItems {
+
+    @Execute
+    public ListValue get(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Max items", default_value_type = DataType.NUMBER, default_value = "10")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThan("0")
+            Double maxItems,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Lease (seconds)", description = "0 = sin lease; vencido, el ítem vuelve a Pending",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double leaseSeconds,
+
+            @Idx(index = "4", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Return expired leases to Pending before claiming", default_value_type = DataType.BOOLEAN, default_value = "true")
+            Boolean reclaimExpired,
+
+            @Idx(index = "5", type = AttributeType.TEXT)
+            @Pkg(label = "Only step workflow", description = "Vacío = cualquier [Step Workflow]")
+            String stepFilter,
+
+            @Idx(index = "6", type = AttributeType.NUMBER)
+            @Pkg(label = "Only status workflow", description = "Vacío = cualquier [Status Workflow]")
+            @NumberInteger
+            Double statusWfFilter,
+
+            @Idx(index = "7", type = AttributeType.DICTIONARY)
+            @Pkg(label = "Only items with data", description = "Pares Key=Value que el ítem debe tener en [Item Data]")
+            Map<String, Value> dataFilter
+    ) {
+        final ClaimFilter claimFilter = toClaimFilter(stepFilter, statusWfFilter, dataFilter);
+        try {
+            return AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+                if (leaseSeconds != null) dao.setLeaseSeconds(leaseSeconds.longValue());
+                if (reclaimExpired != null) dao.setReclaimExpiredOnClaim(reclaimExpired);
+                dao.setClaimFilter(claimFilter);
+                List<WorkqueueItemDao.WorkItem> items = dao.takeNextPendingBatchAndSetWorking(maxItems.intValue());
+                return toListValue(items);
+            });
+        } catch (Exception e) {
+            throw new BotCommandException("Get Next Items: " + e.getMessage(), e);
+        }
+    }
+}
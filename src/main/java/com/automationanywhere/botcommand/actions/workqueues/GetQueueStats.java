@@ -0,0 +1,76 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.QueueStats;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Get Queue Stats",
+        name = "workqueue_get_queue_stats",
+        description = "Conteos por Status y Step Workflow, antigüedad del Pending más viejo y próximo Defer Until",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign stats to"
+)
+public class GetQueueStats {
+
+    @Execute
+    public DictionaryValue get(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Cache TTL (seconds)", description = "0 = consultar siempre el archivo",
+                    default_value_type = DataType.NUMBER, default_value = "5")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double ttlSeconds
+    ) {
+        try {
+            String location = AccessExecutor.SOURCE_SESSION.equalsIgnoreCase(source) && session != null
+                    ? session.getFilePath() : filePath;
+            long ttlMs = ttlSeconds == null ? 0 : ttlSeconds.longValue() * 1000L;
+
+            // Dentro del TTL no se abre el archivo
+            QueueStats stats = QueueStats.getCached(location, ttlMs);
+            if (stats == null) {
+                stats = AccessExecutor.executeDao(source, filePath, session, dao -> dao.queueStats());
+                QueueStats.putCached(location, stats);
+            }
+            return toDictionary(stats);
+        } catch (Exception e) {
+            throw new BotCommandException("Get Queue Stats: " + e.getMessage(), e);
+        }
+    }
+}
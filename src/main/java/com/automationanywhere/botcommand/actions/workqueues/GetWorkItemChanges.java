@@ -0,0 +1,105 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.sql.Timestamp;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.parseToTimestamp;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Get Work Item Changes",
+        name = "workqueue_item_changes",
+        description = "Ítems cambiados desde la última marca de agua ([Last Updated] + Id), en páginas por índice",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign changes to"
+)
+public class GetWorkItemChanges {
+
+    @Execute
+    public DictionaryValue changes(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.TEXT)
+            @Pkg(label = "Watermark Last Updated", description = "WatermarkUpdated del pedido anterior; vacío = desde el principio")
+            String watermarkUpdated,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Watermark Id", description = "WatermarkId del pedido anterior",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double watermarkId,
+
+            @Idx(index = "4", type = AttributeType.NUMBER)
+            @Pkg(label = "Page size", default_value_type = DataType.NUMBER, default_value = "500")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThan("0")
+            Double pageSize,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "Settle seconds", description = "No devuelve cambios más nuevos que esto (relojes de bots desfasados); 0 = hasta ahora",
+                    default_value_type = DataType.NUMBER, default_value = "2")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double settleSeconds,
+
+            @Idx(index = "6", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Include item data", default_value_type = DataType.BOOLEAN, default_value = "false")
+            Boolean includeData
+    ) {
+        Timestamp after = null;
+        if (watermarkUpdated != null && !watermarkUpdated.isBlank()) {
+            try {
+                after = Timestamp.valueOf(watermarkUpdated.trim()); // formato de WatermarkUpdated, sin pérdida
+            } catch (IllegalArgumentException e) {
+                after = parseToTimestamp(watermarkUpdated.trim());
+            }
+        }
+        long settle = settleSeconds == null ? 0 : settleSeconds.longValue();
+        Timestamp upTo = settle > 0 ? new Timestamp(System.currentTimeMillis() - settle * 1000L) : null;
+        final Timestamp afterTs = after;
+
+        try {
+            return AccessExecutor.executeDao(source, filePath, session, dao -> toDictionary(
+                    dao.changesSince(afterTs, watermarkId == null ? 0 : watermarkId.longValue(), upTo,
+                            pageSize.intValue(), includeData != null && includeData)));
+        } catch (Exception e) {
+            throw new BotCommandException("Get Work Item Changes: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.HistoryMetrics;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Get Workqueue Metrics",
+        name = "workqueue_history_metrics",
+        description = "Throughput y percentiles de tiempo por etapa (Pending, Working, Step Workflow) a partir de [Item History]",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign metrics to"
+)
+public class GetWorkqueueMetrics {
+
+    @Execute
+    public DictionaryValue get(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Window (hours)", description = "Transiciones de las últimas N horas",
+                    default_value_type = DataType.NUMBER, default_value = "24")
+            @NotEmpty
+            @GreaterThan("0")
+            Double windowHours,
+
+            @Idx(index = "3", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Split by Step Workflow", default_value_type = DataType.BOOLEAN, default_value = "false")
+            Boolean byStep
+    ) {
+        try {
+            Timestamp until = Timestamp.from(Instant.now());
+            Timestamp since = new Timestamp(until.getTime() - Math.round(windowHours * 3_600_000L));
+            boolean split = byStep != null && byStep;
+
+            // Las muestras de cada shard se juntan antes de calcular los percentiles
+            List<HistoryMetrics> parts = AccessExecutor.executeEach(source, filePath, session, false,
+                    (location, conn) -> HistoryMetrics.read(conn, since, until, split));
+            return toDictionary(HistoryMetrics.merge(parts));
+        } catch (Exception e) {
+            throw new BotCommandException("Get Workqueue Metrics: " + e.getMessage(), e);
+        }
+    }
+}
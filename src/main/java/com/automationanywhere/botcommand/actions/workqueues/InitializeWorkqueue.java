@@ -0,0 +1,129 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Initialize/Upgrade Workqueue",
+        name = "workqueue_initialize",
+        description = "Crea las tablas e índices de la workqueue si faltan, o informa cuáles faltan",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign report to"
+)
+public class InitializeWorkqueue {
+
+    private static final String MODE_CHECK   = "check";
+    private static final String MODE_UPGRADE = "upgrade";
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.1.2", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Create file if missing", default_value_type = DataType.BOOLEAN, default_value = "false")
+            Boolean createFile,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "Check only (report missing)", value = MODE_CHECK)),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "Create missing tables and indexes", value = MODE_UPGRADE))
+            })
+            @Pkg(label = "Mode", default_value = MODE_UPGRADE, default_value_type = DataType.STRING)
+            @NotEmpty
+            String mode,
+
+            @Idx(index = "3", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Enable item history", description = "Crea [Item History]: cada transición queda registrada (solo en modo upgrade)",
+                    default_value_type = DataType.BOOLEAN, default_value = "false")
+            Boolean enableHistory
+    ) {
+        try {
+            // Un reporte por archivo físico (uno, o uno por shard si la ruta es un manifiesto)
+            List<Map.Entry<String, WorkqueueSchema.Report>> reports = AccessExecutor.executeEach(source, filePath, session,
+                    createFile != null && createFile, (location, conn) -> {
+                        WorkqueueSchema schema = new WorkqueueSchema(conn);
+                        if (MODE_CHECK.equalsIgnoreCase(mode)) return new AbstractMap.SimpleEntry<>(location, schema.check());
+                        WorkqueueSchema.Report report = schema.upgrade();
+                        if (enableHistory != null && enableHistory && schema.ensureHistoryTable())
+                            report.tablesCreated.add(WorkqueueSchema.TABLE_HISTORY);
+                        return new AbstractMap.SimpleEntry<>(location, report);
+                    });
+
+            List<String> tables = new ArrayList<>(), indexes = new ArrayList<>(), columns = new ArrayList<>();
+            List<String> missingTables = new ArrayList<>(), missingColumns = new ArrayList<>(), missing = new ArrayList<>();
+            long backfilled = 0;
+            for (Map.Entry<String, WorkqueueSchema.Report> e : reports) {
+                String prefix = reports.size() > 1 ? Paths.get(e.getKey()).getFileName() + ": " : "";
+                WorkqueueSchema.Report report = e.getValue();
+                for (String t : report.tablesCreated) tables.add(prefix + t);
+                for (String i : report.indexesCreated) indexes.add(prefix + i);
+                for (String c : report.columnsAdded) columns.add(prefix + c);
+                for (String t : report.missingTables) missingTables.add(prefix + t);
+                for (WorkqueueSchema.ColumnDef col : report.missingColumns) missingColumns.add(prefix + col);
+                for (WorkqueueSchema.IndexDef idx : report.missingIndexes) missing.add(prefix + idx);
+                backfilled += report.valueKeysBackfilled;
+            }
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("TablesCreated", toList(tables));
+            dict.put("IndexesCreated", toList(indexes));
+            dict.put("ColumnsAdded", toList(columns));
+            dict.put("MissingTables", toList(missingTables));
+            dict.put("MissingColumns", toList(missingColumns));
+            dict.put("MissingIndexes", toList(missing));
+            dict.put("ValueKeysBackfilled", new NumberValue(BigDecimal.valueOf(backfilled)));
+            return new DictionaryValue(dict);
+        } catch (Exception e) {
+            throw new BotCommandException("Initialize Workqueue: " + e.getMessage(), e);
+        }
+    }
+
+    private static ListValue<StringValue> toList(List<String> values) {
+        List<Value> list = new ArrayList<>();
+        for (String v : values) list.add(new StringValue(v));
+        ListValue<StringValue> lv = new ListValue<>();
+        lv.set(list);
+        return lv;
+    }
+}
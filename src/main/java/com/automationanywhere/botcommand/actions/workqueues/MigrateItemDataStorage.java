@@ -0,0 +1,100 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemDataMigrator;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemDataStorage;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.*;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Migrate Item Data Storage",
+        name = "workqueue_migrate_item_data",
+        description = "Cambia el almacenamiento de Item Data entre filas y blob compacto por ítem, convirtiendo los ítems existentes por lotes",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign migration report to"
+)
+public class MigrateItemDataStorage {
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "Compact (one blob per item)", value = ItemDataStorage.MODE_COMPACT)),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "Rows (one row per key)", value = ItemDataStorage.MODE_ROWS))
+            })
+            @Pkg(label = "Storage mode", default_value = ItemDataStorage.MODE_COMPACT, default_value_type = DataType.STRING)
+            @NotEmpty
+            String mode,
+
+            @Idx(index = "3", type = AttributeType.TEXT)
+            @Pkg(label = "Promoted keys", description = "Claves separadas por coma que siguen en [Item Data] para Find Work Items y filtros de claim (solo modo compacto)")
+            String promotedKeys,
+
+            @Idx(index = "4", type = AttributeType.NUMBER)
+            @Pkg(label = "Chunk size", default_value_type = DataType.NUMBER, default_value = "500")
+            @NumberInteger
+            @GreaterThan("0")
+            Double chunkSize
+    ) {
+        try {
+            List<String> keys = promotedKeys == null || promotedKeys.trim().isEmpty()
+                    ? Collections.emptyList() : Arrays.asList(promotedKeys.split(","));
+            ItemDataStorage target = ItemDataStorage.of(mode, keys);
+            int chunk = chunkSize == null ? ItemDataMigrator.DEFAULT_CHUNK_SIZE : chunkSize.intValue();
+
+            // Cada shard migra por separado; si se corta, volver a ejecutar retoma donde quedó
+            List<ItemDataMigrator.Report> reports = AccessExecutor.executeEach(source, filePath, session, false,
+                    (shard, conn) -> new ItemDataMigrator(conn).migrate(target, chunk));
+            ItemDataMigrator.Report report = ItemDataMigrator.Report.merge(reports);
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("Mode", new StringValue(target.getMode()));
+            dict.put("PromotedKeys", new StringValue(String.join(",", target.getPromotedKeys())));
+            dict.put("ItemsConverted", new NumberValue(BigDecimal.valueOf(report.itemsConverted)));
+            dict.put("DataRowsWritten", new NumberValue(BigDecimal.valueOf(report.dataRowsWritten)));
+            dict.put("DataRowsDeleted", new NumberValue(BigDecimal.valueOf(report.dataRowsDeleted)));
+            dict.put("Chunks", new NumberValue(BigDecimal.valueOf(report.chunks)));
+            dict.put("TotalMillis", new NumberValue(BigDecimal.valueOf(report.millis)));
+            return new DictionaryValue(dict);
+        } catch (Exception e) {
+            throw new BotCommandException("Migrate Item Data Storage: " + e.getMessage(), e);
+        }
+    }
+}
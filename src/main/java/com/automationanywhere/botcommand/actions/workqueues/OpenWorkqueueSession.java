@@ -0,0 +1,85 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.SessionValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.ConnectionProfile;
+import com.automationanywhere.botcommand.utilities.workqueue.StatusJournal;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+import com.automationanywhere.commandsdk.model.ReturnSettingsType;
+
+@BotCommand
+@CommandPkg(
+        label = "Open Workqueue Session",
+        name = "workqueue_open_session",
+        description = "Abre el archivo Access una sola vez y mantiene la conexión para los comandos de workqueue",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        node_label = "{{returnTo}}",
+        return_settings = {ReturnSettingsType.SESSION_TARGET},
+        return_type = DataType.SESSION,
+        return_name = "Workqueue",
+        return_required = true
+)
+public class OpenWorkqueueSession {
+
+    @Execute
+    public SessionValue open(
+            @Idx(index = "1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "2", type = AttributeType.CHECKBOX)
+            @Pkg(label = "Write-behind for Complete/Exception",
+                    description = "Registra las transiciones en un journal local y las aplica en segundo plano")
+            Boolean writeBehind,
+
+            @Idx(index = "2.1", type = AttributeType.NUMBER)
+            @Pkg(label = "Flush interval (ms)", default_value_type = DataType.NUMBER, default_value = "2000")
+            @NumberInteger
+            @GreaterThan("0")
+            Double flushIntervalMs,
+
+            @Idx(index = "3", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "In-memory mirror (default)", value = ConnectionProfile.MODE_MEMORY)),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Disk mirror (low memory)", value = ConnectionProfile.MODE_DISK)),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Persistent mirror", value = ConnectionProfile.MODE_MIRROR))
+            })
+            @Pkg(label = "Connection profile", default_value = ConnectionProfile.MODE_MEMORY, default_value_type = DataType.STRING)
+            @SelectModes
+            String profileMode,
+
+            @Idx(index = "3.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Mirror folder", description = "Se regenera si el archivo Access cambió desde el último cierre")
+            @NotEmpty
+            String mirrorDir,
+
+            @Idx(index = "4", type = AttributeType.CHECKBOX)
+            @Pkg(label = "Skip simple indexes in mirror", description = "Menos memoria; el claim recorre la tabla")
+            Boolean skipIndexes,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "LOB scale (KB)", description = "1, 2, 4, 8, 16 o 32; vacío = valor del driver")
+            @NumberInteger
+            Double lobScale
+    ) {
+        try {
+            long interval = flushIntervalMs == null ? StatusJournal.DEFAULT_FLUSH_INTERVAL_MS : flushIntervalMs.longValue();
+            ConnectionProfile profile = ConnectionProfile.of(profileMode, mirrorDir, skipIndexes,
+                    lobScale == null ? null : lobScale.intValue());
+            WorkqueueSession session = new WorkqueueSession(filePath, profile, writeBehind != null && writeBehind, interval);
+            return SessionValue
+                    .builder()
+                    .withSessionObject(session)
+                    .build();
+        } catch (Exception e) {
+            throw new BotCommandException("Open Workqueue Session: " + e.getMessage(), e);
+        }
+    }
+}
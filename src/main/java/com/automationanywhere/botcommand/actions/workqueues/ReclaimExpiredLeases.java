@@ -0,0 +1,57 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+
+@BotCommand
+@CommandPkg(
+        label = "Reclaim Expired Leases",
+        name = "workqueue_reclaim_expired",
+        description = "Devuelve a PENDING los items WORKING cuyo lease venció.",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.NUMBER,
+        return_label = "Assign reclaimed count to"
+)
+public class ReclaimExpiredLeases {
+
+    @Execute
+    public NumberValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session
+    ) {
+        try {
+            int reclaimed = AccessExecutor.executeClaimDao(source, filePath, session,
+                    dao -> dao.reclaimExpiredLeases());
+            return new NumberValue(BigDecimal.valueOf(reclaimed));
+        } catch (Exception e) {
+            throw new BotCommandException("Reclaim Expired Leases: " + e.getMessage(), e);
+        }
+    }
+}
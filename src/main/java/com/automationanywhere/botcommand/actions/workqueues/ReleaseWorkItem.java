@@ -1,28 +1,56 @@
 package com.automationanywhere.botcommand.actions.workqueues;
 
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
 
+import java.util.LinkedHashMap;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toProjection;
+
 @BotCommand
 @CommandPkg(
         label = "Release Work Item",
         name = "workqueue_release_item",
         description = "Libera un item WORKING a PENDING (por Id o Key).",
         group_label = "Workqueues",
-        icon = "workqueue.svg"
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign item to"
 )
 public class ReleaseWorkItem {
 
     @Execute
-    public void execute(
-            @Idx(index = "1", type = AttributeType.FILE)
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
             @Pkg(label = "Path to file Access") String filePath,
 
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
             @Idx(index = "2", type = AttributeType.SELECT, options = {
                     @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id", value = "id")),
                     @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
@@ -37,17 +65,33 @@ public class ReleaseWorkItem {
 
             @Idx(index = "2.2.1", type = AttributeType.TEXT)
             @NotEmpty
-            @Pkg(label = "Item Key") String itemKey
+            @Pkg(label = "Item Key") String itemKey,
+
+            @Idx(index = "3", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "Nothing", value = ItemProjection.MODE_NONE)),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Header only (no Item Data)", value = ItemProjection.MODE_HEADER)),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Header and selected Item Data keys", value = ItemProjection.MODE_SELECTED)),
+                    @Idx.Option(index = "3.4", pkg = @Pkg(label = "Full item", value = ItemProjection.MODE_FULL))
+            })
+            @Pkg(label = "Return item", description = "Qué se relee del ítem después de la transición; Nothing evita las consultas extra",
+                    default_value = ItemProjection.MODE_NONE, default_value_type = DataType.STRING)
+            @SelectModes
+            String returnMode,
+
+            @Idx(index = "3.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Item Data keys", description = "Separadas por coma")
+            String returnKeys
     ) {
-        AccessExecutor.executeWithConnection(filePath, conn -> {
-            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+        ItemProjection projection = toProjection(returnMode == null ? ItemProjection.MODE_NONE : returnMode, returnKeys);
+        WorkqueueItemDao.WorkItem item = AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+            dao.setTransitionReturn(projection);
             if ("id".equalsIgnoreCase(identifyBy)) {
-                dao.releaseFromWorkingById(itemId.longValue());
+                return dao.releaseFromWorkingById(itemId.longValue());
             } else {
-                dao.releaseFromWorkingByKey(itemKey);
+                return dao.releaseFromWorkingByKey(itemKey);
             }
-            return null;
         });
+        return item == null ? new DictionaryValue(new LinkedHashMap<>()) : toDictionary(item);
     }
 
 }
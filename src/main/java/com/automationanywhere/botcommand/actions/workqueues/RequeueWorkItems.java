@@ -0,0 +1,101 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.sql.Timestamp;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Requeue Work Items",
+        name = "workqueue_requeue_items",
+        description = "Devuelve a PENDING los items EXCEPTION por razón, etapa y antigüedad, en bloques",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign counts to"
+)
+public class RequeueWorkItems {
+
+    @Execute
+    public DictionaryValue requeue(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.TEXT)
+            @Pkg(label = "Exception Reason pattern", description = "Comodines * y ? (p.ej. *timeout*); vacío = cualquiera")
+            String reasonPattern,
+
+            @Idx(index = "3", type = AttributeType.TEXT)
+            @Pkg(label = "Step Workflow", description = "Vacío = cualquiera")
+            String stepWorkflow,
+
+            @Idx(index = "4", type = AttributeType.NUMBER)
+            @Pkg(label = "Minimum age (minutes)", description = "Solo items en Exception hace al menos N minutos; 0 = todos",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double minAgeMinutes,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "Priority bump", description = "Se resta de Priority para que se tomen antes; 0 = sin cambio",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double priorityBump,
+
+            @Idx(index = "6", type = AttributeType.NUMBER)
+            @Pkg(label = "Chunk size", default_value_type = DataType.NUMBER, default_value = "500")
+            @NumberInteger
+            @GreaterThan("0")
+            Double chunkSize
+    ) {
+        long minAge = minAgeMinutes == null ? 0 : minAgeMinutes.longValue();
+        boolean anyFilter = (reasonPattern != null && !reasonPattern.isBlank())
+                || (stepWorkflow != null && !stepWorkflow.isBlank()) || minAge > 0;
+        if (!anyFilter)
+            throw new BotCommandException("Requeue Work Items: indique al menos la razón, la etapa o la antigüedad.");
+        Timestamp before = minAge > 0 ? new Timestamp(System.currentTimeMillis() - minAge * 60_000L) : null;
+        long bump = priorityBump == null ? 0 : priorityBump.longValue();
+        int chunk = chunkSize == null ? 500 : chunkSize.intValue();
+
+        try {
+            WorkqueueItemDao.RequeueReport report = AccessExecutor.executeDao(source, filePath, session,
+                    dao -> dao.requeueExceptions(reasonPattern, stepWorkflow, before, bump, chunk));
+            return toDictionary(report);
+        } catch (Exception e) {
+            throw new BotCommandException("Requeue Work Items: " + e.getMessage(), e);
+        }
+    }
+}
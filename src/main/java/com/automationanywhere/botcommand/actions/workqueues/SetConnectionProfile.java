@@ -0,0 +1,55 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.ConnectionProfile;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+@BotCommand
+@CommandPkg(
+        label = "Set Connection Profile",
+        name = "workqueue_set_connection_profile",
+        description = "Perfil de apertura de UCanAccess para los comandos que usan 'File path' en este bot",
+        group_label = "Workqueues",
+        icon = "workqueue.svg"
+)
+public class SetConnectionProfile {
+
+    @Execute
+    public void execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "In-memory mirror (default)", value = ConnectionProfile.MODE_MEMORY)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Disk mirror (low memory)", value = ConnectionProfile.MODE_DISK)),
+                    @Idx.Option(index = "1.3", pkg = @Pkg(label = "Persistent mirror", value = ConnectionProfile.MODE_MIRROR))
+            })
+            @Pkg(label = "Connection profile", default_value = ConnectionProfile.MODE_MEMORY, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String profileMode,
+
+            @Idx(index = "1.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Mirror folder", description = "Se regenera si el archivo Access cambió desde el último cierre")
+            @NotEmpty
+            String mirrorDir,
+
+            @Idx(index = "2", type = AttributeType.CHECKBOX)
+            @Pkg(label = "Skip simple indexes in mirror", description = "Menos memoria; el claim recorre la tabla")
+            Boolean skipIndexes,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "LOB scale (KB)", description = "1, 2, 4, 8, 16 o 32; vacío = valor del driver")
+            @NumberInteger
+            Double lobScale
+    ) {
+        try {
+            ConnectionProfile.setDefault(ConnectionProfile.of(profileMode, mirrorDir, skipIndexes,
+                    lobScale == null ? null : lobScale.intValue()));
+        } catch (Exception e) {
+            throw new BotCommandException("Set Connection Profile: " + e.getMessage(), e);
+        }
+    }
+}
@@ -3,13 +3,20 @@ package com.automationanywhere.botcommand.actions.workqueues;
 import com.automationanywhere.botcommand.data.impl.DictionaryValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
 import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
 import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
 import com.automationanywhere.commandsdk.model.AttributeType;
 import com.automationanywhere.commandsdk.model.DataType;
 
+import java.util.LinkedHashMap;
+
 import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toProjection;
 
 @BotCommand
 @CommandPkg(
@@ -26,10 +33,25 @@ public class SetItemStatus {
 
     @Execute
     public DictionaryValue set(
-            @Idx(index = "1", type = AttributeType.FILE)
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
             @NotEmpty
             @Pkg(label = "Path to file Access") String filePath,
 
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
             @Idx(index = "2", type = AttributeType.SELECT, options = {
                     @Idx.Option(index = "2.1", pkg = @Pkg(label = "By Id", value = "id")),
                     @Idx.Option(index = "2.2", pkg = @Pkg(label = "By Key", value = "key"))
@@ -56,11 +78,27 @@ public class SetItemStatus {
             @Idx(index = "4", type = AttributeType.TEXT)
             @Pkg(label = "Step Workflow")
             @NotEmpty
-            String stepWorkflow
+            String stepWorkflow,
+
+            @Idx(index = "5", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Nothing", value = ItemProjection.MODE_NONE)),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Header only (no Item Data)", value = ItemProjection.MODE_HEADER)),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "Header and selected Item Data keys", value = ItemProjection.MODE_SELECTED)),
+                    @Idx.Option(index = "5.4", pkg = @Pkg(label = "Full item", value = ItemProjection.MODE_FULL))
+            })
+            @Pkg(label = "Return item", description = "Qué se relee del ítem después de la transición; Nothing evita las consultas extra",
+                    default_value = ItemProjection.MODE_FULL, default_value_type = DataType.STRING)
+            @SelectModes
+            String returnMode,
+
+            @Idx(index = "5.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Item Data keys", description = "Separadas por coma")
+            String returnKeys
     ) {
         try {
-            return AccessExecutor.executeWithConnection(filePath, conn -> {
-                WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            ItemProjection projection = toProjection(returnMode, returnKeys);
+            return AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+                dao.setTransitionReturn(projection);
                 WorkqueueItemDao.WorkItem item = null;
 
                 if ("id".equalsIgnoreCase(identifyBy)) {
@@ -75,6 +113,7 @@ public class SetItemStatus {
                 }
 
 
+                if (projection.isNone()) return new DictionaryValue(new LinkedHashMap<>());
                 if (item == null) {
                     // Por si el DAO pudiera retornar null (en nuestro refactor lanza excepción si no actualiza)
                     throw new BotCommandException("El ítem no existe o no se pudo actualizar el workflow.");
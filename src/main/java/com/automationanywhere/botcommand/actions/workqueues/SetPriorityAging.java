@@ -0,0 +1,92 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.BooleanValue;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.PriorityAging;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.*;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@BotCommand
+@CommandPkg(
+        label = "Set Priority Aging",
+        name = "workqueue_priority_aging",
+        description = "Configura el envejecimiento de prioridad: los items PENDING suben un nivel de Priority por cada intervalo de espera",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = false,
+        return_label = "Assign aging settings to"
+)
+public class SetPriorityAging {
+
+    @Execute
+    public DictionaryValue execute(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Minutes per priority level", description = "Minutos en Pending para subir un nivel; 0 = desactivado",
+                    default_value_type = DataType.NUMBER, default_value = "30")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double stepMinutes,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Priority floor", description = "Priority mínima a la que se llega por envejecimiento",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            Double floor
+    ) {
+        try {
+            PriorityAging aging = PriorityAging.of(stepMinutes == null ? 0 : stepMinutes.longValue() * 60L,
+                    floor == null ? 0 : floor.longValue());
+
+            // Se guarda en cada shard y se aplica un primer pase; después lo mantienen los claims
+            List<Integer> aged = AccessExecutor.executeEach(source, filePath, session, false, (shard, conn) -> {
+                PriorityAging.save(conn, aging);
+                if (!conn.getAutoCommit()) conn.commit();
+                return new WorkqueueItemDao(conn).agePendingPriorities();
+            });
+            long total = 0;
+            for (Integer n : aged) total += n;
+
+            Map<String, Value> dict = new LinkedHashMap<>();
+            dict.put("Enabled", new BooleanValue(aging.isEnabled()));
+            dict.put("StepSeconds", new NumberValue(BigDecimal.valueOf(aging.getStepSeconds())));
+            dict.put("Floor", new NumberValue(BigDecimal.valueOf(aging.getFloor())));
+            dict.put("ItemsAged", new NumberValue(BigDecimal.valueOf(total)));
+            return new DictionaryValue(dict);
+        } catch (Exception e) {
+            throw new BotCommandException("Set Priority Aging: " + e.getMessage(), e);
+        }
+    }
+}
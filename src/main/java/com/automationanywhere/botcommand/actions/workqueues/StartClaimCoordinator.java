@@ -0,0 +1,65 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimCoordinator;
+import com.automationanywhere.botcommand.utilities.workqueue.ConnectionProfile;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.math.BigDecimal;
+
+@BotCommand
+@CommandPkg(
+        label = "Start Claim Coordinator",
+        name = "workqueue_start_coordinator",
+        description = "Abre la workqueue en este bot y atiende los claims y transiciones de los demás bots de la máquina",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.NUMBER,
+        return_required = false,
+        return_label = "Assign port to"
+)
+public class StartClaimCoordinator {
+
+    @Execute
+    public NumberValue start(
+            @Idx(index = "1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Port", description = "Puerto en 127.0.0.1; 0 = uno libre (los bots lo leen de <archivo>.coordinator)",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double port,
+
+            @Idx(index = "3", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "In-memory mirror (default)", value = ConnectionProfile.MODE_MEMORY)),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Disk mirror (low memory)", value = ConnectionProfile.MODE_DISK)),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Persistent mirror", value = ConnectionProfile.MODE_MIRROR))
+            })
+            @Pkg(label = "Connection profile", default_value = ConnectionProfile.MODE_MEMORY, default_value_type = DataType.STRING)
+            @SelectModes
+            String profileMode,
+
+            @Idx(index = "3.3.1", type = AttributeType.TEXT)
+            @Pkg(label = "Mirror folder", description = "Se regenera si el archivo Access cambió desde el último cierre")
+            @NotEmpty
+            String mirrorDir
+    ) {
+        try {
+            ConnectionProfile profile = ConnectionProfile.of(profileMode, mirrorDir, null, null);
+            ClaimCoordinator coordinator = ClaimCoordinator.start(filePath, profile, port == null ? 0 : port.intValue());
+            return new NumberValue(BigDecimal.valueOf(coordinator.getPort()));
+        } catch (Exception e) {
+            throw new BotCommandException("Start Claim Coordinator: " + e.getMessage(), e);
+        }
+    }
+}
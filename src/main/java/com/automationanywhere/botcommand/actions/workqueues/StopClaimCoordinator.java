@@ -0,0 +1,28 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimCoordinator;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.model.AttributeType;
+
+@BotCommand
+@CommandPkg(
+        label = "Stop Claim Coordinator",
+        name = "workqueue_stop_coordinator",
+        description = "Detiene el coordinador de claims de este bot; los demás bots vuelven a abrir el archivo directamente",
+        group_label = "Workqueues",
+        icon = "workqueue.svg"
+)
+public class StopClaimCoordinator {
+
+    @Execute
+    public void stop(
+            @Idx(index = "1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath) {
+        if (!ClaimCoordinator.stop(filePath)) {
+            throw new BotCommandException("Stop Claim Coordinator: no hay un coordinador de claims en este bot para " + filePath);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.automationanywhere.botcommand.actions.workqueues;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimFilter;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimWaiter;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThan;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.annotations.rules.SessionObject;
+import com.automationanywhere.commandsdk.annotations.rules.SelectModes;
+import com.automationanywhere.commandsdk.model.AttributeType;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.Map;
+
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toClaimFilter;
+import static com.automationanywhere.botcommand.utilities.workqueue.Helpers.toDictionary;
+
+@BotCommand
+@CommandPkg(
+        label = "Wait For Next Item",
+        name = "workqueue_wait_next_item",
+        description = "Espera hasta que haya un ítem elegible (o venza el timeout) y lo pasa a 'Working'; duerme hasta el próximo Defer Until en vez de consultar en intervalos fijos",
+        group_label = "Workqueues",
+        icon = "workqueue.svg",
+        return_type = DataType.DICTIONARY,
+        return_required = true,
+        return_label = "Assign result to"
+)
+public class WaitForNextItem {
+
+    @Execute
+    public DictionaryValue get(
+            @Idx(index = "1", type = AttributeType.SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "File path", value = AccessExecutor.SOURCE_FILE)),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "Workqueue session", value = AccessExecutor.SOURCE_SESSION))
+            })
+            @Pkg(label = "Connect using", default_value = AccessExecutor.SOURCE_FILE, default_value_type = DataType.STRING)
+            @NotEmpty
+            @SelectModes
+            String source,
+
+            @Idx(index = "1.1.1", type = AttributeType.FILE)
+            @NotEmpty
+            @Pkg(label = "Path to file Access") String filePath,
+
+            @Idx(index = "1.2.1", type = AttributeType.SESSION)
+            @Pkg(label = "Workqueue session", default_value_type = DataType.SESSION, default_value = "Workqueue")
+            @NotEmpty
+            @SessionObject
+            WorkqueueSession session,
+
+            @Idx(index = "2", type = AttributeType.NUMBER)
+            @Pkg(label = "Timeout (seconds)", description = "0 = un solo intento",
+                    default_value_type = DataType.NUMBER, default_value = "60")
+            @NotEmpty
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double timeoutSeconds,
+
+            @Idx(index = "3", type = AttributeType.NUMBER)
+            @Pkg(label = "Min poll interval (ms)", default_value_type = DataType.NUMBER, default_value = "200")
+            @NumberInteger
+            @GreaterThan("0")
+            Double minPollMs,
+
+            @Idx(index = "4", type = AttributeType.NUMBER)
+            @Pkg(label = "Max poll interval (ms)", description = "Espera máxima entre consultas aunque el próximo Defer Until esté más lejos",
+                    default_value_type = DataType.NUMBER, default_value = "5000")
+            @NumberInteger
+            @GreaterThan("0")
+            Double maxPollMs,
+
+            @Idx(index = "5", type = AttributeType.NUMBER)
+            @Pkg(label = "Lease (seconds)", description = "0 = sin lease; vencido, el ítem vuelve a Pending",
+                    default_value_type = DataType.NUMBER, default_value = "0")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+            Double leaseSeconds,
+
+            @Idx(index = "6", type = AttributeType.BOOLEAN)
+            @Pkg(label = "Return expired leases to Pending before claiming", default_value_type = DataType.BOOLEAN, default_value = "true")
+            Boolean reclaimExpired,
+
+            @Idx(index = "7", type = AttributeType.TEXT)
+            @Pkg(label = "Only step workflow", description = "Vacío = cualquier [Step Workflow]")
+            String stepFilter,
+
+            @Idx(index = "8", type = AttributeType.NUMBER)
+            @Pkg(label = "Only status workflow", description = "Vacío = cualquier [Status Workflow]")
+            @NumberInteger
+            Double statusWfFilter,
+
+            @Idx(index = "9", type = AttributeType.DICTIONARY)
+            @Pkg(label = "Only items with data", description = "Pares Key=Value que el ítem debe tener en [Item Data]")
+            Map<String, Value> dataFilter
+    ) {
+        final ClaimFilter claimFilter = toClaimFilter(stepFilter, statusWfFilter, dataFilter);
+        long min = minPollMs == null ? ClaimWaiter.DEFAULT_MIN_POLL_MS : minPollMs.longValue();
+        long max = maxPollMs == null ? ClaimWaiter.DEFAULT_MAX_POLL_MS : Math.max(min, maxPollMs.longValue());
+        boolean reclaim = reclaimExpired == null || reclaimExpired;
+        try {
+            ClaimWaiter waiter = new ClaimWaiter(timeoutSeconds.longValue() * 1000L, min, max, reclaim);
+            // Cada intento toma y libera la conexión: la espera no retiene el archivo ni la sesión
+            ClaimWaiter.Result result = waiter.await(() -> AccessExecutor.executeClaimDao(source, filePath, session, dao -> {
+                if (leaseSeconds != null) dao.setLeaseSeconds(leaseSeconds.longValue());
+                dao.setReclaimExpiredOnClaim(reclaim);
+                dao.setClaimFilter(claimFilter);
+                return ClaimWaiter.attempt(dao);
+            }));
+            return toDictionary(result);
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BotCommandException("Wait For Next Item: espera interrumpida.", e);
+        } catch (Exception e) {
+            throw new BotCommandException("Wait For Next Item: " + e.getMessage(), e);
+        }
+    }
+}
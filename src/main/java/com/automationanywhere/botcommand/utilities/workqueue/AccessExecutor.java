@@ -1,23 +1,170 @@
 package com.automationanywhere.botcommand.utilities.workqueue;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class AccessExecutor {
 
-    private static final String DRIVER = "net.ucanaccess.jdbc.UcanaccessDriver";
+    // Origen de la conexión elegido en los comandos ("Connect using")
+    public static final String SOURCE_FILE    = "file";
+    public static final String SOURCE_SESSION = "session";
 
     public static <T> T executeWithConnection(String filePath, SqlFunction<Connection, T> action) {
+        return executeWithConnection(filePath, false, action);
+    }
+
+    /** Igual que {@link #executeWithConnection(String, SqlFunction)}; si se pide, crea el .accdb vacío. */
+    public static <T> T executeWithConnection(String filePath, boolean createIfMissing,
+                                              SqlFunction<Connection, T> action) {
+        // Si hay una sesión abierta sobre el mismo archivo, se reutiliza su conexión
+        WorkqueueSession session = WorkqueueSession.findOpen(filePath);
+        if (session != null) return executeWithSession(session, action);
+
+        try {
+            // Backend según la ubicación: .accdb/.mdb → UCanAccess, .hsqldb / hsql:// → HSQLDB
+            WorkqueueStore store = WorkqueueStores.forLocation(filePath);
+            T result;
+            Connection conn = store.openConnection(filePath, createIfMissing, ConnectionProfile.getDefault());
+            try {
+                result = action.apply(conn);
+            } finally {
+                conn.close();
+            }
+            store.released(conn); // solo si terminó bien: si no, el espejo persistente se regenera
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+        }
+    }
+
+    /** Ejecuta sobre la conexión persistente de la sesión; la conexión queda abierta. */
+    public static <T> T executeWithSession(WorkqueueSession session, SqlFunction<Connection, T> action) {
+        if (session == null) throw new IllegalArgumentException("Debe indicar la sesión de workqueue.");
+        try {
+            return session.execute(action);
+        } catch (Exception e) {
+            throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+        }
+    }
+
+    /** Resuelve el origen elegido en el comando: archivo (abre y cierra) o sesión (reutiliza). */
+    public static <T> T execute(String source, String filePath, WorkqueueSession session,
+                                SqlFunction<Connection, T> action) {
+        if (SOURCE_SESSION.equalsIgnoreCase(source)) return executeWithSession(session, action);
+        return executeWithConnection(filePath, action);
+    }
+
+    /**
+     * Ejecuta la acción con un DAO sobre el origen elegido. Si la ruta es un manifiesto de
+     * shards ({@link ShardManifest}) el DAO reparte entre los archivos; el comando no cambia.
+     */
+    public static <T> T executeDao(String source, String filePath, WorkqueueSession session,
+                                   SqlFunction<WorkqueueItemDao, T> action) {
+        if (SOURCE_SESSION.equalsIgnoreCase(source)) {
+            if (session == null) throw new IllegalArgumentException("Debe indicar la sesión de workqueue.");
+            try {
+                return session.executeDao(action);
+            } catch (Exception e) {
+                throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+            }
+        }
+        return executeDao(filePath, action);
+    }
+
+    /**
+     * Igual que {@link #executeDao(String, String, WorkqueueSession, SqlFunction)}, para los
+     * comandos del camino caliente (claim, transiciones, lease). Si no se eligió una sesión y
+     * no hay una abierta en este proceso, pero sí un {@link ClaimCoordinator} atendiendo el
+     * archivo, la acción recibe un {@link RemoteWorkqueueDao} y se ejecuta en el coordinador.
+     * Por eso la acción solo ve el {@link ClaimDao}.
+     */
+    public static <T> T executeClaimDao(String source, String filePath, WorkqueueSession session,
+                                        SqlFunction<ClaimDao, T> action) {
+        if (!SOURCE_SESSION.equalsIgnoreCase(source) && WorkqueueSession.findOpen(filePath) == null) {
+            try (RemoteWorkqueueDao remote = RemoteWorkqueueDao.connect(filePath)) {
+                if (remote != null) return action.apply(remote);
+            } catch (Exception e) {
+                throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+            }
+        }
+        return executeDao(source, filePath, session, dao -> action.apply(dao));
+    }
+
+    public static void executeVoidDao(String source, String filePath, WorkqueueSession session,
+                                      SqlConsumer<WorkqueueItemDao> action) {
+        executeDao(source, filePath, session, dao -> { action.accept(dao); return null; });
+    }
+
+    public static <T> T executeDao(String filePath, SqlFunction<WorkqueueItemDao, T> action) {
+        WorkqueueSession session = WorkqueueSession.findOpen(filePath);
+        if (session != null) return executeDao(SOURCE_SESSION, filePath, session, action);
+        if (!ShardManifest.isManifest(filePath))
+            return executeWithConnection(filePath, conn -> action.apply(new WorkqueueItemDao(conn)));
+
+        // Manifiesto sin sesión: se abren todos los shards para esta acción
+        List<Connection> conns = new ArrayList<>();
         try {
-            Class.forName(DRIVER);
-            String url = "jdbc:ucanaccess://" + filePath + ";immediatelyReleaseResources=true";
-            try (Connection conn = DriverManager.getConnection(url)) {
-                conn.setAutoCommit(true); // simplifica
-                return action.apply(conn);
+            ShardManifest manifest = ShardManifest.load(filePath);
+            ConnectionProfile profile = ConnectionProfile.getDefault();
+            for (String shard : manifest.getShards()) {
+                conns.add(WorkqueueStores.forLocation(shard).openConnection(shard, false, profile));
             }
+            return action.apply(new ShardedWorkqueueDao(manifest, conns));
+        } catch (Exception e) {
+            throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+        } finally {
+            for (Connection c : conns) {
+                try { c.close(); } catch (Exception ignore) { }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la acción sobre cada archivo físico del origen: el archivo mismo, o cada shard
+     * de un manifiesto (de a uno, abriendo y cerrando). Para tareas de mantenimiento
+     * (esquema, archivo) que trabajan sobre la conexión.
+     */
+    public static <T> List<T> executeEach(String source, String filePath, WorkqueueSession session,
+                                          boolean createIfMissing, ShardAction<T> action) {
+        try {
+            WorkqueueSession active = resolveSession(source, filePath, session);
+            if (SOURCE_SESSION.equalsIgnoreCase(source) && active == null)
+                throw new IllegalArgumentException("Debe indicar la sesión de workqueue.");
+            if (active != null) return active.executeEach(action);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Error ejecutando acción sobre Access: " + e.getMessage(), e);
+            throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
         }
+
+        List<String> locations;
+        if (ShardManifest.isManifest(filePath)) {
+            try {
+                locations = ShardManifest.load(filePath).getShards();
+            } catch (Exception e) {
+                throw new RuntimeException("Error ejecutando acción sobre la workqueue: " + e.getMessage(), e);
+            }
+        } else {
+            locations = Collections.singletonList(filePath);
+        }
+        List<T> results = new ArrayList<>();
+        for (String location : locations) {
+            results.add(executeWithConnection(location, createIfMissing, conn -> action.apply(location, conn)));
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    public interface ShardAction<T> {
+        T apply(String location, Connection conn) throws Exception;
+    }
+
+    /** Sesión que usará el comando: la indicada, o la abierta sobre el mismo archivo (o null). */
+    public static WorkqueueSession resolveSession(String source, String filePath, WorkqueueSession session) {
+        if (SOURCE_SESSION.equalsIgnoreCase(source)) return session;
+        return WorkqueueSession.findOpen(filePath);
     }
 
     @FunctionalInterface
@@ -29,6 +176,11 @@ public class AccessExecutor {
         executeWithConnection(filePath, conn -> { action.accept(conn); return null; });
     }
 
+    public static void executeVoid(String source, String filePath, WorkqueueSession session,
+                                   SqlConsumer<Connection> action) {
+        execute(source, filePath, session, conn -> { action.accept(conn); return null; });
+    }
+
     @FunctionalInterface
     public interface SqlConsumer<C> {
         void accept(C conn) throws Exception;
@@ -0,0 +1,95 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/** Backend MS Access vía UCanAccess (el dialecto del DAO es el nativo: sin traducción). */
+public class AccessWorkqueueStore implements WorkqueueStore {
+
+    public static final String NAME = "access";
+    private static final String DRIVER = "net.ucanaccess.jdbc.UcanaccessDriver";
+    private static final String URL_PREFIX = "jdbc:ucanaccess://";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean accepts(String location) {
+        if (location == null) return false;
+        String l = location.toLowerCase();
+        return l.endsWith(".accdb") || l.endsWith(".mdb");
+    }
+
+    @Override
+    public boolean owns(Connection conn) {
+        try {
+            return conn.getMetaData().getURL().startsWith(URL_PREFIX);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Conexiones abiertas con espejo persistente: al cerrarlas se registra el estado del .accdb
+    private static final Map<Connection, Runnable> MIRRORED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public Connection openConnection(String location, boolean createIfMissing) throws Exception {
+        return openConnection(location, createIfMissing, ConnectionProfile.getDefault());
+    }
+
+    @Override
+    public Connection openConnection(String location, boolean createIfMissing, ConnectionProfile profile) throws Exception {
+        Class.forName(DRIVER);
+        if (profile == null) profile = ConnectionProfile.DEFAULT;
+        String url = URL_PREFIX + location + ";immediatelyReleaseResources=true" + profile.urlOptions();
+        if (createIfMissing) url += ";newDatabaseVersion=V2010";
+
+        boolean mirror = profile.usesMirror() && Files.exists(Paths.get(location)) && profile.prepareMirror(location);
+        Connection conn;
+        if (mirror) {
+            try {
+                conn = DriverManager.getConnection(url + ";keepMirror=" + profile.mirrorBase(location));
+                final ConnectionProfile p = profile;
+                MIRRORED.put(conn, () -> p.recordMirror(location));
+            } catch (SQLException e) {
+                // Espejo en uso por otro proceso: se abre sin persistirlo
+                conn = DriverManager.getConnection(url);
+            }
+        } else {
+            conn = DriverManager.getConnection(url);
+        }
+        conn.setAutoCommit(true); // simplifica
+        return conn;
+    }
+
+    @Override
+    public String locationOf(Connection conn) {
+        try {
+            String url = conn.getMetaData().getURL();
+            if (url == null || !url.startsWith(URL_PREFIX)) return null;
+            int opts = url.indexOf(';');
+            return url.substring(URL_PREFIX.length(), opts < 0 ? url.length() : opts);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void released(Connection conn) {
+        Runnable record = MIRRORED.remove(conn);
+        if (record != null) record.run();
+    }
+
+    @Override
+    public String translate(String sql) {
+        return sql;
+    }
+}
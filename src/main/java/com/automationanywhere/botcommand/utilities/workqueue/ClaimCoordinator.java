@@ -0,0 +1,418 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinador local de claims: un solo proceso por máquina abre la workqueue (una
+ * {@link WorkqueueSession}, con su espejo y su caché de statements) y atiende por un socket
+ * en 127.0.0.1 los claims y transiciones de los demás bots. Los comandos lo usan solos
+ * ({@link AccessExecutor#executeClaimDao}) cuando encuentran el archivo de puerto
+ * {@code <archivo>.coordinator} y el coordinador responde; si no, abren la conexión como siempre.
+ * <p>
+ * Con N bots en la máquina queda un espejo en memoria en lugar de N, y los claims no compiten:
+ * la sesión serializa los pedidos, así que el UPDATE condicional no pierde carreras entre bots
+ * de la misma máquina. Otras máquinas siguen compitiendo sobre el .accdb como antes.
+ * <p>
+ * Se arranca con Start Claim Coordinator (vive lo que el proceso del bot) o como proceso aparte:
+ * {@code java -cp <paquete>.jar ...ClaimCoordinator <archivo> [puerto]}. Los contadores de
+ * {@link ClaimStats} quedan en el proceso del coordinador.
+ */
+public final class ClaimCoordinator implements AutoCloseable {
+
+    public static final String PORT_FILE_SUFFIX = ".coordinator";
+    public static final int CONNECT_TIMEOUT_MS = 500;
+
+    // Operaciones del protocolo
+    static final String OP_PING            = "ping";
+    static final String OP_CLAIM           = "claim";
+    static final String OP_CLAIM_BATCH     = "claimBatch";
+    static final String OP_TRANSITION      = "transition";
+    static final String OP_UPDATE_WORKFLOW = "updateWorkflow";
+    static final String OP_EXTEND_LEASE    = "extendLease";
+    static final String OP_RECLAIM         = "reclaim";
+    static final String OP_COUNT_ELIGIBLE  = "countEligible";
+    static final String OP_AVAILABILITY    = "availability";
+    static final String OP_TRANSITION_BATCH = "transitionBatch";
+
+    private static final String PROP_PORT  = "port";
+    private static final String PROP_TOKEN = "token";
+    private static final String PROP_PID   = "pid";
+
+    // Coordinadores de este proceso por archivo (ruta absoluta)
+    private static final Map<String, ClaimCoordinator> RUNNING = new ConcurrentHashMap<>();
+
+    /** Dónde escucha un coordinador, según su archivo de puerto. */
+    static final class Endpoint {
+        final int port;
+        final String token;
+
+        Endpoint(int port, String token) {
+            this.port = port;
+            this.token = token;
+        }
+    }
+
+    private final String filePath;
+    private final Path portFile;
+    private final WorkqueueSession session;
+    private final ServerSocket server;
+    private final String token;
+    private final ExecutorService handlers;
+    private final Thread acceptor;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private final AtomicLong requests = new AtomicLong();
+
+    private ClaimCoordinator(String filePath, ConnectionProfile profile, int port) throws Exception {
+        this.filePath = filePath;
+        this.portFile = portFileOf(filePath);
+        this.token = UUID.randomUUID().toString();
+        this.session = new WorkqueueSession(filePath, profile);
+        try {
+            this.server = new ServerSocket();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException e) {
+            session.close();
+            throw e;
+        }
+        this.handlers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "wq-coordinator-client");
+            t.setDaemon(true);
+            return t;
+        });
+        this.acceptor = new Thread(this::acceptLoop, "wq-coordinator-" + server.getLocalPort());
+        acceptor.setDaemon(true);
+    }
+
+    // ==========================================================
+    //                    ARRANQUE / PARADA
+    // ==========================================================
+    /**
+     * Abre la workqueue y empieza a atender en 127.0.0.1.
+     *
+     * @param port puerto fijo, o 0 para que el sistema elija uno libre (queda en el archivo de puerto)
+     */
+    public static ClaimCoordinator start(String filePath, ConnectionProfile profile, int port) throws Exception {
+        if (filePath == null || filePath.isBlank()) throw new IllegalArgumentException("Debe indicar la workqueue.");
+        String key = portFileOf(filePath).toString();
+        synchronized (RUNNING) {
+            ClaimCoordinator current = RUNNING.get(key);
+            if (current != null && !current.closed) return current;
+            if (isAlive(filePath))
+                throw new IOException("Ya hay un coordinador de claims atendiendo " + filePath + " en otro proceso.");
+            ClaimCoordinator c = new ClaimCoordinator(filePath, profile, port);
+            try {
+                c.writePortFile();
+            } catch (IOException e) {
+                c.close();
+                throw e;
+            }
+            c.acceptor.start();
+            RUNNING.put(key, c);
+            return c;
+        }
+    }
+
+    /** Coordinador de este proceso para el archivo, o null. */
+    public static ClaimCoordinator findRunning(String filePath) {
+        if (filePath == null) return null;
+        ClaimCoordinator c = RUNNING.get(portFileOf(filePath).toString());
+        return c == null || c.closed ? null : c;
+    }
+
+    /** Detiene el coordinador de este proceso para el archivo; false si no había. */
+    public static boolean stop(String filePath) {
+        ClaimCoordinator c = findRunning(filePath);
+        if (c == null) return false;
+        c.close();
+        return true;
+    }
+
+    /** Si hay un coordinador (de este u otro proceso) respondiendo para el archivo. */
+    public static boolean isAlive(String filePath) {
+        try (RemoteWorkqueueDao dao = RemoteWorkqueueDao.connect(filePath)) {
+            return dao != null && dao.ping();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        RUNNING.remove(portFile.toString(), this);
+        try {
+            server.close();
+        } catch (IOException ignore) {
+        }
+        for (Socket s : clients) closeQuietly(s);
+        handlers.shutdownNow();
+        try {
+            // Solo se borra si sigue siendo el nuestro (otro coordinador pudo reemplazarlo)
+            Endpoint ep = readPortFile(filePath);
+            if (ep != null && token.equals(ep.token)) Files.deleteIfExists(portFile);
+        } catch (IOException ignore) {
+        }
+        session.close();
+    }
+
+    public boolean isClosed() { return closed; }
+    public String getFilePath() { return filePath; }
+    public int getPort() { return server.getLocalPort(); }
+    public Path getPortFile() { return portFile; }
+    public long getRequests() { return requests.get(); }
+
+    // ==========================================================
+    //                     ARCHIVO DE PUERTO
+    // ==========================================================
+    static Path portFileOf(String filePath) {
+        return Paths.get(filePath + PORT_FILE_SUFFIX).toAbsolutePath().normalize();
+    }
+
+    /** Lee el archivo de puerto; null si no existe (no hay coordinador). */
+    static Endpoint readPortFile(String filePath) throws IOException {
+        Path p = portFileOf(filePath);
+        if (!Files.exists(p)) return null;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (NoSuchFileException e) {
+            return null; // el coordinador se detuvo entre el exists y la lectura
+        }
+        String port = props.getProperty(PROP_PORT);
+        String tk = props.getProperty(PROP_TOKEN);
+        if (port == null || tk == null) return null; // escritura a medias o archivo ajeno
+        try {
+            return new Endpoint(Integer.parseInt(port.trim()), tk.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Se escribe aparte y se mueve: un bot nunca lee un archivo a medias
+    private void writePortFile() throws IOException {
+        String content = "# Coordinador de claims de " + filePath + "\n" +
+                PROP_PORT + "=" + getPort() + "\n" +
+                PROP_TOKEN + "=" + token + "\n" +
+                PROP_PID + "=" + ProcessHandle.current().pid() + "\n";
+        Path tmp = portFile.resolveSibling(portFile.getFileName() + ".tmp");
+        Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, portFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ==========================================================
+    //                        ATENCIÓN
+    // ==========================================================
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                clients.add(s);
+                handlers.execute(() -> serve(s));
+            } catch (SocketException e) {
+                if (!closed) e.printStackTrace();
+                return; // server.close()
+            } catch (IOException e) {
+                if (!closed) e.printStackTrace();
+            }
+        }
+    }
+
+    // Una conexión por comando del bot; puede traer varios pedidos (p.ej. claim + disponibilidad)
+    private void serve(Socket s) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (!closed) {
+                Map<String, String> request;
+                try {
+                    request = CoordinatorWire.readRequest(in);
+                } catch (EOFException e) {
+                    return; // el bot cerró
+                }
+                if (request == null || !token.equals(request.get(PROP_TOKEN))) {
+                    CoordinatorWire.writeError(out, "Token inválido.");
+                    return;
+                }
+                CoordinatorWire.Response response;
+                try {
+                    response = session.executeDao(dao -> handle(dao, request));
+                    requests.incrementAndGet();
+                } catch (Exception e) {
+                    CoordinatorWire.writeError(out, e.getMessage());
+                    continue;
+                }
+                CoordinatorWire.writeResponse(out, response);
+            }
+        } catch (IOException e) {
+            // conexión cortada por el bot o por close()
+        } finally {
+            clients.remove(s);
+            closeQuietly(s);
+        }
+    }
+
+    // Corre dentro de la sesión (synchronized): un pedido a la vez sobre la conexión
+    private static CoordinatorWire.Response handle(WorkqueueItemDao dao, Map<String, String> r) throws SQLException {
+        configure(dao, r);
+        String op = r.get("op");
+        if (op == null) throw new SQLException("Pedido sin operación.");
+        Map<String, String> values = new LinkedHashMap<>();
+        switch (op) {
+            case OP_PING:
+                return CoordinatorWire.Response.of(values);
+            case OP_CLAIM:
+                // Sin política de reintento: acá los claims ya van de a uno y no pierden carreras
+                // entre bots de la máquina, y un backoff dormiría con la sesión tomada para todos
+                return single(dao.takeNextPendingAndSetWorking());
+            case OP_CLAIM_BATCH:
+                return CoordinatorWire.Response.ofItems(dao.takeNextPendingBatchAndSetWorking(Integer.parseInt(r.get("max"))));
+            case OP_TRANSITION:
+                return single(transition(dao, r));
+            case OP_UPDATE_WORKFLOW: {
+                Long status = longOrNull(r.get("statusWf"));
+                String step = r.get("stepWf");
+                return single(byId(r)
+                        ? dao.updateWorkflowById(Long.parseLong(r.get("id")), status, step)
+                        : dao.updateWorkflowByKey(r.get("key"), status, step));
+            }
+            case OP_EXTEND_LEASE: {
+                long seconds = Long.parseLong(r.get("seconds"));
+                Timestamp until = byId(r)
+                        ? dao.extendLeaseById(Long.parseLong(r.get("id")), seconds)
+                        : dao.extendLeaseByKey(r.get("key"), seconds);
+                if (until != null) values.put("until", String.valueOf(until.getTime()));
+                return CoordinatorWire.Response.of(values);
+            }
+            case OP_RECLAIM:
+                values.put("count", String.valueOf(dao.reclaimExpiredLeases()));
+                return CoordinatorWire.Response.of(values);
+            case OP_COUNT_ELIGIBLE:
+                values.put("count", String.valueOf(dao.countEligiblePending()));
+                return CoordinatorWire.Response.of(values);
+            case OP_AVAILABILITY: {
+                WorkqueueItemDao.Availability av = dao.pendingAvailability();
+                values.put("eligible", String.valueOf(av.eligible));
+                values.put("deferred", String.valueOf(av.deferred));
+                if (av.nextDeferUntil != null) values.put("nextDeferUntil", String.valueOf(av.nextDeferUntil.getTime()));
+                if (av.nextLeaseExpiry != null) values.put("nextLeaseExpiry", String.valueOf(av.nextLeaseExpiry.getTime()));
+                return CoordinatorWire.Response.of(values);
+            }
+            case OP_TRANSITION_BATCH: {
+                int n = Integer.parseInt(r.get("count"));
+                List<String> ids = new ArrayList<>(n);
+                List<Timestamp> claimed = r.containsKey("claimed.0") ? new ArrayList<>(n) : null;
+                for (int i = 0; i < n; i++) {
+                    ids.add(r.get("id." + i));
+                    if (claimed != null) claimed.add(Timestamp.from(Instant.parse(r.get("claimed." + i))));
+                }
+                List<WorkqueueItemDao.TransitionResult> results = dao.transitionBatch(
+                        ItemTransition.valueOf(r.get("transition")), ItemIdentifierType.valueOf(r.get("by")),
+                        ids, claimed, r.get("reason"), timestampOrNull(r.get("until")));
+                values.put("count", String.valueOf(results.size()));
+                for (int i = 0; i < results.size(); i++) {
+                    WorkqueueItemDao.TransitionResult tr = results.get(i);
+                    values.put("id." + i, tr.identifier);
+                    values.put("outcome." + i, tr.outcome.name());
+                    if (tr.status != null) values.put("status." + i, tr.status);
+                }
+                return CoordinatorWire.Response.of(values);
+            }
+            default:
+                throw new SQLException("Operación no soportada por el coordinador: " + op);
+        }
+    }
+
+    // Parámetros del DAO del bot que se repiten en cada pedido
+    private static void configure(WorkqueueItemDao dao, Map<String, String> r) {
+        if (r.containsKey("actor")) dao.setActor(r.get("actor"));
+        if (r.containsKey("lease")) dao.setLeaseSeconds(Long.parseLong(r.get("lease")));
+        if (r.containsKey("reclaim")) dao.setReclaimExpiredOnClaim(Boolean.parseBoolean(r.get("reclaim")));
+        Map<String, String> data = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : r.entrySet()) {
+            if (e.getKey().startsWith("filter.data.")) data.put(e.getKey().substring("filter.data.".length()), e.getValue());
+        }
+        dao.setClaimFilter(ClaimFilter.of(r.get("filter.step"), longOrNull(r.get("filter.status")), data));
+        if (r.containsKey("return")) {
+            String keys = r.get("return.keys");
+            dao.setTransitionReturn(ItemProjection.of(r.get("return"),
+                    keys == null || keys.isEmpty() ? null : Arrays.asList(keys.split("\n"))));
+        }
+    }
+
+    private static WorkqueueItemDao.WorkItem transition(WorkqueueItemDao dao, Map<String, String> r) throws SQLException {
+        ItemTransition t = ItemTransition.valueOf(r.get("transition"));
+        boolean id = byId(r);
+        long itemId = id ? Long.parseLong(r.get("id")) : 0;
+        String key = r.get("key");
+        switch (t) {
+            case COMPLETE:
+                return id ? dao.completeFromWorkingById(itemId) : dao.completeFromWorkingByKey(key);
+            case EXCEPTION:
+                return id ? dao.exceptionFromWorkingById(itemId, r.get("reason")) : dao.exceptionFromWorkingByKey(key, r.get("reason"));
+            case DEFER: {
+                Timestamp until = timestampOrNull(r.get("until"));
+                return id ? dao.deferFromWorkingById(itemId, until) : dao.deferFromWorkingByKey(key, until);
+            }
+            case RELEASE:
+                return id ? dao.releaseFromWorkingById(itemId) : dao.releaseFromWorkingByKey(key);
+            default:
+                throw new SQLException("Transición no soportada: " + t);
+        }
+    }
+
+    private static CoordinatorWire.Response single(WorkqueueItemDao.WorkItem item) {
+        return CoordinatorWire.Response.ofItems(item == null
+                ? Collections.emptyList() : Collections.singletonList(item));
+    }
+
+    private static boolean byId(Map<String, String> r) {
+        return ItemIdentifierType.ID.name().equals(r.get("by"));
+    }
+
+    private static Long longOrNull(String s) {
+        return s == null ? null : Long.valueOf(s);
+    }
+
+    private static Timestamp timestampOrNull(String s) {
+        return s == null ? null : new Timestamp(Long.parseLong(s));
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    // ==========================================================
+    //                     PROCESO APARTE
+    // ==========================================================
+    /** {@code ClaimCoordinator <archivo> [puerto]}: atiende hasta que se corta el proceso. */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: ClaimCoordinator <archivo de workqueue> [puerto]");
+            System.exit(2);
+        }
+        ClaimCoordinator c = start(args[0], ConnectionProfile.getDefault(), args.length > 1 ? Integer.parseInt(args[1]) : 0);
+        Runtime.getRuntime().addShutdownHook(new Thread(c::close, "wq-coordinator-shutdown"));
+        System.out.println("Coordinador de claims de " + args[0] + " en 127.0.0.1:" + c.getPort());
+        c.acceptor.join();
+    }
+}
@@ -0,0 +1,91 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.Availability;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.TransitionResult;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.WorkItem;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Camino caliente de la workqueue: claims, leases, transiciones y disponibilidad, con la
+ * configuración que los acompaña (lease, filtro de etapa, retorno, actor).
+ * <p>
+ * Es lo que reciben los comandos vía {@link AccessExecutor#executeClaimDao}: lo implementa
+ * {@link WorkqueueItemDao} sobre una conexión y {@link RemoteWorkqueueDao} enviando cada
+ * operación al {@link ClaimCoordinator}. El resto de las operaciones solo existe en el DAO.
+ */
+public interface ClaimDao {
+
+    // ---------- Configuración ----------
+    void setLeaseSeconds(long leaseSeconds);
+
+    long getLeaseSeconds();
+
+    void setReclaimExpiredOnClaim(boolean reclaimExpiredOnClaim);
+
+    boolean isReclaimExpiredOnClaim();
+
+    void setClaimFilter(ClaimFilter filter);
+
+    ClaimFilter getClaimFilter();
+
+    void setTransitionReturn(ItemProjection projection);
+
+    ItemProjection getTransitionReturn();
+
+    void setActor(String actor);
+
+    String getActor();
+
+    // ---------- Claim ----------
+    WorkItem takeNextPendingAndSetWorking() throws SQLException;
+
+    WorkItem takeNextPendingAndSetWorking(ClaimRetryPolicy policy) throws SQLException;
+
+    List<WorkItem> takeNextPendingBatchAndSetWorking(int maxItems) throws SQLException;
+
+    int reclaimExpiredLeases() throws SQLException;
+
+    long countEligiblePending() throws SQLException;
+
+    Availability pendingAvailability() throws SQLException;
+
+    // ---------- Lease ----------
+    Timestamp extendLeaseById(long id, long seconds) throws SQLException;
+
+    Timestamp extendLeaseByKey(String key, long seconds) throws SQLException;
+
+    // ---------- Transiciones ----------
+    WorkItem completeFromWorkingByKey(String key) throws SQLException;
+
+    WorkItem completeFromWorkingById(long itemId) throws SQLException;
+
+    WorkItem exceptionFromWorkingByKey(String key, String reason) throws SQLException;
+
+    WorkItem exceptionFromWorkingById(long itemId, String reason) throws SQLException;
+
+    WorkItem deferFromWorkingByKey(String key, Timestamp deferUntil) throws SQLException;
+
+    WorkItem deferFromWorkingById(long itemId, Timestamp deferUntil) throws SQLException;
+
+    WorkItem releaseFromWorkingByKey(String key) throws SQLException;
+
+    WorkItem releaseFromWorkingById(long itemId) throws SQLException;
+
+    WorkItem updateWorkflowById(long id, Long statusWf, String stepWf) throws SQLException;
+
+    WorkItem updateWorkflowByKey(String key, Long statusWf, String stepWf) throws SQLException;
+
+    /** Transición en lote sin ligar al claim (ver la variante con {@code claimedAt}). */
+    default List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                                   List<String> identifiers, String reason,
+                                                   Timestamp deferUntil) throws SQLException {
+        return transitionBatch(transition, by, identifiers, null, reason, deferUntil);
+    }
+
+    List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                           List<String> identifiers, List<Timestamp> claimedAt,
+                                           String reason, Timestamp deferUntil) throws SQLException;
+}
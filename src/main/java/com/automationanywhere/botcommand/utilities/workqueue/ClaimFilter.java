@@ -0,0 +1,60 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Filtro de etapa para el claim: cada bot de un pipeline toma solo los Pending de su
+ * [Step Workflow] / [Status Workflow] y, opcionalmente, con ciertos pares Key=Value en
+ * [Item Data]. Los criterios nulos o vacíos no filtran.
+ */
+public final class ClaimFilter {
+
+    public static final ClaimFilter NONE = new ClaimFilter(null, null, null);
+
+    private final String stepWorkflow;
+    private final Long statusWorkflow;
+    private final Map<String, String> itemData;
+
+    private ClaimFilter(String stepWorkflow, Long statusWorkflow, Map<String, String> itemData) {
+        this.stepWorkflow = stepWorkflow;
+        this.statusWorkflow = statusWorkflow;
+        this.itemData = itemData == null ? Collections.emptyMap() : Collections.unmodifiableMap(itemData);
+    }
+
+    /**
+     * @param stepWorkflow   valor exacto de [Step Workflow] (null o vacío = cualquiera)
+     * @param statusWorkflow valor de [Status Workflow] (null = cualquiera)
+     * @param itemData       pares Key=Value que el ítem debe tener en [Item Data] (null = sin filtro)
+     */
+    public static ClaimFilter of(String stepWorkflow, Long statusWorkflow, Map<String, String> itemData) {
+        String step = stepWorkflow == null || stepWorkflow.trim().isEmpty() ? null : stepWorkflow.trim();
+        Map<String, String> data = new LinkedHashMap<>();
+        if (itemData != null) {
+            itemData.forEach((k, v) -> {
+                if (k != null && !k.trim().isEmpty()) data.put(k.trim(), v == null ? "" : v);
+            });
+        }
+        if (step == null && statusWorkflow == null && data.isEmpty()) return NONE;
+        return new ClaimFilter(step, statusWorkflow, data);
+    }
+
+    public String getStepWorkflow() { return stepWorkflow; }
+    public Long getStatusWorkflow() { return statusWorkflow; }
+    public Map<String, String> getItemData() { return itemData; }
+
+    public boolean isEmpty() {
+        return stepWorkflow == null && statusWorkflow == null && itemData.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) return "(sin filtro)";
+        StringBuilder sb = new StringBuilder();
+        if (stepWorkflow != null) sb.append("Step=").append(stepWorkflow).append(' ');
+        if (statusWorkflow != null) sb.append("StatusWf=").append(statusWorkflow).append(' ');
+        if (!itemData.isEmpty()) sb.append("Data=").append(itemData);
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,59 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Parámetros del claim con reintento: intentos máximos, candidatos por SELECT y
+ * backoff exponencial con "full jitter" (espera aleatoria entre 0 y base * 2^(intento-1)).
+ */
+public class ClaimRetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_BASE_BACKOFF_MS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 2000;
+    public static final int DEFAULT_CANDIDATES_PER_ATTEMPT = 5;
+
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final int candidatesPerAttempt;
+
+    public ClaimRetryPolicy(int maxAttempts, long baseBackoffMs, long maxBackoffMs, int candidatesPerAttempt) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("Los intentos deben ser al menos 1.");
+        if (baseBackoffMs < 0 || maxBackoffMs < baseBackoffMs)
+            throw new IllegalArgumentException("Backoff inválido: base=" + baseBackoffMs + " max=" + maxBackoffMs);
+        if (candidatesPerAttempt < 1) throw new IllegalArgumentException("Los candidatos por intento deben ser al menos 1.");
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.candidatesPerAttempt = candidatesPerAttempt;
+    }
+
+    public static ClaimRetryPolicy defaults() {
+        return new ClaimRetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS,
+                DEFAULT_CANDIDATES_PER_ATTEMPT);
+    }
+
+    /** Espera antes del intento {@code attempt + 1} (attempt empieza en 1). */
+    public long backoffMillis(int attempt) {
+        long cap = baseBackoffMs << Math.min(attempt - 1, 20);
+        if (cap <= 0 || cap > maxBackoffMs) cap = maxBackoffMs;
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseBackoffMs() {
+        return baseBackoffMs;
+    }
+
+    public long getMaxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    public int getCandidatesPerAttempt() {
+        return candidatesPerAttempt;
+    }
+}
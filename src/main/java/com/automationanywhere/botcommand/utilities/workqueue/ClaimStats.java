@@ -0,0 +1,62 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Contadores de claims del proceso (todas las sesiones y archivos). */
+public final class ClaimStats {
+
+    private static final AtomicLong CLAIMS     = new AtomicLong();
+    private static final AtomicLong LOST_RACES = new AtomicLong();
+    private static final AtomicLong RETRIES    = new AtomicLong();
+    private static final AtomicLong EMPTY      = new AtomicLong();
+    private static final AtomicLong EXHAUSTED  = new AtomicLong();
+    private static final AtomicLong RECLAIMED  = new AtomicLong();
+
+    private ClaimStats() { }
+
+    static void recordClaim()     { CLAIMS.incrementAndGet(); }
+    static void recordLostRace()  { LOST_RACES.incrementAndGet(); }
+    static void recordRetry()     { RETRIES.incrementAndGet(); }
+    static void recordEmpty()     { EMPTY.incrementAndGet(); }
+    static void recordExhausted() { EXHAUSTED.incrementAndGet(); }
+    static void recordLeasesReclaimed(long n) { RECLAIMED.addAndGet(n); }
+
+    public static long getClaims()    { return CLAIMS.get(); }
+    public static long getLostRaces() { return LOST_RACES.get(); }
+    public static long getRetries()   { return RETRIES.get(); }
+    public static long getEmpty()     { return EMPTY.get(); }
+    public static long getExhausted() { return EXHAUSTED.get(); }
+    public static long getLeasesReclaimed() { return RECLAIMED.get(); }
+
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("Claims", CLAIMS.get());
+        m.put("LostRaces", LOST_RACES.get());
+        m.put("Retries", RETRIES.get());
+        m.put("EmptyQueue", EMPTY.get());
+        m.put("AttemptsExhausted", EXHAUSTED.get());
+        m.put("LeasesReclaimed", RECLAIMED.get());
+        return m;
+    }
+
+    /**
+     * Lee y pone en cero cada contador en un solo paso ({@code getAndSet}): un claim que se
+     * registra mientras tanto queda en esta lectura o en la siguiente, nunca se pierde.
+     */
+    public static Map<String, Long> snapshotAndReset() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("Claims", CLAIMS.getAndSet(0));
+        m.put("LostRaces", LOST_RACES.getAndSet(0));
+        m.put("Retries", RETRIES.getAndSet(0));
+        m.put("EmptyQueue", EMPTY.getAndSet(0));
+        m.put("AttemptsExhausted", EXHAUSTED.getAndSet(0));
+        m.put("LeasesReclaimed", RECLAIMED.getAndSet(0));
+        return m;
+    }
+
+    public static void reset() {
+        snapshotAndReset();
+    }
+}
@@ -0,0 +1,147 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Claim bloqueante (long-poll): intenta tomar un ítem y, si no hay elegibles, duerme según
+ * lo que la cola indica en vez de un intervalo fijo:
+ * <ul>
+ *   <li>hay elegibles pero se perdió la carrera: reintento corto con jitter;</li>
+ *   <li>hay diferidos o leases por vencer: duerme hasta el próximo vencimiento (acotado por el
+ *       poll máximo, para no perder ítems nuevos de otros bots);</li>
+ *   <li>cola vacía: poll que se duplica desde el mínimo hasta el máximo.</li>
+ * </ul>
+ * Cada intento abre y libera la conexión (o la sesión) por separado: mientras duerme no
+ * retiene el archivo ni el lock de la sesión.
+ */
+public class ClaimWaiter {
+
+    public static final String WAKE_IMMEDIATE     = "immediate";      // había trabajo en el primer intento
+    public static final String WAKE_DEFER_DUE     = "defer-due";      // venció un Defer Until
+    public static final String WAKE_LEASE_EXPIRED = "lease-expired";  // venció un lease y el ítem volvió a Pending
+    public static final String WAKE_NEW_WORK      = "new-work";       // llegó trabajo nuevo durante la espera
+    public static final String WAKE_TIMEOUT       = "timeout";
+
+    public static final long DEFAULT_MIN_POLL_MS = 200;
+    public static final long DEFAULT_MAX_POLL_MS = 5000;
+
+    // Margen sobre el vencimiento: Access guarda DATETIME al segundo
+    private static final long DUE_MARGIN_MS = 50;
+
+    /** Un intento: claim y, si no tomó nada, la foto de disponibilidad para calcular la espera. */
+    public interface Probe {
+        Attempt attempt() throws Exception;
+    }
+
+    public static final class Attempt {
+        public final WorkqueueItemDao.WorkItem item;
+        public final WorkqueueItemDao.Availability availability;
+
+        public Attempt(WorkqueueItemDao.WorkItem item, WorkqueueItemDao.Availability availability) {
+            this.item = item;
+            this.availability = availability;
+        }
+    }
+
+    public static final class Result {
+        public final WorkqueueItemDao.WorkItem item;       // null si venció el timeout
+        public final String wakeReason;
+        public final long waitedMillis;
+        public final int polls;
+        public final WorkqueueItemDao.Availability lastAvailability; // null si se tomó en el primer intento
+
+        Result(WorkqueueItemDao.WorkItem item, String wakeReason, long waitedMillis, int polls,
+               WorkqueueItemDao.Availability lastAvailability) {
+            this.item = item;
+            this.wakeReason = wakeReason;
+            this.waitedMillis = waitedMillis;
+            this.polls = polls;
+            this.lastAvailability = lastAvailability;
+        }
+    }
+
+    private final long timeoutMs;
+    private final long minPollMs;
+    private final long maxPollMs;
+    private final boolean reclaimExpired;
+
+    /**
+     * @param timeoutMs      espera máxima (0 = un solo intento, como Get Next Item)
+     * @param minPollMs      espera mínima entre intentos
+     * @param maxPollMs      espera máxima entre intentos
+     * @param reclaimExpired si el claim devuelve a Pending los leases vencidos (entonces un lease
+     *                       por vencer también es un motivo para despertar)
+     */
+    public ClaimWaiter(long timeoutMs, long minPollMs, long maxPollMs, boolean reclaimExpired) {
+        if (timeoutMs < 0) throw new IllegalArgumentException("El timeout no puede ser negativo.");
+        if (minPollMs < 1 || maxPollMs < minPollMs)
+            throw new IllegalArgumentException("Poll inválido: min=" + minPollMs + " max=" + maxPollMs);
+        this.timeoutMs = timeoutMs;
+        this.minPollMs = minPollMs;
+        this.maxPollMs = maxPollMs;
+        this.reclaimExpired = reclaimExpired;
+    }
+
+    /** Intento estándar sobre un DAO: claim simple y, si no hubo ítem, disponibilidad. */
+    public static Attempt attempt(ClaimDao dao) throws SQLException {
+        WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+        return new Attempt(item, item == null ? dao.pendingAvailability() : null);
+    }
+
+    public Result await(Probe probe) throws Exception {
+        final long start = System.currentTimeMillis();
+        final long deadline = start + timeoutMs;
+        long idlePoll = minPollMs;
+        String waitingFor = null;
+        int polls = 0;
+
+        while (true) {
+            Attempt a = probe.attempt();
+            polls++;
+            long now = System.currentTimeMillis();
+            if (a.item != null) {
+                String reason = waitingFor == null ? WAKE_IMMEDIATE : waitingFor;
+                return new Result(a.item, reason, now - start, polls, a.availability);
+            }
+            if (now >= deadline)
+                return new Result(null, WAKE_TIMEOUT, now - start, polls, a.availability);
+
+            WorkqueueItemDao.Availability av = a.availability;
+            long sleep;
+            if (av != null && av.eligible > 0) {
+                // Elegibles pero otro bot ganó el UPDATE: reintento corto
+                sleep = minPollMs + ThreadLocalRandom.current().nextLong(minPollMs + 1);
+                waitingFor = WAKE_NEW_WORK;
+            } else {
+                Timestamp due = nextDue(av);
+                if (due != null) {
+                    sleep = clamp(due.getTime() - now + DUE_MARGIN_MS);
+                    waitingFor = av != null && due == av.nextDeferUntil ? WAKE_DEFER_DUE : WAKE_LEASE_EXPIRED;
+                    // Si el vencimiento queda más lejos que el poll máximo, lo que despierte antes es trabajo nuevo
+                    if (due.getTime() - now + DUE_MARGIN_MS > maxPollMs) waitingFor = WAKE_NEW_WORK;
+                    idlePoll = minPollMs;
+                } else {
+                    sleep = idlePoll;
+                    idlePoll = Math.min(maxPollMs, idlePoll * 2);
+                    waitingFor = WAKE_NEW_WORK;
+                }
+            }
+            Thread.sleep(Math.max(1, Math.min(sleep, deadline - now)));
+        }
+    }
+
+    private Timestamp nextDue(WorkqueueItemDao.Availability av) {
+        if (av == null) return null;
+        Timestamp defer = av.nextDeferUntil;
+        Timestamp lease = reclaimExpired ? av.nextLeaseExpiry : null;
+        if (defer == null) return lease;
+        if (lease == null) return defer;
+        return lease.before(defer) ? lease : defer;
+    }
+
+    private long clamp(long ms) {
+        return Math.max(minPollMs, Math.min(maxPollMs, ms));
+    }
+}
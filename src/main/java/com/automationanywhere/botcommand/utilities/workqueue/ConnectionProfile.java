@@ -0,0 +1,184 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Opciones de apertura de UCanAccess. Cada apertura copia el .accdb a un espejo HSQLDB;
+ * el perfil decide dónde vive ese espejo y cuánto se carga:
+ * <ul>
+ *   <li>{@link #MODE_MEMORY}: espejo en heap (comportamiento histórico, el más rápido por consulta).</li>
+ *   <li>{@link #MODE_DISK}: {@code memory=false}, espejo en archivos temporales; baja el heap por bot.</li>
+ *   <li>{@link #MODE_MIRROR}: {@code keepMirror}, espejo persistente en una carpeta que se reutiliza
+ *       entre aperturas mientras el .accdb no cambie fuera de él.</li>
+ * </ul>
+ * {@code skipIndexes} ahorra memoria pero el espejo queda sin los índices simples (el claim
+ * vuelve a recorrer la tabla); {@code lobScale} ajusta el bloque de MEMO/OLE en KB.
+ * Otros backends ignoran el perfil.
+ */
+public final class ConnectionProfile {
+
+    public static final String MODE_MEMORY = "memory";
+    public static final String MODE_DISK   = "disk";
+    public static final String MODE_MIRROR = "mirror";
+
+    private static final List<Integer> LOB_SCALES = Arrays.asList(1, 2, 4, 8, 16, 32);
+
+    public static final ConnectionProfile DEFAULT = new ConnectionProfile(MODE_MEMORY, null, false, null);
+
+    // Perfil de las aperturas por ruta de archivo (las sesiones indican el suyo)
+    private static volatile ConnectionProfile processDefault = DEFAULT;
+
+    private final String mode;
+    private final String mirrorDir;
+    private final boolean skipIndexes;
+    private final Integer lobScale;
+
+    private ConnectionProfile(String mode, String mirrorDir, boolean skipIndexes, Integer lobScale) {
+        this.mode = mode;
+        this.mirrorDir = mirrorDir;
+        this.skipIndexes = skipIndexes;
+        this.lobScale = lobScale;
+    }
+
+    /**
+     * @param mode        {@link #MODE_MEMORY}, {@link #MODE_DISK} o {@link #MODE_MIRROR} (null = memory)
+     * @param mirrorDir   carpeta del espejo persistente (obligatoria en modo mirror)
+     * @param skipIndexes no crear en el espejo los índices simples
+     * @param lobScale    1, 2, 4, 8, 16 o 32 KB (null = valor del driver)
+     */
+    public static ConnectionProfile of(String mode, String mirrorDir, Boolean skipIndexes, Integer lobScale) {
+        String m = mode == null || mode.trim().isEmpty() ? MODE_MEMORY : mode.trim().toLowerCase();
+        if (!m.equals(MODE_MEMORY) && !m.equals(MODE_DISK) && !m.equals(MODE_MIRROR))
+            throw new IllegalArgumentException("Perfil de conexión no soportado: " + mode);
+        if (m.equals(MODE_MIRROR) && (mirrorDir == null || mirrorDir.trim().isEmpty()))
+            throw new IllegalArgumentException("El perfil 'mirror' requiere la carpeta del espejo.");
+        if (lobScale != null && !LOB_SCALES.contains(lobScale))
+            throw new IllegalArgumentException("lobScale debe ser uno de " + LOB_SCALES + ": " + lobScale);
+        return new ConnectionProfile(m, m.equals(MODE_MIRROR) ? mirrorDir.trim() : null,
+                skipIndexes != null && skipIndexes, lobScale);
+    }
+
+    public static ConnectionProfile getDefault() {
+        return processDefault;
+    }
+
+    public static void setDefault(ConnectionProfile profile) {
+        processDefault = profile == null ? DEFAULT : profile;
+    }
+
+    public String getMode() { return mode; }
+    public String getMirrorDir() { return mirrorDir; }
+    public boolean isSkipIndexes() { return skipIndexes; }
+    public Integer getLobScale() { return lobScale; }
+
+    public boolean usesMirror() {
+        return MODE_MIRROR.equals(mode);
+    }
+
+    /** Opciones de URL de UCanAccess del perfil (sin el espejo persistente, que depende del archivo). */
+    String urlOptions() {
+        StringBuilder sb = new StringBuilder();
+        if (!MODE_MEMORY.equals(mode)) sb.append(";memory=false");
+        if (skipIndexes) sb.append(";skipIndexes=true");
+        if (lobScale != null) sb.append(";lobScale=").append(lobScale);
+        return sb.toString();
+    }
+
+    // ==========================================================
+    //                ESPEJO PERSISTENTE (keepMirror)
+    // ==========================================================
+    /** Prefijo de los archivos HSQLDB del espejo: uno por .accdb (nombre + hash de la ruta absoluta). */
+    Path mirrorBase(String location) {
+        Path abs = Paths.get(location).toAbsolutePath().normalize();
+        String name = abs.getFileName().toString().replaceAll("[^A-Za-z0-9_-]", "_");
+        String hash = Integer.toHexString(abs.toString().toLowerCase().hashCode());
+        return Paths.get(mirrorDir).toAbsolutePath().resolve(name + "_" + hash);
+    }
+
+    /**
+     * Deja el espejo listo para abrir: si el .accdb cambió desde el último cierre registrado
+     * (otro bot, Access, una copia) o no hay registro, borra el espejo para que se regenere.
+     * Devuelve false si no se pudo invalidar (p. ej. lo tiene abierto otro proceso).
+     */
+    boolean prepareMirror(String location) {
+        Path base = mirrorBase(location);
+        try {
+            Files.createDirectories(base.getParent());
+            Path stamp = stampFile(base);
+            String current = fileStamp(location);
+            if (Files.exists(stamp) && current.equals(new String(Files.readAllBytes(stamp), StandardCharsets.UTF_8)))
+                return true;
+            Files.deleteIfExists(stamp);
+            deleteMirrorFiles(base);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Registra el estado del .accdb al cerrar: el espejo quedó sincronizado con él. */
+    void recordMirror(String location) {
+        Path base = mirrorBase(location);
+        try {
+            Files.write(stampFile(base), fileStamp(location).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // sin registro la próxima apertura regenera el espejo
+        }
+    }
+
+    private static Path stampFile(Path base) {
+        return base.resolveSibling(base.getFileName() + ".stamp");
+    }
+
+    private static String fileStamp(String location) throws IOException {
+        Path p = Paths.get(location);
+        return Files.size(p) + ":" + Files.getLastModifiedTime(p).toMillis();
+    }
+
+    // HSQLDB guarda el espejo como <base>.script/.properties/.data/.log/.lobs y <base>.tmp/
+    private static void deleteMirrorFiles(Path base) throws IOException {
+        String prefix = base.getFileName() + ".";
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(base.getParent(), prefix + "*")) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().endsWith(".stamp")) continue;
+                if (Files.isDirectory(p)) {
+                    try (Stream<Path> walk = Files.walk(p)) {
+                        for (Path q : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) Files.delete(q);
+                    }
+                } else {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConnectionProfile)) return false;
+        ConnectionProfile p = (ConnectionProfile) o;
+        return mode.equals(p.mode) && Objects.equals(mirrorDir, p.mirrorDir)
+                && skipIndexes == p.skipIndexes && Objects.equals(lobScale, p.lobScale);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, mirrorDir, skipIndexes, lobScale);
+    }
+
+    @Override
+    public String toString() {
+        return mode + (mirrorDir != null ? "(" + mirrorDir + ")" : "") +
+                (skipIndexes ? ", skipIndexes" : "") + (lobScale != null ? ", lobScale=" + lobScale : "");
+    }
+}
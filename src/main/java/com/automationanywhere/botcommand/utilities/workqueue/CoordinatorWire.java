@@ -0,0 +1,141 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario entre {@link ClaimCoordinator} y {@link RemoteWorkqueueDao}.
+ * <ul>
+ *   <li>Pedido: mapa de parámetros (op, token, actor, lease, filtro, identificador...).</li>
+ *   <li>Respuesta: ok + mapa de valores + lista de ítems (-1 = sin ítem), o error + mensaje.</li>
+ * </ul>
+ * Los textos van como largo + UTF-8 (writeUTF corta en 64 KB y un valor MEMO puede ser más largo).
+ */
+final class CoordinatorWire {
+
+    private CoordinatorWire() { }
+
+    /** Respuesta del coordinador. */
+    static final class Response {
+        final Map<String, String> values;
+        final List<WorkqueueItemDao.WorkItem> items; // null = la operación no devuelve ítems
+
+        Response(Map<String, String> values, List<WorkqueueItemDao.WorkItem> items) {
+            this.values = values;
+            this.items = items;
+        }
+
+        static Response of(Map<String, String> values) {
+            return new Response(values, null);
+        }
+
+        static Response ofItems(List<WorkqueueItemDao.WorkItem> items) {
+            return new Response(new LinkedHashMap<>(), items);
+        }
+    }
+
+    // ---------- Pedido ----------
+    static void writeRequest(DataOutputStream out, Map<String, String> request) throws IOException {
+        writeMap(out, request);
+        out.flush();
+    }
+
+    static Map<String, String> readRequest(DataInputStream in) throws IOException {
+        return readMap(in);
+    }
+
+    // ---------- Respuesta ----------
+    static void writeResponse(DataOutputStream out, Response response) throws IOException {
+        out.writeBoolean(true);
+        writeMap(out, response.values);
+        if (response.items == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(response.items.size());
+            for (WorkqueueItemDao.WorkItem w : response.items) writeItem(out, w);
+        }
+        out.flush();
+    }
+
+    static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeBoolean(false);
+        writeString(out, message == null ? "Error en el coordinador de claims." : message);
+        out.flush();
+    }
+
+    /** Lee la respuesta; un error del coordinador se relanza como SQLException del lado del bot. */
+    static Response readResponse(DataInputStream in) throws IOException, java.sql.SQLException {
+        if (!in.readBoolean()) throw new java.sql.SQLException("Coordinador de claims: " + readString(in));
+        Map<String, String> values = readMap(in);
+        int n = in.readInt();
+        List<WorkqueueItemDao.WorkItem> items = null;
+        if (n >= 0) {
+            items = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) items.add(readItem(in));
+        }
+        return new Response(values, items);
+    }
+
+    // ---------- Ítem ----------
+    private static void writeItem(DataOutputStream out, WorkqueueItemDao.WorkItem w) throws IOException {
+        out.writeLong(w.id);
+        writeString(out, w.key);
+        writeString(out, w.statusWorkflow == null ? null : String.valueOf(w.statusWorkflow));
+        writeString(out, w.stepWorkflow);
+        writeMap(out, w.data);
+    }
+
+    private static WorkqueueItemDao.WorkItem readItem(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String key = readString(in);
+        String status = readString(in);
+        String step = readString(in);
+        Map<String, String> data = readMap(in);
+        return new WorkqueueItemDao.WorkItem(id, key, status == null ? null : Long.valueOf(status), step, data);
+    }
+
+    // ---------- Primitivas ----------
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) map.put(readString(in), readString(in));
+        return map;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        byte[] b = new byte[n];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -1,17 +1,35 @@
 package com.automationanywhere.botcommand.utilities.workqueue;
 
 import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.BooleanValue;
 import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.ListValue;
 import com.automationanywhere.botcommand.data.impl.NumberValue;
 import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.data.impl.TableValue;
+import com.automationanywhere.botcommand.data.model.Schema;
+import com.automationanywhere.botcommand.data.model.table.Row;
+import com.automationanywhere.botcommand.data.model.table.Table;
+import com.automationanywhere.botcommand.exception.BotCommandException;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class Helpers {
 
     public static DictionaryValue toDictionary(WorkqueueItemDao.WorkItem item) {
+        return new DictionaryValue(itemMap(item));
+    }
+
+    private static Map<String, Value> itemMap(WorkqueueItemDao.WorkItem item) {
         Map<String, Value> root = new LinkedHashMap<>();
 
         // Id
@@ -34,9 +52,200 @@ public class Helpers {
         }
         root.put("Data", new DictionaryValue(dataMap));
 
+        return root;
+    }
+
+    /** Estadísticas de cola: Total, ByStatus, ByStep, OldestPendingAgeSeconds, NextDeferUntil, CachedAt. */
+    public static DictionaryValue toDictionary(QueueStats stats) {
+        Map<String, Value> root = new LinkedHashMap<>();
+        root.put("Total", new NumberValue(BigDecimal.valueOf(stats.total)));
+        root.put("ByStatus", toNumberDictionary(stats.byStatus));
+        root.put("ByStep", toNumberDictionary(stats.byStep));
+        root.put("OldestPendingAgeSeconds", new NumberValue(BigDecimal.valueOf(stats.oldestPendingAgeSeconds())));
+        putString(root, "NextDeferUntil", stats.nextDeferUntil == null ? "" : stats.nextDeferUntil.toString());
+        putString(root, "CachedAt", new Timestamp(stats.computedAtMillis).toString());
+        return new DictionaryValue(root);
+    }
+
+    /**
+     * Resultado del claim bloqueante: Item (vacío si venció el timeout), WakeReason, WaitedMs, Polls
+     * y, si hubo espera, PendingEligible, PendingDeferred y NextDeferUntil de la última consulta.
+     */
+    public static DictionaryValue toDictionary(ClaimWaiter.Result result) {
+        Map<String, Value> root = new LinkedHashMap<>();
+        root.put("Item", result.item != null ? toDictionary(result.item) : new DictionaryValue(new LinkedHashMap<>()));
+        putString(root, "WakeReason", result.wakeReason);
+        root.put("WaitedMs", new NumberValue(BigDecimal.valueOf(result.waitedMillis)));
+        root.put("Polls", new NumberValue(BigDecimal.valueOf(result.polls)));
+        WorkqueueItemDao.Availability av = result.lastAvailability;
+        if (av != null) {
+            root.put("PendingEligible", new NumberValue(BigDecimal.valueOf(av.eligible)));
+            root.put("PendingDeferred", new NumberValue(BigDecimal.valueOf(av.deferred)));
+            putString(root, "NextDeferUntil", av.nextDeferUntil == null ? "" : av.nextDeferUntil.toString());
+        }
+        return new DictionaryValue(root);
+    }
+
+    /**
+     * Métricas de [Item History]: Since, Until y Stages, un diccionario por etapa (estado de
+     * origen, o estado/step) con Transitions, PerHour, AvgSeconds, P50/P90/P99Seconds y MaxSeconds.
+     */
+    public static DictionaryValue toDictionary(HistoryMetrics metrics) {
+        Map<String, Value> stages = new LinkedHashMap<>();
+        for (HistoryMetrics.Stage st : metrics.stages()) {
+            Map<String, Value> m = new LinkedHashMap<>();
+            m.put("Transitions", new NumberValue(BigDecimal.valueOf(st.transitions)));
+            m.put("PerHour", toNumber(st.perHour));
+            m.put("AvgSeconds", toNumber(st.avgSeconds));
+            m.put("P50Seconds", toNumber(st.p50Seconds));
+            m.put("P90Seconds", toNumber(st.p90Seconds));
+            m.put("P99Seconds", toNumber(st.p99Seconds));
+            m.put("MaxSeconds", toNumber(st.maxSeconds));
+            stages.put(st.name, new DictionaryValue(m));
+        }
+        Map<String, Value> root = new LinkedHashMap<>();
+        putString(root, "Since", metrics.getSince().toString());
+        putString(root, "Until", metrics.getUntil().toString());
+        root.put("Stages", new DictionaryValue(stages));
+        return new DictionaryValue(root);
+    }
+
+    private static NumberValue toNumber(double v) {
+        return new NumberValue(BigDecimal.valueOf(v).setScale(3, java.math.RoundingMode.HALF_UP));
+    }
+
+    private static DictionaryValue toNumberDictionary(Map<String, Long> counts) {
+        Map<String, Value> map = new LinkedHashMap<>();
+        counts.forEach((k, v) -> map.put(k, new NumberValue(BigDecimal.valueOf(v))));
+        return new DictionaryValue(map);
+    }
+
+    public static ListValue<DictionaryValue> toListValue(List<WorkqueueItemDao.WorkItem> items) {
+        List<Value> values = new ArrayList<>();
+        if (items != null) {
+            for (WorkqueueItemDao.WorkItem item : items) values.add(toDictionary(item));
+        }
+        ListValue<DictionaryValue> list = new ListValue<>();
+        list.set(values);
+        return list;
+    }
+
+    /**
+     * Página de Find Work Items: Items (cada uno como Get Next Item más Status y LastUpdated),
+     * Count, HasMore y NextAfterId (0 si no hay más) para pedir la página siguiente.
+     */
+    public static DictionaryValue toDictionary(WorkqueueItemDao.SearchPage page) {
+        Map<String, Value> root = new LinkedHashMap<>();
+        root.put("Items", toFoundList(page.items));
+        root.put("Count", new NumberValue(BigDecimal.valueOf(page.items.size())));
+        root.put("HasMore", new BooleanValue(page.nextAfterId != null));
+        root.put("NextAfterId", new NumberValue(BigDecimal.valueOf(page.nextAfterId == null ? 0 : page.nextAfterId)));
         return new DictionaryValue(root);
     }
 
+    /**
+     * Página del feed de cambios: Items como en Find Work Items, más la marca de agua
+     * (WatermarkUpdated, WatermarkId) para el próximo pedido.
+     */
+    public static DictionaryValue toDictionary(WorkqueueItemDao.ChangePage page) {
+        Map<String, Value> root = new LinkedHashMap<>();
+        root.put("Items", toFoundList(page.items));
+        root.put("Count", new NumberValue(BigDecimal.valueOf(page.items.size())));
+        root.put("HasMore", new BooleanValue(page.hasMore));
+        putString(root, "WatermarkUpdated", page.watermarkUpdated == null ? "" : page.watermarkUpdated.toString());
+        root.put("WatermarkId", new NumberValue(BigDecimal.valueOf(page.watermarkId)));
+        return new DictionaryValue(root);
+    }
+
+    // Ítems encontrados con su estado y [Last Updated]
+    private static ListValue<DictionaryValue> toFoundList(List<WorkqueueItemDao.FoundItem> found) {
+        List<Value> values = new ArrayList<>();
+        for (WorkqueueItemDao.FoundItem f : found) {
+            Map<String, Value> item = itemMap(f.item);
+            putString(item, "Status", f.status);
+            putString(item, "LastUpdated", f.lastUpdated == null ? "" : f.lastUpdated.toString());
+            values.add(new DictionaryValue(item));
+        }
+        ListValue<DictionaryValue> list = new ListValue<>();
+        list.set(values);
+        return list;
+    }
+
+    /** Conteos de Requeue Work Items. */
+    public static DictionaryValue toDictionary(WorkqueueItemDao.RequeueReport report) {
+        Map<String, Value> root = new LinkedHashMap<>();
+        root.put("Matched", new NumberValue(BigDecimal.valueOf(report.matched)));
+        root.put("Requeued", new NumberValue(BigDecimal.valueOf(report.requeued)));
+        root.put("Skipped", new NumberValue(BigDecimal.valueOf(report.skipped)));
+        root.put("Chunks", new NumberValue(BigDecimal.valueOf(report.chunks)));
+        root.put("TotalMillis", new NumberValue(BigDecimal.valueOf(report.millis)));
+        return new DictionaryValue(root);
+    }
+
+    /** Tabla de resultados por ítem de una transición en lote: Identifier | Outcome | Status. */
+    public static TableValue toOutcomeTable(List<WorkqueueItemDao.TransitionResult> results) {
+        List<Schema> schema = new ArrayList<>();
+        schema.add(new Schema("Identifier"));
+        schema.add(new Schema("Outcome"));
+        schema.add(new Schema("Status"));
+        List<Row> rows = new ArrayList<>();
+        for (WorkqueueItemDao.TransitionResult r : results) {
+            rows.add(new Row(new StringValue(r.identifier),
+                    new StringValue(r.outcome.getLabel()),
+                    new StringValue(r.status == null ? "" : r.status)));
+        }
+        TableValue tv = new TableValue();
+        tv.set(new Table(schema, rows));
+        return tv;
+    }
+
+    /** Convierte una lista del bot (números o textos) en identificadores; los Id se normalizan a entero. */
+    public static List<String> toIdentifiers(List<Value> values, ItemIdentifierType by) {
+        List<String> out = new ArrayList<>();
+        if (values == null) return out;
+        for (Value v : values) {
+            Object raw = v == null ? null : v.get();
+            if (raw == null || raw.toString().isBlank()) continue;
+            String s = raw.toString().trim();
+            if (by == ItemIdentifierType.ID) {
+                try {
+                    s = String.valueOf(new BigDecimal(s).longValueExact());
+                } catch (ArithmeticException | NumberFormatException e) {
+                    throw new BotCommandException("Item Id inválido: " + s);
+                }
+            }
+            out.add(s);
+        }
+        return out;
+    }
+
+    /** Filtro de etapa de los comandos de claim: texto vacío, número nulo o diccionario vacío no filtran. */
+    public static ClaimFilter toClaimFilter(String stepWorkflow, Double statusWorkflow, Map<String, Value> itemData) {
+        Map<String, String> data = new LinkedHashMap<>();
+        if (itemData != null) {
+            itemData.forEach((k, v) -> data.put(k, v == null || v.get() == null ? "" : v.get().toString()));
+        }
+        return ClaimFilter.of(stepWorkflow, statusWorkflow == null ? null : statusWorkflow.longValue(), data);
+    }
+
+    /** Retorno de las transiciones; en modo "selected" las claves van separadas por coma. */
+    public static ItemProjection toProjection(String mode, String selectedKeys) {
+        return ItemProjection.of(mode, selectedKeys == null ? null : Arrays.asList(selectedKeys.split(",")));
+    }
+
+    /** Fecha ISO-8601 (con offset) o "yyyy-MM-dd HH:mm:ss" (hora local). */
+    public static Timestamp parseToTimestamp(String input) {
+        try {
+            return Timestamp.from(OffsetDateTime.parse(input).toInstant()); // ISO-8601
+        } catch (Exception e) {
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            } catch (Exception ex) {
+                throw new BotCommandException("Formato de fecha no válido: " + input);
+            }
+        }
+    }
+
     private static void putString(Map<String, Value> m, String k, String v) {
         m.put(k, new StringValue(v == null ? "" : v));
     }
@@ -0,0 +1,123 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Throughput y latencia por etapa a partir de [Item History]. Cada fila dice cuánto estuvo
+ * el ítem en el estado que deja ([Seconds In Previous]), así que la etapa es el estado de
+ * origen: "Pending" es espera en cola, "Working" es proceso. Opcionalmente se separa por
+ * [Step Workflow] ("Working/Validar").
+ * <p>
+ * Las muestras se leen por archivo y se juntan antes de calcular ({@link #merge}), así los
+ * percentiles de una cola particionada son los de todos los shards y no un promedio.
+ */
+public class HistoryMetrics {
+
+    /** Métricas de una etapa en la ventana. */
+    public static final class Stage {
+        public final String name;
+        public final long transitions;
+        public final double perHour;
+        public final double avgSeconds;
+        public final double p50Seconds;
+        public final double p90Seconds;
+        public final double p99Seconds;
+        public final double maxSeconds;
+
+        Stage(String name, long transitions, double perHour, double avgSeconds,
+              double p50Seconds, double p90Seconds, double p99Seconds, double maxSeconds) {
+            this.name = name;
+            this.transitions = transitions;
+            this.perHour = perHour;
+            this.avgSeconds = avgSeconds;
+            this.p50Seconds = p50Seconds;
+            this.p90Seconds = p90Seconds;
+            this.p99Seconds = p99Seconds;
+            this.maxSeconds = maxSeconds;
+        }
+    }
+
+    private final Timestamp since;
+    private final Timestamp until;
+    // Duraciones por etapa; las filas sin duración (ítems anteriores al historial) solo cuentan throughput
+    private final Map<String, List<Double>> durations = new TreeMap<>();
+    private final Map<String, Long> counts = new TreeMap<>();
+
+    private HistoryMetrics(Timestamp since, Timestamp until) {
+        this.since = since;
+        this.until = until;
+    }
+
+    /**
+     * Lee las transiciones con [Changed At] en [since, until) de un archivo.
+     *
+     * @param byStep separar cada estado por [Step Workflow]
+     */
+    public static HistoryMetrics read(Connection conn, Timestamp since, Timestamp until, boolean byStep) throws SQLException {
+        if (!WorkqueueSchema.historyEnabled(conn))
+            throw new SQLException("La workqueue no tiene la tabla [" + WorkqueueSchema.TABLE_HISTORY +
+                    "]; ejecute Initialize Workqueue con el historial habilitado.");
+        HistoryMetrics metrics = new HistoryMetrics(since, until);
+        String sql = WorkqueueStores.forConnection(conn).translate(
+                "SELECT [From Status], [Step Workflow], [Seconds In Previous] FROM [" + WorkqueueSchema.TABLE_HISTORY + "]" +
+                " WHERE [Changed At] >= ? AND [Changed At] < ?");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, since);
+            ps.setTimestamp(2, until);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String from = rs.getString(1);
+                    String step = rs.getString(2);
+                    double secs = rs.getDouble(3);
+                    boolean hasDuration = !rs.wasNull();
+                    String stage = byStep && step != null && !step.isEmpty() ? from + "/" + step : from;
+                    metrics.add(stage, hasDuration ? secs : null);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /** Junta las muestras de varios archivos (shards) de la misma ventana. */
+    public static HistoryMetrics merge(List<HistoryMetrics> parts) {
+        if (parts.isEmpty()) throw new IllegalArgumentException("No hay métricas para juntar.");
+        HistoryMetrics total = new HistoryMetrics(parts.get(0).since, parts.get(0).until);
+        for (HistoryMetrics m : parts) {
+            m.counts.forEach((stage, n) -> total.counts.merge(stage, n, Long::sum));
+            m.durations.forEach((stage, d) -> total.durations.computeIfAbsent(stage, k -> new ArrayList<>()).addAll(d));
+        }
+        return total;
+    }
+
+    private void add(String stage, Double seconds) {
+        counts.merge(stage, 1L, Long::sum);
+        if (seconds != null) durations.computeIfAbsent(stage, k -> new ArrayList<>()).add(seconds);
+    }
+
+    public Timestamp getSince() { return since; }
+    public Timestamp getUntil() { return until; }
+
+    /** Etapas ordenadas por nombre; los percentiles son nearest-rank. */
+    public List<Stage> stages() {
+        double hours = Math.max(1, until.getTime() - since.getTime()) / 3_600_000.0;
+        List<Stage> result = new ArrayList<>();
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            List<Double> d = new ArrayList<>(durations.getOrDefault(e.getKey(), Collections.emptyList()));
+            Collections.sort(d);
+            double sum = 0;
+            for (double v : d) sum += v;
+            result.add(new Stage(e.getKey(), e.getValue(), e.getValue() / hours,
+                    d.isEmpty() ? 0 : sum / d.size(),
+                    percentile(d, 50), percentile(d, 90), percentile(d, 99),
+                    d.isEmpty() ? 0 : d.get(d.size() - 1)));
+        }
+        return result;
+    }
+
+    static double percentile(List<Double> sorted, int p) {
+        if (sorted.isEmpty()) return 0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(idx, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Backend HSQLDB nativo (ya está en el classpath como dependencia de UCanAccess).
+ * <p>
+ * Ubicaciones aceptadas:
+ * <ul>
+ *   <li>{@code C:\colas\facturas.hsqldb}: base embebida en archivo, tablas CACHED (en disco,
+ *       no se carga entera en memoria), transacciones MVCC con bloqueo por fila. El modo
+ *       archivo admite un solo proceso a la vez.</li>
+ *   <li>{@code hsql://host:9001/facturas}: servidor HSQLDB, para varios bots en paralelo.</li>
+ * </ul>
+ */
+public class HsqldbWorkqueueStore implements WorkqueueStore {
+
+    public static final String NAME = "hsqldb";
+    private static final String DRIVER = "org.hsqldb.jdbc.JDBCDriver";
+    private static final String FILE_SUFFIX = ".hsqldb";
+
+    private static final Pattern BRACKETED = Pattern.compile("\\[([^\\]]+)\\]");
+    private static final Pattern TOP_N = Pattern.compile("^\\s*SELECT\\s+TOP\\s+(\\d+)\\s+", Pattern.CASE_INSENSITIVE);
+
+    // Las sentencias del DAO son fijas: se cachea la traducción
+    private final Map<String, String> translated = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean accepts(String location) {
+        if (location == null) return false;
+        String l = location.toLowerCase();
+        return l.endsWith(FILE_SUFFIX) || l.startsWith("hsql://") || l.startsWith("hsqls://");
+    }
+
+    @Override
+    public boolean owns(Connection conn) {
+        try {
+            return conn.getMetaData().getURL().startsWith("jdbc:hsqldb:");
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Connection openConnection(String location, boolean createIfMissing) throws Exception {
+        Class.forName(DRIVER);
+        String l = location.toLowerCase();
+        String url;
+        if (l.startsWith("hsql://") || l.startsWith("hsqls://")) {
+            url = "jdbc:hsqldb:" + location;
+        } else {
+            String base = location.substring(0, location.length() - FILE_SUFFIX.length());
+            url = "jdbc:hsqldb:file:" + base + ";hsqldb.tx=mvcc;hsqldb.default_table_type=cached;shutdown=true"
+                    + (createIfMissing ? "" : ";ifexists=true");
+        }
+        Connection conn = DriverManager.getConnection(url, "SA", "");
+        conn.setAutoCommit(true);
+        return conn;
+    }
+
+    @Override
+    public String locationOf(Connection conn) {
+        try {
+            String url = conn.getMetaData().getURL();
+            if (url == null || !url.startsWith("jdbc:hsqldb:")) return null;
+            int opts = url.indexOf(';');
+            String rest = url.substring("jdbc:hsqldb:".length(), opts < 0 ? url.length() : opts);
+            return rest.startsWith("file:") ? rest.substring("file:".length()) + FILE_SUFFIX : rest;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String translate(String sql) {
+        return translated.computeIfAbsent(sql, HsqldbWorkqueueStore::doTranslate);
+    }
+
+    private static String doTranslate(String sql) {
+        String out = sql;
+
+        // SELECT TOP n ... → SELECT ... LIMIT n
+        Matcher top = TOP_N.matcher(out);
+        if (top.find()) {
+            out = "SELECT " + out.substring(top.end()) + " LIMIT " + top.group(1);
+        }
+
+        // Tipos Access en DDL
+        String head = out.trim().toUpperCase();
+        if (head.startsWith("CREATE TABLE") || head.startsWith("ALTER TABLE")) {
+            out = out.replaceAll("(?i)\\bCOUNTER PRIMARY KEY\\b", "INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY")
+                    .replaceAll("(?i)\\bTEXT\\((\\d+)\\)", "VARCHAR($1)")
+                    .replaceAll("(?i)\\bMEMO\\b", "LONGVARCHAR")
+                    .replaceAll("(?i)\\bDATETIME\\b", "TIMESTAMP")
+                    .replaceAll("(?i)\\bLONG\\b", "INTEGER");
+        }
+
+        // DateDiff('s', a, b) de Access → DATEDIFF('second', a, b)
+        out = out.replaceAll("(?i)\\bDateDiff\\('s',", "DATEDIFF('second',");
+
+        // [Identificador] → "Identificador"
+        Matcher m = BRACKETED.matcher(out);
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) m.appendReplacement(sb, Matcher.quoteReplacement("\"" + m.group(1) + "\""));
+        m.appendTail(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,264 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Cambia el modo de almacenamiento de [Item Data] de una cola existente (ver {@link ItemDataStorage}),
+ * en bloques de ítems con un commit por bloque; se puede cortar y volver a ejecutar.
+ * <ul>
+ *   <li>A compacto: guarda el modo primero (los ítems nuevos ya entran compactos), serializa en
+ *       [Item Blob] el Item Data de los ítems en filas y borra sus filas no promovidas. Si cambió el
+ *       conjunto de claves promovidas, ajusta las filas de los ítems que ya eran compactos.</li>
+ *   <li>A filas: reescribe como filas el Item Data de los ítems compactos y vacía [Item Blob];
+ *       el modo se guarda al final y un último barrido toma lo encolado mientras tanto.</li>
+ * </ul>
+ * La lectura entiende ambos formatos por ítem, así que los bots pueden seguir trabajando.
+ */
+public class ItemDataMigrator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final String TBL_WQ        = "[workqueue]";
+    private static final String TBL_DATA      = "[Item Data]";
+    private static final String COL_ID        = "[Id]";
+    private static final String COL_ITEM_BLOB = "[" + WorkqueueSchema.COL_ITEM_BLOB + "]";
+    private static final String COL_D_ID      = "[Id]";
+    private static final String COL_D_ITEM_ID = "[Item ID]";
+    private static final String COL_D_KEY     = "[Key]";
+    private static final String COL_D_VALUE   = "[Value]";
+
+    /** Resultado de la migración. */
+    public static final class Report {
+        public String mode;
+        public final Set<String> promotedKeys = new LinkedHashSet<>();
+        public long itemsConverted;
+        public long dataRowsWritten;
+        public long dataRowsDeleted;
+        public int chunks;
+        public long millis;
+
+        /** Suma de los reportes de cada shard. */
+        public static Report merge(List<Report> parts) {
+            Report total = new Report();
+            for (Report r : parts) {
+                if (total.mode == null) total.mode = r.mode;
+                total.promotedKeys.addAll(r.promotedKeys);
+                total.itemsConverted += r.itemsConverted;
+                total.dataRowsWritten += r.dataRowsWritten;
+                total.dataRowsDeleted += r.dataRowsDeleted;
+                total.chunks += r.chunks;
+                total.millis = Math.max(total.millis, r.millis);
+            }
+            return total;
+        }
+    }
+
+    private final Connection conn;
+    private final WorkqueueStore store;
+
+    public ItemDataMigrator(Connection conn) {
+        this.conn = conn;
+        this.store = WorkqueueStores.forConnection(conn);
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        return conn.prepareStatement(store.translate(sql));
+    }
+
+    public Report migrate(ItemDataStorage target, int chunkSize) throws SQLException {
+        if (chunkSize < 1) throw new SQLException("El tamaño de bloque debe ser mayor a 0.");
+        if (!WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_ITEM_BLOB))
+            throw new SQLException("La workqueue no tiene la columna " + COL_ITEM_BLOB +
+                    "; ejecute Initialize Workqueue en modo upgrade.");
+
+        final long start = System.currentTimeMillis();
+        Report report = new Report();
+        report.mode = target.getMode();
+        report.promotedKeys.addAll(target.getPromotedKeys());
+
+        boolean prevAuto = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            ItemDataStorage previous = ItemDataStorage.read(conn);
+            if (target.isCompact()) {
+                ItemDataStorage.save(conn, target);
+                conn.commit();
+                compactRowItems(target, chunkSize, report);
+                if (previous.isCompact() && !previous.getPromotedKeys().equals(target.getPromotedKeys()))
+                    repromote(previous, target, chunkSize, report);
+            } else {
+                long cursor = expandCompactItems(0, chunkSize, report);
+                ItemDataStorage.save(conn, target);
+                conn.commit();
+                expandCompactItems(cursor, chunkSize, report); // encolados durante la migración
+            }
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+        report.millis = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    // ---------- filas → compacto ----------
+    private void compactRowItems(ItemDataStorage target, int chunkSize, Report report) throws SQLException {
+        long after = 0;
+        while (true) {
+            List<Long> ids = nextIds(COL_ITEM_BLOB + " IS NULL", after, chunkSize);
+            if (ids.isEmpty()) return;
+            Map<Long, Map<String, String>> data = readRows(ids);
+            try (PreparedStatement ps = prepare("UPDATE " + TBL_WQ + " SET " + COL_ITEM_BLOB + "=? WHERE " +
+                    COL_ID + "=? AND " + COL_ITEM_BLOB + " IS NULL")) {
+                for (Long id : ids) {
+                    ps.setString(1, ItemDataStorage.encode(data.getOrDefault(id, Collections.emptyMap())));
+                    ps.setLong(2, id);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            report.dataRowsDeleted += deleteRows(ids, target.getPromotedKeys());
+            conn.commit();
+            report.itemsConverted += ids.size();
+            report.chunks++;
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Ítems ya compactos con otro conjunto de claves promovidas
+    private void repromote(ItemDataStorage previous, ItemDataStorage target, int chunkSize, Report report) throws SQLException {
+        Set<String> added = new LinkedHashSet<>(target.getPromotedKeys());
+        added.removeAll(previous.getPromotedKeys());
+        long after = 0;
+        while (true) {
+            Map<Long, String> blobs = nextBlobs(after, chunkSize);
+            if (blobs.isEmpty()) return;
+            List<Long> ids = new ArrayList<>(blobs.keySet());
+            report.dataRowsDeleted += deleteRows(ids, target.getPromotedKeys());
+            if (!added.isEmpty()) {
+                Map<Long, Map<String, String>> rows = new LinkedHashMap<>();
+                for (Map.Entry<Long, String> e : blobs.entrySet()) {
+                    Map<String, String> promoted = new LinkedHashMap<>();
+                    ItemDataStorage.decode(e.getValue()).forEach((k, v) -> { if (added.contains(k)) promoted.put(k, v); });
+                    rows.put(e.getKey(), promoted);
+                }
+                report.dataRowsWritten += insertRows(rows);
+            }
+            conn.commit();
+            report.chunks++;
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    // ---------- compacto → filas ----------
+    private long expandCompactItems(long after, int chunkSize, Report report) throws SQLException {
+        while (true) {
+            Map<Long, String> blobs = nextBlobs(after, chunkSize);
+            if (blobs.isEmpty()) return after;
+            List<Long> ids = new ArrayList<>(blobs.keySet());
+            Map<Long, Map<String, String>> rows = new LinkedHashMap<>();
+            for (Map.Entry<Long, String> e : blobs.entrySet()) rows.put(e.getKey(), ItemDataStorage.decode(e.getValue()));
+
+            report.dataRowsDeleted += deleteRows(ids, Collections.emptySet()); // filas promovidas
+            report.dataRowsWritten += insertRows(rows);
+            for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+                try (PreparedStatement ps = prepare("UPDATE " + TBL_WQ + " SET " + COL_ITEM_BLOB + "=NULL WHERE " +
+                        COL_ID + " IN (" + WorkqueueItemDao.placeholders(chunk.size()) + ")")) {
+                    int i = 1;
+                    for (Long id : chunk) ps.setLong(i++, id);
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            report.itemsConverted += ids.size();
+            report.chunks++;
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    // ---------- SQL ----------
+    private List<Long> nextIds(String condition, long after, int top) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement ps = prepare("SELECT TOP " + top + " " + COL_ID + " FROM " + TBL_WQ +
+                " WHERE " + condition + " AND " + COL_ID + " > ? ORDER BY " + COL_ID + " ASC")) {
+            ps.setLong(1, after);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private Map<Long, String> nextBlobs(long after, int top) throws SQLException {
+        Map<Long, String> blobs = new LinkedHashMap<>();
+        try (PreparedStatement ps = prepare("SELECT TOP " + top + " " + COL_ID + "," + COL_ITEM_BLOB + " FROM " + TBL_WQ +
+                " WHERE " + COL_ITEM_BLOB + " IS NOT NULL AND " + COL_ID + " > ? ORDER BY " + COL_ID + " ASC")) {
+            ps.setLong(1, after);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) blobs.put(rs.getLong(1), rs.getString(2));
+            }
+        }
+        return blobs;
+    }
+
+    private Map<Long, Map<String, String>> readRows(List<Long> ids) throws SQLException {
+        Map<Long, Map<String, String>> result = new LinkedHashMap<>();
+        for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+            try (PreparedStatement ps = prepare("SELECT " + COL_D_ITEM_ID + "," + COL_D_KEY + "," + COL_D_VALUE +
+                    " FROM " + TBL_DATA + " WHERE " + COL_D_ITEM_ID + " IN (" + WorkqueueItemDao.placeholders(chunk.size()) + ")" +
+                    " ORDER BY " + COL_D_ITEM_ID + " ASC, " + COL_D_ID + " ASC")) {
+                int i = 1;
+                for (Long id : chunk) ps.setLong(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        result.computeIfAbsent(rs.getLong(1), k -> new LinkedHashMap<>()).put(rs.getString(2), rs.getString(3));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Borra las filas de los ítems salvo las claves indicadas
+    private long deleteRows(List<Long> ids, Set<String> keep) throws SQLException {
+        long deleted = 0;
+        List<String> kept = new ArrayList<>(keep);
+        for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+            String sql = "DELETE FROM " + TBL_DATA + " WHERE " + COL_D_ITEM_ID + " IN (" + WorkqueueItemDao.placeholders(chunk.size()) + ")" +
+                    (kept.isEmpty() ? "" : " AND " + COL_D_KEY + " NOT IN (" + WorkqueueItemDao.placeholders(kept.size()) + ")");
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (Long id : chunk) ps.setLong(i++, id);
+                for (String k : kept) ps.setString(i++, k);
+                deleted += ps.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    private long insertRows(Map<Long, Map<String, String>> rows) throws SQLException {
+        final boolean valueKey = WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_ITEM_DATA, WorkqueueSchema.COL_VALUE_KEY);
+        String sql = "INSERT INTO " + TBL_DATA + " (" + COL_D_ITEM_ID + "," + COL_D_KEY + "," + COL_D_VALUE +
+                (valueKey ? ",[" + WorkqueueSchema.COL_VALUE_KEY + "]) VALUES (?,?,?,?)" : ") VALUES (?,?,?)");
+        long written = 0;
+        try (PreparedStatement ps = prepare(sql)) {
+            for (Map.Entry<Long, Map<String, String>> item : rows.entrySet()) {
+                for (Map.Entry<String, String> e : item.getValue().entrySet()) {
+                    ps.setLong(1, item.getKey());
+                    ps.setString(2, e.getKey());
+                    ps.setString(3, e.getValue());
+                    if (valueKey) ps.setString(4, WorkqueueItemDao.valueKey(e.getValue()));
+                    ps.addBatch();
+                    written++;
+                }
+            }
+            if (written > 0) ps.executeBatch();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,182 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Modo de almacenamiento de [Item Data] de una cola, guardado en [Workqueue Settings]:
+ * <ul>
+ *   <li>{@link #MODE_ROWS}: una fila de [Item Data] por campo (comportamiento histórico).</li>
+ *   <li>{@link #MODE_COMPACT}: todo el diccionario serializado en [Item Blob] de la fila de
+ *       workqueue; solo las claves promovidas se escriben además en [Item Data], donde las
+ *       indexa (Key, Value Key) para Find Work Items y los filtros de claim.</li>
+ * </ul>
+ * El modo solo decide cómo se escriben los ítems nuevos: la lectura resuelve cada ítem según
+ * tenga o no [Item Blob], así que una cola puede convivir con ambos formatos mientras migra.
+ */
+public final class ItemDataStorage {
+
+    public static final String MODE_ROWS    = "rows";
+    public static final String MODE_COMPACT = "compact";
+
+    private static final String SETTING_MODE     = "item_data.storage";
+    private static final String SETTING_PROMOTED = "item_data.promoted";
+
+    public static final ItemDataStorage DEFAULT = new ItemDataStorage(MODE_ROWS, Collections.emptySet());
+
+    // Configuración leída por conexión (las sesiones la conservan hasta cerrar)
+    private static final Map<Connection, ItemDataStorage> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String mode;
+    private final Set<String> promotedKeys;
+
+    private ItemDataStorage(String mode, Set<String> promotedKeys) {
+        this.mode = mode;
+        this.promotedKeys = Collections.unmodifiableSet(promotedKeys);
+    }
+
+    /**
+     * @param mode         {@link #MODE_ROWS} o {@link #MODE_COMPACT}
+     * @param promotedKeys claves que siguen en [Item Data] en modo compacto (las que se buscan o filtran)
+     */
+    public static ItemDataStorage of(String mode, Collection<String> promotedKeys) {
+        String m = mode == null ? MODE_ROWS : mode.trim().toLowerCase();
+        if (!m.equals(MODE_ROWS) && !m.equals(MODE_COMPACT))
+            throw new IllegalArgumentException("Modo de Item Data no soportado: " + mode);
+        Set<String> keys = new LinkedHashSet<>();
+        if (promotedKeys != null) {
+            for (String k : promotedKeys) {
+                if (k != null && !k.trim().isEmpty()) keys.add(k.trim());
+            }
+        }
+        return new ItemDataStorage(m, keys);
+    }
+
+    public String getMode() { return mode; }
+    public Set<String> getPromotedKeys() { return promotedKeys; }
+
+    public boolean isCompact() {
+        return MODE_COMPACT.equals(mode);
+    }
+
+    /** En modo filas todas las claves van a [Item Data]; en compacto, solo las promovidas. */
+    public boolean writesRow(String key) {
+        return !isCompact() || promotedKeys.contains(key);
+    }
+
+    /**
+     * Las búsquedas por [Item Data] solo ven las filas: en modo compacto una clave no promovida
+     * no encontraría los ítems nuevos, así que se rechaza en lugar de devolver resultados incompletos.
+     */
+    void requireSearchable(Collection<String> keys, String usage) throws SQLException {
+        if (!isCompact()) return;
+        for (String key : keys) {
+            if (!promotedKeys.contains(key))
+                throw new SQLException("La cola guarda el Item Data en modo compacto y la clave '" + key +
+                        "' no está promovida; " + usage + " solo puede usar claves promovidas " + promotedKeys +
+                        ". Agréguela con Migrate Item Data Storage.");
+        }
+    }
+
+    // ==========================================================
+    //                  CONFIGURACIÓN EN EL ARCHIVO
+    // ==========================================================
+    /** Configuración de la cola; sin [Workqueue Settings] o sin [Item Blob] es el modo filas. */
+    public static ItemDataStorage forConnection(Connection conn) throws SQLException {
+        ItemDataStorage cached = CACHE.get(conn);
+        if (cached != null) return cached;
+        ItemDataStorage storage = read(conn);
+        CACHE.put(conn, storage);
+        return storage;
+    }
+
+    /** Lee la configuración del archivo sin pasar por el caché. */
+    static ItemDataStorage read(Connection conn) throws SQLException {
+        ItemDataStorage storage = DEFAULT;
+        if (WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_ITEM_BLOB)
+                && WorkqueueSchema.settingsTableExists(conn)) {
+            Map<String, String> settings = readSettings(conn);
+            String promoted = settings.getOrDefault(SETTING_PROMOTED, "");
+            storage = of(settings.getOrDefault(SETTING_MODE, MODE_ROWS), Arrays.asList(promoted.split(",")));
+        }
+        return storage;
+    }
+
+    /** Guarda la configuración (crea [Workqueue Settings] si hace falta) sin hacer commit. */
+    public static void save(Connection conn, ItemDataStorage storage) throws SQLException {
+        if (storage.isCompact() && !WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_ITEM_BLOB))
+            throw new SQLException("La workqueue no tiene la columna [" + WorkqueueSchema.COL_ITEM_BLOB +
+                    "]; ejecute Initialize Workqueue en modo upgrade.");
+        new WorkqueueSchema(conn).ensureSettingsTable();
+        WorkqueueStore store = WorkqueueStores.forConnection(conn);
+        writeSetting(conn, store, SETTING_MODE, storage.mode);
+        writeSetting(conn, store, SETTING_PROMOTED, String.join(",", storage.promotedKeys));
+        CACHE.put(conn, storage);
+    }
+
+    // Compartidos con las demás configuraciones de la cola ({@link PriorityAging})
+    static Map<String, String> readSettings(Connection conn) throws SQLException {
+        Map<String, String> settings = new HashMap<>();
+        String sql = WorkqueueStores.forConnection(conn).translate("SELECT [Name], [Value] FROM [Workqueue Settings]");
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) settings.put(rs.getString(1), rs.getString(2));
+        }
+        return settings;
+    }
+
+    static void writeSetting(Connection conn, WorkqueueStore store, String name, String value) throws SQLException {
+        try (PreparedStatement up = conn.prepareStatement(store.translate(
+                "UPDATE [Workqueue Settings] SET [Value]=? WHERE [Name]=?"))) {
+            up.setString(1, value);
+            up.setString(2, name);
+            if (up.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement ins = conn.prepareStatement(store.translate(
+                "INSERT INTO [Workqueue Settings] ([Name], [Value]) VALUES (?,?)"))) {
+            ins.setString(1, name);
+            ins.setString(2, value);
+            ins.executeUpdate();
+        }
+    }
+
+    // ==========================================================
+    //                        SERIALIZACIÓN
+    // ==========================================================
+    /**
+     * Diccionario como arreglo JSON plano {@code ["k1","v1","k2","v2",...]}: conserva el orden de
+     * las claves (como el ORDER BY [Id] de las filas) y no repite nombres de propiedad.
+     */
+    public static String encode(Map<String, String> data) {
+        JSONArray arr = new JSONArray();
+        if (data != null) {
+            for (Map.Entry<String, String> e : data.entrySet()) {
+                arr.put(e.getKey());
+                arr.put(e.getValue() == null ? JSONObject.NULL : e.getValue());
+            }
+        }
+        return arr.toString();
+    }
+
+    public static Map<String, String> decode(String blob) throws SQLException {
+        Map<String, String> map = new LinkedHashMap<>();
+        if (blob == null || blob.isEmpty()) return map;
+        try {
+            JSONArray arr = new JSONArray(blob);
+            for (int i = 0; i + 1 < arr.length(); i += 2) {
+                map.put(arr.getString(i), arr.isNull(i + 1) ? null : arr.getString(i + 1));
+            }
+        } catch (JSONException e) {
+            throw new SQLException("[" + WorkqueueSchema.COL_ITEM_BLOB + "] inválido: " + e.getMessage(), e);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return mode + (promotedKeys.isEmpty() ? "" : " " + promotedKeys);
+    }
+}
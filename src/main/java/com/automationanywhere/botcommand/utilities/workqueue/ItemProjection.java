@@ -0,0 +1,76 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Qué devuelve una transición (Complete, Exception, Defer, Release, Set Item Status) después
+ * del UPDATE. Releer el ítem y todo su [Item Data] cuesta tanto como el cambio de estado y
+ * casi nunca se usa:
+ * <ul>
+ *   <li>{@link #MODE_NONE}: nada, sin consultas extra (la transición devuelve null);</li>
+ *   <li>{@link #MODE_HEADER}: Id, Key y workflow, sin Item Data;</li>
+ *   <li>{@link #MODE_SELECTED}: cabecera más solo las claves pedidas de Item Data;</li>
+ *   <li>{@link #MODE_FULL}: cabecera y todo el Item Data (comportamiento histórico).</li>
+ * </ul>
+ */
+public final class ItemProjection {
+
+    public static final String MODE_NONE     = "none";
+    public static final String MODE_HEADER   = "header";
+    public static final String MODE_SELECTED = "selected";
+    public static final String MODE_FULL     = "full";
+
+    public static final ItemProjection NONE   = new ItemProjection(MODE_NONE, Collections.emptySet());
+    public static final ItemProjection HEADER = new ItemProjection(MODE_HEADER, Collections.emptySet());
+    public static final ItemProjection FULL   = new ItemProjection(MODE_FULL, Collections.emptySet());
+
+    private final String mode;
+    private final Set<String> keys;
+
+    private ItemProjection(String mode, Set<String> keys) {
+        this.mode = mode;
+        this.keys = Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * @param mode uno de los MODE_* (null = {@link #MODE_FULL})
+     * @param keys claves de Item Data a devolver en {@link #MODE_SELECTED}; sin claves equivale a cabecera
+     */
+    public static ItemProjection of(String mode, Collection<String> keys) {
+        String m = mode == null || mode.trim().isEmpty() ? MODE_FULL : mode.trim().toLowerCase();
+        switch (m) {
+            case MODE_NONE:   return NONE;
+            case MODE_HEADER: return HEADER;
+            case MODE_FULL:   return FULL;
+            case MODE_SELECTED:
+                Set<String> selected = new LinkedHashSet<>();
+                if (keys != null) {
+                    for (String k : keys) {
+                        if (k != null && !k.trim().isEmpty()) selected.add(k.trim());
+                    }
+                }
+                return selected.isEmpty() ? HEADER : new ItemProjection(MODE_SELECTED, selected);
+            default:
+                throw new IllegalArgumentException("Modo de retorno no soportado: " + mode);
+        }
+    }
+
+    public String getMode() { return mode; }
+    public Set<String> getKeys() { return keys; }
+
+    public boolean isNone() { return MODE_NONE.equals(mode); }
+    public boolean isFull() { return MODE_FULL.equals(mode); }
+
+    /** Si hay que leer Item Data (todo o algunas claves). */
+    public boolean readsData() {
+        return MODE_FULL.equals(mode) || MODE_SELECTED.equals(mode);
+    }
+
+    @Override
+    public String toString() {
+        return mode + (keys.isEmpty() ? "" : " " + keys);
+    }
+}
@@ -0,0 +1,28 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+/** Transiciones desde Working que admiten operación en lote. */
+public enum ItemTransition {
+    COMPLETE, EXCEPTION, RELEASE, DEFER;
+
+    /** Resultado por ítem de una transición en lote. */
+    public enum Outcome {
+        UPDATED("Updated"), NOT_FOUND("Not found"), WRONG_STATE("Wrong state");
+
+        private final String label;
+
+        Outcome(String label) { this.label = label; }
+
+        public String getLabel() { return label; }
+    }
+
+    public static ItemTransition from(String raw) {
+        if (raw == null) return null;
+        switch (raw.trim().toUpperCase()) {
+            case "COMPLETE": return COMPLETE;
+            case "EXCEPTION": return EXCEPTION;
+            case "RELEASE": return RELEASE;
+            case "DEFER": return DEFER;
+            default: throw new IllegalArgumentException("Transición inválida: " + raw);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envejecimiento de prioridad de una cola, guardado en [Workqueue Settings]: cada
+ * {@link #getStepSeconds()} que un ítem pasa en Pending, su [Priority] baja en 1 (menor = se
+ * toma antes) hasta llegar a {@link #getFloor()}. Así un ítem de baja prioridad no queda
+ * esperando indefinidamente detrás de un flujo constante de ítems más urgentes.
+ * <p>
+ * El ascenso es un UPDATE por conjunto que hacen los claims ({@link WorkqueueItemDao#agePendingPriorities()})
+ * y no una prioridad calculada en el ORDER BY, que no podría usar el índice de claim.
+ * [Aged At] guarda el último ascenso de cada ítem: aunque varios bots lo ejecuten, un ítem
+ * sube a lo sumo un nivel por intervalo.
+ */
+public final class PriorityAging {
+
+    private static final String SETTING_STEP  = "priority_aging.step_seconds";
+    private static final String SETTING_FLOOR = "priority_aging.floor";
+
+    public static final PriorityAging DISABLED = new PriorityAging(0, 0);
+
+    // Configuración leída por cola (ubicación normalizada): cada comando sin sesión abre su propia
+    // conexión, así que una clave por conexión no cachearía nada. Se relee pasado el TTL por si
+    // otro proceso la cambió.
+    private static final long SETTINGS_TTL_MS = 60_000;
+    private static final Map<String, Cached> CACHE = new ConcurrentHashMap<>();
+    // Último pase por cola: entre claims seguidos (de cualquier conexión del proceso) no se repite el UPDATE
+    private static final Map<String, Long> LAST_PASS = new ConcurrentHashMap<>();
+
+    private static final class Cached {
+        final PriorityAging aging;
+        final long readAtMillis;
+
+        Cached(PriorityAging aging, long readAtMillis) {
+            this.aging = aging;
+            this.readAtMillis = readAtMillis;
+        }
+    }
+
+    private final long stepSeconds;
+    private final long floor;
+
+    private PriorityAging(long stepSeconds, long floor) {
+        this.stepSeconds = stepSeconds;
+        this.floor = floor;
+    }
+
+    /**
+     * @param stepSeconds segundos en Pending por cada nivel de ascenso (0 = desactivado)
+     * @param floor       prioridad mínima a la que llega un ítem por envejecimiento
+     */
+    public static PriorityAging of(long stepSeconds, long floor) {
+        if (stepSeconds < 0) throw new IllegalArgumentException("El intervalo de envejecimiento no puede ser negativo.");
+        return stepSeconds == 0 ? DISABLED : new PriorityAging(stepSeconds, floor);
+    }
+
+    public long getStepSeconds() { return stepSeconds; }
+    public long getFloor() { return floor; }
+
+    public boolean isEnabled() {
+        return stepSeconds > 0;
+    }
+
+    // Un pase cada cuarto de intervalo alcanza: el retraso de un ascenso queda acotado a eso
+    long passIntervalMillis() {
+        return Math.max(1000L, stepSeconds * 1000L / 4);
+    }
+
+    /** Indica si corresponde un pase en la cola de la conexión a esta hora y, si es así, lo registra. */
+    boolean claimPass(Connection conn, long nowMillis) {
+        String key = WorkqueueStores.locationKey(conn);
+        if (key == null) return true;
+        synchronized (LAST_PASS) {
+            Long last = LAST_PASS.get(key);
+            if (last != null && nowMillis >= last && nowMillis - last < passIntervalMillis()) return false;
+            LAST_PASS.put(key, nowMillis);
+            return true;
+        }
+    }
+
+    // ==========================================================
+    //                  CONFIGURACIÓN EN EL ARCHIVO
+    // ==========================================================
+    /** Configuración de la cola; sin [Workqueue Settings] o sin [Aged At] está desactivado. */
+    public static PriorityAging forConnection(Connection conn) throws SQLException {
+        String key = WorkqueueStores.locationKey(conn);
+        if (key == null) return read(conn);
+        long now = System.currentTimeMillis();
+        Cached cached = CACHE.get(key);
+        if (cached != null && now - cached.readAtMillis < SETTINGS_TTL_MS) return cached.aging;
+        PriorityAging aging = read(conn);
+        CACHE.put(key, new Cached(aging, now));
+        return aging;
+    }
+
+    /** Lee la configuración del archivo sin pasar por el caché. */
+    static PriorityAging read(Connection conn) throws SQLException {
+        if (!WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_AGED_AT)
+                || !WorkqueueSchema.settingsTableExists(conn)) return DISABLED;
+        Map<String, String> settings = ItemDataStorage.readSettings(conn);
+        try {
+            return of(Long.parseLong(settings.getOrDefault(SETTING_STEP, "0").trim()),
+                      Long.parseLong(settings.getOrDefault(SETTING_FLOOR, "0").trim()));
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Configuración de envejecimiento de prioridad inválida: " + e.getMessage(), e);
+        }
+    }
+
+    /** Guarda la configuración (crea [Workqueue Settings] si hace falta) sin hacer commit. */
+    public static void save(Connection conn, PriorityAging aging) throws SQLException {
+        if (aging.isEnabled() && !WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_AGED_AT))
+            throw new SQLException("La workqueue no tiene la columna [" + WorkqueueSchema.COL_AGED_AT +
+                    "]; ejecute Initialize Workqueue en modo upgrade.");
+        new WorkqueueSchema(conn).ensureSettingsTable();
+        WorkqueueStore store = WorkqueueStores.forConnection(conn);
+        ItemDataStorage.writeSetting(conn, store, SETTING_STEP, String.valueOf(aging.stepSeconds));
+        ItemDataStorage.writeSetting(conn, store, SETTING_FLOOR, String.valueOf(aging.floor));
+        String key = WorkqueueStores.locationKey(conn);
+        if (key != null) {
+            CACHE.remove(key); // el próximo claim relee la configuración
+            LAST_PASS.remove(key);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isEnabled() ? stepSeconds + "s (floor " + floor + ")" : "disabled";
+    }
+}
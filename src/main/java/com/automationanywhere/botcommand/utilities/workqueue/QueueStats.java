@@ -0,0 +1,85 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Foto de la cola (conteos por [Status] y por [Step Workflow], pendiente más antiguo y próximo
+ * Defer Until) con caché en proceso por ubicación, para que muchos bots puedan consultarla sin
+ * reabrir el archivo en cada llamada.
+ */
+public final class QueueStats {
+
+    public final Map<String, Long> byStatus;
+    public final Map<String, Long> byStep;
+    public final long total;
+    public final Timestamp oldestPendingCreated; // null si no hay Pending
+    public final Timestamp nextDeferUntil;       // null si no hay Pending diferidos a futuro
+    public final long computedAtMillis;
+
+    QueueStats(Map<String, Long> byStatus, Map<String, Long> byStep,
+               Timestamp oldestPendingCreated, Timestamp nextDeferUntil) {
+        this.byStatus = Collections.unmodifiableMap(new LinkedHashMap<>(byStatus));
+        this.byStep = Collections.unmodifiableMap(new LinkedHashMap<>(byStep));
+        long t = 0;
+        for (Long n : byStatus.values()) t += n;
+        this.total = t;
+        this.oldestPendingCreated = oldestPendingCreated;
+        this.nextDeferUntil = nextDeferUntil;
+        this.computedAtMillis = System.currentTimeMillis();
+    }
+
+    /** Suma de varias fotos (una por shard): conteos sumados, el Pending más viejo y el Defer más próximo. */
+    static QueueStats merge(List<QueueStats> parts) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Long> byStep = new TreeMap<>();
+        Timestamp oldest = null;
+        Timestamp nextDefer = null;
+        for (QueueStats q : parts) {
+            q.byStatus.forEach((k, v) -> byStatus.merge(k, v, Long::sum));
+            q.byStep.forEach((k, v) -> byStep.merge(k, v, Long::sum));
+            if (q.oldestPendingCreated != null && (oldest == null || q.oldestPendingCreated.before(oldest)))
+                oldest = q.oldestPendingCreated;
+            if (q.nextDeferUntil != null && (nextDefer == null || q.nextDeferUntil.before(nextDefer)))
+                nextDefer = q.nextDeferUntil;
+        }
+        return new QueueStats(byStatus, byStep, oldest, nextDefer);
+    }
+
+    /** Antigüedad del Pending más viejo al momento de la consulta (0 si no hay). */
+    public long oldestPendingAgeSeconds() {
+        if (oldestPendingCreated == null) return 0;
+        return Math.max(0, (System.currentTimeMillis() - oldestPendingCreated.getTime()) / 1000);
+    }
+
+    // ==========================================================
+    //                      CACHÉ EN PROCESO
+    // ==========================================================
+    private static final Map<String, QueueStats> CACHE = new ConcurrentHashMap<>();
+
+    /** Devuelve la foto cacheada si tiene menos de {@code ttlMs}; si no, null. */
+    public static QueueStats getCached(String location, long ttlMs) {
+        if (ttlMs <= 0 || location == null) return null;
+        QueueStats s = CACHE.get(cacheKey(location));
+        if (s == null || System.currentTimeMillis() - s.computedAtMillis >= ttlMs) return null;
+        return s;
+    }
+
+    public static void putCached(String location, QueueStats stats) {
+        if (location == null || stats == null) return;
+        CACHE.put(cacheKey(location), stats);
+    }
+
+    public static void invalidate(String location) {
+        if (location != null) CACHE.remove(cacheKey(location));
+    }
+
+    private static String cacheKey(String location) {
+        return WorkqueueStores.normalize(location);
+    }
+}
@@ -0,0 +1,318 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.Availability;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.TransitionResult;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao.WorkItem;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * DAO del lado del bot cuando hay un {@link ClaimCoordinator} para el archivo: claims,
+ * transiciones, leases y disponibilidad se envían al coordinador con la configuración del
+ * DAO (lease, filtro de etapa, retorno, actor) y se ejecutan allí sobre su sesión.
+ * <p>
+ * Solo implementa el camino caliente ({@link ClaimDao}) que usan los comandos vía
+ * {@link AccessExecutor#executeClaimDao}; no tiene conexión local ni es un {@link WorkqueueItemDao}.
+ */
+public class RemoteWorkqueueDao implements ClaimDao, AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final String token;
+
+    // Configuración que viaja en cada pedido (el coordinador la aplica a su DAO)
+    private long leaseSeconds = 0;
+    private boolean reclaimExpiredOnClaim = true;
+    private ClaimFilter claimFilter = ClaimFilter.NONE;
+    private ItemProjection transitionReturn = ItemProjection.FULL;
+    private String actor = WorkqueueItemDao.actorFor(null);
+
+    private RemoteWorkqueueDao(Socket socket, String token) throws IOException {
+        this.socket = socket;
+        this.token = token;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Se conecta al coordinador del archivo. Devuelve null si no hay archivo de puerto o si
+     * nadie atiende en ese puerto (coordinador caído: el comando sigue por conexión directa).
+     */
+    public static RemoteWorkqueueDao connect(String filePath) throws IOException {
+        ClaimCoordinator.Endpoint ep = ClaimCoordinator.readPortFile(filePath);
+        if (ep == null) return null;
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), ep.port), ClaimCoordinator.CONNECT_TIMEOUT_MS);
+        } catch (ConnectException | SocketTimeoutException e) {
+            s.close();
+            return null;
+        }
+        return new RemoteWorkqueueDao(s, ep.token);
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    // ---------- Configuración ----------
+    @Override
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = Math.max(0, leaseSeconds);
+    }
+
+    @Override
+    public long getLeaseSeconds() { return leaseSeconds; }
+
+    @Override
+    public void setReclaimExpiredOnClaim(boolean reclaimExpiredOnClaim) {
+        this.reclaimExpiredOnClaim = reclaimExpiredOnClaim;
+    }
+
+    @Override
+    public boolean isReclaimExpiredOnClaim() { return reclaimExpiredOnClaim; }
+
+    @Override
+    public void setClaimFilter(ClaimFilter filter) {
+        this.claimFilter = filter == null ? ClaimFilter.NONE : filter;
+    }
+
+    @Override
+    public ClaimFilter getClaimFilter() { return claimFilter; }
+
+    @Override
+    public void setTransitionReturn(ItemProjection projection) {
+        this.transitionReturn = projection == null ? ItemProjection.FULL : projection;
+    }
+
+    @Override
+    public ItemProjection getTransitionReturn() { return transitionReturn; }
+
+    /** El coordinador normaliza el actor (largo máximo) al aplicarlo a su DAO. */
+    @Override
+    public void setActor(String actor) {
+        this.actor = actor == null || actor.isBlank() ? WorkqueueItemDao.actorFor(null) : actor.trim();
+    }
+
+    @Override
+    public String getActor() { return actor; }
+
+    // ---------- Pedido ----------
+    private Map<String, String> request(String op) {
+        Map<String, String> r = new LinkedHashMap<>();
+        r.put("op", op);
+        r.put("token", token);
+        r.put("actor", getActor());
+        r.put("lease", String.valueOf(getLeaseSeconds()));
+        r.put("reclaim", String.valueOf(isReclaimExpiredOnClaim()));
+        ClaimFilter f = getClaimFilter();
+        if (f.getStepWorkflow() != null) r.put("filter.step", f.getStepWorkflow());
+        if (f.getStatusWorkflow() != null) r.put("filter.status", String.valueOf(f.getStatusWorkflow()));
+        for (Map.Entry<String, String> e : f.getItemData().entrySet()) r.put("filter.data." + e.getKey(), e.getValue());
+        ItemProjection p = getTransitionReturn();
+        r.put("return", p.getMode());
+        if (!p.getKeys().isEmpty()) r.put("return.keys", String.join("\n", p.getKeys()));
+        return r;
+    }
+
+    private static Map<String, String> identify(Map<String, String> r, ItemIdentifierType by, long id, String key) {
+        r.put("by", by.name());
+        if (by == ItemIdentifierType.ID) r.put("id", String.valueOf(id));
+        else r.put("key", key);
+        return r;
+    }
+
+    private CoordinatorWire.Response send(Map<String, String> request) throws SQLException {
+        try {
+            CoordinatorWire.writeRequest(out, request);
+            return CoordinatorWire.readResponse(in);
+        } catch (IOException e) {
+            // Sin respuesta no se sabe si el coordinador aplicó el pedido: no se reintenta por otra vía
+            throw new SQLException("Se perdió la conexión con el coordinador de claims: " + e.getMessage(), e);
+        }
+    }
+
+    private WorkItem single(Map<String, String> request) throws SQLException {
+        List<WorkItem> items = send(request).items;
+        return items == null || items.isEmpty() ? null : items.get(0);
+    }
+
+    private WorkItem transition(ItemTransition t, ItemIdentifierType by, long id, String key,
+                                String reason, Timestamp deferUntil) throws SQLException {
+        Map<String, String> r = identify(request(ClaimCoordinator.OP_TRANSITION), by, id, key);
+        r.put("transition", t.name());
+        if (reason != null) r.put("reason", reason);
+        if (deferUntil != null) r.put("until", String.valueOf(deferUntil.getTime()));
+        return single(r);
+    }
+
+    /** Comprueba que el coordinador atiende (y acepta el token). */
+    public boolean ping() throws SQLException {
+        send(request(ClaimCoordinator.OP_PING));
+        return true;
+    }
+
+    // ==========================================================
+    //                          CLAIM
+    // ==========================================================
+    @Override
+    public WorkItem takeNextPendingAndSetWorking() throws SQLException {
+        return single(request(ClaimCoordinator.OP_CLAIM));
+    }
+
+    /**
+     * El coordinador serializa los claims de la máquina, así que no hay carreras que reintentar:
+     * la política se ignora y se hace un único claim (el backoff no se duerme con la sesión tomada).
+     */
+    @Override
+    public WorkItem takeNextPendingAndSetWorking(ClaimRetryPolicy policy) throws SQLException {
+        return takeNextPendingAndSetWorking();
+    }
+
+    @Override
+    public List<WorkItem> takeNextPendingBatchAndSetWorking(int maxItems) throws SQLException {
+        Map<String, String> r = request(ClaimCoordinator.OP_CLAIM_BATCH);
+        r.put("max", String.valueOf(maxItems));
+        List<WorkItem> items = send(r).items;
+        return items == null ? new ArrayList<>() : items;
+    }
+
+    @Override
+    public int reclaimExpiredLeases() throws SQLException {
+        return Integer.parseInt(send(request(ClaimCoordinator.OP_RECLAIM)).values.get("count"));
+    }
+
+    @Override
+    public long countEligiblePending() throws SQLException {
+        return Long.parseLong(send(request(ClaimCoordinator.OP_COUNT_ELIGIBLE)).values.get("count"));
+    }
+
+    @Override
+    public Availability pendingAvailability() throws SQLException {
+        Map<String, String> v = send(request(ClaimCoordinator.OP_AVAILABILITY)).values;
+        return new Availability(Long.parseLong(v.get("eligible")), Long.parseLong(v.get("deferred")),
+                timestamp(v.get("nextDeferUntil")), timestamp(v.get("nextLeaseExpiry")));
+    }
+
+    // ==========================================================
+    //                          LEASE
+    // ==========================================================
+    @Override
+    public Timestamp extendLeaseById(long id, long seconds) throws SQLException {
+        return extendLease(ItemIdentifierType.ID, id, null, seconds);
+    }
+
+    @Override
+    public Timestamp extendLeaseByKey(String key, long seconds) throws SQLException {
+        return extendLease(ItemIdentifierType.KEY, 0, key, seconds);
+    }
+
+    private Timestamp extendLease(ItemIdentifierType by, long id, String key, long seconds) throws SQLException {
+        Map<String, String> r = identify(request(ClaimCoordinator.OP_EXTEND_LEASE), by, id, key);
+        r.put("seconds", String.valueOf(seconds));
+        return timestamp(send(r).values.get("until"));
+    }
+
+    // ==========================================================
+    //                       TRANSICIONES
+    // ==========================================================
+    @Override
+    public WorkItem completeFromWorkingByKey(String key) throws SQLException {
+        return transition(ItemTransition.COMPLETE, ItemIdentifierType.KEY, 0, key, null, null);
+    }
+
+    @Override
+    public WorkItem completeFromWorkingById(long itemId) throws SQLException {
+        return transition(ItemTransition.COMPLETE, ItemIdentifierType.ID, itemId, null, null, null);
+    }
+
+    @Override
+    public WorkItem exceptionFromWorkingByKey(String key, String reason) throws SQLException {
+        return transition(ItemTransition.EXCEPTION, ItemIdentifierType.KEY, 0, key, reason, null);
+    }
+
+    @Override
+    public WorkItem exceptionFromWorkingById(long itemId, String reason) throws SQLException {
+        return transition(ItemTransition.EXCEPTION, ItemIdentifierType.ID, itemId, null, reason, null);
+    }
+
+    @Override
+    public WorkItem deferFromWorkingByKey(String key, Timestamp deferUntil) throws SQLException {
+        return transition(ItemTransition.DEFER, ItemIdentifierType.KEY, 0, key, null, deferUntil);
+    }
+
+    @Override
+    public WorkItem deferFromWorkingById(long itemId, Timestamp deferUntil) throws SQLException {
+        return transition(ItemTransition.DEFER, ItemIdentifierType.ID, itemId, null, null, deferUntil);
+    }
+
+    @Override
+    public WorkItem releaseFromWorkingByKey(String key) throws SQLException {
+        return transition(ItemTransition.RELEASE, ItemIdentifierType.KEY, 0, key, null, null);
+    }
+
+    @Override
+    public WorkItem releaseFromWorkingById(long itemId) throws SQLException {
+        return transition(ItemTransition.RELEASE, ItemIdentifierType.ID, itemId, null, null, null);
+    }
+
+    @Override
+    public WorkItem updateWorkflowById(long id, Long statusWf, String stepWf) throws SQLException {
+        return updateWorkflow(ItemIdentifierType.ID, id, null, statusWf, stepWf);
+    }
+
+    @Override
+    public WorkItem updateWorkflowByKey(String key, Long statusWf, String stepWf) throws SQLException {
+        return updateWorkflow(ItemIdentifierType.KEY, 0, key, statusWf, stepWf);
+    }
+
+    private WorkItem updateWorkflow(ItemIdentifierType by, long id, String key, Long statusWf, String stepWf) throws SQLException {
+        Map<String, String> r = identify(request(ClaimCoordinator.OP_UPDATE_WORKFLOW), by, id, key);
+        if (statusWf != null) r.put("statusWf", String.valueOf(statusWf));
+        if (stepWf != null) r.put("stepWf", stepWf);
+        return single(r);
+    }
+
+    @Override
+    public List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                                  List<String> identifiers, List<Timestamp> claimedAt,
+                                                  String reason, Timestamp deferUntil) throws SQLException {
+        List<TransitionResult> results = new ArrayList<>();
+        if (identifiers == null || identifiers.isEmpty()) return results;
+        Map<String, String> r = request(ClaimCoordinator.OP_TRANSITION_BATCH);
+        r.put("transition", transition.name());
+        r.put("by", by.name());
+        r.put("count", String.valueOf(identifiers.size()));
+        for (int i = 0; i < identifiers.size(); i++) {
+            r.put("id." + i, identifiers.get(i));
+            if (claimedAt != null) r.put("claimed." + i, claimedAt.get(i).toInstant().toString());
+        }
+        if (reason != null) r.put("reason", reason);
+        if (deferUntil != null) r.put("until", String.valueOf(deferUntil.getTime()));
+        Map<String, String> v = send(r).values;
+        int n = Integer.parseInt(v.get("count"));
+        for (int i = 0; i < n; i++) {
+            results.add(new TransitionResult(v.get("id." + i),
+                    ItemTransition.Outcome.valueOf(v.get("outcome." + i)), v.get("status." + i)));
+        }
+        return results;
+    }
+
+    private static Timestamp timestamp(String millis) {
+        return millis == null ? null : new Timestamp(Long.parseLong(millis));
+    }
+}
@@ -0,0 +1,137 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manifiesto de una workqueue particionada: un archivo {@code .wqshards} (formato properties)
+ * que lista N archivos de cola. Cada ítem vive en el shard que indica el hash de su [Key]
+ * y su Id global codifica el shard: {@code global = local * N + shard}. Por eso la cantidad
+ * de shards queda fija una vez que la cola tiene ítems.
+ * <pre>
+ * claim=round-robin
+ * shard.0=queue_0.accdb
+ * shard.1=queue_1.accdb
+ * </pre>
+ * Las rutas relativas se resuelven contra la carpeta del manifiesto.
+ */
+public final class ShardManifest {
+
+    public static final String EXTENSION = ".wqshards";
+
+    public static final String CLAIM_ROUND_ROBIN  = "round-robin";
+    public static final String CLAIM_LEAST_LOADED = "least-loaded";
+
+    private static final String PROP_CLAIM = "claim";
+    private static final String PROP_SHARD = "shard.";
+
+    // Manifiestos leídos, por ruta absoluta (el cursor round-robin se comparte en el proceso)
+    private static final Map<String, ShardManifest> LOADED = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final long lastModified;
+    private final List<String> shards;
+    private final String claimStrategy;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private ShardManifest(String path, long lastModified, List<String> shards, String claimStrategy) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.shards = Collections.unmodifiableList(shards);
+        this.claimStrategy = claimStrategy;
+    }
+
+    public static boolean isManifest(String location) {
+        return location != null && location.toLowerCase().endsWith(EXTENSION);
+    }
+
+    /** Lee el manifiesto (cacheado mientras el archivo no cambie). */
+    public static ShardManifest load(String manifestPath) throws IOException {
+        Path p = Paths.get(manifestPath).toAbsolutePath().normalize();
+        if (!Files.exists(p)) throw new IOException("No existe el manifiesto de shards: " + manifestPath);
+        long modified = Files.getLastModifiedTime(p).toMillis();
+        ShardManifest cached = LOADED.get(p.toString());
+        if (cached != null && cached.lastModified == modified) return cached;
+
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+            props.load(r);
+        }
+        List<String> shards = new ArrayList<>();
+        for (int i = 0; props.containsKey(PROP_SHARD + i); i++) {
+            Path shard = Paths.get(props.getProperty(PROP_SHARD + i).trim());
+            if (!shard.isAbsolute()) shard = p.getParent().resolve(shard);
+            shards.add(shard.normalize().toString());
+        }
+        if (shards.isEmpty()) throw new IOException("El manifiesto no lista shards (shard.0, shard.1, ...): " + manifestPath);
+        String claim = props.getProperty(PROP_CLAIM, CLAIM_ROUND_ROBIN).trim().toLowerCase();
+        if (!claim.equals(CLAIM_ROUND_ROBIN) && !claim.equals(CLAIM_LEAST_LOADED))
+            throw new IOException("Estrategia de claim no soportada en el manifiesto: " + claim);
+
+        ShardManifest m = new ShardManifest(p.toString(), modified, shards, claim);
+        LOADED.put(p.toString(), m);
+        return m;
+    }
+
+    /**
+     * Escribe un manifiesto nuevo con {@code shardCount} archivos {@code <nombre>_<i><extensión>}
+     * junto al manifiesto. No crea los archivos de cola (ver Initialize Workqueue).
+     */
+    public static ShardManifest create(String manifestPath, int shardCount, String claimStrategy,
+                                       String shardExtension) throws IOException {
+        if (shardCount <= 0) throw new IOException("La cantidad de shards debe ser mayor a 0.");
+        Path p = Paths.get(manifestPath).toAbsolutePath().normalize();
+        if (Files.exists(p)) throw new IOException("El manifiesto ya existe: " + manifestPath);
+        String name = p.getFileName().toString();
+        String base = name.substring(0, name.length() - EXTENSION.length());
+
+        StringBuilder sb = new StringBuilder("# Workqueue particionada: no cambiar la cantidad de shards con ítems cargados\n");
+        sb.append(PROP_CLAIM).append('=').append(claimStrategy == null ? CLAIM_ROUND_ROBIN : claimStrategy).append('\n');
+        for (int i = 0; i < shardCount; i++) {
+            sb.append(PROP_SHARD).append(i).append('=').append(base).append('_').append(i).append(shardExtension).append('\n');
+        }
+        Files.createDirectories(p.getParent());
+        try (Writer w = Files.newBufferedWriter(p, StandardCharsets.UTF_8)) {
+            w.write(sb.toString());
+        }
+        return load(p.toString());
+    }
+
+    public String getPath() { return path; }
+    public List<String> getShards() { return shards; }
+    public int size() { return shards.size(); }
+    public String getClaimStrategy() { return claimStrategy; }
+
+    /** Shard de un [Key]: String.hashCode está especificado, así que es estable entre JVMs. */
+    public int shardOfKey(String key) {
+        return Math.floorMod(key == null ? 0 : key.hashCode(), shards.size());
+    }
+
+    public int shardOfId(long globalId) {
+        return (int) Math.floorMod(globalId, (long) shards.size());
+    }
+
+    public long localId(long globalId) {
+        return Math.floorDiv(globalId, shards.size());
+    }
+
+    public long globalId(int shard, long localId) {
+        return localId * shards.size() + shard;
+    }
+
+    /** Orden de visita round-robin: cada claim empieza por el shard siguiente al anterior. */
+    List<Integer> roundRobinOrder() {
+        int start = Math.floorMod(cursor.getAndIncrement(), shards.size());
+        List<Integer> order = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) order.add((start + i) % shards.size());
+        return order;
+    }
+}
@@ -0,0 +1,436 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * DAO sobre una workqueue particionada ({@link ShardManifest}): mismas operaciones que
+ * {@link WorkqueueItemDao}, repartidas entre un DAO por shard.
+ * <ul>
+ *   <li>Alta: cada ítem va al shard del hash de su [Key].</li>
+ *   <li>Claim: se recorren los shards en round-robin o del más cargado al menos cargado
+ *       (Pending elegibles), hasta que uno entrega ítems.</li>
+ *   <li>Por Key se va directo al shard del hash; por Id, al shard codificado en el Id global.</li>
+ *   <li>Estadísticas y barrido de leases se suman entre shards.</li>
+ * </ul>
+ * Los Id que salen de este DAO son globales; los comandos no necesitan saber que hay shards.
+ */
+public class ShardedWorkqueueDao extends WorkqueueItemDao {
+
+    private final ShardManifest manifest;
+    private final List<WorkqueueItemDao> shards = new ArrayList<>();
+
+    public ShardedWorkqueueDao(ShardManifest manifest, List<Connection> connections) {
+        super(connections.get(0));
+        if (connections.size() != manifest.size())
+            throw new IllegalArgumentException("Se esperaban " + manifest.size() + " conexiones (una por shard).");
+        this.manifest = manifest;
+        for (Connection c : connections) shards.add(new WorkqueueItemDao(c));
+    }
+
+    public ShardManifest getManifest() {
+        return manifest;
+    }
+
+    // ---------- Ruteo ----------
+    private WorkqueueItemDao byKey(String key) {
+        return shards.get(manifest.shardOfKey(key));
+    }
+
+    private WorkqueueItemDao byId(long globalId) {
+        return shards.get(manifest.shardOfId(globalId));
+    }
+
+    private WorkItem global(int shard, WorkItem w) {
+        if (w == null) return null;
+        return new WorkItem(manifest.globalId(shard, w.id), w.key, w.statusWorkflow, w.stepWorkflow, w.data);
+    }
+
+    private WorkItem globalById(long globalId, WorkItem w) {
+        return global(manifest.shardOfId(globalId), w);
+    }
+
+    private WorkItem globalByKey(String key, WorkItem w) {
+        return global(manifest.shardOfKey(key), w);
+    }
+
+    /** Orden de visita de los shards para un claim, según la estrategia del manifiesto. */
+    private List<Integer> claimOrder() throws SQLException {
+        if (!ShardManifest.CLAIM_LEAST_LOADED.equals(manifest.getClaimStrategy())) return manifest.roundRobinOrder();
+        long[] pending = new long[shards.size()];
+        List<Integer> order = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            pending[i] = shards.get(i).countEligiblePending();
+            if (pending[i] > 0) order.add(i);
+        }
+        order.sort((a, b) -> Long.compare(pending[b], pending[a]));
+        return order;
+    }
+
+    // ==========================================================
+    //                         LEASE
+    // ==========================================================
+    @Override
+    public void setLeaseSeconds(long leaseSeconds) {
+        super.setLeaseSeconds(leaseSeconds);
+        for (WorkqueueItemDao d : shards) d.setLeaseSeconds(leaseSeconds);
+    }
+
+    @Override
+    public void setReclaimExpiredOnClaim(boolean reclaimExpiredOnClaim) {
+        super.setReclaimExpiredOnClaim(reclaimExpiredOnClaim);
+        for (WorkqueueItemDao d : shards) d.setReclaimExpiredOnClaim(reclaimExpiredOnClaim);
+    }
+
+    @Override
+    public void setClaimFilter(ClaimFilter filter) {
+        super.setClaimFilter(filter);
+        for (WorkqueueItemDao d : shards) d.setClaimFilter(filter);
+    }
+
+    @Override
+    public void setTransitionReturn(ItemProjection projection) {
+        super.setTransitionReturn(projection);
+        for (WorkqueueItemDao d : shards) d.setTransitionReturn(projection);
+    }
+
+    @Override
+    public void setClaimStampListener(ClaimStampListener listener) {
+        super.setClaimStampListener(listener);
+        for (int i = 0; i < shards.size(); i++) {
+            final int shard = i;
+            // Cada shard informa su Id local: hacia afuera va el global
+            shards.get(i).setClaimStampListener(listener == null ? null : (id, key, at) ->
+                    listener.stamped(id > 0 ? manifest.globalId(shard, id) : 0, key, at));
+        }
+    }
+
+    @Override
+    public void setActor(String actor) {
+        super.setActor(actor);
+        for (WorkqueueItemDao d : shards) d.setActor(actor);
+    }
+
+    @Override
+    public void setClock(java.time.Clock clock) {
+        super.setClock(clock);
+        for (WorkqueueItemDao d : shards) d.setClock(clock);
+    }
+
+    @Override
+    public int agePendingPriorities() throws SQLException {
+        int total = 0;
+        for (WorkqueueItemDao d : shards) total += d.agePendingPriorities();
+        return total;
+    }
+
+    @Override
+    public int reclaimExpiredLeases() throws SQLException {
+        int total = 0;
+        for (WorkqueueItemDao d : shards) total += d.reclaimExpiredLeases();
+        return total;
+    }
+
+    @Override
+    public Timestamp extendLeaseById(long id, long seconds) throws SQLException {
+        return byId(id).extendLeaseById(manifest.localId(id), seconds);
+    }
+
+    @Override
+    public Timestamp extendLeaseByKey(String key, long seconds) throws SQLException {
+        return byKey(key).extendLeaseByKey(key, seconds);
+    }
+
+    @Override
+    public Timestamp claimStamp(ItemIdentifierType by, String identifier) throws SQLException {
+        if (by == ItemIdentifierType.KEY) return byKey(identifier).claimStamp(by, identifier);
+        long id;
+        try {
+            id = Long.parseLong(identifier.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Item Id inválido: " + identifier);
+        }
+        return byId(id).claimStamp(by, String.valueOf(manifest.localId(id)));
+    }
+
+    // ==========================================================
+    //                          CLAIM
+    // ==========================================================
+    @Override
+    public WorkItem takeNextPendingAndSetWorking() throws SQLException {
+        return takeNextPendingAndSetWorking(null);
+    }
+
+    @Override
+    public WorkItem takeNextPendingAndSetWorking(ClaimRetryPolicy policy) throws SQLException {
+        for (int shard : claimOrder()) {
+            WorkqueueItemDao d = shards.get(shard);
+            WorkItem item = policy == null ? d.takeNextPendingAndSetWorking() : d.takeNextPendingAndSetWorking(policy);
+            if (item != null) return global(shard, item);
+        }
+        return null;
+    }
+
+    @Override
+    public List<WorkItem> takeNextPendingBatchAndSetWorking(int maxItems) throws SQLException {
+        if (maxItems <= 0) throw new SQLException("La cantidad de ítems debe ser mayor a 0.");
+        List<WorkItem> result = new ArrayList<>();
+        for (int shard : claimOrder()) {
+            if (result.size() >= maxItems) break;
+            for (WorkItem w : shards.get(shard).takeNextPendingBatchAndSetWorking(maxItems - result.size()))
+                result.add(global(shard, w));
+        }
+        return result;
+    }
+
+    @Override
+    public long countEligiblePending() throws SQLException {
+        long total = 0;
+        for (WorkqueueItemDao d : shards) total += d.countEligiblePending();
+        return total;
+    }
+
+    // ==========================================================
+    //                          ALTA
+    // ==========================================================
+    /** Reparte por hash de [Key] en un buffer por shard; cada buffer lleno se inserta en su shard. */
+    @Override
+    public InsertReport insertBatch(Iterator<NewItem> items, int batchSize, ProgressListener listener) throws SQLException {
+        if (batchSize <= 0) throw new SQLException("El tamaño de lote debe ser mayor a 0.");
+        InsertReport total = new InsertReport();
+        List<List<NewItem>> buffers = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) buffers.add(new ArrayList<>(batchSize));
+        long read = 0;
+        while (items.hasNext()) {
+            NewItem item = items.next();
+            read++;
+            if (item.key == null || item.key.isEmpty()) throw new SQLException("Ítem sin Key (fila " + read + ").");
+            int shard = manifest.shardOfKey(item.key);
+            List<NewItem> buf = buffers.get(shard);
+            buf.add(item);
+            if (buf.size() >= batchSize) flush(shard, buf, batchSize, total, listener);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (!buffers.get(shard).isEmpty()) flush(shard, buffers.get(shard), batchSize, total, listener);
+        }
+        return total;
+    }
+
+    private void flush(int shard, List<NewItem> buf, int batchSize, InsertReport total,
+                       ProgressListener listener) throws SQLException {
+        InsertReport r = shards.get(shard).insertBatch(buf.iterator(), batchSize, null);
+        buf.clear();
+        total.processed += r.processed;
+        total.inserted += r.inserted;
+        total.dataRows += r.dataRows;
+        total.batches += r.batches;
+        total.duplicateKeys.addAll(r.duplicateKeys);
+        if (listener != null) listener.onBatchCommitted(total.batches, total.processed, total.inserted);
+    }
+
+    // ==========================================================
+    //                 TRANSICIONES INDIVIDUALES
+    // ==========================================================
+    @Override
+    public WorkItem completeFromWorkingByKey(String key) throws SQLException {
+        return globalByKey(key, byKey(key).completeFromWorkingByKey(key));
+    }
+
+    @Override
+    public WorkItem completeFromWorkingById(long itemId) throws SQLException {
+        return globalById(itemId, byId(itemId).completeFromWorkingById(manifest.localId(itemId)));
+    }
+
+    @Override
+    public WorkItem exceptionFromWorkingByKey(String key, String reason) throws SQLException {
+        return globalByKey(key, byKey(key).exceptionFromWorkingByKey(key, reason));
+    }
+
+    @Override
+    public WorkItem exceptionFromWorkingById(long itemId, String reason) throws SQLException {
+        return globalById(itemId, byId(itemId).exceptionFromWorkingById(manifest.localId(itemId), reason));
+    }
+
+    @Override
+    public WorkItem deferFromWorkingByKey(String key, Timestamp deferUntil) throws SQLException {
+        return globalByKey(key, byKey(key).deferFromWorkingByKey(key, deferUntil));
+    }
+
+    @Override
+    public WorkItem deferFromWorkingById(long itemId, Timestamp deferUntil) throws SQLException {
+        return globalById(itemId, byId(itemId).deferFromWorkingById(manifest.localId(itemId), deferUntil));
+    }
+
+    @Override
+    public WorkItem releaseFromWorkingByKey(String key) throws SQLException {
+        return globalByKey(key, byKey(key).releaseFromWorkingByKey(key));
+    }
+
+    @Override
+    public WorkItem releaseFromWorkingById(long itemId) throws SQLException {
+        return globalById(itemId, byId(itemId).releaseFromWorkingById(manifest.localId(itemId)));
+    }
+
+    @Override
+    public WorkItem updateWorkflowById(long id, Long statusWf, String stepWf) throws SQLException {
+        return globalById(id, byId(id).updateWorkflowById(manifest.localId(id), statusWf, stepWf));
+    }
+
+    @Override
+    public WorkItem updateWorkflowByKey(String key, Long statusWf, String stepWf) throws SQLException {
+        return globalByKey(key, byKey(key).updateWorkflowByKey(key, statusWf, stepWf));
+    }
+
+    // ==========================================================
+    //                   TRANSICIONES EN LOTE
+    // ==========================================================
+    /** Agrupa por shard, aplica un lote por shard y devuelve los resultados en el orden de entrada. */
+    @Override
+    public List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                                  List<String> identifiers, List<Timestamp> claimedAt,
+                                                  String reason, Timestamp deferUntil) throws SQLException {
+        List<TransitionResult> results = new ArrayList<>();
+        if (identifiers == null || identifiers.isEmpty()) return results;
+
+        Map<Integer, List<Integer>> positions = new LinkedHashMap<>();
+        Map<Integer, List<String>> local = new HashMap<>();
+        Map<Integer, List<Timestamp>> localClaimed = new HashMap<>();
+        TransitionResult[] ordered = new TransitionResult[identifiers.size()];
+        for (int i = 0; i < identifiers.size(); i++) {
+            String ident = identifiers.get(i);
+            int shard;
+            String localIdent;
+            if (by == ItemIdentifierType.ID) {
+                long id;
+                try {
+                    id = Long.parseLong(ident.trim());
+                } catch (NumberFormatException e) {
+                    ordered[i] = new TransitionResult(ident, ItemTransition.Outcome.NOT_FOUND, null);
+                    continue;
+                }
+                shard = manifest.shardOfId(id);
+                localIdent = String.valueOf(manifest.localId(id));
+            } else {
+                shard = manifest.shardOfKey(ident);
+                localIdent = ident;
+            }
+            positions.computeIfAbsent(shard, k -> new ArrayList<>()).add(i);
+            local.computeIfAbsent(shard, k -> new ArrayList<>()).add(localIdent);
+            if (claimedAt != null) localClaimed.computeIfAbsent(shard, k -> new ArrayList<>()).add(claimedAt.get(i));
+        }
+
+        for (Map.Entry<Integer, List<Integer>> e : positions.entrySet()) {
+            int shard = e.getKey();
+            List<TransitionResult> part = shards.get(shard).transitionBatch(transition, by, local.get(shard),
+                    claimedAt == null ? null : localClaimed.get(shard), reason, deferUntil);
+            for (int j = 0; j < part.size(); j++) {
+                int pos = e.getValue().get(j);
+                TransitionResult r = part.get(j);
+                ordered[pos] = new TransitionResult(identifiers.get(pos), r.outcome, r.status);
+            }
+        }
+        results.addAll(Arrays.asList(ordered));
+        return results;
+    }
+
+    // ==========================================================
+    //                   LECTURAS Y ESTADÍSTICAS
+    // ==========================================================
+    @Override
+    public Availability pendingAvailability() throws SQLException {
+        long eligible = 0, deferred = 0;
+        Timestamp nextDefer = null, nextLease = null;
+        for (WorkqueueItemDao d : shards) {
+            Availability a = d.pendingAvailability();
+            eligible += a.eligible;
+            deferred += a.deferred;
+            if (a.nextDeferUntil != null && (nextDefer == null || a.nextDeferUntil.before(nextDefer))) nextDefer = a.nextDeferUntil;
+            if (a.nextLeaseExpiry != null && (nextLease == null || a.nextLeaseExpiry.before(nextLease))) nextLease = a.nextLeaseExpiry;
+        }
+        return new Availability(eligible, deferred, nextDefer, nextLease);
+    }
+
+    @Override
+    public QueueStats queueStats() throws SQLException {
+        List<QueueStats> parts = new ArrayList<>();
+        for (WorkqueueItemDao d : shards) parts.add(d.queueStats());
+        return QueueStats.merge(parts);
+    }
+
+    /** Cada shard busca desde su Id local equivalente; las páginas se mezclan por Id global. */
+    @Override
+    public SearchPage findItems(Map<String, String> data, Collection<String> statuses, long afterId,
+                                int pageSize, boolean includeData) throws SQLException {
+        int n = manifest.size();
+        List<FoundItem> merged = new ArrayList<>();
+        boolean more = false;
+        for (int i = 0; i < n; i++) {
+            // global > afterId  <=>  local > floor((afterId - shard) / N)
+            long localAfter = Math.floorDiv(afterId - i, (long) n);
+            SearchPage part = shards.get(i).findItems(data, statuses, localAfter, pageSize, includeData);
+            for (FoundItem f : part.items) merged.add(new FoundItem(global(i, f.item), f.status, f.lastUpdated));
+            more |= part.nextAfterId != null;
+        }
+        merged.sort(Comparator.comparingLong(f -> f.item.id));
+        if (merged.size() <= pageSize)
+            return new SearchPage(merged, more && !merged.isEmpty() ? merged.get(merged.size() - 1).item.id : null);
+        List<FoundItem> page = new ArrayList<>(merged.subList(0, pageSize));
+        return new SearchPage(page, page.get(pageSize - 1).item.id);
+    }
+
+    @Override
+    public RequeueReport requeueExceptions(String reasonPattern, String stepWorkflow, Timestamp updatedBefore,
+                                           long priorityBump, int chunkSize) throws SQLException {
+        List<RequeueReport> parts = new ArrayList<>();
+        for (WorkqueueItemDao d : shards) parts.add(d.requeueExceptions(reasonPattern, stepWorkflow, updatedBefore, priorityBump, chunkSize));
+        return RequeueReport.merge(parts);
+    }
+
+    @Override
+    public ChangePage changesSince(Timestamp afterUpdated, long afterId, Timestamp upTo,
+                                   int pageSize, boolean includeData) throws SQLException {
+        int n = manifest.size();
+        List<FoundItem> merged = new ArrayList<>();
+        boolean more = false;
+        for (int i = 0; i < n; i++) {
+            // Mismo desempate que con Id global: global > afterId  <=>  local > floor((afterId - shard) / N)
+            long localAfter = Math.floorDiv(afterId - i, (long) n);
+            ChangePage part = shards.get(i).changesSince(afterUpdated, localAfter, upTo, pageSize, includeData);
+            for (FoundItem f : part.items) merged.add(new FoundItem(global(i, f.item), f.status, f.lastUpdated));
+            more |= part.hasMore;
+        }
+        merged.sort(Comparator.comparing((FoundItem f) -> f.lastUpdated).thenComparingLong(f -> f.item.id));
+        if (merged.size() > pageSize) {
+            merged = new ArrayList<>(merged.subList(0, pageSize));
+            more = true;
+        }
+        if (merged.isEmpty()) return new ChangePage(merged, afterUpdated, afterId, false);
+        FoundItem last = merged.get(merged.size() - 1);
+        return new ChangePage(merged, last.lastUpdated, last.item.id, more);
+    }
+
+    @Override
+    public Map<String, String> getItemDataById(long itemId) throws SQLException {
+        return byId(itemId).getItemDataById(manifest.localId(itemId));
+    }
+
+    @Override
+    public Map<Long, Map<String, String>> getItemDataByIds(Collection<Long> itemIds) throws SQLException {
+        Map<Long, Map<String, String>> result = new LinkedHashMap<>();
+        if (itemIds == null || itemIds.isEmpty()) return result;
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : itemIds) byShard.computeIfAbsent(manifest.shardOfId(id), k -> new ArrayList<>()).add(manifest.localId(id));
+        for (Map.Entry<Integer, List<Long>> e : byShard.entrySet()) {
+            for (Map.Entry<Long, Map<String, String>> d : shards.get(e.getKey()).getItemDataByIds(e.getValue()).entrySet())
+                result.put(manifest.globalId(e.getKey(), d.getKey()), d.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getItemDataByKey(String itemKey) throws SQLException {
+        return byKey(itemKey).getItemDataByKey(itemKey);
+    }
+}
@@ -0,0 +1,166 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Caché de PreparedStatement por conexión, para las conexiones que viven más que un comando
+ * (sesiones). Evita que UCanAccess vuelva a parsear y traducir el SQL de Access en cada
+ * claim/transición.
+ * <p>
+ * {@link #prepare(String)} devuelve un envoltorio: su {@code close()} no cierra el statement
+ * sino que limpia parámetros y batch y lo devuelve al caché, así el DAO sigue usando
+ * try-with-resources igual que sin caché. Un statement prestado no se entrega dos veces: si
+ * el mismo SQL se pide mientras otro está abierto (consultas anidadas), se prepara uno nuevo.
+ * Los menos usados se cierran al superar el máximo (los SQL con listas IN variables no
+ * llenan el caché indefinidamente).
+ */
+public final class StatementCache {
+
+    public static final int DEFAULT_MAX_STATEMENTS = 64;
+
+    private static final Map<Connection, StatementCache> BY_CONNECTION = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Connection conn;
+    private final WorkqueueStore store;
+    private final Map<String, PreparedStatement> idle;
+    private long hits;
+    private long misses;
+    private boolean closed;
+
+    private StatementCache(Connection conn, WorkqueueStore store, int maxStatements) {
+        this.conn = conn;
+        this.store = store;
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxStatements) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    // ==========================================================
+    //                  REGISTRO POR CONEXIÓN
+    // ==========================================================
+    /** Activa el caché en la conexión (la sesión lo hace al abrir); idempotente. */
+    public static StatementCache attach(Connection conn, WorkqueueStore store) {
+        return attach(conn, store, DEFAULT_MAX_STATEMENTS);
+    }
+
+    public static StatementCache attach(Connection conn, WorkqueueStore store, int maxStatements) {
+        if (maxStatements < 1) throw new IllegalArgumentException("El máximo de statements debe ser mayor a 0.");
+        synchronized (BY_CONNECTION) {
+            return BY_CONNECTION.computeIfAbsent(conn, c -> new StatementCache(c, store, maxStatements));
+        }
+    }
+
+    /** Caché de la conexión, o null si no tiene (conexiones de un solo comando). */
+    public static StatementCache forConnection(Connection conn) {
+        return BY_CONNECTION.get(conn);
+    }
+
+    /** Cierra los statements y desactiva el caché; llamar antes de cerrar la conexión. */
+    public static void detach(Connection conn) {
+        StatementCache cache = BY_CONNECTION.remove(conn);
+        if (cache != null) cache.close();
+    }
+
+    // ==========================================================
+    //                        PRÉSTAMO
+    // ==========================================================
+    /**
+     * Statement para el SQL (en dialecto Access; se traduce solo la primera vez). El close()
+     * del resultado lo devuelve al caché.
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        if (closed) throw new SQLException("El caché de statements está cerrado.");
+        PreparedStatement ps = idle.remove(sql);
+        if (ps != null && !ps.isClosed()) {
+            hits++;
+        } else {
+            misses++;
+            ps = conn.prepareStatement(store.translate(sql));
+        }
+        return lend(sql, ps);
+    }
+
+    private PreparedStatement lend(String sql, PreparedStatement target) {
+        final boolean[] returned = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                giveBack(sql, target);
+                            }
+                            return null;
+                        case "isClosed":
+                            return returned[0] || target.isClosed();
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(target)) return target;
+                            break;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            break;
+                    }
+                    if (returned[0]) throw new SQLException("Statement ya devuelto al caché.");
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private synchronized void giveBack(String sql, PreparedStatement ps) {
+        if (closed) {
+            closeQuietly(ps);
+            return;
+        }
+        try {
+            ps.clearParameters();
+            ps.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(ps); // no se reutiliza un statement en estado dudoso
+            return;
+        }
+        PreparedStatement previous = idle.put(sql, ps);
+        if (previous != null && previous != ps) closeQuietly(previous); // préstamo anidado del mismo SQL
+    }
+
+    // ==========================================================
+    //                        ESTADO
+    // ==========================================================
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int size() { return idle.size(); }
+
+    /** Cierra los statements ociosos (p.ej. después de cambiar el esquema); el caché sigue activo. */
+    public synchronized void clear() {
+        for (PreparedStatement ps : idle.values()) closeQuietly(ps);
+        idle.clear();
+    }
+
+    private synchronized void close() {
+        closed = true;
+        for (PreparedStatement ps : idle.values()) closeQuietly(ps);
+        idle.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignore) {
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal write-behind para Complete/Exception.
+ * <p>
+ * Cada transición se agrega a un archivo local append-only con fsync y el comando vuelve enseguida.
+ * Un hilo de fondo aplica las entradas al .accdb en lotes ({@link WorkqueueItemDao#transitionBatch})
+ * y registra el último número de secuencia aplicado en un checkpoint.
+ * <p>
+ * Cada journal tiene un solo dueño: se llama {@code <archivo>.journal.<sesión>} y el dueño lo
+ * mantiene con un lock exclusivo mientras vive. Al abrir una sesión, {@link #replayOrphans} aplica
+ * los journals que dejaron bots caídos (el lock se puede tomar) y saltea los de bots vivos.
+ * <p>
+ * Cada entrada guarda la identidad del claim (el [Last Updated] que escribió el claim o el último
+ * cambio de workflow) y el UPDATE exige que siga igual: si el lease venció y otro bot volvió a
+ * tomar el ítem, la transición no lo pisa. La sesión dueña informa esa marca al tomar el ítem
+ * ({@link #claimed}), así que registrar no lee la base. Las entradas rechazadas por la base (no encontradas, estado incorrecto
+ * u otro claim) se copian a {@code <journal>.rejected} para revisión.
+ * <p>
+ * El flush escribe [Last Updated] con la hora de aplicación, no la del append: el feed de cambios
+ * avanza por [Last Updated] y una hora anterior a la marca de agua de un lector lo haría perderse.
+ */
+public class StatusJournal implements AutoCloseable {
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 2000;
+    public static final int DEFAULT_MAX_BATCH = 500;
+
+    private static final String JOURNAL_INFIX = ".journal.";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+    private static final String REJECTED_SUFFIX = ".rejected";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int MAX_KNOWN_CLAIMS = 10_000;
+
+    /** Entrada del journal. */
+    public static final class Entry {
+        final long seq;
+        final Timestamp at;
+        final ItemTransition transition;
+        final ItemIdentifierType by;
+        final String identifier;
+        final Timestamp claimedAt;
+        final String reason;
+
+        Entry(long seq, Timestamp at, ItemTransition transition, ItemIdentifierType by,
+              String identifier, Timestamp claimedAt, String reason) {
+            this.seq = seq;
+            this.at = at;
+            this.transition = transition;
+            this.by = by;
+            this.identifier = identifier;
+            this.claimedAt = claimedAt;
+            this.reason = reason;
+        }
+
+        String encode() {
+            return seq + "\t" + at.getTime() + "\t" + transition + "\t" + by + "\t" +
+                    claimedAt.toInstant() + "\t" + escape(identifier) + "\t" +
+                    escape(reason == null ? "" : reason) + "\n";
+        }
+
+        static Entry decode(String line) {
+            String[] p = line.split("\t", -1);
+            if (p.length != 7) return null; // línea truncada por la caída: se descarta
+            return new Entry(Long.parseLong(p[0]), new Timestamp(Long.parseLong(p[1])),
+                    ItemTransition.valueOf(p[2]), ItemIdentifierType.valueOf(p[3]),
+                    unescape(p[5]), Timestamp.from(Instant.parse(p[4])), p[6].isEmpty() ? null : unescape(p[6]));
+        }
+    }
+
+    /** Ítem Working tomado por la sesión dueña y la marca de su claim. */
+    private static final class KnownClaim {
+        final long id;
+        final String key;
+        Timestamp at;
+
+        KnownClaim(long id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    /** El journal tiene el lock de otro dueño vivo (otro proceso u otra sesión de este). */
+    private static final class JournalInUseException extends IOException {
+        JournalInUseException(Path journal) {
+            super("El journal " + journal + " está en uso por otro bot.");
+        }
+    }
+
+    private final String filePath;          // .accdb destino
+    private final Path journalPath;
+    private final Path checkpointPath;
+    private final Path rejectedPath;
+    private final int maxBatch;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private final Object flushing = new Object(); // un solo flush a la vez (hilo de fondo o close)
+    // Claims de la sesión dueña todavía sin transición (los más viejos se olvidan: se leen de la base)
+    private final Map<String, KnownClaim> knownByKey = new HashMap<>();
+    private final Map<Long, KnownClaim> knownById = new LinkedHashMap<Long, KnownClaim>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, KnownClaim> eldest) {
+            if (size() <= MAX_KNOWN_CLAIMS) return false;
+            knownByKey.remove(eldest.getValue().key);
+            return true;
+        }
+    };
+    private final ScheduledExecutorService flusher; // null = journal huérfano en recuperación
+    private long nextSeq;
+    private long appliedSeq;
+    private long attemptedSeq;              // hasta acá un flush pudo haber confirmado sin checkpoint
+    private boolean closed;
+    private volatile String lastError;
+
+    /** Journal propio de {@code owner} (p. ej. el id de sesión) sobre el archivo. */
+    public StatusJournal(String filePath, String owner, long flushIntervalMs, int maxBatch) throws IOException {
+        this(filePath, journalPathOf(filePath, owner), maxBatch, flushIntervalMs);
+    }
+
+    private StatusJournal(String filePath, Path journalPath, int maxBatch, long flushIntervalMs) throws IOException {
+        this.filePath = filePath;
+        this.journalPath = journalPath;
+        this.checkpointPath = Paths.get(journalPath + CHECKPOINT_SUFFIX);
+        this.rejectedPath = Paths.get(journalPath + REJECTED_SUFFIX);
+        this.maxBatch = maxBatch;
+
+        this.channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileLock l;
+        try {
+            l = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            l = null; // lo tiene otra sesión de este mismo proceso
+        }
+        if (l == null) {
+            channel.close();
+            throw new JournalInUseException(journalPath);
+        }
+        this.lock = l;
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            lock.release();
+            channel.close();
+            throw e;
+        }
+
+        if (flushIntervalMs <= 0) {
+            this.flusher = null;
+            return;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "workqueue-journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static Path journalPathOf(String filePath, String owner) {
+        if (owner == null || owner.isEmpty()) throw new IllegalArgumentException("El journal necesita un dueño.");
+        return Paths.get(filePath + JOURNAL_INFIX + owner);
+    }
+
+    // Relee el journal (por el canal con lock) y deja pendientes las entradas posteriores al checkpoint
+    private void recover() throws IOException {
+        appliedSeq = 0;
+        if (Files.exists(checkpointPath)) {
+            String ck = new String(Files.readAllBytes(checkpointPath), StandardCharsets.UTF_8).trim();
+            if (!ck.isEmpty()) appliedSeq = Long.parseLong(ck);
+        }
+        nextSeq = appliedSeq + 1;
+
+        ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) >= 0) {
+            // lee hasta el final
+        }
+        byte[] bytes = buf.array();
+        int valid = bytes.length;
+        while (valid > 0 && bytes[valid - 1] != '\n') valid--; // la última línea pudo quedar a medias
+        for (String line : new String(bytes, 0, valid, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isEmpty()) continue;
+            Entry e = Entry.decode(line);
+            if (e == null) continue;
+            if (e.seq > appliedSeq) pending.addLast(e);
+            nextSeq = Math.max(nextSeq, e.seq + 1);
+        }
+        // Lo que está en disco pudo haberse aplicado antes de la caída
+        attemptedSeq = nextSeq - 1;
+        if (valid < bytes.length) channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    /**
+     * Aplica los journals de este archivo que quedaron sin dueño (bot caído) y los borra.
+     * Los que tienen el lock tomado son de bots vivos y no se tocan. Devuelve las entradas aplicadas.
+     */
+    public static int replayOrphans(String filePath) throws Exception {
+        Path base = Paths.get(filePath).toAbsolutePath();
+        Path dir = base.getParent();
+        if (dir == null || !Files.isDirectory(dir)) return 0;
+        String prefix = base.getFileName() + JOURNAL_INFIX;
+        List<Path> journals = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, p -> {
+            String n = p.getFileName().toString();
+            return n.startsWith(prefix) && !n.endsWith(CHECKPOINT_SUFFIX) && !n.endsWith(REJECTED_SUFFIX)
+                    && !n.endsWith(TMP_SUFFIX);
+        })) {
+            ds.forEach(journals::add);
+        }
+        int replayed = 0;
+        for (Path path : journals) {
+            StatusJournal orphan;
+            try {
+                orphan = new StatusJournal(filePath, path, DEFAULT_MAX_BATCH, 0);
+            } catch (JournalInUseException e) {
+                continue;
+            }
+            try (StatusJournal j = orphan) {
+                replayed += j.pendingCount(); // close aplica todo y borra el journal
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Marca de un claim (o cambio de workflow) de la sesión dueña; se registra como
+     * {@link WorkqueueItemDao.ClaimStampListener} en sus DAO.
+     */
+    public void claimed(long id, String key, Timestamp at) {
+        synchronized (knownById) {
+            KnownClaim c = id > 0 ? knownById.get(id) : null;
+            if (c == null && key != null) c = knownByKey.get(key);
+            if (c == null) {
+                if (id <= 0 || key == null) return; // cambio de workflow de un ítem que no tomó esta sesión
+                c = new KnownClaim(id, key);
+                knownById.put(id, c);
+                knownByKey.put(key, c);
+            }
+            c.at = at;
+        }
+    }
+
+    // Marca conocida del claim, que se olvida porque el ítem sale de Working; null si no se conoce
+    private Timestamp forgetClaim(ItemIdentifierType by, String identifier) {
+        synchronized (knownById) {
+            KnownClaim c;
+            if (by == ItemIdentifierType.KEY) {
+                c = knownByKey.get(identifier);
+            } else {
+                try {
+                    c = knownById.get(Long.parseLong(identifier.trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (c == null) return null;
+            knownById.remove(c.id);
+            knownByKey.remove(c.key);
+            return c.at;
+        }
+    }
+
+    /**
+     * Registra la transición de un ítem que esta sesión tiene Working, con la identidad de su
+     * claim. Si lo tomó esta sesión la marca ya está en memoria y no se toca la base; si no
+     * (p. ej. se tomó antes de abrirla) se lee, y falla enseguida si el ítem no está Working.
+     */
+    public void append(ItemTransition transition, ItemIdentifierType by, String identifier,
+                       String reason) throws IOException {
+        Timestamp claimedAt = forgetClaim(by, identifier);
+        if (claimedAt == null)
+            claimedAt = AccessExecutor.executeDao(filePath, dao -> dao.claimStamp(by, identifier));
+        append(transition, by, identifier, claimedAt, reason);
+    }
+
+    /** Registra la transición en disco (fsync) y la deja para el próximo flush. */
+    public synchronized void append(ItemTransition transition, ItemIdentifierType by, String identifier,
+                                    Timestamp claimedAt, String reason) throws IOException {
+        if (transition != ItemTransition.COMPLETE && transition != ItemTransition.EXCEPTION)
+            throw new IllegalArgumentException("El journal solo admite Complete y Exception: " + transition);
+        if (claimedAt == null) throw new IllegalArgumentException("Falta la identidad del claim de " + identifier);
+        if (closed) throw new IOException("El journal está cerrado: " + journalPath);
+        Entry e = new Entry(nextSeq++, new Timestamp(System.currentTimeMillis()), transition, by, identifier,
+                claimedAt, reason);
+        ByteBuffer buf = ByteBuffer.wrap(e.encode().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) channel.write(buf);
+        channel.force(false);
+        pending.addLast(e);
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    /** Entradas que la base rechazó (se conservan después de cerrar el journal). */
+    public Path getRejectedPath() {
+        return rejectedPath;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+            lastError = null;
+        } catch (Exception ex) {
+            lastError = ex.getMessage(); // se reintenta en el próximo ciclo
+        }
+    }
+
+    /** Aplica al .accdb todo lo pendiente, en lotes de hasta maxBatch entradas. */
+    public void flush() throws Exception {
+        synchronized (flushing) {
+            while (true) {
+                List<Entry> batch;
+                long attempted;
+                synchronized (this) {
+                    if (pending.isEmpty()) return;
+                    batch = new ArrayList<>(Math.min(maxBatch, pending.size()));
+                    Iterator<Entry> it = pending.iterator();
+                    while (it.hasNext() && batch.size() < maxBatch) batch.add(it.next());
+                    attempted = attemptedSeq;
+                }
+
+                long last = batch.get(batch.size() - 1).seq;
+                List<Entry> rejected;
+                try {
+                    rejected = AccessExecutor.executeDao(filePath, dao -> apply(dao, batch, attempted));
+                } finally {
+                    // cada grupo confirma por separado: un error pudo dejar parte aplicada
+                    synchronized (this) {
+                        attemptedSeq = Math.max(attemptedSeq, last);
+                    }
+                }
+
+                synchronized (this) {
+                    for (int i = 0; i < batch.size(); i++) pending.pollFirst();
+                    appliedSeq = last;
+                    writeRejected(rejected);
+                    writeCheckpoint();
+                    if (pending.isEmpty()) truncate();
+                }
+            }
+        }
+    }
+
+    // Agrupa por (transición, tipo de identificador, razón) respetando el orden y aplica cada grupo en lote
+    private static List<Entry> apply(WorkqueueItemDao dao, List<Entry> batch, long attempted) throws Exception {
+        Map<String, List<Entry>> groups = new LinkedHashMap<>();
+        for (Entry e : batch) {
+            String k = e.transition + "|" + e.by + "|" + (e.reason == null ? "" : e.reason);
+            groups.computeIfAbsent(k, x -> new ArrayList<>()).add(e);
+        }
+        List<Entry> rejected = new ArrayList<>();
+        for (List<Entry> g : groups.values()) {
+            List<String> ids = new ArrayList<>(g.size());
+            List<Timestamp> claims = new ArrayList<>(g.size());
+            for (Entry e : g) { ids.add(e.identifier); claims.add(e.claimedAt); }
+            Entry first = g.get(0);
+            List<WorkqueueItemDao.TransitionResult> results =
+                    dao.transitionBatch(first.transition, first.by, ids, claims, first.reason, null);
+            String target = first.transition == ItemTransition.COMPLETE ? "Completed" : "Exception";
+            for (int i = 0; i < results.size(); i++) {
+                WorkqueueItemDao.TransitionResult r = results.get(i);
+                if (r.outcome == ItemTransition.Outcome.UPDATED) continue;
+                // ya aplicado por un flush anterior (o el dueño caído) que no llegó a registrar el checkpoint
+                if (r.outcome == ItemTransition.Outcome.WRONG_STATE && target.equals(r.status)
+                        && g.get(i).seq <= attempted) continue;
+                rejected.add(g.get(i));
+            }
+        }
+        return rejected;
+    }
+
+    private void writeRejected(List<Entry> rejected) throws IOException {
+        if (rejected.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : rejected) sb.append(e.encode());
+        Files.write(rejectedPath, sb.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path tmp = Paths.get(checkpointPath + TMP_SUFFIX);
+        Files.write(tmp, String.valueOf(appliedSeq).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Todo aplicado: el journal se vacía (el checkpoint conserva la secuencia)
+    private void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    /**
+     * Detiene el flusher, aplica lo pendiente y cierra el archivo. Si quedó todo aplicado borra
+     * el journal y su checkpoint; si no, quedan en disco y los recupera la próxima apertura.
+     */
+    @Override
+    public void close() throws Exception {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        boolean drained = false;
+        try {
+            flush();
+            drained = true;
+        } finally {
+            synchronized (this) {
+                closed = true;
+                drained = drained && pending.isEmpty();
+                try {
+                    // Con el lock tomado: quien abra el archivo después lo encuentra vacío
+                    if (drained) {
+                        truncate();
+                        Files.deleteIfExists(checkpointPath);
+                    }
+                } finally {
+                    lock.release();
+                    channel.close();
+                }
+                if (drained) Files.deleteIfExists(journalPath);
+            }
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char n = s.charAt(++i);
+                sb.append(n == 't' ? '\t' : n == 'n' ? '\n' : n == 'r' ? '\r' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
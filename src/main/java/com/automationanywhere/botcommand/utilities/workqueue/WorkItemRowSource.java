@@ -0,0 +1,177 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.model.Schema;
+import com.automationanywhere.botcommand.data.model.table.Row;
+import com.automationanywhere.botcommand.data.model.table.Table;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.ss.usermodel.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Filas de entrada para la carga masiva, como Map columna → valor (en el orden de columnas).
+ * Se recorren de a una: CSV se lee en streaming y la tabla/hoja se recorre por índice
+ * sin copiar todas las filas a memoria.
+ */
+public abstract class WorkItemRowSource implements Iterator<Map<String, String>>, Closeable {
+
+    protected List<String> headers = new ArrayList<>();
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public void close() throws IOException { }
+
+    // ------------------------------------------------------------------
+    //                          TABLE (A360)
+    // ------------------------------------------------------------------
+    public static WorkItemRowSource fromTable(Table table) {
+        return new TableSource(table);
+    }
+
+    private static final class TableSource extends WorkItemRowSource {
+        private final List<Row> rows;
+        private int next = 0;
+
+        TableSource(Table table) {
+            for (Schema s : table.getSchema()) headers.add(s.getName() == null ? "" : s.getName().trim());
+            this.rows = table.getRows() == null ? Collections.emptyList() : table.getRows();
+        }
+
+        @Override
+        public boolean hasNext() { return next < rows.size(); }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            List<Value> values = rows.get(next++).getValues();
+            Map<String, String> m = new LinkedHashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                Value v = values != null && i < values.size() ? values.get(i) : null;
+                Object raw = v == null ? null : v.get();
+                m.put(headers.get(i), raw == null ? "" : raw.toString());
+            }
+            return m;
+        }
+    }
+
+    // ------------------------------------------------------------------
+    //                          CSV (commons-csv)
+    // ------------------------------------------------------------------
+    public static WorkItemRowSource fromCsv(String path, char delimiter, Charset charset) throws IOException {
+        return new CsvSource(path, delimiter, charset);
+    }
+
+    private static final class CsvSource extends WorkItemRowSource {
+        private final CSVParser parser;
+        private final Iterator<CSVRecord> it;
+
+        CsvSource(String path, char delimiter, Charset charset) throws IOException {
+            Reader reader = Files.newBufferedReader(Paths.get(path), charset);
+            CSVFormat format = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(delimiter)
+                    .setHeader()
+                    .setSkipHeaderRecord(true)
+                    .setTrim(true)
+                    .setIgnoreEmptyLines(true)
+                    .build();
+            this.parser = CSVParser.parse(reader, format);
+            this.headers = new ArrayList<>(parser.getHeaderNames());
+            this.it = parser.iterator();
+        }
+
+        @Override
+        public boolean hasNext() { return it.hasNext(); }
+
+        @Override
+        public Map<String, String> next() {
+            CSVRecord r = it.next();
+            Map<String, String> m = new LinkedHashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                m.put(headers.get(i), i < r.size() ? r.get(i) : "");
+            }
+            return m;
+        }
+
+        @Override
+        public void close() throws IOException { parser.close(); }
+    }
+
+    // ------------------------------------------------------------------
+    //                          EXCEL (POI)
+    // ------------------------------------------------------------------
+    /** Primera fila de la hoja = encabezados. Hoja vacía o nula = primera hoja. */
+    public static WorkItemRowSource fromExcel(String path, String sheetName) throws IOException {
+        return new ExcelSource(path, sheetName);
+    }
+
+    private static final class ExcelSource extends WorkItemRowSource {
+        private final Workbook workbook;
+        private final Sheet sheet;
+        private final DataFormatter formatter = new DataFormatter();
+        private int nextRow;
+        private final int lastRow;
+
+        ExcelSource(String path, String sheetName) throws IOException {
+            try (InputStream in = new FileInputStream(path)) {
+                this.workbook = WorkbookFactory.create(in);
+            }
+            this.sheet = (sheetName == null || sheetName.isBlank()) ? workbook.getSheetAt(0) : workbook.getSheet(sheetName);
+            if (sheet == null) {
+                workbook.close();
+                throw new IOException("No se encontró la hoja '" + sheetName + "'");
+            }
+            org.apache.poi.ss.usermodel.Row header = sheet.getRow(sheet.getFirstRowNum());
+            if (header != null) {
+                for (int c = 0; c < header.getLastCellNum(); c++) {
+                    Cell cell = header.getCell(c, org.apache.poi.ss.usermodel.Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+                    headers.add(formatter.formatCellValue(cell).trim());
+                }
+            }
+            this.nextRow = sheet.getFirstRowNum() + 1;
+            this.lastRow = sheet.getLastRowNum();
+            skipBlankRows();
+        }
+
+        private void skipBlankRows() {
+            while (nextRow <= lastRow && isBlank(sheet.getRow(nextRow))) nextRow++;
+        }
+
+        private boolean isBlank(org.apache.poi.ss.usermodel.Row row) {
+            if (row == null) return true;
+            for (int c = 0; c < headers.size(); c++) {
+                Cell cell = row.getCell(c, org.apache.poi.ss.usermodel.Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
+                if (cell != null && !formatter.formatCellValue(cell).isBlank()) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() { return nextRow <= lastRow; }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            org.apache.poi.ss.usermodel.Row row = sheet.getRow(nextRow++);
+            Map<String, String> m = new LinkedHashMap<>();
+            for (int c = 0; c < headers.size(); c++) {
+                Cell cell = row.getCell(c, org.apache.poi.ss.usermodel.Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+                m.put(headers.get(c), formatter.formatCellValue(cell).trim());
+            }
+            skipBlankRows();
+            return m;
+        }
+
+        @Override
+        public void close() throws IOException { workbook.close(); }
+    }
+}
@@ -0,0 +1,466 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Mueve ítems Completed/Exception con [Last Updated] anterior a un corte, junto con su
+ * [Item Data], a un archivo de archivo rotativo (.accdb o CSV) y los borra de la cola viva.
+ * Trabaja por bloques acotados: cada bloque se escribe y confirma en el archivo de destino
+ * y recién después se borra de la cola con su propio commit, así la cola sigue respondiendo.
+ * Si el proceso se corta entre ambos pasos, la próxima corrida vuelve a copiar el bloque:
+ * en .accdb se reemplazan las filas por Id; en CSV pueden quedar filas repetidas.
+ */
+public class WorkqueueArchiver {
+
+    public static final String TARGET_DATABASE = "database";
+    public static final String TARGET_CSV      = "csv";
+
+    public static final String ROTATE_NONE    = "none";
+    public static final String ROTATE_MONTHLY = "monthly";
+    public static final String ROTATE_YEARLY  = "yearly";
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final String TBL_WQ         = "[workqueue]";
+    private static final String TBL_DATA       = "[Item Data]";
+    private static final String COL_ID         = "[Id]";
+    private static final String COL_STATUS     = "[Status]";
+    private static final String COL_UPDATED    = "[Last Updated]";
+    private static final String COL_D_ITEM_ID  = "[Item ID]";
+    private static final String COL_D_ID       = "[Id]";
+    private static final String ARCHIVED_DATE  = "Archived Date";
+
+    private static final List<String> ARCHIVABLE = List.of("Completed", "Exception");
+
+    // Mismas columnas que la cola, con Id copiado (no COUNTER) para poder reemplazar por Id
+    private static final String DDL_ARCHIVE_WORKQUEUE =
+            "CREATE TABLE [workqueue] (" +
+            "[Id] LONG PRIMARY KEY, " +
+            "[Key] TEXT(255), " +
+            "[Status] TEXT(20), " +
+            "[Status Workflow] LONG, " +
+            "[Step Workflow] TEXT(255), " +
+            "[Created Date] DATETIME, " +
+            "[Last Updated] DATETIME, " +
+            "[Exception Reason] MEMO, " +
+            "[Priority] LONG, " +
+            "[Defer Until] DATETIME, " +
+            "[Lease Until] DATETIME, " +
+            "[Item Blob] MEMO, " +
+            "[Aged At] DATETIME, " +
+            "[Archived Date] DATETIME)";
+
+    private static final String DDL_ARCHIVE_ITEM_DATA =
+            "CREATE TABLE [Item Data] (" +
+            "[Id] LONG PRIMARY KEY, " +
+            "[Item ID] LONG, " +
+            "[Key] TEXT(255), " +
+            "[Value] MEMO)";
+
+    /** Un bloque movido: ítems, filas de Item Data y tiempo total (lectura, copia y borrado). */
+    public static final class ChunkReport {
+        public final int items;
+        public final int dataRows;
+        public final long millis;
+
+        ChunkReport(int items, int dataRows, long millis) {
+            this.items = items;
+            this.dataRows = dataRows;
+            this.millis = millis;
+        }
+    }
+
+    public static final class Report {
+        public long itemsMoved;
+        public long dataRowsMoved;
+        public final List<ChunkReport> chunks = new ArrayList<>();
+        public final Set<String> archiveFiles = new LinkedHashSet<>();
+
+        /** Suma de los reportes de varios archivos (p. ej. uno por shard). */
+        public static Report merge(List<Report> parts) {
+            Report total = new Report();
+            for (Report r : parts) {
+                total.itemsMoved += r.itemsMoved;
+                total.dataRowsMoved += r.dataRowsMoved;
+                total.chunks.addAll(r.chunks);
+                total.archiveFiles.addAll(r.archiveFiles);
+            }
+            return total;
+        }
+    }
+
+    private final Connection conn;
+    private final WorkqueueStore store;
+
+    public WorkqueueArchiver(Connection conn) {
+        this.conn = conn;
+        this.store = WorkqueueStores.forConnection(conn);
+    }
+
+    /**
+     * @param cutoff      se archivan los ítems con [Last Updated] anterior a este instante
+     * @param archiveDir  carpeta de los archivos de archivo
+     * @param baseName    prefijo de los archivos (normalmente el nombre de la cola)
+     * @param target      {@link #TARGET_DATABASE} o {@link #TARGET_CSV}
+     * @param rotation    {@link #ROTATE_NONE}, {@link #ROTATE_MONTHLY} o {@link #ROTATE_YEARLY}, según [Last Updated]
+     * @param chunkSize   ítems por bloque
+     * @param maxChunks   tope de bloques por corrida (0 = sin tope)
+     */
+    public Report archive(Timestamp cutoff, String archiveDir, String baseName, String target,
+                          String rotation, int chunkSize, int maxChunks) throws Exception {
+        if (cutoff == null) throw new SQLException("La fecha de corte es obligatoria.");
+        if (chunkSize <= 0) throw new SQLException("El tamaño de bloque debe ser mayor a 0.");
+        Files.createDirectories(Paths.get(archiveDir));
+
+        Report report = new Report();
+        Map<String, ArchiveSink> sinks = new LinkedHashMap<>();
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            while (maxChunks <= 0 || report.chunks.size() < maxChunks) {
+                long t0 = System.nanoTime();
+                Rows items = selectChunk(cutoff, chunkSize);
+                if (items.rows.isEmpty()) break;
+
+                List<Long> ids = new ArrayList<>(items.rows.size());
+                for (Object[] r : items.rows) ids.add(((Number) r[items.idIndex]).longValue());
+                Rows data = selectData(ids);
+
+                // Cada ítem va al archivo de su período, con su Item Data
+                Map<String, List<Object[]>> itemsByPeriod = new LinkedHashMap<>();
+                Map<Long, String> periodById = new HashMap<>();
+                for (Object[] r : items.rows) {
+                    String period = period((Timestamp) r[items.updatedIndex], rotation);
+                    itemsByPeriod.computeIfAbsent(period, k -> new ArrayList<>()).add(r);
+                    periodById.put(((Number) r[items.idIndex]).longValue(), period);
+                }
+                Map<String, List<Object[]>> dataByPeriod = new HashMap<>();
+                for (Object[] d : data.rows) {
+                    String period = periodById.get(((Number) d[data.itemIdIndex]).longValue());
+                    dataByPeriod.computeIfAbsent(period, k -> new ArrayList<>()).add(d);
+                }
+                Timestamp archivedAt = Timestamp.from(java.time.Instant.now());
+                for (Map.Entry<String, List<Object[]>> e : itemsByPeriod.entrySet()) {
+                    ArchiveSink sink = sinks.get(e.getKey());
+                    if (sink == null) {
+                        sink = openSink(archiveDir, baseName, target, e.getKey());
+                        sinks.put(e.getKey(), sink);
+                        report.archiveFiles.add(sink.describe());
+                    }
+                    sink.write(items.columns, e.getValue(), data.columns,
+                            dataByPeriod.getOrDefault(e.getKey(), Collections.emptyList()), archivedAt);
+                }
+
+                deleteLive(ids, cutoff);
+
+                report.itemsMoved += items.rows.size();
+                report.dataRowsMoved += data.rows.size();
+                report.chunks.add(new ChunkReport(items.rows.size(), data.rows.size(),
+                        (System.nanoTime() - t0) / 1_000_000));
+                if (items.rows.size() < chunkSize) break;
+            }
+        } finally {
+            conn.setAutoCommit(prevAuto);
+            for (ArchiveSink sink : sinks.values()) {
+                try { sink.close(); } catch (Exception ignore) { }
+            }
+        }
+        return report;
+    }
+
+    // ==========================================================
+    //                       LECTURA (COLA VIVA)
+    // ==========================================================
+    private static final class Rows {
+        final List<String> columns = new ArrayList<>();
+        final List<Object[]> rows = new ArrayList<>();
+        int idIndex = -1, updatedIndex = -1, itemIdIndex = -1;
+    }
+
+    private Rows selectChunk(Timestamp cutoff, int chunkSize) throws SQLException {
+        String sql = "SELECT TOP " + chunkSize + " * FROM " + TBL_WQ +
+                " WHERE " + COL_STATUS + " IN (?,?) AND " + COL_UPDATED + " < ?" +
+                " ORDER BY " + COL_ID + " ASC";
+        try (PreparedStatement ps = conn.prepareStatement(store.translate(sql))) {
+            ps.setString(1, ARCHIVABLE.get(0));
+            ps.setString(2, ARCHIVABLE.get(1));
+            ps.setTimestamp(3, cutoff);
+            try (ResultSet rs = ps.executeQuery()) {
+                Rows r = read(rs);
+                r.idIndex = indexOf(r.columns, "Id");
+                r.updatedIndex = indexOf(r.columns, "Last Updated");
+                return r;
+            }
+        }
+    }
+
+    private Rows selectData(List<Long> ids) throws SQLException {
+        Rows all = null;
+        for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+            String sql = "SELECT * FROM " + TBL_DATA + " WHERE " + COL_D_ITEM_ID +
+                    " IN (" + WorkqueueItemDao.placeholders(chunk.size()) + ") ORDER BY " + COL_D_ID + " ASC";
+            try (PreparedStatement ps = conn.prepareStatement(store.translate(sql))) {
+                int i = 1;
+                for (Long id : chunk) ps.setLong(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    Rows r = read(rs);
+                    if (all == null) all = r; else all.rows.addAll(r.rows);
+                }
+            }
+        }
+        all.itemIdIndex = indexOf(all.columns, "Item ID");
+        return all;
+    }
+
+    private static Rows read(ResultSet rs) throws SQLException {
+        Rows r = new Rows();
+        ResultSetMetaData md = rs.getMetaData();
+        int n = md.getColumnCount();
+        for (int c = 1; c <= n; c++) r.columns.add(md.getColumnLabel(c));
+        while (rs.next()) {
+            Object[] row = new Object[n];
+            for (int c = 1; c <= n; c++) row[c - 1] = rs.getObject(c);
+            r.rows.add(row);
+        }
+        return r;
+    }
+
+    private static int indexOf(List<String> columns, String name) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) if (columns.get(i).equalsIgnoreCase(name)) return i;
+        throw new SQLException("Columna no encontrada en la workqueue: " + name);
+    }
+
+    // ==========================================================
+    //                     BORRADO (COLA VIVA)
+    // ==========================================================
+    // Un commit por bloque; se vuelve a exigir el estado y el corte por si el ítem cambió
+    // (p. ej. se reencoló) entre la lectura y el borrado: en ese caso queda vivo con su Item Data.
+    private void deleteLive(List<Long> ids, Timestamp cutoff) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+                String in = WorkqueueItemDao.placeholders(chunk.size());
+
+                String delItems = "DELETE FROM " + TBL_WQ + " WHERE " + COL_ID + " IN (" + in + ")" +
+                        " AND " + COL_STATUS + " IN (?,?) AND " + COL_UPDATED + " < ?";
+                try (PreparedStatement ps = conn.prepareStatement(store.translate(delItems))) {
+                    int i = 1;
+                    for (Long id : chunk) ps.setLong(i++, id);
+                    ps.setString(i++, ARCHIVABLE.get(0));
+                    ps.setString(i++, ARCHIVABLE.get(1));
+                    ps.setTimestamp(i, cutoff);
+                    ps.executeUpdate();
+                }
+
+                String delData = "DELETE FROM " + TBL_DATA + " WHERE " + COL_D_ITEM_ID + " IN (" + in + ")" +
+                        " AND NOT EXISTS (SELECT 1 FROM " + TBL_WQ + " w WHERE w." + COL_ID + " = " + TBL_DATA + "." + COL_D_ITEM_ID + ")";
+                try (PreparedStatement ps = conn.prepareStatement(store.translate(delData))) {
+                    int i = 1;
+                    for (Long id : chunk) ps.setLong(i++, id);
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        }
+    }
+
+    // ==========================================================
+    //                    DESTINO (ARCHIVO ROTATIVO)
+    // ==========================================================
+    private static String period(Timestamp updated, String rotation) {
+        if (updated == null || rotation == null || ROTATE_NONE.equalsIgnoreCase(rotation)) return "";
+        String pattern = ROTATE_YEARLY.equalsIgnoreCase(rotation) ? "yyyy" : "yyyyMM";
+        return new SimpleDateFormat(pattern).format(updated);
+    }
+
+    private static ArchiveSink openSink(String dir, String baseName, String target, String period) throws Exception {
+        String name = baseName + "_archive" + (period.isEmpty() ? "" : "_" + period);
+        if (TARGET_CSV.equalsIgnoreCase(target)) return new CsvSink(Paths.get(dir), name);
+        return new DatabaseSink(Paths.get(dir, name + ".accdb").toString());
+    }
+
+    private interface ArchiveSink extends Closeable {
+        /** Escribe y confirma el bloque en el destino antes de que se borre de la cola. */
+        void write(List<String> itemColumns, List<Object[]> items,
+                   List<String> dataColumns, List<Object[]> data, Timestamp archivedAt) throws Exception;
+
+        String describe();
+    }
+
+    private static final class DatabaseSink implements ArchiveSink {
+        private final String path;
+        private final Connection archive;
+        private final WorkqueueStore store;
+        private final Map<String, List<String>> columnsByTable = new HashMap<>();
+
+        DatabaseSink(String path) throws Exception {
+            this.path = path;
+            this.store = WorkqueueStores.forLocation(path);
+            this.archive = store.openConnection(path, !Files.exists(Paths.get(path)));
+            try (Statement st = archive.createStatement()) {
+                if (columns("workqueue").isEmpty()) st.executeUpdate(store.translate(DDL_ARCHIVE_WORKQUEUE));
+                if (columns("Item Data").isEmpty()) st.executeUpdate(store.translate(DDL_ARCHIVE_ITEM_DATA));
+                columnsByTable.clear();
+                // Archivos de archivo anteriores al modo compacto: sin la columna se perdería el Item Data
+                if (match(columns("workqueue"), WorkqueueSchema.COL_ITEM_BLOB) == null)
+                    st.executeUpdate(store.translate("ALTER TABLE [workqueue] ADD COLUMN [" + WorkqueueSchema.COL_ITEM_BLOB + "] MEMO"));
+            }
+            columnsByTable.clear();
+            archive.setAutoCommit(false);
+        }
+
+        @Override
+        public void write(List<String> itemColumns, List<Object[]> items,
+                          List<String> dataColumns, List<Object[]> data, Timestamp archivedAt) throws Exception {
+            try {
+                upsert("workqueue", itemColumns, items, archivedAt);
+                upsert("Item Data", dataColumns, data, null);
+                archive.commit();
+            } catch (Exception ex) {
+                archive.rollback();
+                throw ex;
+            }
+        }
+
+        // Reemplaza por Id: un bloque repetido tras un corte no duplica filas
+        private void upsert(String table, List<String> liveColumns, List<Object[]> rows, Timestamp archivedAt) throws SQLException {
+            if (rows.isEmpty()) return;
+            List<String> target = columns(table);
+            List<Integer> sourceIdx = new ArrayList<>();
+            List<String> insertCols = new ArrayList<>();
+            for (int i = 0; i < liveColumns.size(); i++) {
+                String c = match(target, liveColumns.get(i));
+                if (c != null) { insertCols.add(c); sourceIdx.add(i); }
+            }
+            String archivedCol = archivedAt == null ? null : match(target, ARCHIVED_DATE);
+            if (archivedCol != null) insertCols.add(archivedCol);
+
+            int idIdx = liveColumns.indexOf(match(liveColumns, "Id"));
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] r : rows) ids.add(((Number) r[idIdx]).longValue());
+            for (int from = 0; from < ids.size(); from += WorkqueueItemDao.IN_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + WorkqueueItemDao.IN_CHUNK_SIZE, ids.size()));
+                String del = "DELETE FROM [" + table + "] WHERE [Id] IN (" + WorkqueueItemDao.placeholders(chunk.size()) + ")";
+                try (PreparedStatement ps = archive.prepareStatement(store.translate(del))) {
+                    int i = 1;
+                    for (Long id : chunk) ps.setLong(i++, id);
+                    ps.executeUpdate();
+                }
+            }
+
+            StringBuilder sql = new StringBuilder("INSERT INTO [").append(table).append("] (");
+            for (int i = 0; i < insertCols.size(); i++) sql.append(i > 0 ? ", " : "").append('[').append(insertCols.get(i)).append(']');
+            sql.append(") VALUES (").append(WorkqueueItemDao.placeholders(insertCols.size())).append(')');
+            try (PreparedStatement ps = archive.prepareStatement(store.translate(sql.toString()))) {
+                for (Object[] r : rows) {
+                    int p = 1;
+                    for (int idx : sourceIdx) ps.setObject(p++, r[idx]);
+                    if (archivedCol != null) ps.setTimestamp(p, archivedAt);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        private List<String> columns(String table) throws SQLException {
+            List<String> cached = columnsByTable.get(table);
+            if (cached != null) return cached;
+            List<String> cols = new ArrayList<>();
+            DatabaseMetaData md = archive.getMetaData();
+            try (ResultSet t = md.getTables(null, null, null, new String[]{"TABLE"})) {
+                while (t.next()) {
+                    String name = t.getString("TABLE_NAME");
+                    if (name == null || !name.equalsIgnoreCase(table)) continue;
+                    try (ResultSet c = md.getColumns(null, null, name, null)) {
+                        while (c.next()) cols.add(c.getString("COLUMN_NAME"));
+                    }
+                    break;
+                }
+            }
+            if (!cols.isEmpty()) columnsByTable.put(table, cols);
+            return cols;
+        }
+
+        private static String match(List<String> columns, String name) {
+            for (String c : columns) if (c.equalsIgnoreCase(name)) return c;
+            return null;
+        }
+
+        @Override
+        public String describe() {
+            return path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                archive.close();
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static final class CsvSink implements ArchiveSink {
+        private final Path itemsFile;
+        private final Path dataFile;
+
+        CsvSink(Path dir, String name) {
+            this.itemsFile = dir.resolve(name + "_workqueue.csv");
+            this.dataFile = dir.resolve(name + "_item_data.csv");
+        }
+
+        @Override
+        public void write(List<String> itemColumns, List<Object[]> items,
+                          List<String> dataColumns, List<Object[]> data, Timestamp archivedAt) throws IOException {
+            append(itemsFile, itemColumns, items, archivedAt);
+            append(dataFile, dataColumns, data, null);
+        }
+
+        // Cada bloque se agrega y se cierra el archivo (queda en disco antes del borrado)
+        private static void append(Path file, List<String> columns, List<Object[]> rows, Timestamp archivedAt) throws IOException {
+            if (rows.isEmpty()) return;
+            boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+            try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                 CSVPrinter printer = new CSVPrinter(w, CSVFormat.DEFAULT)) {
+                if (isNew) {
+                    List<String> header = new ArrayList<>(columns);
+                    if (archivedAt != null) header.add(ARCHIVED_DATE);
+                    printer.printRecord(header);
+                }
+                for (Object[] r : rows) {
+                    List<String> values = new ArrayList<>(r.length + 1);
+                    for (Object v : r) values.add(v == null ? "" : v.toString());
+                    if (archivedAt != null) values.add(archivedAt.toString());
+                    printer.printRecord(values);
+                }
+            }
+        }
+
+        @Override
+        public String describe() {
+            return itemsFile.toString();
+        }
+
+        @Override
+        public void close() { }
+    }
+}
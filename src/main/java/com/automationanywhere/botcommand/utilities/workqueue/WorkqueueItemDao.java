@@ -1,12 +1,11 @@
 package com.automationanywhere.botcommand.utilities.workqueue;
 
 import java.sql.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
-public class WorkqueueItemDao {
+public class WorkqueueItemDao implements ClaimDao {
 
-    // --- Tablas / columnas (Access usa corchetes por espacios/reservadas) ---
+    // --- Tablas / columnas (Access usa corchetes por espacios/reservadas; otros backends traducen) ---
     private static final String TBL_WQ          = "[workqueue]";
     private static final String COL_ID          = "[Id]";
     private static final String COL_KEY         = "[Key]";
@@ -18,12 +17,16 @@ public class WorkqueueItemDao {
     private static final String COL_EXC_REASON  = "[Exception Reason]";
     private static final String COL_PRIORITY    = "[Priority]";
     private static final String COL_DEFER_UNTIL = "[Defer Until]";
+    private static final String COL_LEASE_UNTIL = "[" + WorkqueueSchema.COL_LEASE_UNTIL + "]";
+    private static final String COL_ITEM_BLOB   = "[" + WorkqueueSchema.COL_ITEM_BLOB + "]";
+    private static final String COL_AGED_AT     = "[" + WorkqueueSchema.COL_AGED_AT + "]";
 
     private static final String TBL_DATA        = "[Item Data]";
     private static final String COL_D_ID        = "[Id]";
     private static final String COL_D_ITEM_ID   = "[Item ID]";
     private static final String COL_D_KEY       = "[Key]";
     private static final String COL_D_VALUE     = "[Value]";
+    private static final String COL_D_VALUE_KEY = "[" + WorkqueueSchema.COL_VALUE_KEY + "]";
 
     // Estados
     private static final String ST_PENDING   = "Pending";
@@ -32,11 +35,47 @@ public class WorkqueueItemDao {
     private static final String ST_EXCEPTION = "Exception";
 
     private final Connection conn;
+    private final WorkqueueStore store;
+    private final StatementCache statements; // null = sin caché (conexión de un solo comando)
+
+    // Lease de los claims: 0 = sin vencimiento (el ítem queda Working hasta su transición)
+    private long leaseSeconds = 0;
+    private boolean reclaimExpiredOnClaim = true;
+
+    // Filtro de etapa de los claims (Step/Status Workflow, Item Data)
+    private ClaimFilter claimFilter = ClaimFilter.NONE;
+
+    // Qué se relee del ítem después de una transición
+    private ItemProjection transitionReturn = ItemProjection.FULL;
+
+    // Quién hace las transiciones, para [Item History]
+    private String actor = DEFAULT_ACTOR;
+
+    // Reloj de las marcas de tiempo del DAO (UTC); se reemplaza solo en simulaciones
+    private java.time.Clock clock = java.time.Clock.systemUTC();
+
+    // Quién se entera de la identidad de cada claim (el journal write-behind de la sesión)
+    private ClaimStampListener claimStampListener;
 
     // Según el tipo de columna en Access:
     private static final int SQL_LONG_TYPE = java.sql.Types.INTEGER; // si es Long Integer (32-bit)
     // private static final int SQL_LONG_TYPE = java.sql.Types.BIGINT; // si es Large Number (BigInt 64-bit)
 
+    // Máximo de parámetros por cláusula IN (se parte en bloques si hay más)
+    static final int IN_CHUNK_SIZE = 500;
+
+    // Diferencia admitida entre la identidad de un claim y el [Last Updated] guardado
+    static final long CLAIM_STAMP_TOLERANCE_MS = 1000;
+
+
+    /**
+     * Recibe el [Last Updated] que este DAO escribe en un ítem que queda Working (claim o cambio
+     * de workflow), que es la identidad del claim ({@link #claimStamp}). {@code id} 0 o {@code key}
+     * null = no se conoce en ese punto.
+     */
+    public interface ClaimStampListener {
+        void stamped(long id, String key, Timestamp lastUpdated);
+    }
 
     //=====================================================
     //                  DTO
@@ -60,16 +99,324 @@ public class WorkqueueItemDao {
     }
 
 
-    public WorkqueueItemDao(Connection conn) { this.conn = conn; }
+    /** Ítem a encolar (Status inicial Pending). */
+    public static final class NewItem {
+        public final String key;
+        public final Long priority;         // [Priority] (null = sin prioridad)
+        public final Long statusWorkflow;   // [Status Workflow]
+        public final String stepWorkflow;   // [Step Workflow]
+        public final Map<String,String> data;
+
+        public NewItem(String key, Long priority, Long statusWorkflow, String stepWorkflow,
+                       Map<String,String> data) {
+            this.key = key;
+            this.priority = priority;
+            this.statusWorkflow = statusWorkflow;
+            this.stepWorkflow = stepWorkflow;
+            this.data = data;
+        }
+    }
+
+    /** Resultado de {@link #insertBatch}. */
+    public static final class InsertReport {
+        public long processed;
+        public long inserted;
+        public long dataRows;
+        public int batches;
+        public final List<String> duplicateKeys = new ArrayList<>();
+    }
+
+    /** Ítem encontrado por búsqueda: el WorkItem (con o sin Item Data) más su estado actual. */
+    public static final class FoundItem {
+        public final WorkItem item;
+        public final String status;
+        public final Timestamp lastUpdated;
+
+        public FoundItem(WorkItem item, String status, Timestamp lastUpdated) {
+            this.item = item;
+            this.status = status;
+            this.lastUpdated = lastUpdated;
+        }
+    }
+
+    /** Página de búsqueda por Id ascendente; {@code nextAfterId} es null si no hay más. */
+    public static final class SearchPage {
+        public final List<FoundItem> items;
+        public final Long nextAfterId;
+
+        public SearchPage(List<FoundItem> items, Long nextAfterId) {
+            this.items = items;
+            this.nextAfterId = nextAfterId;
+        }
+    }
+
+    /**
+     * Página del feed de cambios, en orden ([Last Updated], [Id]). La marca de agua es la del
+     * último ítem de la página (la de entrada si no hubo cambios): se pasa tal cual al próximo pedido.
+     */
+    public static final class ChangePage {
+        public final List<FoundItem> items;
+        public final Timestamp watermarkUpdated; // null = todavía no se vio ningún cambio
+        public final long watermarkId;
+        public final boolean hasMore;
+
+        public ChangePage(List<FoundItem> items, Timestamp watermarkUpdated, long watermarkId, boolean hasMore) {
+            this.items = items;
+            this.watermarkUpdated = watermarkUpdated;
+            this.watermarkId = watermarkId;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /** Avance de la carga: se invoca después de cada commit. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onBatchCommitted(int batch, long processed, long inserted);
+    }
+
+    /**
+     * Foto de lo que un claim podría tomar: Pending elegibles ahora, Pending diferidos,
+     * el próximo [Defer Until] y el próximo vencimiento de lease (null si no hay o si el
+     * archivo no tiene la columna). Alcanza para decidir cuánto dormir antes de volver a consultar.
+     */
+    public static final class Availability {
+        public final long eligible;
+        public final long deferred;
+        public final Timestamp nextDeferUntil;
+        public final Timestamp nextLeaseExpiry;
+
+        public Availability(long eligible, long deferred, Timestamp nextDeferUntil, Timestamp nextLeaseExpiry) {
+            this.eligible = eligible;
+            this.deferred = deferred;
+            this.nextDeferUntil = nextDeferUntil;
+            this.nextLeaseExpiry = nextLeaseExpiry;
+        }
+    }
+
+
+    public WorkqueueItemDao(Connection conn) { this(conn, WorkqueueStores.forConnection(conn)); }
+
+    public WorkqueueItemDao(Connection conn, WorkqueueStore store) {
+        this.conn = conn;
+        this.store = store;
+        this.statements = StatementCache.forConnection(conn);
+    }
+
+    // Todo el SQL del DAO pasa por el dialecto del backend; en sesiones, por el caché de statements
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (statements != null) return statements.prepare(sql);
+        return conn.prepareStatement(store.translate(sql));
+    }
+
+    /**
+     * Duración del lease que se registra en cada claim ({@code [Lease Until]} = ahora + segundos).
+     * Un ítem Working con el lease vencido vuelve a Pending en el próximo claim o barrido.
+     */
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = Math.max(0, leaseSeconds);
+    }
+
+    public long getLeaseSeconds() { return leaseSeconds; }
+
+    /** Si es true (por defecto), cada claim devuelve antes a Pending los leases vencidos. */
+    public void setReclaimExpiredOnClaim(boolean reclaimExpiredOnClaim) {
+        this.reclaimExpiredOnClaim = reclaimExpiredOnClaim;
+    }
+
+    public boolean isReclaimExpiredOnClaim() { return reclaimExpiredOnClaim; }
+
+    /**
+     * Restringe los claims (y los conteos de elegibles) a una etapa del pipeline: solo se toman
+     * Pending que cumplen el filtro, en el mismo orden de Priority / Created Date.
+     */
+    public void setClaimFilter(ClaimFilter filter) {
+        this.claimFilter = filter == null ? ClaimFilter.NONE : filter;
+    }
+
+    public ClaimFilter getClaimFilter() { return claimFilter; }
+
+    /**
+     * Qué devuelven las transiciones (complete/exception/defer/release/updateWorkflow) tras el
+     * UPDATE. Con {@link ItemProjection#NONE} no se hace ninguna consulta extra y devuelven null.
+     */
+    public void setTransitionReturn(ItemProjection projection) {
+        this.transitionReturn = projection == null ? ItemProjection.FULL : projection;
+    }
+
+    public ItemProjection getTransitionReturn() { return transitionReturn; }
+
+    public void setClaimStampListener(ClaimStampListener listener) {
+        this.claimStampListener = listener;
+    }
+
+    private void stamped(long id, String key, Timestamp lastUpdated) {
+        if (claimStampListener != null) claimStampListener.stamped(id, key, lastUpdated);
+    }
+
+    /** Identificador del bot/sesión que queda en [Item History] (por defecto usuario@host). */
+    public void setActor(String actor) {
+        String a = actor == null || actor.isBlank() ? DEFAULT_ACTOR : actor.trim();
+        this.actor = a.length() > ACTOR_LENGTH ? a.substring(0, ACTOR_LENGTH) : a;
+    }
+
+    public String getActor() { return actor; }
+
+    /** Reloj con el que el DAO fecha claims, transiciones y envejecimiento (por defecto el del sistema). */
+    public void setClock(java.time.Clock clock) {
+        this.clock = clock == null ? java.time.Clock.systemUTC() : clock;
+    }
+
+    // Condiciones del filtro sobre [workqueue]; van después de las de Status/Defer
+    private String claimFilterSql() throws SQLException {
+        if (claimFilter.isEmpty()) return "";
+        if (!claimFilter.getItemData().isEmpty())
+            ItemDataStorage.forConnection(conn).requireSearchable(claimFilter.getItemData().keySet(), "el filtro de claim");
+        StringBuilder sb = new StringBuilder();
+        if (claimFilter.getStepWorkflow() != null) sb.append(" AND ").append(COL_STEP_WF).append("=?");
+        if (claimFilter.getStatusWorkflow() != null) sb.append(" AND ").append(COL_STATUS_WF).append("=?");
+        for (int i = 0; i < claimFilter.getItemData().size(); i++) {
+            sb.append(" AND EXISTS (SELECT 1 FROM ").append(TBL_DATA)
+              .append(" WHERE ").append(TBL_DATA).append('.').append(COL_D_ITEM_ID).append('=').append(TBL_WQ).append('.').append(COL_ID)
+              .append(" AND ").append(TBL_DATA).append('.').append(COL_D_KEY).append("=?")
+              .append(" AND ").append(TBL_DATA).append('.').append(COL_D_VALUE).append("=?)");
+        }
+        return sb.toString();
+    }
+
+    private int bindClaimFilter(PreparedStatement ps, int i) throws SQLException {
+        if (claimFilter.getStepWorkflow() != null) ps.setString(i++, claimFilter.getStepWorkflow());
+        if (claimFilter.getStatusWorkflow() != null) ps.setLong(i++, claimFilter.getStatusWorkflow());
+        for (Map.Entry<String, String> e : claimFilter.getItemData().entrySet()) {
+            ps.setString(i++, e.getKey());
+            ps.setString(i++, e.getValue());
+        }
+        return i;
+    }
+
+    // Archivos creados antes del lease no tienen la columna hasta que se ejecuta el upgrade
+    private boolean leaseSupported() throws SQLException {
+        return WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_LEASE_UNTIL);
+    }
+
+    // Item Data sin [Value Key] (archivo sin upgrade): la búsqueda compara [Value] recorriendo la tabla
+    private boolean valueKeySupported() throws SQLException {
+        return WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_ITEM_DATA, WorkqueueSchema.COL_VALUE_KEY);
+    }
+
+    // Archivos sin [Aged At] (sin upgrade): no hay envejecimiento de prioridad
+    private boolean agingSupported() throws SQLException {
+        return WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_AGED_AT);
+    }
+
+    // Archivos sin [Item Blob]: todo el Item Data está en filas
+    private boolean blobSupported() throws SQLException {
+        return WorkqueueSchema.hasColumn(conn, WorkqueueSchema.TABLE_WORKQUEUE, WorkqueueSchema.COL_ITEM_BLOB);
+    }
+
+    static String valueKey(String value) {
+        if (value == null) return null;
+        return value.length() > WorkqueueSchema.VALUE_KEY_LENGTH ? value.substring(0, WorkqueueSchema.VALUE_KEY_LENGTH) : value;
+    }
+
+    private void requireLeaseSupport() throws SQLException {
+        if (!leaseSupported())
+            throw new SQLException("La workqueue no tiene la columna " + COL_LEASE_UNTIL +
+                    "; ejecute Initialize Workqueue en modo upgrade.");
+    }
 
     private Timestamp nowTs() {
-        return Timestamp.from(java.time.Instant.now()); // UTC
+        return Timestamp.from(clock.instant()); // UTC
+    }
+
+    // ==========================================================
+    //                  HISTORIAL ([Item History])
+    // ==========================================================
+    private static final int ACTOR_LENGTH = 64;
+    private static final String DEFAULT_ACTOR = defaultActor();
+
+    private static String defaultActor() {
+        String host;
+        try {
+            host = java.net.InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        String a = System.getProperty("user.name", "bot") + "@" + host;
+        return a.length() > ACTOR_LENGTH ? a.substring(0, ACTOR_LENGTH) : a;
+    }
+
+    /** Actor de una sesión: usuario@host más el inicio del id de sesión (distingue bots en la misma máquina). */
+    public static String actorFor(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) return DEFAULT_ACTOR;
+        String suffix = "/" + (sessionId.length() > 8 ? sessionId.substring(0, 8) : sessionId);
+        String base = DEFAULT_ACTOR.length() + suffix.length() > ACTOR_LENGTH
+                ? DEFAULT_ACTOR.substring(0, ACTOR_LENGTH - suffix.length()) : DEFAULT_ACTOR;
+        return base + suffix;
+    }
+
+    private static final String SQL_HISTORY =
+            "INSERT INTO [" + WorkqueueSchema.TABLE_HISTORY + "] ([Item ID], [From Status], [To Status], [Step Workflow], " +
+            "[Changed At], [Seconds In Previous], [Actor]) VALUES (?,?,?,?,?,?,?)";
+
+    /** Una fila de historial: el ítem pasó de {@code from} a {@code to}; {@code since} = entrada al estado previo. */
+    private static final class HistoryEntry {
+        final long itemId; final String from; final String to; final String step;
+        final Timestamp since; final Timestamp changedAt;
+        HistoryEntry(long itemId, String from, String to, String step, Timestamp since, Timestamp changedAt) {
+            this.itemId = itemId; this.from = from; this.to = to; this.step = step;
+            this.since = since; this.changedAt = changedAt;
+        }
+    }
+
+    private boolean historyEnabled() throws SQLException {
+        return WorkqueueSchema.historyEnabled(conn);
+    }
+
+    /**
+     * Fila de historial de una transición desde Working (el UPDATE condicional garantiza el
+     * estado de origen): lee [Last Updated] y [Step Workflow] antes de que el UPDATE los pise.
+     * La fila queda en la etapa donde el ítem pasó ese tiempo, también cuando la transición
+     * cambia de etapa. Null si la cola no tiene historial o el ítem no existe.
+     */
+    private HistoryEntry historyFromWorking(String colBy, Object ident, String to, Timestamp now) throws SQLException {
+        if (!historyEnabled()) return null;
+        String sql = "SELECT " + COL_ID + "," + COL_UPDATED + "," + COL_STEP_WF + " FROM " + TBL_WQ + " WHERE " + colBy + "=?";
+        try (PreparedStatement ps = prepare(sql)) {
+            if (ident instanceof Long) ps.setLong(1, (Long) ident); else ps.setString(1, (String) ident);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new HistoryEntry(rs.getLong(1), ST_WORKING, to, rs.getString(3), rs.getTimestamp(2), now);
+            }
+        }
+    }
+
+    private void writeHistory(HistoryEntry entry) throws SQLException {
+        if (entry != null) writeHistory(Collections.singletonList(entry));
+    }
+
+    // Un batch por transacción; lo llama la transición antes de su commit
+    private void writeHistory(Collection<HistoryEntry> entries) throws SQLException {
+        if (entries == null || entries.isEmpty()) return;
+        try (PreparedStatement ps = prepare(SQL_HISTORY)) {
+            for (HistoryEntry e : entries) {
+                ps.setLong(1, e.itemId);
+                ps.setString(2, e.from);
+                ps.setString(3, e.to);
+                if (e.step != null) ps.setString(4, e.step); else ps.setNull(4, Types.VARCHAR);
+                ps.setTimestamp(5, e.changedAt);
+                if (e.since != null) ps.setDouble(6, Math.max(0, e.changedAt.getTime() - e.since.getTime()) / 1000.0);
+                else ps.setNull(6, Types.DOUBLE);
+                ps.setString(7, actor);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
     }
 
     // ---------- Utilidades para mensajes claros ----------
     private ModState fetchStateByKey(String key) throws SQLException {
         String sql = "SELECT " + COL_STATUS + "," + COL_DEFER_UNTIL + " FROM " + TBL_WQ + " WHERE " + COL_KEY + "=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepare(sql)) {
             ps.setString(1, key);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
@@ -79,7 +426,7 @@ public class WorkqueueItemDao {
     }
     private ModState fetchStateById(long id) throws SQLException {
         String sql = "SELECT " + COL_STATUS + "," + COL_DEFER_UNTIL + " FROM " + TBL_WQ + " WHERE " + COL_ID + "=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepare(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
@@ -111,44 +458,416 @@ public class WorkqueueItemDao {
         boolean prevAuto = conn.getAutoCommit();
         try {
             final Timestamp now = nowTs();
-            Long id = null; String key = null; Long statusWf = null; String stepWf = null;
+            final boolean lease = prepareClaim(now);
+            Map<Long, Timestamp> since = historyEnabled() ? new HashMap<>() : null;
+            List<WorkItem> candidates = selectClaimCandidates(1, now, since);
+            if (candidates.isEmpty()) {
+                conn.commit();
+                ClaimStats.recordEmpty();
+                return null; // no hay elegibles
+            }
 
-            String sel = "SELECT TOP 1 " + COL_ID + "," + COL_KEY + "," + COL_STATUS_WF + "," + COL_STEP_WF +
-                    " FROM " + TBL_WQ +
-                    " WHERE " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)" +
-                    " ORDER BY " + COL_PRIORITY + " ASC, " + COL_CREATED + " ASC, " + COL_ID + " ASC";
-            try (PreparedStatement ps = conn.prepareStatement(sel)) {
-                ps.setString(1, ST_PENDING);
-                ps.setTimestamp(2, now);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        id       = rs.getLong(1);
-                        key      = rs.getString(2);
-                        statusWf = rs.getLong(3);
-                        stepWf   = rs.getString(4);
-                    } else {
-                        conn.commit();
-                        return null; // no hay elegibles
-                    }
+            WorkItem c = candidates.get(0);
+            if (!claimCandidate(c, now, lease, since)) { // carrera: otro worker lo tomó
+                conn.commit();
+                ClaimStats.recordLostRace();
+                return null;
+            }
+            conn.commit();
+            ClaimStats.recordClaim();
+            stamped(c.id, c.key, now);
+            return withData(c);
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+    }
+
+    /**
+     * Claim con reintento ante contención: si el UPDATE condicional pierde la carrera se
+     * prueba en el acto el siguiente candidato del mismo SELECT; si se agotan los candidatos
+     * se espera un backoff exponencial con jitter y se vuelve a consultar. Devuelve null solo
+     * si la cola no tiene elegibles o si se agotaron los intentos.
+     */
+    public WorkItem takeNextPendingAndSetWorking(ClaimRetryPolicy policy) throws SQLException {
+        if (policy == null) return takeNextPendingAndSetWorking();
+        Set<Long> lost = new HashSet<>();
+        final boolean lease = prepareClaim(nowTs());
+        for (int attempt = 1; attempt <= policy.getMaxAttempts(); attempt++) {
+            final Timestamp now = nowTs();
+            Map<Long, Timestamp> since = historyEnabled() ? new HashMap<>() : null;
+            List<WorkItem> candidates = selectClaimCandidates(policy.getCandidatesPerAttempt() + lost.size(), now, since);
+            if (candidates.isEmpty()) {
+                ClaimStats.recordEmpty();
+                return null; // no hay elegibles
+            }
+
+            for (WorkItem c : candidates) {
+                if (lost.contains(c.id)) continue; // ya lo está tomando otro worker
+                if (claimCandidate(c, now, lease, since)) {
+                    ClaimStats.recordClaim();
+                    stamped(c.id, c.key, now);
+                    return withData(c);
                 }
+                lost.add(c.id);
+                ClaimStats.recordLostRace();
             }
 
-            String upd = "UPDATE " + TBL_WQ + " SET " + COL_STATUS + "=?, " + COL_UPDATED + "=? " +
-                    "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)";
-            try (PreparedStatement ps = conn.prepareStatement(upd)) {
-                ps.setString(1, ST_WORKING);
+            if (attempt < policy.getMaxAttempts()) {
+                ClaimStats.recordRetry();
+                try {
+                    Thread.sleep(policy.backoffMillis(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Claim interrumpido durante el backoff.", ie);
+                }
+            }
+        }
+        ClaimStats.recordExhausted();
+        return null;
+    }
+
+    // SELECT de candidatos elegibles en el orden de claim (Priority, Created Date, Id)
+    // Con historial, {@code since} recibe el [Last Updated] de cada candidato (entrada a Pending)
+    private List<WorkItem> selectClaimCandidates(int top, Timestamp now, Map<Long, Timestamp> since) throws SQLException {
+        List<WorkItem> candidates = new ArrayList<>();
+        final boolean blob = blobSupported();
+        String sel = "SELECT TOP " + top + " " + COL_ID + "," + COL_KEY + "," + COL_STATUS_WF + "," + COL_STEP_WF +
+                (blob ? "," + COL_ITEM_BLOB : "") + (since != null ? "," + COL_UPDATED : "") +
+                " FROM " + TBL_WQ +
+                " WHERE " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)" +
+                claimFilterSql() +
+                " ORDER BY " + COL_PRIORITY + " ASC, " + COL_CREATED + " ASC, " + COL_ID + " ASC";
+        try (PreparedStatement ps = prepare(sel)) {
+            ps.setString(1, ST_PENDING);
+            ps.setTimestamp(2, now);
+            bindClaimFilter(ps, 3);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    String key = rs.getString(2);
+                    long wf = rs.getLong(3);
+                    Long statusWf = rs.wasNull() ? null : wf;
+                    String stepWf = rs.getString(4);
+                    // Ítem compacto: el Item Data viene en la misma fila (null = está en filas)
+                    Map<String,String> data = blob ? decodeBlob(rs.getString(5)) : null;
+                    if (since != null) since.put(id, rs.getTimestamp(blob ? 6 : 5));
+                    candidates.add(new WorkItem(id, key, statusWf, stepWf, data));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // UPDATE condicional: solo gana si el ítem sigue Pending y elegible
+    private static final String SQL_CLAIM_BY_ID =
+            "UPDATE " + TBL_WQ + " SET " + COL_STATUS + "=?, " + COL_UPDATED + "=? " +
+            "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)";
+
+    // Igual, registrando el vencimiento del lease (NULL si el claim no usa lease)
+    private static final String SQL_CLAIM_BY_ID_LEASE =
+            "UPDATE " + TBL_WQ + " SET " + COL_STATUS + "=?, " + COL_UPDATED + "=?, " + COL_LEASE_UNTIL + "=? " +
+            "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)";
+
+    /**
+     * Antes del claim: si la cola tiene envejecimiento de prioridad y toca un pase, lo aplica.
+     * Si el archivo tiene la columna de lease, devuelve a Pending los vencidos
+     * (salvo que se haya desactivado) e indica que el claim debe escribir [Lease Until].
+     * Sin la columna, un lease pedido es un error y el claim se hace como antes.
+     */
+    private boolean prepareClaim(Timestamp now) throws SQLException {
+        PriorityAging aging = PriorityAging.forConnection(conn);
+        if (aging.isEnabled() && aging.claimPass(conn, now.getTime())) agePendingPriorities(aging, now);
+        if (!leaseSupported()) {
+            if (leaseSeconds > 0) requireLeaseSupport();
+            return false;
+        }
+        if (reclaimExpiredOnClaim) reclaimExpiredLeases(now);
+        return true;
+    }
+
+    private void bindClaim(PreparedStatement ps, long id, Timestamp now, boolean lease) throws SQLException {
+        int i = 1;
+        ps.setString(i++, ST_WORKING);
+        ps.setTimestamp(i++, now);
+        if (lease) {
+            // Siempre se escribe: un valor viejo de un claim anterior no debe vencer este
+            if (leaseSeconds > 0) ps.setTimestamp(i++, leaseUntil(now, leaseSeconds));
+            else ps.setNull(i++, Types.TIMESTAMP);
+        }
+        ps.setLong(i++, id);
+        ps.setString(i++, ST_PENDING);
+        ps.setTimestamp(i, now);
+    }
+
+    private boolean tryClaimById(long id, Timestamp now, boolean lease) throws SQLException {
+        try (PreparedStatement ps = prepare(lease ? SQL_CLAIM_BY_ID_LEASE : SQL_CLAIM_BY_ID)) {
+            bindClaim(ps, id, now, lease);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    // Claim de un candidato; con historial, el UPDATE y su fila Pending → Working van en la misma transacción
+    private boolean claimCandidate(WorkItem c, Timestamp now, boolean lease, Map<Long, Timestamp> since) throws SQLException {
+        if (since == null) return tryClaimById(c.id, now, lease);
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            boolean claimed = tryClaimById(c.id, now, lease);
+            if (claimed) writeHistory(new HistoryEntry(c.id, ST_PENDING, ST_WORKING, c.stepWorkflow, since.get(c.id), now));
+            conn.commit();
+            return claimed;
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+    }
+
+    private static Timestamp leaseUntil(Timestamp from, long seconds) {
+        return new Timestamp(from.getTime() + seconds * 1000L);
+    }
+
+    // ==========================================================
+    //                 LEASE (VISIBILIDAD DE WORKING)
+    // ==========================================================
+    /**
+     * Devuelve a Pending los ítems Working cuyo lease venció (bot caído, proceso colgado)
+     * con un único UPDATE sobre el índice (Status, Lease Until). Los ítems sin lease no se tocan.
+     */
+    public int reclaimExpiredLeases() throws SQLException {
+        requireLeaseSupport();
+        return reclaimExpiredLeases(nowTs());
+    }
+
+    private static final String SQL_RECLAIM_EXPIRED =
+            "UPDATE " + TBL_WQ + " SET " + COL_STATUS + "=?, " + COL_LEASE_UNTIL + "=NULL, " + COL_UPDATED + "=? " +
+            "WHERE " + COL_STATUS + "=? AND " + COL_LEASE_UNTIL + " IS NOT NULL AND " + COL_LEASE_UNTIL + " < ?";
+
+    // Fila Working → Pending de cada vencido, tomada de los mismos ítems que va a devolver el UPDATE
+    private static final String SQL_HISTORY_RECLAIM =
+            "INSERT INTO [" + WorkqueueSchema.TABLE_HISTORY + "] ([Item ID], [From Status], [To Status], [Step Workflow], " +
+            "[Changed At], [Seconds In Previous], [Actor]) " +
+            "SELECT " + COL_ID + ", '" + ST_WORKING + "', '" + ST_PENDING + "', " + COL_STEP_WF + ", CAST(? AS TIMESTAMP), " +
+            "DateDiff('s', " + COL_UPDATED + ", CAST(? AS TIMESTAMP)), CAST(? AS VARCHAR(" + ACTOR_LENGTH + ")) " +
+            "FROM " + TBL_WQ + " WHERE " + COL_STATUS + "=? AND " + COL_LEASE_UNTIL + " IS NOT NULL AND " + COL_LEASE_UNTIL + " < ?";
+
+    /**
+     * Barrido de leases vencidos: un UPDATE sobre el índice (Status, Lease Until). Con historial,
+     * antes un INSERT ... SELECT con la misma condición escribe las filas Working → Pending, en la
+     * misma transacción; ninguno de los dos recorre los ítems uno a uno.
+     */
+    private int reclaimExpiredLeases(Timestamp now) throws SQLException {
+        boolean history = historyEnabled();
+        boolean prevAuto = conn.getAutoCommit();
+        int n;
+        try {
+            if (history) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = prepare(SQL_HISTORY_RECLAIM)) {
+                    ps.setTimestamp(1, now);
+                    ps.setTimestamp(2, now);
+                    ps.setString(3, actor);
+                    ps.setString(4, ST_WORKING);
+                    ps.setTimestamp(5, now);
+                    ps.executeUpdate();
+                }
+            }
+            try (PreparedStatement ps = prepare(SQL_RECLAIM_EXPIRED)) {
+                ps.setString(1, ST_PENDING);
                 ps.setTimestamp(2, now);
-                ps.setLong(3, id);
-                ps.setString(4, ST_PENDING);
-                ps.setTimestamp(5, now);
-                if (ps.executeUpdate() == 0) { // carrera: otro worker lo tomó
-                    conn.commit();
-                    return null;
+                ps.setString(3, ST_WORKING);
+                ps.setTimestamp(4, now);
+                n = ps.executeUpdate();
+            }
+            if (!conn.getAutoCommit()) conn.commit();
+        } catch (SQLException ex) {
+            if (!conn.getAutoCommit()) conn.rollback();
+            throw ex;
+        } finally {
+            if (history) conn.setAutoCommit(prevAuto);
+        }
+        if (n > 0) ClaimStats.recordLeasesReclaimed(n);
+        return n;
+    }
+
+    /** Heartbeat: extiende el lease de un ítem que sigue Working. Devuelve el nuevo vencimiento. */
+    public Timestamp extendLeaseById(long id, long seconds) throws SQLException {
+        if (seconds <= 0) throw new SQLException("La extensión del lease debe ser mayor a 0 segundos.");
+        requireLeaseSupport();
+        final Timestamp now = nowTs();
+        final Timestamp until = leaseUntil(now, seconds);
+        String sql = "UPDATE " + TBL_WQ + " SET " + COL_LEASE_UNTIL + "=? WHERE " + COL_ID + "=? AND " + COL_STATUS + "=?";
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setTimestamp(1, until);
+            ps.setLong(2, id);
+            ps.setString(3, ST_WORKING);
+            if (ps.executeUpdate() == 0) throw explainNotUpdatableById(id, fetchStateById(id), now);
+        }
+        if (!conn.getAutoCommit()) conn.commit();
+        return until;
+    }
+
+    public Timestamp extendLeaseByKey(String key, long seconds) throws SQLException {
+        if (seconds <= 0) throw new SQLException("La extensión del lease debe ser mayor a 0 segundos.");
+        requireLeaseSupport();
+        final Timestamp now = nowTs();
+        final Timestamp until = leaseUntil(now, seconds);
+        String sql = "UPDATE " + TBL_WQ + " SET " + COL_LEASE_UNTIL + "=? WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setTimestamp(1, until);
+            ps.setString(2, key);
+            ps.setString(3, ST_WORKING);
+            if (ps.executeUpdate() == 0) throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
+        }
+        if (!conn.getAutoCommit()) conn.commit();
+        return until;
+    }
+
+    // ==========================================================
+    //             ENVEJECIMIENTO DE PRIORIDAD (PENDING)
+    // ==========================================================
+    private static final String SQL_AGE_PRIORITIES =
+            "UPDATE " + TBL_WQ + " SET " + COL_PRIORITY + "=" + COL_PRIORITY + "-1, " + COL_AGED_AT + "=? " +
+            "WHERE " + COL_STATUS + "=? AND " + COL_PRIORITY + " > ? AND " +
+            "((" + COL_AGED_AT + " IS NULL AND " + COL_CREATED + " <= ?) OR " + COL_AGED_AT + " <= ?)";
+
+    /**
+     * Sube un nivel (resta 1 a [Priority]) a los Pending que llevan un intervalo de
+     * {@link PriorityAging} sin ascenso (desde [Created Date] la primera vez, desde
+     * [Aged At] las siguientes), sin pasar del piso. Es un único UPDATE sobre el índice
+     * (Status, Priority); no toca [Last Updated] ni escribe historial porque el ítem no
+     * cambia de estado. Los claims lo hacen solos; devuelve la cantidad de ítems que subieron.
+     */
+    public int agePendingPriorities() throws SQLException {
+        PriorityAging aging = PriorityAging.forConnection(conn);
+        if (!aging.isEnabled()) return 0;
+        return agePendingPriorities(aging, nowTs());
+    }
+
+    private int agePendingPriorities(PriorityAging aging, Timestamp now) throws SQLException {
+        Timestamp due = new Timestamp(now.getTime() - aging.getStepSeconds() * 1000L);
+        try (PreparedStatement ps = prepare(SQL_AGE_PRIORITIES)) {
+            ps.setTimestamp(1, now);
+            ps.setString(2, ST_PENDING);
+            ps.setLong(3, aging.getFloor());
+            ps.setTimestamp(4, due);
+            ps.setTimestamp(5, due);
+            int aged = ps.executeUpdate();
+            if (!conn.getAutoCommit()) conn.commit();
+            return aged;
+        }
+    }
+
+    // ==========================================================
+    //              GET NEXT N ITEMS (PENDING → WORKING, lote)
+    // ==========================================================
+    /**
+     * Toma hasta {@code maxItems} ítems elegibles (mismo orden y regla de Defer Until que
+     * {@link #takeNextPendingAndSetWorking()}) en una sola transacción y carga su Item Data
+     * con una única consulta IN. Los ítems que otro worker tomó en el medio se omiten.
+     */
+    public List<WorkItem> takeNextPendingBatchAndSetWorking(int maxItems) throws SQLException {
+        if (maxItems <= 0) throw new SQLException("La cantidad de ítems debe ser mayor a 0.");
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            final Timestamp now = nowTs();
+            final boolean lease = prepareClaim(now);
+            conn.setAutoCommit(false);
+            Map<Long, Timestamp> since = historyEnabled() ? new HashMap<>() : null;
+            List<WorkItem> candidates = selectClaimCandidates(maxItems, now, since);
+            if (candidates.isEmpty()) {
+                conn.commit();
+                ClaimStats.recordEmpty();
+                return Collections.emptyList(); // no hay elegibles
+            }
+
+            // Mismo UPDATE condicional que el claim unitario, enviado en un solo batch
+            int[] counts;
+            try (PreparedStatement ps = prepare(lease ? SQL_CLAIM_BY_ID_LEASE : SQL_CLAIM_BY_ID)) {
+                for (WorkItem c : candidates) {
+                    bindClaim(ps, c.id, now, lease);
+                    ps.addBatch();
                 }
+                counts = ps.executeBatch();
+            }
+
+            List<WorkItem> claimed = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                // carrera: si otro worker lo tomó, el UPDATE no afectó filas
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) claimed.add(candidates.get(i));
+                else ClaimStats.recordLostRace();
+            }
+            if (since != null) {
+                List<HistoryEntry> history = new ArrayList<>(claimed.size());
+                for (WorkItem c : claimed) history.add(new HistoryEntry(c.id, ST_PENDING, ST_WORKING, c.stepWorkflow, since.get(c.id), now));
+                writeHistory(history);
             }
             conn.commit();
-            Map<String,String> data = getItemDataById(id);
-            return new WorkItem(id, key, statusWf, stepWf, data);
+            for (WorkItem c : claimed) {
+                ClaimStats.recordClaim();
+                stamped(c.id, c.key, now);
+            }
+            if (claimed.isEmpty()) return Collections.emptyList();
+
+            // Solo los ítems guardados en filas necesitan leer [Item Data]
+            List<Long> ids = new ArrayList<>(claimed.size());
+            for (WorkItem c : claimed) if (c.data == null) ids.add(c.id);
+            Map<Long, Map<String,String>> dataById = readDataRows(ids);
+
+            List<WorkItem> result = new ArrayList<>(claimed.size());
+            for (WorkItem c : claimed) {
+                Map<String,String> data = c.data != null ? c.data : dataById.getOrDefault(c.id, new LinkedHashMap<>());
+                result.add(new WorkItem(c.id, c.key, c.statusWorkflow, c.stepWorkflow, data));
+            }
+            return result;
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+    }
+
+    // ==========================================================
+    //                 ENQUEUE (ALTA MASIVA → PENDING)
+    // ==========================================================
+    /**
+     * Inserta los ítems en lotes de {@code batchSize} con addBatch/executeBatch y un commit por lote.
+     * Los Key ya existentes en la tabla o repetidos en la entrada se omiten y se informan.
+     * Los Id generados se recuperan con una consulta IN por lote para escribir el [Item Data].
+     */
+    public InsertReport insertBatch(Iterator<NewItem> items, int batchSize, ProgressListener listener) throws SQLException {
+        if (batchSize <= 0) throw new SQLException("El tamaño de lote debe ser mayor a 0.");
+        InsertReport report = new InsertReport();
+        Set<String> seen = new HashSet<>();
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            List<NewItem> batch = new ArrayList<>(batchSize);
+            while (items.hasNext()) {
+                NewItem item = items.next();
+                report.processed++;
+                if (item.key == null || item.key.isEmpty()) throw new SQLException("Ítem sin Key (fila " + report.processed + ").");
+                if (!seen.add(item.key)) {
+                    report.duplicateKeys.add(item.key);
+                    continue;
+                }
+                batch.add(item);
+                if (batch.size() >= batchSize) {
+                    flushInsertBatch(batch, report);
+                    if (listener != null) listener.onBatchCommitted(report.batches, report.processed, report.inserted);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flushInsertBatch(batch, report);
+                if (listener != null) listener.onBatchCommitted(report.batches, report.processed, report.inserted);
+            }
+            return report;
         } catch (SQLException ex) {
             conn.rollback();
             throw ex;
@@ -157,6 +876,89 @@ public class WorkqueueItemDao {
         }
     }
 
+    private void flushInsertBatch(List<NewItem> batch, InsertReport report) throws SQLException {
+        List<String> keys = new ArrayList<>(batch.size());
+        for (NewItem it : batch) keys.add(it.key);
+
+        // Keys que ya están en la tabla (de cargas anteriores)
+        Set<String> existing = new HashSet<>(findIdsByKeys(keys).keySet());
+        List<NewItem> toInsert = new ArrayList<>(batch.size());
+        for (NewItem it : batch) {
+            if (existing.contains(it.key)) report.duplicateKeys.add(it.key);
+            else toInsert.add(it);
+        }
+
+        if (!toInsert.isEmpty()) {
+            final Timestamp now = nowTs();
+            final ItemDataStorage storage = ItemDataStorage.forConnection(conn);
+            String ins = "INSERT INTO " + TBL_WQ + " (" + COL_KEY + "," + COL_STATUS + "," + COL_STATUS_WF + "," +
+                    COL_STEP_WF + "," + COL_CREATED + "," + COL_UPDATED + "," + COL_PRIORITY +
+                    (storage.isCompact() ? "," + COL_ITEM_BLOB + ") VALUES (?,?,?,?,?,?,?,?)" : ") VALUES (?,?,?,?,?,?,?)");
+            try (PreparedStatement ps = prepare(ins)) {
+                for (NewItem it : toInsert) {
+                    ps.setString(1, it.key);
+                    ps.setString(2, ST_PENDING);
+                    if (it.statusWorkflow != null) ps.setLong(3, it.statusWorkflow); else ps.setNull(3, SQL_LONG_TYPE);
+                    if (it.stepWorkflow != null) ps.setString(4, it.stepWorkflow); else ps.setNull(4, Types.VARCHAR);
+                    ps.setTimestamp(5, now);
+                    ps.setTimestamp(6, now);
+                    if (it.priority != null) ps.setLong(7, it.priority); else ps.setNull(7, SQL_LONG_TYPE);
+                    if (storage.isCompact()) ps.setString(8, ItemDataStorage.encode(it.data));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            List<String> insertedKeys = new ArrayList<>(toInsert.size());
+            for (NewItem it : toInsert) insertedKeys.add(it.key);
+            Map<String, Long> idByKey = findIdsByKeys(insertedKeys);
+
+            final boolean valueKey = valueKeySupported();
+            String insData = "INSERT INTO " + TBL_DATA + " (" + COL_D_ITEM_ID + "," + COL_D_KEY + "," + COL_D_VALUE +
+                    (valueKey ? "," + COL_D_VALUE_KEY + ") VALUES (?,?,?,?)" : ") VALUES (?,?,?)");
+            try (PreparedStatement ps = prepare(insData)) {
+                int rows = 0;
+                for (NewItem it : toInsert) {
+                    if (it.data == null || it.data.isEmpty()) continue;
+                    Long id = idByKey.get(it.key);
+                    if (id == null) throw new SQLException("No se pudo recuperar el Id del ítem '" + it.key + "'.");
+                    for (Map.Entry<String,String> e : it.data.entrySet()) {
+                        if (!storage.writesRow(e.getKey())) continue; // compacto: solo las promovidas
+                        ps.setLong(1, id);
+                        ps.setString(2, e.getKey());
+                        ps.setString(3, e.getValue());
+                        if (valueKey) ps.setString(4, valueKey(e.getValue()));
+                        ps.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) ps.executeBatch();
+                report.dataRows += rows;
+            }
+            report.inserted += toInsert.size();
+        }
+        conn.commit();
+        report.batches++;
+    }
+
+    // Id por Key con una consulta IN por bloque
+    private Map<String, Long> findIdsByKeys(List<String> keys) throws SQLException {
+        Map<String, Long> result = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + IN_CHUNK_SIZE, keys.size()));
+            String sql = "SELECT " + COL_ID + "," + COL_KEY + " FROM " + TBL_WQ +
+                    " WHERE " + COL_KEY + " IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (String k : chunk) ps.setString(i++, k);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) result.put(rs.getString(2), rs.getLong(1));
+                }
+            }
+        }
+        return result;
+    }
+
     // ==========================================================
     //                WORKING → COMPLETED
     // ==========================================================
@@ -164,10 +966,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_KEY, key, ST_COMPLETED, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_COMPLETED);
                 ps.setTimestamp(2, now);
                 ps.setString(3, key);
@@ -176,6 +980,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemByKey(key);
         } catch (SQLException ex) {
@@ -190,10 +995,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_ID, itemId, ST_COMPLETED, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_COMPLETED);
                 ps.setTimestamp(2, now);
                 ps.setLong(3, itemId);
@@ -202,6 +1009,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableById(itemId, fetchStateById(itemId), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemById(itemId);
         } catch (SQLException ex) {
@@ -219,10 +1027,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_KEY, key, ST_EXCEPTION, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_EXC_REASON + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_EXCEPTION);
                 ps.setString(2, reason);
                 ps.setTimestamp(3, now);
@@ -232,6 +1042,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemByKey(key);
         } catch (SQLException ex) {
@@ -246,10 +1057,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_ID, itemId, ST_EXCEPTION, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_EXC_REASON + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_EXCEPTION);
                 ps.setString(2, reason);
                 ps.setTimestamp(3, now);
@@ -259,6 +1072,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableById(itemId, fetchStateById(itemId), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemById(itemId);
         } catch (SQLException ex) {
@@ -279,20 +1093,24 @@ public class WorkqueueItemDao {
 
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_KEY, key, ST_PENDING, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
-                    COL_DEFER_UNTIL + "=?," + COL_UPDATED + "=? " +
+                    COL_STATUS + "=?," + COL_DEFER_UNTIL + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=? " +
                     "AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setTimestamp(1, deferUntil);
-                ps.setTimestamp(2, now);
-                ps.setString(3, key);
-                ps.setString(4, ST_WORKING);
-                ps.setTimestamp(5, now);
+            try (PreparedStatement ps = prepare(sql)) {
+                ps.setString(1, ST_PENDING); // vuelve a la cola, elegible desde Defer Until
+                ps.setTimestamp(2, deferUntil);
+                ps.setTimestamp(3, now);
+                ps.setString(4, key);
+                ps.setString(5, ST_WORKING);
+                ps.setTimestamp(6, now);
                 if (ps.executeUpdate() == 0) {
                     throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemByKey(key);
         } catch (SQLException ex) {
@@ -310,20 +1128,24 @@ public class WorkqueueItemDao {
 
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_ID, itemId, ST_PENDING, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
-                    COL_DEFER_UNTIL + "=?," + COL_UPDATED + "=? " +
+                    COL_STATUS + "=?," + COL_DEFER_UNTIL + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=? " +
                     "AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setTimestamp(1, deferUntil);
-                ps.setTimestamp(2, now);
-                ps.setLong(3, itemId);
-                ps.setString(4, ST_WORKING);
-                ps.setTimestamp(5, now);
+            try (PreparedStatement ps = prepare(sql)) {
+                ps.setString(1, ST_PENDING); // vuelve a la cola, elegible desde Defer Until
+                ps.setTimestamp(2, deferUntil);
+                ps.setTimestamp(3, now);
+                ps.setLong(4, itemId);
+                ps.setString(5, ST_WORKING);
+                ps.setTimestamp(6, now);
                 if (ps.executeUpdate() == 0) {
                     throw explainNotUpdatableById(itemId, fetchStateById(itemId), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemById(itemId);
         } catch (SQLException ex) {
@@ -341,10 +1163,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_KEY, key, ST_PENDING, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_PENDING);
                 ps.setTimestamp(2, now);
                 ps.setString(3, key);
@@ -353,6 +1177,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemByKey(key);
         } catch (SQLException ex) {
@@ -367,10 +1192,12 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_ID, itemId, ST_PENDING, now);
             String sql = "UPDATE " + TBL_WQ + " SET " +
                     COL_STATUS + "=?," + COL_UPDATED + "=? " +
                     "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 ps.setString(1, ST_PENDING);
                 ps.setTimestamp(2, now);
                 ps.setLong(3, itemId);
@@ -379,6 +1206,7 @@ public class WorkqueueItemDao {
                     throw explainNotUpdatableById(itemId, fetchStateById(itemId), now);
                 }
             }
+            writeHistory(history);
             conn.commit();
             return buildWorkItemById(itemId);
         } catch (SQLException ex) {
@@ -389,16 +1217,655 @@ public class WorkqueueItemDao {
         }
     }
 
+    // ==========================================================
+    //          TRANSICIONES EN LOTE (lista de Ids o Keys)
+    // ==========================================================
+    /** Resultado por ítem de una transición en lote. */
+    public static final class TransitionResult {
+        public final String identifier;
+        public final ItemTransition.Outcome outcome;
+        public final String status;          // estado actual si no se actualizó (null si no existe)
+
+        TransitionResult(String identifier, ItemTransition.Outcome outcome, String status) {
+            this.identifier = identifier;
+            this.outcome = outcome;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Aplica la misma transición a una lista de ítems en una sola transacción: un UPDATE
+     * condicional por ítem enviado en un batch. Solo para los que no se actualizaron se lee
+     * el estado (una consulta IN) y se distingue "no encontrado" de "estado incorrecto".
+     */
+    public List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                                  List<String> identifiers, String reason,
+                                                  Timestamp deferUntil) throws SQLException {
+        return transitionBatch(transition, by, identifiers, null, reason, deferUntil);
+    }
+
+    /**
+     * Igual que {@link #transitionBatch(ItemTransition, ItemIdentifierType, List, String, Timestamp)}
+     * pero atada al claim: {@code claimedAt} trae, por ítem, el [Last Updated] que tenía cuando se
+     * pidió la transición ({@link #claimStamp}). Si el lease venció y otro bot lo volvió a tomar,
+     * el [Last Updated] ya no coincide y el ítem queda WRONG_STATE (en Working) sin tocarse.
+     * La comparación admite {@link #CLAIM_STAMP_TOLERANCE_MS} de diferencia: Access guarda segundos
+     * enteros y la marca puede venir de memoria (la hora del claim, con milisegundos).
+     * {@code claimedAt} null = sin control de claim.
+     */
+    public List<TransitionResult> transitionBatch(ItemTransition transition, ItemIdentifierType by,
+                                                  List<String> identifiers, List<Timestamp> claimedAt,
+                                                  String reason, Timestamp deferUntil) throws SQLException {
+        List<TransitionResult> results = new ArrayList<>();
+        if (identifiers == null || identifiers.isEmpty()) return results;
+        final Timestamp now = nowTs();
+        if (transition == ItemTransition.DEFER) {
+            if (deferUntil == null) throw new SQLException("Defer Until es obligatorio.");
+            if (!deferUntil.after(now)) throw new SQLException("Defer Until debe ser futuro.");
+        }
+        final String colBy = by == ItemIdentifierType.ID ? COL_ID : COL_KEY;
+
+        String set;
+        switch (transition) {
+            case COMPLETE:  set = COL_STATUS + "=?," + COL_UPDATED + "=?"; break;
+            case EXCEPTION: set = COL_STATUS + "=?," + COL_EXC_REASON + "=?," + COL_UPDATED + "=?"; break;
+            case RELEASE:   set = COL_STATUS + "=?," + COL_UPDATED + "=?"; break;
+            case DEFER:     set = COL_STATUS + "=?," + COL_DEFER_UNTIL + "=?," + COL_UPDATED + "=?"; break;
+            default: throw new SQLException("Transición no soportada: " + transition);
+        }
+        String sql = "UPDATE " + TBL_WQ + " SET " + set + " WHERE " + colBy + "=? AND " + COL_STATUS + "=?" +
+                (claimedAt != null ? " AND " + COL_UPDATED + ">? AND " + COL_UPDATED + "<?" : "") +
+                (transition == ItemTransition.DEFER
+                        ? " AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)" : "");
+
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            Map<String, HistoryEntry> history = historyEnabled() ? historyFromWorking(by, identifiers) : null;
+            int[] counts;
+            try (PreparedStatement ps = prepare(sql)) {
+                for (int n = 0; n < identifiers.size(); n++) {
+                    String ident = identifiers.get(n);
+                    int i = 1;
+                    switch (transition) {
+                        case COMPLETE:  ps.setString(i++, ST_COMPLETED); break;
+                        case EXCEPTION: ps.setString(i++, ST_EXCEPTION); ps.setString(i++, reason); break;
+                        case RELEASE:   ps.setString(i++, ST_PENDING); break;
+                        case DEFER:     ps.setString(i++, ST_PENDING); ps.setTimestamp(i++, deferUntil); break;
+                    }
+                    ps.setTimestamp(i++, now);
+                    if (by == ItemIdentifierType.ID) ps.setLong(i++, Long.parseLong(ident));
+                    else ps.setString(i++, ident);
+                    ps.setString(i++, ST_WORKING);
+                    if (claimedAt != null) {
+                        long at = claimedAt.get(n).getTime();
+                        ps.setTimestamp(i++, new Timestamp(at - CLAIM_STAMP_TOLERANCE_MS));
+                        ps.setTimestamp(i++, new Timestamp(at + CLAIM_STAMP_TOLERANCE_MS));
+                    }
+                    if (transition == ItemTransition.DEFER) ps.setTimestamp(i, now);
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
+            }
+
+            List<String> failed = new ArrayList<>();
+            List<HistoryEntry> written = new ArrayList<>();
+            for (int i = 0; i < identifiers.size(); i++) {
+                if (counts[i] == 0) {
+                    failed.add(identifiers.get(i));
+                } else if (history != null && history.containsKey(identifiers.get(i))) {
+                    HistoryEntry h = history.get(identifiers.get(i));
+                    written.add(new HistoryEntry(h.itemId, ST_WORKING, transition == ItemTransition.COMPLETE ? ST_COMPLETED
+                            : transition == ItemTransition.EXCEPTION ? ST_EXCEPTION : ST_PENDING,
+                            h.step, h.since, now));
+                }
+            }
+            writeHistory(written);
+            Map<String, String> statusOfFailed = failed.isEmpty()
+                    ? Collections.emptyMap() : fetchStatuses(by, failed);
+            conn.commit();
+
+            for (int i = 0; i < identifiers.size(); i++) {
+                String ident = identifiers.get(i);
+                if (counts[i] != 0) {
+                    results.add(new TransitionResult(ident, ItemTransition.Outcome.UPDATED, null));
+                } else if (!statusOfFailed.containsKey(ident)) {
+                    results.add(new TransitionResult(ident, ItemTransition.Outcome.NOT_FOUND, null));
+                } else {
+                    results.add(new TransitionResult(ident, ItemTransition.Outcome.WRONG_STATE, statusOfFailed.get(ident)));
+                }
+            }
+            return results;
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+    }
+
+    // Id, [Last Updated] y Step por identificador, antes del UPDATE en lote (to/changedAt se completan después)
+    private Map<String, HistoryEntry> historyFromWorking(ItemIdentifierType by, List<String> identifiers) throws SQLException {
+        Map<String, HistoryEntry> result = new HashMap<>();
+        final String colBy = by == ItemIdentifierType.ID ? COL_ID : COL_KEY;
+        for (int from = 0; from < identifiers.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = identifiers.subList(from, Math.min(from + IN_CHUNK_SIZE, identifiers.size()));
+            String sql = "SELECT " + COL_ID + "," + COL_KEY + "," + COL_UPDATED + "," + COL_STEP_WF + " FROM " + TBL_WQ +
+                    " WHERE " + colBy + " IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (String ident : chunk) {
+                    if (by == ItemIdentifierType.ID) ps.setLong(i++, Long.parseLong(ident));
+                    else ps.setString(i++, ident);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        String ident = by == ItemIdentifierType.ID ? String.valueOf(id) : rs.getString(2);
+                        result.put(ident, new HistoryEntry(id, ST_WORKING, null, rs.getString(4), rs.getTimestamp(3), null));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // [Status] actual por identificador (Id como texto o Key), con una consulta IN por bloque
+    private Map<String, String> fetchStatuses(ItemIdentifierType by, List<String> identifiers) throws SQLException {
+        Map<String, String> result = new HashMap<>();
+        final String colBy = by == ItemIdentifierType.ID ? COL_ID : COL_KEY;
+        for (int from = 0; from < identifiers.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = identifiers.subList(from, Math.min(from + IN_CHUNK_SIZE, identifiers.size()));
+            String sql = "SELECT " + colBy + "," + COL_STATUS + " FROM " + TBL_WQ +
+                    " WHERE " + colBy + " IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (String ident : chunk) {
+                    if (by == ItemIdentifierType.ID) ps.setLong(i++, Long.parseLong(ident));
+                    else ps.setString(i++, ident);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String ident = by == ItemIdentifierType.ID ? String.valueOf(rs.getLong(1)) : rs.getString(1);
+                        result.put(ident, rs.getString(2));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Identidad del claim de un ítem Working: su [Last Updated] actual (el claim o el último cambio
+     * de workflow). {@link #transitionBatch(ItemTransition, ItemIdentifierType, List, List, String, Timestamp)}
+     * lo exige igual para aplicar una transición diferida. Falla como la transición si no está Working.
+     */
+    public Timestamp claimStamp(ItemIdentifierType by, String identifier) throws SQLException {
+        final Timestamp now = nowTs();
+        final String colBy = by == ItemIdentifierType.ID ? COL_ID : COL_KEY;
+        String sql = "SELECT " + COL_UPDATED + " FROM " + TBL_WQ + " WHERE " + colBy + "=? AND " + COL_STATUS + "=?";
+        long id = 0;
+        if (by == ItemIdentifierType.ID) {
+            try {
+                id = Long.parseLong(identifier.trim());
+            } catch (NumberFormatException e) {
+                throw new SQLException("Item Id inválido: " + identifier);
+            }
+        }
+        try (PreparedStatement ps = prepare(sql)) {
+            if (by == ItemIdentifierType.ID) ps.setLong(1, id); else ps.setString(1, identifier);
+            ps.setString(2, ST_WORKING);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getTimestamp(1);
+            }
+        }
+        throw by == ItemIdentifierType.ID
+                ? explainNotUpdatableById(id, fetchStateById(id), now)
+                : explainNotUpdatableByKey(identifier, fetchStateByKey(identifier), now);
+    }
+
+    /** Cantidad de Pending elegibles ahora (Defer Until nulo o vencido y dentro del filtro de etapa). */
+    public long countEligiblePending() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + TBL_WQ +
+                " WHERE " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?)" +
+                claimFilterSql();
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setString(1, ST_PENDING);
+            ps.setTimestamp(2, nowTs());
+            bindClaimFilter(ps, 3);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Pending elegibles y diferidos, próximo [Defer Until] a futuro y, si el archivo tiene lease,
+     * el próximo vencimiento entre los Working. Una sola lectura sobre los índices de Status.
+     */
+    public Availability pendingAvailability() throws SQLException {
+        final Timestamp now = nowTs();
+        final boolean lease = leaseSupported();
+        String sql = "SELECT SUM(CASE WHEN " + COL_STATUS + "=? AND (" + COL_DEFER_UNTIL + " IS NULL OR " + COL_DEFER_UNTIL + " <= ?) THEN 1 ELSE 0 END)," +
+                " SUM(CASE WHEN " + COL_STATUS + "=? AND " + COL_DEFER_UNTIL + " > ? THEN 1 ELSE 0 END)," +
+                " MIN(CASE WHEN " + COL_STATUS + "=? AND " + COL_DEFER_UNTIL + " > ? THEN " + COL_DEFER_UNTIL + " END)" +
+                (lease ? ", MIN(CASE WHEN " + COL_STATUS + "=? THEN " + COL_LEASE_UNTIL + " END)" : "") +
+                " FROM " + TBL_WQ + " WHERE " + COL_STATUS + " IN (?,?)" + claimFilterSql();
+        try (PreparedStatement ps = prepare(sql)) {
+            int i = 1;
+            ps.setString(i++, ST_PENDING);
+            ps.setTimestamp(i++, now);
+            ps.setString(i++, ST_PENDING);
+            ps.setTimestamp(i++, now);
+            ps.setString(i++, ST_PENDING);
+            ps.setTimestamp(i++, now);
+            if (lease) ps.setString(i++, ST_WORKING);
+            ps.setString(i++, ST_PENDING);
+            ps.setString(i++, ST_WORKING);
+            bindClaimFilter(ps, i);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return new Availability(0, 0, null, null);
+                return new Availability(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3),
+                        lease ? rs.getTimestamp(4) : null);
+            }
+        }
+    }
+
+    // ==========================================================
+    //               REQUEUE (EXCEPTION → PENDING, masivo)
+    // ==========================================================
+    /** Resultado de {@link #requeueExceptions}. */
+    public static final class RequeueReport {
+        public long matched;     // Exception que cumplían el filtro al leer cada bloque
+        public long requeued;    // pasados a Pending
+        public long skipped;     // cambiaron de estado entre la lectura y el UPDATE
+        public int chunks;
+        public long millis;
+
+        /** Suma de los reportes de varios archivos (p. ej. uno por shard). */
+        public static RequeueReport merge(List<RequeueReport> parts) {
+            RequeueReport total = new RequeueReport();
+            for (RequeueReport r : parts) {
+                total.matched += r.matched;
+                total.requeued += r.requeued;
+                total.skipped += r.skipped;
+                total.chunks += r.chunks;
+                total.millis = Math.max(total.millis, r.millis);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Devuelve a Pending los ítems en Exception que cumplen el filtro, por bloques de Id
+     * ascendente: un SELECT de Ids y un UPDATE por bloque ({@code Id IN (...)} y
+     * {@code Status='Exception'}, así un ítem que cambió entre ambos no se toca), cada uno con
+     * su commit y su historial. Se limpian Defer Until y Lease Until para que sean elegibles
+     * enseguida; [Exception Reason] se conserva como rastro hasta la próxima excepción.
+     * [Aged At] vuelve a la hora del requeue: el envejecimiento cuenta desde que reingresa a Pending.
+     *
+     * @param reasonPattern  patrón de [Exception Reason] (LIKE; acepta * y ? como comodines; null = cualquiera)
+     * @param stepWorkflow   [Step Workflow] exacto (null = cualquiera)
+     * @param updatedBefore  solo ítems con [Last Updated] anterior (null = sin límite de antigüedad)
+     * @param priorityBump   se resta de [Priority] (menor = se toma antes) sin bajar del piso de
+     *                       {@link PriorityAging} (0 si está desactivado); 0 = sin cambio
+     * @param chunkSize      ítems por bloque (como máximo {@value #IN_CHUNK_SIZE})
+     */
+    public RequeueReport requeueExceptions(String reasonPattern, String stepWorkflow, Timestamp updatedBefore,
+                                           long priorityBump, int chunkSize) throws SQLException {
+        if (chunkSize < 1) throw new SQLException("El tamaño de bloque debe ser mayor a 0.");
+        final int chunk = Math.min(chunkSize, IN_CHUNK_SIZE);
+        final String like = reasonPattern == null || reasonPattern.isBlank() ? null
+                : reasonPattern.trim().replace('*', '%').replace('?', '_');
+        final String step = stepWorkflow == null || stepWorkflow.isBlank() ? null : stepWorkflow.trim();
+        final boolean lease = leaseSupported();
+        final boolean aged = agingSupported();
+        final boolean history = historyEnabled();
+        final long floor = PriorityAging.forConnection(conn).getFloor();
+        // Los valores van literales (son long): en un CASE los parámetros no siempre tienen tipo
+        final String bumped = COL_PRIORITY + "-(" + priorityBump + ")";
+        final String priority = "CASE WHEN " + bumped + ">=" + floor + " THEN " + bumped +
+                " WHEN " + COL_PRIORITY + ">" + floor + " THEN " + floor + " ELSE " + COL_PRIORITY + " END";
+
+        StringBuilder sel = new StringBuilder("SELECT TOP ").append(chunk).append(' ')
+                .append(COL_ID).append(',').append(COL_UPDATED).append(',').append(COL_STEP_WF)
+                .append(" FROM ").append(TBL_WQ).append(" WHERE ").append(COL_STATUS).append("=? AND ")
+                .append(COL_ID).append(" > ?");
+        if (like != null) sel.append(" AND ").append(COL_EXC_REASON).append(" LIKE ?");
+        if (step != null) sel.append(" AND ").append(COL_STEP_WF).append("=?");
+        if (updatedBefore != null) sel.append(" AND ").append(COL_UPDATED).append(" < ?");
+        sel.append(" ORDER BY ").append(COL_ID).append(" ASC");
+
+        RequeueReport report = new RequeueReport();
+        long t0 = System.nanoTime();
+        long afterId = 0;
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            while (true) {
+                Map<Long, HistoryEntry> found = new LinkedHashMap<>();
+                final Timestamp now = nowTs();
+                try (PreparedStatement ps = prepare(sel.toString())) {
+                    int i = 1;
+                    ps.setString(i++, ST_EXCEPTION);
+                    ps.setLong(i++, afterId);
+                    if (like != null) ps.setString(i++, like);
+                    if (step != null) ps.setString(i++, step);
+                    if (updatedBefore != null) ps.setTimestamp(i, updatedBefore);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            long id = rs.getLong(1);
+                            found.put(id, new HistoryEntry(id, ST_EXCEPTION, ST_PENDING, rs.getString(3), rs.getTimestamp(2), now));
+                        }
+                    }
+                }
+                if (found.isEmpty()) break;
+                List<Long> ids = new ArrayList<>(found.keySet());
+                afterId = ids.get(ids.size() - 1);
+
+                conn.setAutoCommit(false);
+                String upd = "UPDATE " + TBL_WQ + " SET " + COL_STATUS + "=?," + COL_UPDATED + "=?," +
+                        COL_DEFER_UNTIL + "=NULL" + (lease ? "," + COL_LEASE_UNTIL + "=NULL" : "") +
+                        (aged ? "," + COL_AGED_AT + "=?" : "") +
+                        (priorityBump != 0 ? "," + COL_PRIORITY + "=" + priority : "") +
+                        " WHERE " + COL_STATUS + "=? AND " + COL_ID + " IN (" + placeholders(ids.size()) + ")";
+                int updated;
+                try (PreparedStatement ps = prepare(upd)) {
+                    int i = 1;
+                    ps.setString(i++, ST_PENDING);
+                    ps.setTimestamp(i++, now);
+                    if (aged) ps.setTimestamp(i++, now);
+                    ps.setString(i++, ST_EXCEPTION);
+                    for (Long id : ids) ps.setLong(i++, id);
+                    updated = ps.executeUpdate();
+                }
+                if (history) {
+                    // Si alguno cambió entre la lectura y el UPDATE, solo van al historial los que pasaron
+                    if (updated < ids.size()) found.keySet().removeAll(notRequeued(ids));
+                    writeHistory(found.values());
+                }
+                conn.commit();
+                conn.setAutoCommit(prevAuto);
+
+                report.matched += ids.size();
+                report.requeued += updated;
+                report.skipped += ids.size() - updated;
+                report.chunks++;
+                if (ids.size() < chunk) break;
+            }
+        } catch (SQLException ex) {
+            if (!conn.getAutoCommit()) conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
+        }
+        report.millis = (System.nanoTime() - t0) / 1_000_000;
+        return report;
+    }
+
+    // Ids del bloque que no quedaron en Pending (cambiaron antes del UPDATE). No se compara
+    // [Last Updated] con la hora del requeue: Access la guarda sin milisegundos
+    private Set<Long> notRequeued(List<Long> ids) throws SQLException {
+        Set<Long> result = new HashSet<>();
+        String sql = "SELECT " + COL_ID + " FROM " + TBL_WQ + " WHERE " + COL_STATUS + "<>? AND " +
+                COL_ID + " IN (" + placeholders(ids.size()) + ")";
+        try (PreparedStatement ps = prepare(sql)) {
+            int i = 1;
+            ps.setString(i++, ST_PENDING);
+            for (Long id : ids) ps.setLong(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) result.add(rs.getLong(1));
+            }
+        }
+        return result;
+    }
+
+    // ==========================================================
+    //                      ESTADÍSTICAS DE COLA
+    // ==========================================================
+    /**
+     * Conteos por [Status] y por [Step Workflow], Pending más antiguo y próximo Defer Until
+     * a futuro, todo con un único GROUP BY sobre la tabla.
+     */
+    public QueueStats queueStats() throws SQLException {
+        final Timestamp now = nowTs();
+        String sql = "SELECT " + COL_STATUS + "," + COL_STEP_WF + ", COUNT(*), MIN(" + COL_CREATED + ")," +
+                " MIN(CASE WHEN " + COL_DEFER_UNTIL + " > ? THEN " + COL_DEFER_UNTIL + " END)" +
+                " FROM " + TBL_WQ + " GROUP BY " + COL_STATUS + "," + COL_STEP_WF;
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (String st : List.of(ST_PENDING, ST_WORKING, ST_COMPLETED, ST_EXCEPTION)) byStatus.put(st, 0L);
+        Map<String, Long> byStep = new TreeMap<>();
+        Timestamp oldestPending = null;
+        Timestamp nextDefer = null;
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setTimestamp(1, now);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String status = rs.getString(1);
+                    String step = rs.getString(2);
+                    long count = rs.getLong(3);
+                    byStatus.merge(status == null ? "" : status, count, Long::sum);
+                    byStep.merge(step == null ? "" : step, count, Long::sum);
+                    if (ST_PENDING.equals(status)) {
+                        Timestamp created = rs.getTimestamp(4);
+                        Timestamp defer = rs.getTimestamp(5);
+                        if (created != null && (oldestPending == null || created.before(oldestPending))) oldestPending = created;
+                        if (defer != null && (nextDefer == null || defer.before(nextDefer))) nextDefer = defer;
+                    }
+                }
+            }
+        }
+        return new QueueStats(byStatus, byStep, oldestPending, nextDefer);
+    }
+
+    // ==========================================================
+    //                   BÚSQUEDA POR ITEM DATA
+    // ==========================================================
+    /**
+     * Ítems que tienen todos los pares Key=Value en [Item Data] y (si se indican) alguno de los
+     * estados, en páginas por [Id] ascendente a partir de {@code afterId} (0 = desde el inicio).
+     * Cada par se resuelve sobre el índice (Key, Value Key); si el valor supera el prefijo
+     * indexado (255 caracteres o más) se compara además [Value] completo.
+     */
+    public SearchPage findItems(Map<String,String> data, Collection<String> statuses, long afterId,
+                                int pageSize, boolean includeData) throws SQLException {
+        if (pageSize < 1) throw new SQLException("El tamaño de página debe ser mayor a 0.");
+        final boolean indexed = valueKeySupported();
+        Map<String,String> pairs = data == null ? Collections.emptyMap() : data;
+        if (!pairs.isEmpty()) ItemDataStorage.forConnection(conn).requireSearchable(pairs.keySet(), "Find Work Items");
+        List<String> sts = statuses == null ? Collections.emptyList() : new ArrayList<>(statuses);
+
+        StringBuilder sql = new StringBuilder("SELECT TOP ").append(pageSize + 1).append(' ')
+                .append(COL_ID).append(',').append(COL_KEY).append(',').append(COL_STATUS_WF).append(',')
+                .append(COL_STEP_WF).append(',').append(COL_STATUS).append(',').append(COL_UPDATED)
+                .append(" FROM ").append(TBL_WQ).append(" WHERE ").append(COL_ID).append(" > ?");
+        if (!sts.isEmpty()) sql.append(" AND ").append(COL_STATUS).append(" IN (").append(placeholders(sts.size())).append(')');
+        for (Map.Entry<String,String> e : pairs.entrySet()) {
+            sql.append(" AND ").append(COL_ID).append(" IN (SELECT ").append(COL_D_ITEM_ID).append(" FROM ").append(TBL_DATA)
+               .append(" WHERE ").append(COL_D_KEY).append("=? AND ");
+            if (!indexed) sql.append(COL_D_VALUE).append("=?");
+            else if (isLongValue(e.getValue())) sql.append(COL_D_VALUE_KEY).append("=? AND ").append(COL_D_VALUE).append("=?");
+            else sql.append(COL_D_VALUE_KEY).append("=?");
+            sql.append(')');
+        }
+        sql.append(" ORDER BY ").append(COL_ID).append(" ASC");
+
+        List<FoundItem> found = new ArrayList<>();
+        try (PreparedStatement ps = prepare(sql.toString())) {
+            int i = 1;
+            ps.setLong(i++, afterId);
+            for (String st : sts) ps.setString(i++, st);
+            for (Map.Entry<String,String> e : pairs.entrySet()) {
+                ps.setString(i++, e.getKey());
+                if (indexed) ps.setString(i++, valueKey(e.getValue()));
+                if (!indexed || isLongValue(e.getValue())) ps.setString(i++, e.getValue());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long wf = rs.getLong(3);
+                    Long statusWf = rs.wasNull() ? null : wf;
+                    WorkItem w = new WorkItem(rs.getLong(1), rs.getString(2), statusWf, rs.getString(4), null);
+                    found.add(new FoundItem(w, rs.getString(5), rs.getTimestamp(6)));
+                }
+            }
+        }
+
+        Long next = null;
+        if (found.size() > pageSize) {
+            found = new ArrayList<>(found.subList(0, pageSize));
+            next = found.get(pageSize - 1).item.id;
+        }
+        if (includeData && !found.isEmpty()) found = withItemData(found);
+        return new SearchPage(found, next);
+    }
+
+    // ==========================================================
+    //                     FEED DE CAMBIOS
+    // ==========================================================
+    /**
+     * Ítems cambiados después de la marca de agua ({@code afterUpdated}, {@code afterId}) en
+     * orden ([Last Updated], [Id]), sobre el índice IX_WQ_UPDATED: el rango va como
+     * {@code [Last Updated] >= ?} para que se resuelva por índice y el desempate por [Id]
+     * descarta los ya vistos con la misma hora. Los ítems borrados (archivo) no aparecen.
+     *
+     * @param afterUpdated null = desde el principio
+     * @param upTo         cota superior exclusiva (null = sin cota); deja afuera los cambios muy
+     *                     recientes que otro bot con el reloj adelantado todavía podría no haber confirmado
+     */
+    public ChangePage changesSince(Timestamp afterUpdated, long afterId, Timestamp upTo,
+                                   int pageSize, boolean includeData) throws SQLException {
+        if (pageSize < 1) throw new SQLException("El tamaño de página debe ser mayor a 0.");
+        StringBuilder sql = new StringBuilder("SELECT TOP ").append(pageSize + 1).append(' ')
+                .append(COL_ID).append(',').append(COL_KEY).append(',').append(COL_STATUS_WF).append(',')
+                .append(COL_STEP_WF).append(',').append(COL_STATUS).append(',').append(COL_UPDATED)
+                .append(" FROM ").append(TBL_WQ).append(" WHERE ");
+        if (afterUpdated == null) {
+            sql.append(COL_UPDATED).append(" IS NOT NULL");
+        } else {
+            sql.append(COL_UPDATED).append(" >= ? AND (").append(COL_UPDATED).append(" > ? OR ")
+               .append(COL_ID).append(" > ?)");
+        }
+        if (upTo != null) sql.append(" AND ").append(COL_UPDATED).append(" < ?");
+        sql.append(" ORDER BY ").append(COL_UPDATED).append(" ASC, ").append(COL_ID).append(" ASC");
+
+        List<FoundItem> found = new ArrayList<>();
+        try (PreparedStatement ps = prepare(sql.toString())) {
+            int i = 1;
+            if (afterUpdated != null) {
+                ps.setTimestamp(i++, afterUpdated);
+                ps.setTimestamp(i++, afterUpdated);
+                ps.setLong(i++, afterId);
+            }
+            if (upTo != null) ps.setTimestamp(i, upTo);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long wf = rs.getLong(3);
+                    Long statusWf = rs.wasNull() ? null : wf;
+                    WorkItem w = new WorkItem(rs.getLong(1), rs.getString(2), statusWf, rs.getString(4), null);
+                    found.add(new FoundItem(w, rs.getString(5), rs.getTimestamp(6)));
+                }
+            }
+        }
+
+        boolean more = found.size() > pageSize;
+        if (more) found = new ArrayList<>(found.subList(0, pageSize));
+        if (includeData && !found.isEmpty()) found = withItemData(found);
+        if (found.isEmpty()) return new ChangePage(found, afterUpdated, afterId, false);
+        FoundItem last = found.get(found.size() - 1);
+        return new ChangePage(found, last.lastUpdated, last.item.id, more);
+    }
+
+    // Completa el Item Data de una página de resultados (una consulta IN por bloque)
+    private List<FoundItem> withItemData(List<FoundItem> found) throws SQLException {
+        List<Long> ids = new ArrayList<>(found.size());
+        for (FoundItem f : found) ids.add(f.item.id);
+        Map<Long, Map<String,String>> byId = getItemDataByIds(ids);
+        List<FoundItem> withData = new ArrayList<>(found.size());
+        for (FoundItem f : found) {
+            WorkItem w = f.item;
+            Map<String,String> d = byId.getOrDefault(w.id, new LinkedHashMap<>());
+            withData.add(new FoundItem(new WorkItem(w.id, w.key, w.statusWorkflow, w.stepWorkflow, d), f.status, f.lastUpdated));
+        }
+        return withData;
+    }
+
+    // Con 255 caracteres o más, [Value Key] solo es un prefijo: hay que confirmar con [Value]
+    private static boolean isLongValue(String value) {
+        return value != null && value.length() >= WorkqueueSchema.VALUE_KEY_LENGTH;
+    }
+
     // ==========================================================
     //                        GET ITEM DATA
     // ==========================================================
-    /** Devuelve el diccionario Key/Value de [Item Data] por Item Id. */
+    /** Devuelve el diccionario Key/Value de [Item Data] por Item Id (de [Item Blob] si el ítem es compacto). */
     public Map<String,String> getItemDataById(long itemId) throws SQLException {
-        String sql = "SELECT " + COL_D_KEY + "," + COL_D_VALUE + " FROM " + TBL_DATA +
-                " WHERE " + COL_D_ITEM_ID + "=? ORDER BY " + COL_D_ID + " ASC";
+        if (blobSupported()) {
+            String sql = "SELECT " + COL_ITEM_BLOB + " FROM " + TBL_WQ + " WHERE " + COL_ID + "=?";
+            try (PreparedStatement ps = prepare(sql)) {
+                ps.setLong(1, itemId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        Map<String,String> data = decodeBlob(rs.getString(1));
+                        if (data != null) return data;
+                    }
+                }
+            }
+        }
+        return readDataRows(itemId);
+    }
+
+    /**
+     * Devuelve el Item Data de varios ítems con una consulta IN por bloque,
+     * agrupado por Item Id (en el orden de [Id] de cada fila).
+     */
+    public Map<Long, Map<String,String>> getItemDataByIds(Collection<Long> itemIds) throws SQLException {
+        Map<Long, Map<String,String>> result = new LinkedHashMap<>();
+        if (itemIds == null || itemIds.isEmpty()) return result;
+        if (!blobSupported()) return readDataRows(itemIds);
+
+        // Primero los compactos (una lectura de workqueue por bloque); el resto, de las filas
+        List<Long> ids = new ArrayList<>(itemIds);
+        List<Long> rowIds = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            Set<Long> compact = new HashSet<>();
+            String sql = "SELECT " + COL_ID + "," + COL_ITEM_BLOB + " FROM " + TBL_WQ +
+                    " WHERE " + COL_ID + " IN (" + placeholders(chunk.size()) + ") AND " + COL_ITEM_BLOB + " IS NOT NULL";
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (Long id : chunk) ps.setLong(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        result.put(id, decodeBlob(rs.getString(2)));
+                        compact.add(id);
+                    }
+                }
+            }
+            for (Long id : chunk) if (!compact.contains(id)) rowIds.add(id);
+        }
+        result.putAll(readDataRows(rowIds));
+        return result;
+    }
+
+    /** Devuelve Key/Value por Item Key. */
+    public Map<String,String> getItemDataByKey(String itemKey) throws SQLException {
+        if (blobSupported()) {
+            String sql = "SELECT " + COL_ID + "," + COL_ITEM_BLOB + " FROM " + TBL_WQ + " WHERE " + COL_KEY + "=?";
+            try (PreparedStatement ps = prepare(sql)) {
+                ps.setString(1, itemKey);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return new LinkedHashMap<>();
+                    Map<String,String> data = decodeBlob(rs.getString(2));
+                    return data != null ? data : readDataRows(rs.getLong(1));
+                }
+            }
+        }
+        String sql = "SELECT d." + COL_D_KEY + ", d." + COL_D_VALUE +
+                " FROM " + TBL_DATA + " d INNER JOIN " + TBL_WQ + " w ON d." + COL_D_ITEM_ID + " = w." + COL_ID +
+                " WHERE w." + COL_KEY + "=? ORDER BY d." + COL_D_ID + " ASC";
         Map<String,String> map = new LinkedHashMap<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, itemId);
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setString(1, itemKey);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     String k = rs.getString(1);
@@ -410,14 +1877,24 @@ public class WorkqueueItemDao {
         return map;
     }
 
-    /** Devuelve Key/Value por Item Key (join con workqueue). */
-    public Map<String,String> getItemDataByKey(String itemKey) throws SQLException {
-        String sql = "SELECT d." + COL_D_KEY + ", d." + COL_D_VALUE +
-                " FROM " + TBL_DATA + " d INNER JOIN " + TBL_WQ + " w ON d." + COL_D_ITEM_ID + " = w." + COL_ID +
-                " WHERE w." + COL_KEY + "=? ORDER BY d." + COL_D_ID + " ASC";
+    // [Item Blob] decodificado; null si el ítem guarda su Item Data en filas
+    private static Map<String,String> decodeBlob(String blob) throws SQLException {
+        return blob == null ? null : ItemDataStorage.decode(blob);
+    }
+
+    // Candidato de claim con su Item Data (ya decodificado si era compacto)
+    private WorkItem withData(WorkItem c) throws SQLException {
+        Map<String,String> data = c.data != null ? c.data : readDataRows(c.id);
+        return new WorkItem(c.id, c.key, c.statusWorkflow, c.stepWorkflow, data);
+    }
+
+    // Filas de [Item Data] de un ítem, en orden de [Id]
+    private Map<String,String> readDataRows(long itemId) throws SQLException {
+        String sql = "SELECT " + COL_D_KEY + "," + COL_D_VALUE + " FROM " + TBL_DATA +
+                " WHERE " + COL_D_ITEM_ID + "=? ORDER BY " + COL_D_ID + " ASC";
         Map<String,String> map = new LinkedHashMap<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, itemKey);
+        try (PreparedStatement ps = prepare(sql)) {
+            ps.setLong(1, itemId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     String k = rs.getString(1);
@@ -429,6 +1906,31 @@ public class WorkqueueItemDao {
         return map;
     }
 
+    private Map<Long, Map<String,String>> readDataRows(Collection<Long> itemIds) throws SQLException {
+        Map<Long, Map<String,String>> result = new LinkedHashMap<>();
+        if (itemIds == null || itemIds.isEmpty()) return result;
+
+        List<Long> ids = new ArrayList<>(itemIds);
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            String sql = "SELECT " + COL_D_ITEM_ID + "," + COL_D_KEY + "," + COL_D_VALUE + " FROM " + TBL_DATA +
+                    " WHERE " + COL_D_ITEM_ID + " IN (" + placeholders(chunk.size()) + ")" +
+                    " ORDER BY " + COL_D_ITEM_ID + " ASC, " + COL_D_ID + " ASC";
+            try (PreparedStatement ps = prepare(sql)) {
+                int i = 1;
+                for (Long id : chunk) ps.setLong(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long itemId = rs.getLong(1);
+                        result.computeIfAbsent(itemId, k -> new LinkedHashMap<>())
+                                .put(rs.getString(2), rs.getString(3));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
 
     //============================================================
     //                   UPDATE WORKFLOW (SET STATUS)
@@ -437,9 +1939,11 @@ public class WorkqueueItemDao {
         final Timestamp now = nowTs();
         boolean prevAuto = conn.getAutoCommit();
         try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_ID, id, ST_WORKING, now);
             String sql = "UPDATE " + TBL_WQ + " SET " + COL_STATUS_WF + "=?, " + COL_STEP_WF + "=?, " + COL_UPDATED + "=? " +
                     "WHERE " + COL_ID + "=? AND " + COL_STATUS + "=?"; // sigue tu regla: solo en Working
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (PreparedStatement ps = prepare(sql)) {
                 if (statusWf != null) ps.setLong(1, statusWf); else ps.setNull(1, SQL_LONG_TYPE);
                 if (stepWf   != null) ps.setString(2, stepWf);  else ps.setNull(2, Types.VARCHAR);
                 ps.setTimestamp(3, now);
@@ -448,7 +1952,9 @@ public class WorkqueueItemDao {
                 int rows = ps.executeUpdate();
                 if (rows == 0) throw explainNotUpdatableById(id, fetchStateById(id), now);
             }
+            writeHistory(history);
             conn.commit();
+            stamped(id, null, now);
             return buildWorkItemById(id);
         } catch (SQLException ex) {
             conn.rollback();
@@ -460,18 +1966,31 @@ public class WorkqueueItemDao {
 
     public WorkItem updateWorkflowByKey(String key, Long statusWf, String stepWf) throws SQLException {
         final Timestamp now = nowTs();
-        String sql = "UPDATE " + TBL_WQ + " SET " + COL_STATUS_WF + "=?, " + COL_STEP_WF + "=?, " + COL_UPDATED + "=? " +
-                "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            if (statusWf != null) ps.setLong(1, statusWf); else ps.setNull(1, SQL_LONG_TYPE);
-            if (stepWf   != null) ps.setString(2, stepWf);  else ps.setNull(2, Types.VARCHAR);
-            ps.setTimestamp(3, now);
-            ps.setString(4, key);
-            ps.setString(5, ST_WORKING);
-            int rows = ps.executeUpdate();
-            if (rows == 0) throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
+        boolean prevAuto = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            HistoryEntry history = historyFromWorking(COL_KEY, key, ST_WORKING, now);
+            String sql = "UPDATE " + TBL_WQ + " SET " + COL_STATUS_WF + "=?, " + COL_STEP_WF + "=?, " + COL_UPDATED + "=? " +
+                    "WHERE " + COL_KEY + "=? AND " + COL_STATUS + "=?";
+            try (PreparedStatement ps = prepare(sql)) {
+                if (statusWf != null) ps.setLong(1, statusWf); else ps.setNull(1, SQL_LONG_TYPE);
+                if (stepWf   != null) ps.setString(2, stepWf);  else ps.setNull(2, Types.VARCHAR);
+                ps.setTimestamp(3, now);
+                ps.setString(4, key);
+                ps.setString(5, ST_WORKING);
+                int rows = ps.executeUpdate();
+                if (rows == 0) throw explainNotUpdatableByKey(key, fetchStateByKey(key), now);
+            }
+            writeHistory(history);
+            conn.commit();
+            stamped(0, key, now);
+            return buildWorkItemByKey(key);
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(prevAuto);
         }
-        return buildWorkItemByKey(key);
     }
 
 
@@ -479,11 +1998,19 @@ public class WorkqueueItemDao {
     //============================================================
     //                  HELPERS
     //============================================================
-    // Carga WorkItem por ID (sin exponer [Status])
+    static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ",?");
+        return sb.toString();
+    }
+
+    // Carga WorkItem por ID (sin exponer [Status]) según la proyección de retorno; null si es NONE
     private WorkItem buildWorkItemById(long id) throws SQLException {
-        String sql = "SELECT " + COL_KEY + "," + COL_STATUS_WF + "," + COL_STEP_WF +
+        if (transitionReturn.isNone()) return null;
+        final boolean blob = transitionReturn.readsData() && blobSupported();
+        String sql = "SELECT " + COL_KEY + "," + COL_STATUS_WF + "," + COL_STEP_WF + (blob ? "," + COL_ITEM_BLOB : "") +
                 " FROM " + TBL_WQ + " WHERE " + COL_ID + "=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepare(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
@@ -495,16 +2022,17 @@ public class WorkqueueItemDao {
 
                 String stepWf = rs.getString(3);
 
-                Map<String,String> data = getItemDataById(id);
-                return new WorkItem(id, key, statusWf, stepWf, data);
+                return new WorkItem(id, key, statusWf, stepWf, projectedData(id, blob ? rs.getString(4) : null));
             }
         }
     }
 
     private WorkItem buildWorkItemByKey(String key) throws SQLException {
-        String sql = "SELECT " + COL_ID + "," + COL_STATUS_WF + "," + COL_STEP_WF +
+        if (transitionReturn.isNone()) return null;
+        final boolean blob = transitionReturn.readsData() && blobSupported();
+        String sql = "SELECT " + COL_ID + "," + COL_STATUS_WF + "," + COL_STEP_WF + (blob ? "," + COL_ITEM_BLOB : "") +
                 " FROM " + TBL_WQ + " WHERE " + COL_KEY + "=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepare(sql)) {
             ps.setString(1, key);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
@@ -516,11 +2044,43 @@ public class WorkqueueItemDao {
 
                 String stepWf = rs.getString(3);
 
-                Map<String,String> data = getItemDataById(id);
-                return new WorkItem(id, key, statusWf, stepWf, data);
+                return new WorkItem(id, key, statusWf, stepWf, projectedData(id, blob ? rs.getString(4) : null));
             }
         }
     }
 
+    // Item Data de la proyección: vacío en cabecera, todo o solo las claves pedidas
+    private Map<String,String> projectedData(long id, String blobValue) throws SQLException {
+        if (!transitionReturn.readsData()) return new LinkedHashMap<>();
+        Map<String,String> data = decodeBlob(blobValue);
+        if (transitionReturn.isFull()) return data != null ? data : readDataRows(id);
+
+        Set<String> keys = transitionReturn.getKeys();
+        if (data == null) {
+            if (keys.size() > IN_CHUNK_SIZE) data = readDataRows(id);
+            else return readDataRows(id, keys);
+        }
+        Map<String,String> selected = new LinkedHashMap<>();
+        data.forEach((k, v) -> { if (keys.contains(k)) selected.put(k, v); });
+        return selected;
+    }
+
+    // Solo algunas claves de [Item Data] de un ítem, en orden de [Id]
+    private Map<String,String> readDataRows(long itemId, Set<String> keys) throws SQLException {
+        String sql = "SELECT " + COL_D_KEY + "," + COL_D_VALUE + " FROM " + TBL_DATA +
+                " WHERE " + COL_D_ITEM_ID + "=? AND " + COL_D_KEY + " IN (" + placeholders(keys.size()) + ")" +
+                " ORDER BY " + COL_D_ID + " ASC";
+        Map<String,String> map = new LinkedHashMap<>();
+        try (PreparedStatement ps = prepare(sql)) {
+            int i = 1;
+            ps.setLong(i++, itemId);
+            for (String k : keys) ps.setString(i++, k);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) map.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return map;
+    }
+
 
 }
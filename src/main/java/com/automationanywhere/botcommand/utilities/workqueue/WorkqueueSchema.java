@@ -0,0 +1,380 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Definición física de la workqueue (tablas e índices que usan las consultas calientes)
+ * y provisión/verificación sobre un archivo existente.
+ */
+public class WorkqueueSchema {
+
+    public static final String TABLE_WORKQUEUE = "workqueue";
+    public static final String TABLE_ITEM_DATA = "Item Data";
+    public static final String TABLE_SETTINGS  = "Workqueue Settings";
+    public static final String TABLE_HISTORY   = "Item History";
+
+    // --- DDL en dialecto UCanAccess (Access); cada backend lo traduce ---
+    private static final String DDL_WORKQUEUE =
+            "CREATE TABLE [workqueue] (" +
+            "[Id] COUNTER PRIMARY KEY, " +
+            "[Key] TEXT(255), " +
+            "[Status] TEXT(20), " +
+            "[Status Workflow] LONG, " +
+            "[Step Workflow] TEXT(255), " +
+            "[Created Date] DATETIME, " +
+            "[Last Updated] DATETIME, " +
+            "[Exception Reason] MEMO, " +
+            "[Priority] LONG, " +
+            "[Defer Until] DATETIME, " +
+            "[Lease Until] DATETIME, " +
+            "[Item Blob] MEMO, " +
+            "[Aged At] DATETIME)";
+
+    private static final String DDL_ITEM_DATA =
+            "CREATE TABLE [Item Data] (" +
+            "[Id] COUNTER PRIMARY KEY, " +
+            "[Item ID] LONG, " +
+            "[Key] TEXT(255), " +
+            "[Value] MEMO, " +
+            "[Value Key] TEXT(255))";
+
+    // Parámetros de la cola compartidos por todos los bots; se crea al guardar el primero
+    // (sin la tabla, todo queda en sus valores por defecto)
+    private static final String DDL_SETTINGS =
+            "CREATE TABLE [Workqueue Settings] (" +
+            "[Name] TEXT(64) PRIMARY KEY, " +
+            "[Value] TEXT(255))";
+
+    // Historial de transiciones (opcional): solo se escribe si la tabla existe
+    private static final String DDL_HISTORY =
+            "CREATE TABLE [Item History] (" +
+            "[Id] COUNTER PRIMARY KEY, " +
+            "[Item ID] LONG, " +
+            "[From Status] TEXT(20), " +
+            "[To Status] TEXT(20), " +
+            "[Step Workflow] TEXT(255), " +
+            "[Changed At] DATETIME, " +
+            "[Seconds In Previous] DOUBLE, " +
+            "[Actor] TEXT(64))";
+
+    /** Índice requerido: nombre, tabla y columnas en orden. */
+    public static final class IndexDef {
+        public final String name;
+        public final String table;
+        public final List<String> columns;
+
+        IndexDef(String name, String table, String... columns) {
+            this.name = name;
+            this.table = table;
+            this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        }
+
+        String toDdl() {
+            StringBuilder sb = new StringBuilder("CREATE INDEX [").append(name).append("] ON [").append(table).append("] (");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('[').append(columns.get(i)).append(']');
+            }
+            return sb.append(')').toString();
+        }
+
+        @Override
+        public String toString() {
+            return name + " ON " + table + " " + columns;
+        }
+    }
+
+    /** Columna agregada después de la versión inicial; upgrade la crea con ALTER TABLE. */
+    public static final class ColumnDef {
+        public final String table;
+        public final String name;
+        public final String type;
+
+        ColumnDef(String table, String name, String type) {
+            this.table = table;
+            this.name = name;
+            this.type = type;
+        }
+
+        String toDdl() {
+            return "ALTER TABLE [" + table + "] ADD COLUMN [" + name + "] " + type;
+        }
+
+        @Override
+        public String toString() {
+            return table + "." + name;
+        }
+    }
+
+    public static final String COL_LEASE_UNTIL = "Lease Until";
+    public static final String COL_VALUE_KEY   = "Value Key";
+    public static final String COL_ITEM_BLOB   = "Item Blob";
+    public static final String COL_AGED_AT     = "Aged At";
+
+    /** Largo de [Value Key]: prefijo indexable de [Value] (MEMO no se puede indexar en Access). */
+    public static final int VALUE_KEY_LENGTH = 255;
+
+    public static final List<ColumnDef> ADDED_COLUMNS = List.of(
+            // Visibilidad: vencimiento del lease de un ítem Working
+            new ColumnDef(TABLE_WORKQUEUE, COL_LEASE_UNTIL, "DATETIME"),
+            // Índice invertido de Item Data: copia de los primeros 255 caracteres de [Value]
+            new ColumnDef(TABLE_ITEM_DATA, COL_VALUE_KEY, "TEXT(" + VALUE_KEY_LENGTH + ")"),
+            // Modo compacto: todo el Item Data del ítem serializado en la fila de workqueue
+            new ColumnDef(TABLE_WORKQUEUE, COL_ITEM_BLOB, "MEMO"),
+            // Envejecimiento de prioridad: último ascenso de [Priority] de un Pending
+            new ColumnDef(TABLE_WORKQUEUE, COL_AGED_AT, "DATETIME")
+    );
+
+    public static final List<IndexDef> REQUIRED_INDEXES = List.of(
+            // Claim: WHERE Status=? ... ORDER BY Priority, Created Date, Id
+            new IndexDef("IX_WQ_CLAIM", TABLE_WORKQUEUE, "Status", "Priority", "Created Date", "Id"),
+            // Elegibilidad por Defer Until dentro de Pending
+            new IndexDef("IX_WQ_DEFER", TABLE_WORKQUEUE, "Status", "Defer Until"),
+            // Claim por etapa: WHERE Status=? AND Step Workflow=? ... ORDER BY Priority, Created Date
+            new IndexDef("IX_WQ_STEP", TABLE_WORKQUEUE, "Status", "Step Workflow", "Priority", "Created Date", "Id"),
+            new IndexDef("IX_WQ_STATUS_WF", TABLE_WORKQUEUE, "Status", "Status Workflow", "Priority", "Created Date", "Id"),
+            // Búsquedas por Key (transiciones by Key)
+            new IndexDef("IX_WQ_KEY", TABLE_WORKQUEUE, "Key"),
+            // Barrido de leases vencidos: WHERE Status='Working' AND Lease Until < ?
+            new IndexDef("IX_WQ_LEASE", TABLE_WORKQUEUE, "Status", COL_LEASE_UNTIL),
+            // Feed de cambios: WHERE Last Updated >= ? ... ORDER BY Last Updated, Id
+            new IndexDef("IX_WQ_UPDATED", TABLE_WORKQUEUE, "Last Updated", "Id"),
+            // FK: Item Data por Item ID, en el orden de lectura
+            new IndexDef("IX_DATA_ITEM", TABLE_ITEM_DATA, "Item ID", "Id"),
+            // Filtro de claim por Key=Value de Item Data (EXISTS correlacionado)
+            new IndexDef("IX_DATA_ITEM_KEY", TABLE_ITEM_DATA, "Item ID", "Key"),
+            // Búsqueda por Key=Value (Find Work Items); también cubre las búsquedas solo por Key
+            new IndexDef("IX_DATA_KEY_VALUE", TABLE_ITEM_DATA, "Key", COL_VALUE_KEY)
+    );
+
+    /** Índices de [Item History]; se verifican solo si la tabla existe. */
+    public static final List<IndexDef> HISTORY_INDEXES = List.of(
+            // Métricas por ventana de tiempo: WHERE Changed At >= ?
+            new IndexDef("IX_HIST_CHANGED", TABLE_HISTORY, "Changed At"),
+            // Historial de un ítem en orden
+            new IndexDef("IX_HIST_ITEM", TABLE_HISTORY, "Item ID", "Changed At")
+    );
+
+    /** Resultado de una verificación o provisión. */
+    public static final class Report {
+        public final List<String> tablesCreated = new ArrayList<>();
+        public final List<String> indexesCreated = new ArrayList<>();
+        public final List<String> columnsAdded = new ArrayList<>();
+        public long valueKeysBackfilled;
+        public final List<String> missingTables = new ArrayList<>();
+        public final List<ColumnDef> missingColumns = new ArrayList<>();
+        public final List<IndexDef> missingIndexes = new ArrayList<>();
+    }
+
+    private final Connection conn;
+
+    private final WorkqueueStore store;
+
+    public WorkqueueSchema(Connection conn) {
+        this.conn = conn;
+        this.store = WorkqueueStores.forConnection(conn);
+    }
+
+    /** Solo informa qué tablas e índices faltan, sin modificar el archivo. */
+    public Report check() throws SQLException {
+        Report report = new Report();
+        for (String table : List.of(TABLE_WORKQUEUE, TABLE_ITEM_DATA)) {
+            if (!tableExists(table)) report.missingTables.add(table);
+        }
+        report.missingColumns.addAll(missingColumns(report.missingTables));
+        report.missingIndexes.addAll(missingIndexes(report.missingTables));
+        return report;
+    }
+
+    /** Crea las tablas e índices faltantes; el reporte queda con lo que no se pudo crear. */
+    public Report upgrade() throws SQLException {
+        Report report = new Report();
+        try (Statement st = conn.createStatement()) {
+            if (!tableExists(TABLE_WORKQUEUE)) {
+                st.executeUpdate(store.translate(DDL_WORKQUEUE));
+                report.tablesCreated.add(TABLE_WORKQUEUE);
+            }
+            if (!tableExists(TABLE_ITEM_DATA)) {
+                st.executeUpdate(store.translate(DDL_ITEM_DATA));
+                report.tablesCreated.add(TABLE_ITEM_DATA);
+            }
+            for (ColumnDef col : missingColumns(Collections.emptyList())) {
+                st.executeUpdate(store.translate(col.toDdl()));
+                report.columnsAdded.add(col.toString());
+            }
+            // Filas sin [Value Key]: anteriores a la columna o escritas por una versión previa del paquete
+            if (columnExists(conn, TABLE_ITEM_DATA, COL_VALUE_KEY)) {
+                report.valueKeysBackfilled = st.executeUpdate(store.translate(
+                        "UPDATE [Item Data] SET [Value Key] = LEFT([Value], " + VALUE_KEY_LENGTH + ")" +
+                        " WHERE [Value Key] IS NULL AND [Value] IS NOT NULL"));
+            }
+            for (IndexDef idx : missingIndexes(Collections.emptyList())) {
+                st.executeUpdate(store.translate(idx.toDdl()));
+                report.indexesCreated.add(idx.name);
+            }
+        }
+        if (!conn.getAutoCommit()) conn.commit();
+        COLUMN_CACHE.remove(conn);
+        StatementCache statements = StatementCache.forConnection(conn);
+        if (statements != null) statements.clear(); // los statements se prepararon sobre el esquema anterior
+        report.missingColumns.addAll(missingColumns(Collections.emptyList()));
+        report.missingIndexes.addAll(missingIndexes(Collections.emptyList()));
+        return report;
+    }
+
+    /** Crea [Workqueue Settings] si falta; devuelve true si la creó. */
+    boolean ensureSettingsTable() throws SQLException {
+        if (tableExists(TABLE_SETTINGS)) return false;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(store.translate(DDL_SETTINGS));
+        }
+        return true;
+    }
+
+    static boolean settingsTableExists(Connection conn) throws SQLException {
+        return resolveTableName(conn, TABLE_SETTINGS) != null;
+    }
+
+    /** Crea [Item History] y sus índices si faltan; devuelve true si creó la tabla. */
+    public boolean ensureHistoryTable() throws SQLException {
+        boolean created = false;
+        try (Statement st = conn.createStatement()) {
+            if (!tableExists(TABLE_HISTORY)) {
+                st.executeUpdate(store.translate(DDL_HISTORY));
+                created = true;
+            }
+            List<List<String>> existing = existingIndexColumns(TABLE_HISTORY);
+            for (IndexDef idx : HISTORY_INDEXES) {
+                if (!isCovered(idx, existing)) st.executeUpdate(store.translate(idx.toDdl()));
+            }
+        }
+        if (!conn.getAutoCommit()) conn.commit();
+        // El DAO decide por el caché de columnas si escribe historial
+        COLUMN_CACHE.remove(conn);
+        StatementCache statements = StatementCache.forConnection(conn);
+        if (statements != null) statements.clear();
+        return created;
+    }
+
+    /** Si la cola registra sus transiciones en [Item History]. */
+    public static boolean historyEnabled(Connection conn) throws SQLException {
+        return hasColumn(conn, TABLE_HISTORY, "Item ID");
+    }
+
+    private List<ColumnDef> missingColumns(List<String> skipTables) throws SQLException {
+        List<ColumnDef> missing = new ArrayList<>();
+        for (ColumnDef def : ADDED_COLUMNS) {
+            if (skipTables.contains(def.table) || !columnExists(conn, def.table, def.name)) missing.add(def);
+        }
+        return missing;
+    }
+
+    // Columnas presentes por conexión; se invalida en upgrade() de este proceso
+    private static final Map<Connection, Set<String>> COLUMN_CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Indica si la columna existe, cacheando el metadata por conexión: el DAO lo consulta en
+     * cada claim para decidir si escribe columnas agregadas después de la versión inicial.
+     */
+    public static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        Set<String> cols = COLUMN_CACHE.get(conn);
+        if (cols == null) {
+            cols = new HashSet<>();
+            for (String t : List.of(TABLE_WORKQUEUE, TABLE_ITEM_DATA, TABLE_HISTORY)) {
+                for (String c : readColumns(conn, t)) cols.add((t + "." + c).toLowerCase(Locale.ROOT));
+            }
+            COLUMN_CACHE.put(conn, cols);
+        }
+        return cols.contains((table + "." + column).toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        for (String c : readColumns(conn, table)) {
+            if (c.equalsIgnoreCase(column)) return true;
+        }
+        return false;
+    }
+
+    private static List<String> readColumns(Connection conn, String table) throws SQLException {
+        List<String> cols = new ArrayList<>();
+        String resolved = resolveTableName(conn, table);
+        if (resolved == null) return cols;
+        try (ResultSet rs = conn.getMetaData().getColumns(null, null, resolved, null)) {
+            while (rs.next()) {
+                String name = rs.getString("COLUMN_NAME");
+                if (name != null) cols.add(name);
+            }
+        }
+        return cols;
+    }
+
+    private List<IndexDef> missingIndexes(List<String> skipTables) throws SQLException {
+        List<IndexDef> missing = new ArrayList<>();
+        Map<String, List<List<String>>> cache = new HashMap<>();
+        List<IndexDef> required = new ArrayList<>(REQUIRED_INDEXES);
+        if (tableExists(TABLE_HISTORY)) required.addAll(HISTORY_INDEXES);
+        for (IndexDef def : required) {
+            if (skipTables.contains(def.table)) {
+                missing.add(def);
+                continue;
+            }
+            List<List<String>> existing = cache.get(def.table);
+            if (existing == null) {
+                existing = existingIndexColumns(def.table);
+                cache.put(def.table, existing);
+            }
+            if (!isCovered(def, existing)) missing.add(def);
+        }
+        return missing;
+    }
+
+    // Un índice existente cubre al requerido si empieza con las mismas columnas en el mismo orden
+    private static boolean isCovered(IndexDef def, List<List<String>> existing) {
+        for (List<String> cols : existing) {
+            if (cols.size() < def.columns.size()) continue;
+            boolean prefix = true;
+            for (int i = 0; i < def.columns.size(); i++) {
+                if (!cols.get(i).equalsIgnoreCase(def.columns.get(i))) { prefix = false; break; }
+            }
+            if (prefix) return true;
+        }
+        return false;
+    }
+
+    private List<List<String>> existingIndexColumns(String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> byIndex = new LinkedHashMap<>();
+        DatabaseMetaData md = conn.getMetaData();
+        try (ResultSet rs = md.getIndexInfo(null, null, resolveTableName(table), false, false)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (indexName == null || column == null) continue;
+                byIndex.computeIfAbsent(indexName, k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), column);
+            }
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (TreeMap<Short, String> cols : byIndex.values()) result.add(new ArrayList<>(cols.values()));
+        return result;
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        return resolveTableName(table) != null;
+    }
+
+    private String resolveTableName(String table) throws SQLException {
+        return resolveTableName(conn, table);
+    }
+
+    // El metadata de UCanAccess puede devolver los nombres en mayúsculas
+    private static String resolveTableName(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, null, new String[]{"TABLE"})) {
+            while (rs.next()) {
+                String name = rs.getString("TABLE_NAME");
+                if (name != null && name.equalsIgnoreCase(table)) return name;
+            }
+        }
+        return null;
+    }
+}
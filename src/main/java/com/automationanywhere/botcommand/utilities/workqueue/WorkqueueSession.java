@@ -2,64 +2,335 @@ package com.automationanywhere.botcommand.utilities.workqueue;
 
 import com.automationanywhere.toolchain.runtime.session.CloseableSessionObject;
 
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Sesión de workqueue. Varias aperturas sobre el mismo archivo comparten una única conexión
+ * (con contador de referencias): cada apertura devuelve su propio handle y la conexión se cierra
+ * recién con el último Close. Abrir un archivo que ya tiene sesión con otras opciones
+ * (perfil, write-behind o intervalo de flush) falla en lugar de ignorarlas.
+ */
 public class WorkqueueSession implements CloseableSessionObject {
 
-    public static final Map<String, WorkqueueSession> SESSION_BY_FILE = new ConcurrentHashMap<>();
+    // Conexión compartida por archivo (AccessExecutor la consulta antes de abrir)
+    private static final Map<String, Shared> SHARED_BY_FILE = new ConcurrentHashMap<>();
 
-    private final String sessionId;
-    private final String filePath;
-    private Connection connection;
+    private final Shared shared;
+    private final boolean owner;     // false = handle prestado por findOpen: no cuenta ni cierra
+    private volatile boolean closed;
 
     public WorkqueueSession(String filePath) throws SQLException, ClassNotFoundException {
-        this.sessionId = UUID.randomUUID().toString();
-        this.filePath = filePath;
-        openConnection();
-        SESSION_BY_FILE.put(filePath, this);
+        this(filePath, ConnectionProfile.getDefault());
     }
 
-    private void openConnection() throws SQLException, ClassNotFoundException {
-        Class.forName("net.ucanaccess.jdbc.UcanaccessDriver");
+    /** Sesión con un perfil de conexión propio (espejo en memoria, en disco o persistente). */
+    public WorkqueueSession(String filePath, ConnectionProfile profile) throws SQLException, ClassNotFoundException {
+        this(acquire(filePath, profile, null, 0), true);
+    }
+
+    /**
+     * Sesión con write-behind opcional: Complete/Exception se registran en el journal local
+     * propio de la sesión y se aplican en segundo plano cada {@code flushIntervalMs}. Con o sin
+     * write-behind, los journals que dejaron bots caídos se aplican antes de devolver la sesión.
+     */
+    public WorkqueueSession(String filePath, boolean writeBehind, long flushIntervalMs) throws Exception {
+        this(filePath, ConnectionProfile.getDefault(), writeBehind, flushIntervalMs);
+    }
+
+    public WorkqueueSession(String filePath, ConnectionProfile profile, boolean writeBehind, long flushIntervalMs) throws Exception {
+        this(acquire(filePath, profile, writeBehind, flushIntervalMs), true);
+    }
+
+    private WorkqueueSession(Shared shared, boolean owner) {
+        this.shared = shared;
+        this.owner = owner;
+    }
+
+    /**
+     * Se suma a la sesión abierta sobre el archivo o abre una nueva. {@code writeBehind} null
+     * (constructores sin journal, p. ej. el coordinador) acepta cualquier modo de la existente.
+     */
+    private static Shared acquire(String filePath, ConnectionProfile profile, Boolean writeBehind,
+                                  long flushIntervalMs) throws SQLException, ClassNotFoundException {
+        ConnectionProfile p = profile == null ? ConnectionProfile.DEFAULT : profile;
+        synchronized (SHARED_BY_FILE) {
+            Shared existing = SHARED_BY_FILE.get(filePath);
+            if (existing != null && !existing.isClosed()) {
+                existing.checkOptions(p, writeBehind, flushIntervalMs);
+                existing.refs++;
+                return existing;
+            }
+            Shared created = new Shared(filePath, p);
+            SHARED_BY_FILE.put(filePath, created); // el replay del journal usa esta misma conexión
+            try {
+                created.startJournal(writeBehind != null && writeBehind, flushIntervalMs);
+            } catch (SQLException | ClassNotFoundException | RuntimeException e) {
+                created.close();
+                throw e;
+            } catch (Exception e) {
+                created.close();
+                throw new SQLException(e.getMessage(), e);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Devuelve la sesión abierta registrada para el archivo, o null si no hay ninguna.
+     * El handle devuelto es prestado: su close() no cierra la sesión de quien la abrió.
+     */
+    public static WorkqueueSession findOpen(String filePath) {
+        if (filePath == null) return null;
+        Shared shared = SHARED_BY_FILE.get(filePath);
+        if (shared == null) return null;
+        if (shared.isClosed()) {
+            SHARED_BY_FILE.remove(filePath, shared);
+            return null;
+        }
+        return new WorkqueueSession(shared, false);
+    }
+
+    /**
+     * Ejecuta la acción sobre la conexión de la sesión (sin cerrarla).
+     * Serializa el acceso: una misma conexión no se comparte entre comandos concurrentes.
+     */
+    public <T> T execute(AccessExecutor.SqlFunction<Connection, T> action) throws Exception {
+        synchronized (shared) {
+            checkOpen();
+            return action.apply(shared.connection);
+        }
+    }
 
-        String url = "jdbc:ucanaccess://" + filePath
-                + ";immediatelyReleaseResources=true";
+    /** Ejecuta la acción con el DAO de la sesión: por shards si la sesión abrió un manifiesto. */
+    public <T> T executeDao(AccessExecutor.SqlFunction<WorkqueueItemDao, T> action) throws Exception {
+        synchronized (shared) {
+            checkOpen();
+            WorkqueueItemDao dao = shared.manifest != null
+                    ? new ShardedWorkqueueDao(shared.manifest, shared.shardConnections)
+                    : new WorkqueueItemDao(shared.connection);
+            dao.setActor(shared.actor);
+            StatusJournal journal = shared.journal;
+            if (journal != null) dao.setClaimStampListener(journal::claimed); // el journal registra sin leer la base
+            return action.apply(dao);
+        }
+    }
 
-        this.connection = DriverManager.getConnection(url);
-        this.connection.setAutoCommit(true); // <<— clave para simplificar
+    /** Ejecuta la acción sobre cada archivo de la sesión (uno, o uno por shard) y junta los resultados. */
+    public <T> List<T> executeEach(AccessExecutor.ShardAction<T> action) throws Exception {
+        synchronized (shared) {
+            checkOpen();
+            if (shared.manifest == null)
+                return Collections.singletonList(action.apply(shared.filePath, shared.connection));
+            List<T> results = new ArrayList<>();
+            for (int i = 0; i < shared.shardConnections.size(); i++) {
+                results.add(action.apply(shared.manifest.getShards().get(i), shared.shardConnections.get(i)));
+            }
+            return results;
+        }
+    }
 
+    private void checkOpen() throws SQLException {
+        if (isClosed()) throw new SQLException("La sesión de workqueue está cerrada: " + shared.filePath);
     }
 
     public Connection getConnection() {
-        return connection;
+        return shared.connection;
     }
 
     public String getSessionId() {
-        return sessionId;
+        return shared.sessionId;
+    }
+
+    public String getFilePath() {
+        return shared.filePath;
+    }
+
+    public WorkqueueStore getStore() {
+        return shared.store;
+    }
+
+    public ConnectionProfile getProfile() {
+        return shared.profile;
+    }
+
+    public ShardManifest getManifest() {
+        return shared.manifest;
+    }
+
+    public boolean isSharded() {
+        return shared.manifest != null;
+    }
+
+    public StatusJournal getJournal() {
+        return shared.journal;
+    }
+
+    public boolean isWriteBehind() {
+        return shared.journal != null;
     }
 
+    /** Handles abiertos sobre la conexión compartida. */
+    public int getOpenHandles() {
+        synchronized (SHARED_BY_FILE) {
+            return shared.refs;
+        }
+    }
+
+    /** Cierra este handle; la conexión se cierra cuando se cierra el último. */
     @Override
     public void close() {
-        try {
-            if (!isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace(); // O usar un logger si lo integrás
+        if (!owner) return;
+        synchronized (SHARED_BY_FILE) {
+            if (closed) return;
+            closed = true;
+            if (--shared.refs == 0) shared.close();
         }
     }
 
     @Override
     public boolean isClosed() {
-        try {
-            return connection == null || connection.isClosed();
-        } catch (SQLException e) {
-            return true;
+        return closed || shared.isClosed();
+    }
+
+    /** Conexión, shards y journal de un archivo, compartidos por todos los handles abiertos sobre él. */
+    private static final class Shared {
+        final String sessionId;
+        final String filePath;
+        final WorkqueueStore store;
+        final ConnectionProfile profile;
+        final String actor;          // autor de las transiciones en [Item History]
+        Connection connection;
+        // Cola particionada: una conexión por shard (connection = la del shard 0)
+        ShardManifest manifest;
+        final List<Connection> shardConnections = new ArrayList<>();
+        StatusJournal journal;       // write-behind de Complete/Exception (null = síncrono)
+        long flushIntervalMs;
+        int refs = 1;                // protegido por SHARED_BY_FILE
+
+        Shared(String filePath, ConnectionProfile profile) throws SQLException, ClassNotFoundException {
+            this.sessionId = UUID.randomUUID().toString();
+            this.filePath = filePath;
+            this.store = WorkqueueStores.forLocation(filePath);
+            this.profile = profile;
+            this.actor = WorkqueueItemDao.actorFor(sessionId);
+            openConnection();
+        }
+
+        void startJournal(boolean writeBehind, long flushIntervalMs) throws Exception {
+            StatusJournal.replayOrphans(filePath); // los journals de bots vivos tienen lock y se saltean
+            if (writeBehind) {
+                this.flushIntervalMs = flushIntervalMs;
+                this.journal = new StatusJournal(filePath, sessionId, flushIntervalMs, StatusJournal.DEFAULT_MAX_BATCH);
+            }
+        }
+
+        void checkOptions(ConnectionProfile profile, Boolean writeBehind, long flushIntervalMs) throws SQLException {
+            boolean sameJournal = writeBehind == null
+                    || (writeBehind ? journal != null && this.flushIntervalMs == flushIntervalMs : journal == null);
+            if (profile.equals(this.profile) && sameJournal) return;
+            throw new SQLException("La sesión de workqueue ya está abierta para " + filePath + " con otras opciones ("
+                    + describe(this.profile, journal != null, this.flushIntervalMs) + "); se pidió "
+                    + describe(profile, writeBehind != null && writeBehind, flushIntervalMs)
+                    + ". Cerrala antes de abrirla con otra configuración.");
+        }
+
+        private static String describe(ConnectionProfile profile, boolean writeBehind, long flushIntervalMs) {
+            return "perfil " + profile + (writeBehind ? ", write-behind cada " + flushIntervalMs + " ms" : ", síncrona");
+        }
+
+        private void openConnection() throws SQLException, ClassNotFoundException {
+            try {
+                if (ShardManifest.isManifest(filePath)) {
+                    openShards();
+                    return;
+                }
+                this.connection = store.openConnection(filePath, false, profile); // autocommit, clave para simplificar
+                StatementCache.attach(connection, store); // la conexión vive lo que la sesión
+            } catch (SQLException | ClassNotFoundException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
+        private void openShards() throws Exception {
+            try {
+                this.manifest = ShardManifest.load(filePath);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+            try {
+                for (String shard : manifest.getShards()) {
+                    WorkqueueStore shardStore = WorkqueueStores.forLocation(shard);
+                    Connection c = shardStore.openConnection(shard, false, profile);
+                    shardConnections.add(c);
+                    StatementCache.attach(c, shardStore);
+                }
+            } catch (Exception e) {
+                closeShards();
+                throw e;
+            }
+            this.connection = shardConnections.get(0);
+        }
+
+        void close() {
+            // Primero se vacía el journal (usa esta misma conexión)
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (Exception e) {
+                    e.printStackTrace(); // queda en disco: se reaplica en la próxima apertura
+                }
+                journal = null;
+            }
+            SHARED_BY_FILE.remove(filePath, this);
+            synchronized (this) {
+                if (manifest != null) {
+                    closeShards();
+                    return;
+                }
+                try {
+                    if (!isClosed()) {
+                        StatementCache.detach(connection);
+                        connection.close();
+                        store.released(connection);
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace(); // O usar un logger si lo integrás
+                }
+            }
+        }
+
+        private void closeShards() {
+            List<String> shards = manifest == null ? Collections.emptyList() : manifest.getShards();
+            for (int i = 0; i < shardConnections.size(); i++) {
+                Connection c = shardConnections.get(i);
+                StatementCache.detach(c);
+                try {
+                    if (!c.isClosed()) {
+                        c.close();
+                        WorkqueueStores.forLocation(shards.get(i)).released(c);
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        boolean isClosed() {
+            try {
+                return connection == null || connection.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.sql.Connection;
+
+/**
+ * Backend físico de la workqueue: cómo se abre la conexión y cómo se adapta el SQL.
+ * <p>
+ * El DAO y el esquema escriben el SQL en dialecto Access (identificadores entre corchetes,
+ * {@code SELECT TOP n}, tipos COUNTER/TEXT/LONG/DATETIME/MEMO); cada backend lo traduce
+ * a su motor con {@link #translate(String)}.
+ */
+public interface WorkqueueStore {
+
+    /** Nombre corto del backend ("access", "hsqldb"). */
+    String getName();
+
+    /** ¿Este backend atiende la ubicación indicada (ruta de archivo o URL)? */
+    boolean accepts(String location);
+
+    /** ¿La conexión pertenece a este backend? (se usa para elegir el dialecto en el DAO) */
+    boolean owns(Connection conn);
+
+    /** Abre una conexión nueva en autocommit; si se pide, crea la base vacía. */
+    Connection openConnection(String location, boolean createIfMissing) throws Exception;
+
+    /**
+     * Abre con un perfil de conexión ({@link ConnectionProfile}); los backends sin opciones
+     * de apertura lo ignoran.
+     */
+    default Connection openConnection(String location, boolean createIfMissing, ConnectionProfile profile) throws Exception {
+        return openConnection(location, createIfMissing);
+    }
+
+    /**
+     * Ubicación (la que se pasó a {@link #openConnection}) de una conexión de este backend, a partir
+     * de su URL JDBC; null si no se puede deducir.
+     */
+    String locationOf(Connection conn);
+
+    /** Aviso de que una conexión abierta por este backend ya se cerró. */
+    default void released(Connection conn) { }
+
+    /** Traduce SQL en dialecto Access al dialecto del backend. */
+    String translate(String sql);
+}
@@ -0,0 +1,50 @@
+package com.automationanywhere.botcommand.utilities.workqueue;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.List;
+
+/** Registro de backends: elige por ubicación (al abrir) o por conexión (en el DAO). */
+public final class WorkqueueStores {
+
+    public static final WorkqueueStore ACCESS = new AccessWorkqueueStore();
+    public static final WorkqueueStore HSQLDB = new HsqldbWorkqueueStore();
+
+    private static final List<WorkqueueStore> STORES = List.of(HSQLDB, ACCESS);
+
+    private WorkqueueStores() { }
+
+    /** Backend para la ubicación; Access si ninguno la reconoce (comportamiento histórico). */
+    public static WorkqueueStore forLocation(String location) {
+        for (WorkqueueStore s : STORES) {
+            if (s.accepts(location)) return s;
+        }
+        return ACCESS;
+    }
+
+    public static WorkqueueStore forConnection(Connection conn) {
+        for (WorkqueueStore s : STORES) {
+            if (s.owns(conn)) return s;
+        }
+        return ACCESS;
+    }
+
+    /**
+     * Clave de una ubicación para cachés en proceso: el mismo archivo puede llegar con rutas
+     * distintas (relativa, otra capitalización en Windows). Las URL quedan como están.
+     */
+    public static String normalize(String location) {
+        if (location.contains("://")) return location;
+        try {
+            return Paths.get(location).toAbsolutePath().normalize().toString().toLowerCase();
+        } catch (RuntimeException e) {
+            return location;
+        }
+    }
+
+    /** Clave normalizada de la ubicación de una conexión, o null si el backend no la puede deducir. */
+    public static String locationKey(Connection conn) {
+        String location = forConnection(conn).locationOf(conn);
+        return location == null ? null : normalize(location);
+    }
+}
@@ -0,0 +1,80 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemIdentifierType;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemTransition;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ChangeFeedTest extends WorkqueueTestBase {
+
+    @Test
+    public void testChangeFeedPagesByWatermark() {
+        String db = newQueue("changes");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) items.add(item("F" + i, i, "Start"));
+            insert(dao, items); // mismo [Last Updated]: desempata el Id
+
+            // Primera lectura en páginas de 2: 2 + 2 + 1, cada ítem una sola vez
+            Set<String> seen = new HashSet<>();
+            WorkqueueItemDao.ChangePage page = dao.changesSince(null, 0, null, 2, false);
+            int pages = 1;
+            page.items.forEach(f -> Assert.assertTrue(seen.add(f.item.key)));
+            while (page.hasMore) {
+                page = dao.changesSince(page.watermarkUpdated, page.watermarkId, null, 2, false);
+                page.items.forEach(f -> Assert.assertTrue(seen.add(f.item.key)));
+                pages++;
+            }
+            Assert.assertEquals(seen.size(), 5);
+            Assert.assertEquals(pages, 3);
+
+            // Sin cambios nuevos: página vacía y la marca de agua no se mueve
+            WorkqueueItemDao.ChangePage idle = dao.changesSince(page.watermarkUpdated, page.watermarkId, null, 10, false);
+            Assert.assertTrue(idle.items.isEmpty());
+            Assert.assertEquals(idle.watermarkId, page.watermarkId);
+
+            Thread.sleep(20);
+            WorkqueueItemDao.WorkItem claimed = dao.takeNextPendingAndSetWorking();
+            WorkqueueItemDao.ChangePage next = dao.changesSince(page.watermarkUpdated, page.watermarkId, null, 10, true);
+            Assert.assertEquals(next.items.size(), 1);
+            Assert.assertEquals(next.items.get(0).item.key, claimed.key);
+            Assert.assertEquals(next.items.get(0).status, "Working");
+
+            // La cota superior deja afuera lo más reciente
+            Assert.assertTrue(dao.changesSince(page.watermarkUpdated, page.watermarkId,
+                    next.watermarkUpdated, 10, false).items.isEmpty());
+        });
+    }
+
+    @Test
+    public void testChangeFeedSeesWriteBehindTransitions() throws Exception {
+        String db = newQueue("changes-journal");
+        AccessExecutor.executeVoidWithConnection(db, conn -> insert(new WorkqueueItemDao(conn), invoices("J", 1)));
+        try (WorkqueueSession session = new WorkqueueSession(db, true, 60_000)) {
+            WorkqueueItemDao.WorkItem claimed = session.executeDao(WorkqueueItemDao::takeNextPendingAndSetWorking);
+            session.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.KEY, claimed.key, null);
+
+            // Un lector consume el feed (ve el claim) antes de que el journal se aplique
+            Thread.sleep(20);
+            WorkqueueItemDao.ChangePage seen = session.executeDao(dao -> dao.changesSince(null, 0, null, 10, false));
+            Assert.assertEquals(seen.items.get(0).status, "Working");
+            Thread.sleep(20);
+            session.getJournal().flush();
+
+            // El Complete se escribe con la hora del flush: queda después de la marca de agua
+            WorkqueueItemDao.ChangePage next = session.executeDao(dao ->
+                    dao.changesSince(seen.watermarkUpdated, seen.watermarkId, null, 10, false));
+            Assert.assertEquals(next.items.size(), 1);
+            Assert.assertEquals(next.items.get(0).status, "Completed");
+        }
+    }
+}
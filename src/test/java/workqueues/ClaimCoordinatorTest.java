@@ -0,0 +1,82 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ClaimCoordinatorTest extends WorkqueueTestBase {
+
+    @Test
+    public void testClaimCoordinatorServesClaimsOverLoopback() throws Exception {
+        String db = newQueue("coordinated");
+        AccessExecutor.executeVoidWithConnection(db, conn -> insert(new WorkqueueItemDao(conn), invoices("C", 8)));
+        Assert.assertNull(RemoteWorkqueueDao.connect(db)); // sin coordinador: conexión directa
+
+        ClaimCoordinator coordinator = ClaimCoordinator.start(db, ConnectionProfile.DEFAULT, 0);
+        try {
+            Assert.assertTrue(ClaimCoordinator.isAlive(db));
+            try (RemoteWorkqueueDao dao = RemoteWorkqueueDao.connect(db)) {
+                dao.setLeaseSeconds(60);
+                WorkqueueItemDao.WorkItem first = dao.takeNextPendingAndSetWorking();
+                Assert.assertEquals(first.key, "C1");
+                Assert.assertEquals(first.data.get("Invoice"), "INV-1");
+                Assert.assertNotNull(dao.extendLeaseByKey("C1", 120));
+                WorkqueueItemDao.WorkItem released = dao.releaseFromWorkingByKey("C1");
+                Assert.assertEquals(released.data.get("Invoice"), "INV-1");
+                try {
+                    dao.completeFromWorkingById(first.id); // ya no está Working
+                    Assert.fail("El coordinador debería rechazar la transición");
+                } catch (SQLException expected) {
+                    // el error del coordinador llega como SQLException
+                }
+                Assert.assertEquals(dao.pendingAvailability().eligible, 8);
+
+                // La política de reintento no viaja: el coordinador hace un único claim sin backoff
+                WorkqueueItemDao.WorkItem retried = dao.takeNextPendingAndSetWorking(new ClaimRetryPolicy(5, 10_000, 10_000, 1));
+                Assert.assertEquals(retried.key, "C1");
+                dao.releaseFromWorkingById(retried.id);
+            }
+
+            // Varios bots a la vez: el coordinador serializa, ningún ítem se entrega dos veces
+            Set<Long> claimed = ConcurrentHashMap.newKeySet();
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                workers.add(pool.submit(() -> {
+                    int n = 0;
+                    try (RemoteWorkqueueDao dao = RemoteWorkqueueDao.connect(db)) {
+                        dao.setTransitionReturn(ItemProjection.NONE);
+                        WorkqueueItemDao.WorkItem item;
+                        while ((item = dao.takeNextPendingAndSetWorking()) != null) {
+                            Assert.assertTrue(claimed.add(item.id), "Ítem entregado dos veces: " + item.key);
+                            Assert.assertNull(dao.completeFromWorkingById(item.id));
+                            n++;
+                        }
+                    }
+                    return n;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> f : workers) total += f.get();
+            pool.shutdown();
+            Assert.assertEquals(total, 8);
+            Assert.assertTrue(coordinator.getRequests() >= 16);
+        } finally {
+            coordinator.close();
+        }
+        Assert.assertFalse(Files.exists(coordinator.getPortFile()));
+        Assert.assertNull(RemoteWorkqueueDao.connect(db));
+        Assert.assertEquals(AccessExecutor.executeWithConnection(db,
+                conn -> new WorkqueueItemDao(conn).queueStats()).byStatus.get("Completed"), Long.valueOf(8));
+    }
+}
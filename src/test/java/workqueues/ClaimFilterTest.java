@@ -0,0 +1,43 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimFilter;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ClaimFilterTest extends WorkqueueTestBase {
+
+    @Test
+    public void testStageFilteredClaim() {
+        String db = newQueue("stage");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            String[] steps = {"Extraction", "Validation", "Validation", "Posting"};
+            for (int i = 0; i < steps.length; i++)
+                items.add(item("S" + i, i, (long) (i % 2), steps[i], "Country", i % 2 == 0 ? "AR" : "UY"));
+            insert(dao, items);
+
+            // Solo Validation + Country=AR: S2 (S1 es UY), aunque S0 tenga mejor prioridad
+            dao.setClaimFilter(ClaimFilter.of("Validation", null, Collections.singletonMap("Country", "AR")));
+            Assert.assertEquals(dao.countEligiblePending(), 1);
+            WorkqueueItemDao.WorkItem v = dao.takeNextPendingAndSetWorking();
+            Assert.assertEquals(v.key, "S2");
+            Assert.assertNull(dao.takeNextPendingAndSetWorking());
+
+            dao.setClaimFilter(ClaimFilter.of(null, 1L, null));
+            List<WorkqueueItemDao.WorkItem> odd = dao.takeNextPendingBatchAndSetWorking(10);
+            Assert.assertEquals(odd.size(), 2);
+            Assert.assertEquals(odd.get(0).key, "S1");
+            Assert.assertEquals(odd.get(1).key, "S3");
+
+            dao.setClaimFilter(ClaimFilter.NONE);
+            Assert.assertEquals(dao.takeNextPendingAndSetWorking().key, "S0");
+        });
+    }
+}
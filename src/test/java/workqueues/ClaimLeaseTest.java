@@ -0,0 +1,78 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+public class ClaimLeaseTest extends WorkqueueTestBase {
+
+    @Test
+    public void testExpiredLeaseReturnsToPending() {
+        String db = newQueue("lease");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, Arrays.asList(item("A", 1, "Start"), item("B", 2, "Start")));
+
+            dao.setLeaseSeconds(1);
+            WorkqueueItemDao.WorkItem a = dao.takeNextPendingAndSetWorking();
+            WorkqueueItemDao.WorkItem b = dao.takeNextPendingAndSetWorking();
+            Assert.assertEquals(a.key, "A");
+            Assert.assertEquals(b.key, "B");
+
+            // Heartbeat solo sobre B: A vence y vuelve a Pending, B sigue Working
+            dao.extendLeaseById(b.id, 60);
+            Thread.sleep(1500);
+            Assert.assertEquals(dao.reclaimExpiredLeases(), 1);
+
+            WorkqueueItemDao.WorkItem again = dao.takeNextPendingAndSetWorking();
+            Assert.assertNotNull(again);
+            Assert.assertEquals(again.id, a.id);
+            Assert.assertNull(dao.takeNextPendingAndSetWorking());
+        });
+    }
+
+    @Test
+    public void testExpiredLeaseReclaimWritesHistory() {
+        String db = newQueueWithHistory("lease-history");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.setActor("sweeper");
+            insert(dao, Arrays.asList(item("A", 1, "Start"), item("B", 2, "Load"), item("C", 3, "Start")));
+
+            dao.setLeaseSeconds(1);
+            dao.takeNextPendingBatchAndSetWorking(3);
+            dao.extendLeaseByKey("C", 60);
+            Thread.sleep(2100);
+            Assert.assertEquals(dao.reclaimExpiredLeases(), 2);
+
+            // Una fila Working → Pending por vencido, en su etapa y con el tiempo que pasó Working
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT w.\"Key\", h.\"Step Workflow\", h.\"Seconds In Previous\", h.\"Actor\" " +
+                         "FROM \"Item History\" h JOIN \"workqueue\" w ON w.\"Id\"=h.\"Item ID\" " +
+                         "WHERE h.\"From Status\"='Working' AND h.\"To Status\"='Pending' ORDER BY w.\"Key\"")) {
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "A");
+                Assert.assertEquals(rs.getString(2), "Start");
+                Assert.assertTrue(rs.getDouble(3) >= 1, "Seconds In Previous: " + rs.getDouble(3));
+                Assert.assertEquals(rs.getString(4), "sweeper");
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "B");
+                Assert.assertEquals(rs.getString(2), "Load");
+                Assert.assertFalse(rs.next());
+            }
+
+            // El próximo barrido no encuentra vencidos ni duplica filas
+            Assert.assertEquals(dao.reclaimExpiredLeases(), 0);
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"Item History\" WHERE \"To Status\"='Pending'")) {
+                rs.next();
+                Assert.assertEquals(rs.getInt(1), 2);
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimWaiter;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class ClaimWaiterTest extends WorkqueueTestBase {
+
+    @Test
+    public void testWaitForNextItemWakesWhenDeferElapses() throws Exception {
+        String db = newQueue("wait");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, Collections.singletonList(item("D1", 1, "Start")));
+            WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+            dao.deferFromWorkingById(item.id, new Timestamp(System.currentTimeMillis() + 2000));
+
+            WorkqueueItemDao.Availability av = dao.pendingAvailability();
+            Assert.assertEquals(av.eligible, 0);
+            Assert.assertEquals(av.deferred, 1);
+            Assert.assertNotNull(av.nextDeferUntil);
+        });
+
+        ClaimWaiter.Probe probe = () -> AccessExecutor.executeDao(AccessExecutor.SOURCE_FILE, db, null, ClaimWaiter::attempt);
+
+        // Sin timeout: un solo intento, como Get Next Item
+        ClaimWaiter.Result none = new ClaimWaiter(0, 100, 5000, true).await(probe);
+        Assert.assertNull(none.item);
+        Assert.assertEquals(none.wakeReason, ClaimWaiter.WAKE_TIMEOUT);
+
+        // Duerme hasta el Defer Until en lugar de consultar cada 100 ms
+        ClaimWaiter.Result woke = new ClaimWaiter(10_000, 100, 5000, true).await(probe);
+        Assert.assertNotNull(woke.item);
+        Assert.assertEquals(woke.item.key, "D1");
+        Assert.assertEquals(woke.wakeReason, ClaimWaiter.WAKE_DEFER_DUE);
+        Assert.assertTrue(woke.waitedMillis >= 1000 && woke.waitedMillis < 4000, "Waited " + woke.waitedMillis + " ms");
+        Assert.assertTrue(woke.polls <= 4, "Polls: " + woke.polls);
+    }
+}
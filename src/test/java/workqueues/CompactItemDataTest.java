@@ -0,0 +1,102 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ClaimFilter;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemDataMigrator;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemDataStorage;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CompactItemDataTest extends WorkqueueTestBase {
+
+    @Test
+    public void testCompactItemDataMigratesBothWays() {
+        String db = newQueue("compact");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) items.add(item("C" + i, i, "Start", "Invoice", "INV-" + i, "Amount", String.valueOf(i * 100)));
+            insert(new WorkqueueItemDao(conn), items);
+        });
+
+        ItemDataMigrator.Report toCompact = AccessExecutor.executeWithConnection(db, false, conn ->
+                new ItemDataMigrator(conn).migrate(ItemDataStorage.of(ItemDataStorage.MODE_COMPACT,
+                        Collections.singletonList("Invoice")), 2));
+        Assert.assertEquals(toCompact.itemsConverted, 3);
+        Assert.assertEquals(toCompact.dataRowsDeleted, 3); // solo Amount; Invoice queda promovida
+        Assert.assertEquals(toCompact.chunks, 2);
+
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            Assert.assertTrue(ItemDataStorage.forConnection(conn).isCompact());
+            insert(dao, Collections.singletonList(item("C4", 4, "Start", "Invoice", "INV-4", "Amount", "400")));
+
+            WorkqueueItemDao.WorkItem first = dao.takeNextPendingAndSetWorking();
+            Assert.assertEquals(first.key, "C1");
+            Assert.assertEquals(first.data.get("Invoice"), "INV-1");
+            Assert.assertEquals(first.data.get("Amount"), "100");
+            Assert.assertEquals(new ArrayList<>(first.data.keySet()), Arrays.asList("Invoice", "Amount"));
+
+            Map<String, String> byInvoice = Collections.singletonMap("Invoice", "INV-4");
+            WorkqueueItemDao.SearchPage page = dao.findItems(byInvoice, null, 0, 10, true);
+            Assert.assertEquals(page.items.size(), 1);
+            Assert.assertEquals(page.items.get(0).item.data.get("Amount"), "400");
+        });
+
+        ItemDataMigrator.Report toRows = AccessExecutor.executeWithConnection(db, false, conn ->
+                new ItemDataMigrator(conn).migrate(ItemDataStorage.of(ItemDataStorage.MODE_ROWS, null), 10));
+        Assert.assertEquals(toRows.itemsConverted, 4);
+        Assert.assertEquals(toRows.dataRowsWritten, 8); // reemplaza también las filas promovidas, en el orden del blob
+        Assert.assertEquals(toRows.dataRowsDeleted, 4);
+
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            Assert.assertFalse(ItemDataStorage.forConnection(conn).isCompact());
+            Map<String, String> c4 = dao.getItemDataByKey("C4");
+            Assert.assertEquals(c4.get("Invoice"), "INV-4");
+            Assert.assertEquals(c4.get("Amount"), "400");
+            Assert.assertEquals(dao.getItemDataByKey("C2").get("Amount"), "200");
+        });
+    }
+
+    @Test
+    public void testCompactQueueRejectsLookupsOnNonPromotedKeys() {
+        String db = newQueue("compact-lookup");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            insert(new WorkqueueItemDao(conn), Collections.singletonList(item("K1", 1, "Start", "Invoice", "INV-1", "Amount", "100")));
+        });
+        AccessExecutor.executeWithConnection(db, false, conn ->
+                new ItemDataMigrator(conn).migrate(ItemDataStorage.of(ItemDataStorage.MODE_COMPACT,
+                        Collections.singletonList("Invoice")), 10));
+
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            // Amount solo vive en el blob: buscarla en [Item Data] no encontraría nada
+            try {
+                dao.findItems(Collections.singletonMap("Amount", "100"), null, 0, 10, false);
+                Assert.fail("Debería rechazar una clave no promovida");
+            } catch (SQLException expected) {
+                Assert.assertTrue(expected.getMessage().contains("'Amount'"), expected.getMessage());
+            }
+            dao.setClaimFilter(ClaimFilter.of(null, null, Collections.singletonMap("Amount", "100")));
+            try {
+                dao.takeNextPendingAndSetWorking();
+                Assert.fail("Debería rechazar el filtro sobre una clave no promovida");
+            } catch (SQLException expected) {
+                Assert.assertTrue(expected.getMessage().contains("'Amount'"), expected.getMessage());
+            }
+
+            // Las claves promovidas se siguen pudiendo buscar y filtrar
+            Assert.assertEquals(dao.findItems(Collections.singletonMap("Invoice", "INV-1"), null, 0, 10, false).items.size(), 1);
+            dao.setClaimFilter(ClaimFilter.of(null, null, Collections.singletonMap("Invoice", "INV-1")));
+            Assert.assertEquals(dao.takeNextPendingAndSetWorking().key, "K1");
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latencia de apertura y heap retenido por conexión para cada perfil de UCanAccess.
+ * La medición es opcional (grupo benchmark): corre con -Dwq.benchmark=true o indicando el
+ * tamaño con -Dwq.bench.profile.items (por defecto 20000).
+ */
+public class ConnectionProfileBenchmarkTest extends WorkqueueTestBase {
+
+    private static final int ITEMS = Integer.getInteger("wq.bench.profile.items", 20_000);
+
+    private final AccessWorkqueueStore store = new AccessWorkqueueStore();
+
+    @Test(groups = "benchmark")
+    public void testOpenLatencyAndHeapPerProfile() throws Exception {
+        requireOptIn("benchmark", "wq.bench.profile.items");
+        String dbPath = baseTestPath + "profiles.accdb";
+        createQueue(dbPath, ITEMS);
+        String mirrorDir = baseTestPath + "mirror";
+
+        Map<String, ConnectionProfile> profiles = new LinkedHashMap<>();
+        profiles.put("memory", ConnectionProfile.DEFAULT);
+        profiles.put("disk", ConnectionProfile.of(ConnectionProfile.MODE_DISK, null, false, null));
+        profiles.put("disk+skipIndexes", ConnectionProfile.of(ConnectionProfile.MODE_DISK, null, true, null));
+        profiles.put("memory+lobScale=1", ConnectionProfile.of(ConnectionProfile.MODE_MEMORY, null, false, 1));
+        profiles.put("mirror (cold)", ConnectionProfile.of(ConnectionProfile.MODE_MIRROR, mirrorDir, false, null));
+        profiles.put("mirror (warm)", ConnectionProfile.of(ConnectionProfile.MODE_MIRROR, mirrorDir, false, null));
+
+        System.out.printf("Workqueue %d items%n", ITEMS);
+        for (Map.Entry<String, ConnectionProfile> e : profiles.entrySet()) {
+            long heapBefore = usedHeap();
+            long t0 = System.nanoTime();
+            Connection conn = store.openConnection(dbPath, false, e.getValue());
+            double openMs = (System.nanoTime() - t0) / 1_000_000.0;
+            long heapOpen = usedHeap();
+            try {
+                Assert.assertEquals(countItems(conn), ITEMS, "Profile " + e.getKey() + " should see every item");
+            } finally {
+                conn.close();
+                store.released(conn);
+            }
+            System.out.printf("  %-20s open %8.1f ms   heap +%6.1f MB%n", e.getKey(), openMs,
+                    Math.max(0, heapOpen - heapBefore) / (1024.0 * 1024.0));
+        }
+    }
+
+    @Test
+    public void testMirrorIsRebuiltWhenFileChanges() throws Exception {
+        String path = baseTestPath + "mirror-invalidation.accdb";
+        createQueue(path, 10);
+        ConnectionProfile mirror = ConnectionProfile.of(ConnectionProfile.MODE_MIRROR, baseTestPath + "mirror2", false, null);
+
+        Connection first = store.openConnection(path, false, mirror);
+        Assert.assertEquals(countItems(first), 10);
+        first.close();
+        store.released(first);
+
+        // Otro bot escribe el .accdb sin pasar por el espejo
+        Thread.sleep(1100); // resolución de fecha de modificación
+        Connection other = store.openConnection(path, false, ConnectionProfile.DEFAULT);
+        new WorkqueueItemDao(other).insertBatch(Collections.singletonList(
+                new WorkqueueItemDao.NewItem("EXTRA", 1L, null, "Start", new LinkedHashMap<>())).iterator(), 10, null);
+        other.close();
+
+        Connection again = store.openConnection(path, false, mirror);
+        try {
+            Assert.assertEquals(countItems(again), 11, "A stale mirror must not be reused");
+        } finally {
+            again.close();
+            store.released(again);
+        }
+    }
+
+    private static void createQueue(String path, int items) {
+        AccessExecutor.executeWithConnection(path, true, conn -> {
+            new WorkqueueSchema(conn).upgrade();
+            List<WorkqueueItemDao.NewItem> batch = new ArrayList<>();
+            for (int i = 1; i <= items; i++) {
+                Map<String, String> data = new LinkedHashMap<>();
+                data.put("Invoice", "INV-" + i);
+                data.put("Notes", "Item " + i + " generated for the profile benchmark");
+                batch.add(new WorkqueueItemDao.NewItem("KEY-" + i, (long) (i % 5), null, "Start", data));
+            }
+            return new WorkqueueItemDao(conn).insertBatch(batch.iterator(), 1000, null);
+        });
+    }
+
+    private static int countItems(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM [workqueue]")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,51 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class FindWorkItemsTest extends WorkqueueTestBase {
+
+    @Test
+    public void testFindItemsByDataWithPaging() {
+        String db = newQueue("find");
+        StringBuilder longNote = new StringBuilder();
+        while (longNote.length() < 300) longNote.append("nota larga ");
+
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 5; i++)
+                items.add(item("F" + i, i, "Start", "Vendor", i <= 4 ? "ACME" : "OTHER", "Note", i == 3 ? longNote.toString() : "n" + i));
+            insert(dao, items);
+            dao.completeFromWorkingById(dao.takeNextPendingAndSetWorking().id); // F1
+
+            Map<String, String> acme = Collections.singletonMap("Vendor", "ACME");
+            WorkqueueItemDao.SearchPage first = dao.findItems(acme, null, 0, 3, true);
+            Assert.assertEquals(first.items.size(), 3);
+            Assert.assertNotNull(first.nextAfterId);
+            Assert.assertEquals(first.items.get(0).status, "Completed");
+            Assert.assertEquals(first.items.get(0).item.data.get("Note"), "n1");
+            WorkqueueItemDao.SearchPage second = dao.findItems(acme, null, first.nextAfterId, 3, false);
+            Assert.assertEquals(second.items.size(), 1);
+            Assert.assertEquals(second.items.get(0).item.key, "F4");
+            Assert.assertNull(second.nextAfterId);
+
+            Assert.assertEquals(dao.findItems(acme, Arrays.asList("Pending"), 0, 10, false).items.size(), 3);
+
+            // Valor más largo que el prefijo indexado: coincide solo el valor completo
+            Assert.assertEquals(dao.findItems(Collections.singletonMap("Note", longNote.toString()),
+                    null, 0, 10, false).items.get(0).item.key, "F3");
+            Assert.assertTrue(dao.findItems(Collections.singletonMap("Note", longNote.substring(0, WorkqueueSchema.VALUE_KEY_LENGTH)),
+                    null, 0, 10, false).items.isEmpty());
+        });
+    }
+}
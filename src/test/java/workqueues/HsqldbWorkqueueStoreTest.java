@@ -0,0 +1,53 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HsqldbWorkqueueStoreTest extends WorkqueueTestBase {
+
+    @Test
+    public void testLocationSelectsBackend() {
+        Assert.assertEquals(WorkqueueStores.forLocation("C:\\queues\\q.accdb").getName(), AccessWorkqueueStore.NAME);
+        Assert.assertEquals(WorkqueueStores.forLocation("C:\\queues\\q.hsqldb").getName(), HsqldbWorkqueueStore.NAME);
+        Assert.assertEquals(WorkqueueStores.forLocation("hsql://localhost:9001/q").getName(), HsqldbWorkqueueStore.NAME);
+    }
+
+    @Test
+    public void testEnqueueClaimCompleteOnHsqldb() {
+        String dbPath = baseTestPath + "queue.hsqldb";
+        WorkqueueSchema.Report report = AccessExecutor.executeWithConnection(dbPath, true,
+                conn -> new WorkqueueSchema(conn).upgrade());
+        Assert.assertEquals(report.tablesCreated.size(), 2);
+        Assert.assertTrue(report.missingIndexes.isEmpty());
+
+        AccessExecutor.executeVoidWithConnection(dbPath, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) items.add(item("K" + i, 4 - i, "Start", "Invoice", "INV-" + i));
+            WorkqueueItemDao.InsertReport ins = dao.insertBatch(items.iterator(), 2, null);
+            Assert.assertEquals(ins.inserted, 3);
+
+            // Menor [Priority] primero
+            WorkqueueItemDao.WorkItem first = dao.takeNextPendingAndSetWorking();
+            Assert.assertNotNull(first);
+            Assert.assertEquals(first.key, "K3");
+            Assert.assertEquals(first.data.get("Invoice"), "INV-3");
+
+            dao.completeFromWorkingById(first.id);
+            List<WorkqueueItemDao.WorkItem> rest = dao.takeNextPendingBatchAndSetWorking(10);
+            Assert.assertEquals(rest.size(), 2);
+            Assert.assertNull(dao.takeNextPendingAndSetWorking());
+
+            QueueStats stats = dao.queueStats();
+            Assert.assertEquals(stats.total, 3);
+            Assert.assertEquals((long) stats.byStatus.get("Completed"), 1);
+            Assert.assertEquals((long) stats.byStatus.get("Working"), 2);
+            Assert.assertEquals((long) stats.byStep.get("Start"), 3);
+            Assert.assertNull(stats.oldestPendingCreated);
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ItemHistoryTest extends WorkqueueTestBase {
+
+    @Test
+    public void testItemHistoryRecordsTransitionsAndMetrics() {
+        String db = newQueue("history");
+        AccessExecutor.executeWithConnection(db, conn -> {
+            WorkqueueSchema schema = new WorkqueueSchema(conn);
+            Assert.assertTrue(schema.ensureHistoryTable());
+            Assert.assertFalse(schema.ensureHistoryTable());
+            Assert.assertTrue(schema.check().missingIndexes.isEmpty());
+            return null;
+        });
+
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.setActor("bot-A");
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) items.add(item("H" + i, i, "Start"));
+            insert(dao, items);
+
+            dao.completeFromWorkingById(dao.takeNextPendingAndSetWorking().id);          // H1
+            List<WorkqueueItemDao.WorkItem> batch = dao.takeNextPendingBatchAndSetWorking(5); // H2, H3
+            Assert.assertEquals(batch.size(), 2);
+            dao.updateWorkflowByKey("H2", 1L, "Validate");
+            dao.exceptionFromWorkingByKey("H2", "bad");
+            dao.transitionBatch(ItemTransition.RELEASE, ItemIdentifierType.KEY, Collections.singletonList("H3"), null, null);
+
+            Map<String, Integer> byTransition = new LinkedHashMap<>();
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT \"From Status\", \"To Status\", \"Actor\", \"Seconds In Previous\" " +
+                         "FROM \"Item History\" ORDER BY \"Id\"")) {
+                while (rs.next()) {
+                    byTransition.merge(rs.getString(1) + ">" + rs.getString(2), 1, Integer::sum);
+                    Assert.assertEquals(rs.getString(3), "bot-A");
+                    Assert.assertTrue(rs.getDouble(4) >= 0);
+                }
+            }
+            Assert.assertEquals(byTransition.get("Pending>Working"), Integer.valueOf(3));
+            Assert.assertEquals(byTransition.get("Working>Completed"), Integer.valueOf(1));
+            Assert.assertEquals(byTransition.get("Working>Working"), Integer.valueOf(1));
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT \"Step Workflow\" FROM \"Item History\" " +
+                         "WHERE \"From Status\"='Working' AND \"To Status\"='Working'")) {
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "Start");
+            }
+            Assert.assertEquals(byTransition.get("Working>Exception"), Integer.valueOf(1));
+            Assert.assertEquals(byTransition.get("Working>Pending"), Integer.valueOf(1));
+
+            Timestamp until = new Timestamp(System.currentTimeMillis() + 1000);
+            Timestamp since = new Timestamp(until.getTime() - 3_600_000L);
+            Map<String, HistoryMetrics.Stage> stages = new LinkedHashMap<>();
+            for (HistoryMetrics.Stage st : HistoryMetrics.read(conn, since, until, true).stages()) stages.put(st.name, st);
+            Assert.assertEquals(stages.get("Pending/Start").transitions, 3);
+            // El cambio de etapa de H2 cuenta el tiempo que pasó en Start; solo su exception queda en Validate
+            Assert.assertEquals(stages.get("Working/Validate").transitions, 1);
+            Assert.assertEquals(stages.get("Working/Start").transitions, 3); // complete H1, updateWorkflow H2, release H3
+            Assert.assertTrue(stages.get("Pending/Start").p99Seconds >= stages.get("Pending/Start").p50Seconds);
+        });
+    }
+}
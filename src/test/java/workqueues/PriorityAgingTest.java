@@ -0,0 +1,115 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.PriorityAging;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PriorityAgingTest extends WorkqueueTestBase {
+
+    @Test
+    public void testPriorityAgingBoundsLowPriorityWait() {
+        // Con envejecimiento cada 2 minutos hasta Priority 1, un ítem de prioridad 5 espera a lo sumo ~4 ascensos
+        Map<String, Integer> aged = simulateMixedPriorityLoad(newQueue("aging"), PriorityAging.of(120, 1), 30);
+        Assert.assertEquals(aged.size(), 5);
+        for (Map.Entry<String, Integer> e : aged.entrySet())
+            Assert.assertTrue(e.getValue() <= (5 - 1) * 2 + 2, e.getKey() + " esperó " + e.getValue() + " ticks");
+
+        // Sin envejecimiento el flujo de prioridad 1 ocupa todos los claims y los de prioridad 5 no salen nunca
+        Map<String, Integer> strict = simulateMixedPriorityLoad(newQueue("no-aging"), PriorityAging.DISABLED, 30);
+        Assert.assertTrue(strict.isEmpty(), "Se tomaron " + strict.keySet());
+    }
+
+    @Test
+    public void testAgingSettingsAreCachedPerQueue() {
+        String db = newQueue("aging-cache");
+        AccessExecutor.executeVoidWithConnection(db, conn -> PriorityAging.save(conn, PriorityAging.of(60, 2)));
+        Assert.assertEquals(AccessExecutor.executeWithConnection(db, PriorityAging::forConnection).getStepSeconds(), 60);
+
+        // Cada comando sin sesión abre otra conexión: la configuración sale del caché de la cola
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("UPDATE \"Workqueue Settings\" SET \"Value\"='999' " +
+                        "WHERE \"Name\"='priority_aging.step_seconds'");
+            }
+        });
+        Assert.assertEquals(AccessExecutor.executeWithConnection(db, PriorityAging::forConnection).getStepSeconds(), 60);
+
+        // Guardar invalida la entrada: el próximo claim relee el archivo
+        AccessExecutor.executeVoidWithConnection(db, conn -> PriorityAging.save(conn, PriorityAging.of(30, 1)));
+        PriorityAging reread = AccessExecutor.executeWithConnection(db, PriorityAging::forConnection);
+        Assert.assertEquals(reread.getStepSeconds(), 30);
+        Assert.assertEquals(reread.getFloor(), 1);
+    }
+
+    /**
+     * Cada tick (1 minuto simulado) llegan 3 ítems de prioridad 1 y se toman y completan 3;
+     * en el tick 0 se agregan además 5 de prioridad 5. Devuelve en qué tick se tomó cada uno de estos.
+     */
+    private Map<String, Integer> simulateMixedPriorityLoad(String db, PriorityAging aging, int ticks) {
+        return AccessExecutor.executeWithConnection(db, conn -> {
+            PriorityAging.save(conn, aging);
+            SimulatedClock clock = new SimulatedClock(Instant.parse("2024-01-01T08:00:00Z"));
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.setClock(clock);
+
+            List<WorkqueueItemDao.NewItem> low = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) low.add(item("LOW-" + i, 5, null));
+            insert(dao, low);
+
+            Map<String, Integer> claimedAt = new LinkedHashMap<>();
+            for (int tick = 0; tick < ticks; tick++) {
+                List<WorkqueueItemDao.NewItem> high = new ArrayList<>();
+                for (int i = 1; i <= 3; i++) high.add(item("HIGH-" + tick + "-" + i, 1, null));
+                insert(dao, high);
+                for (int i = 0; i < 3; i++) {
+                    WorkqueueItemDao.WorkItem w = dao.takeNextPendingAndSetWorking();
+                    Assert.assertNotNull(w);
+                    if (w.key.startsWith("LOW-")) claimedAt.put(w.key, tick);
+                    dao.completeFromWorkingById(w.id);
+                }
+                clock.advance(Duration.ofMinutes(1));
+            }
+            return claimedAt;
+        });
+    }
+
+    private static final class SimulatedClock extends Clock {
+        private Instant now;
+
+        SimulatedClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
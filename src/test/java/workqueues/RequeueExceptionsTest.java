@@ -0,0 +1,90 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.PriorityAging;
+import com.automationanywhere.botcommand.utilities.workqueue.QueueStats;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RequeueExceptionsTest extends WorkqueueTestBase {
+
+    @Test
+    public void testRequeueExceptionsByReasonAndStep() {
+        String db = newQueueWithHistory("requeue");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 7; i++) items.add(item("R" + i, 10, i <= 5 ? "Post" : "Load"));
+            insert(dao, items);
+            for (WorkqueueItemDao.WorkItem w : dao.takeNextPendingBatchAndSetWorking(7)) {
+                dao.exceptionFromWorkingById(w.id, w.key.equals("R4") ? "Datos inválidos" : "SAP timeout after 30s");
+            }
+
+            // R1..R3, R5 (Post + timeout) en bloques de 2; R4 (otra razón) y R6, R7 (otra etapa) quedan
+            WorkqueueItemDao.RequeueReport report = dao.requeueExceptions("*timeout*", "Post", null, 5, 2);
+            Assert.assertEquals(report.requeued, 4);
+            Assert.assertEquals(report.skipped, 0);
+            Assert.assertEquals(report.chunks, 2);
+
+            QueueStats stats = dao.queueStats();
+            Assert.assertEquals(stats.byStatus.get("Pending"), Long.valueOf(4));
+            Assert.assertEquals(stats.byStatus.get("Exception"), Long.valueOf(3));
+
+            // Con prioridad 10 - 5 se toman antes que cualquier Pending nuevo con prioridad 6
+            insert(dao, Collections.singletonList(item("R8", 6, "Post")));
+            Assert.assertEquals(dao.takeNextPendingAndSetWorking().key, "R1");
+
+            // Con antigüedad mínima de una hora no toca nada; sin filtro de etapa vuelven R6 y R7
+            Assert.assertEquals(dao.requeueExceptions("*timeout*", null,
+                    new Timestamp(System.currentTimeMillis() - 3_600_000L), 0, 100).requeued, 0);
+            Assert.assertEquals(dao.requeueExceptions("*timeout*", null, null, 0, 100).requeued, 2);
+
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"Item History\" " +
+                         "WHERE \"From Status\"='Exception' AND \"To Status\"='Pending'")) {
+                rs.next();
+                Assert.assertEquals(rs.getInt(1), 6);
+            }
+        });
+    }
+
+    @Test
+    public void testRequeueBumpStopsAtAgingFloorAndResetsAgedAt() {
+        String db = newQueue("requeue-floor");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            PriorityAging.save(conn, PriorityAging.of(3600, 3));
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, Arrays.asList(item("P2", 2, "Post"), item("P4", 4, "Post"), item("P20", 20, "Post")));
+            for (WorkqueueItemDao.WorkItem w : dao.takeNextPendingBatchAndSetWorking(3))
+                dao.exceptionFromWorkingById(w.id, "timeout");
+
+            Timestamp before = new Timestamp(System.currentTimeMillis() - 1000);
+            Assert.assertEquals(dao.requeueExceptions(null, null, null, 5, 100).requeued, 3);
+
+            // 20 - 5 = 15; 4 - 5 queda en el piso 3; 2 ya estaba debajo del piso y no cambia
+            Map<String, Long> priority = new HashMap<>();
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT \"Key\", \"Priority\", \"Aged At\" FROM \"workqueue\"")) {
+                while (rs.next()) {
+                    priority.put(rs.getString(1), rs.getLong(2));
+                    Assert.assertNotNull(rs.getTimestamp(3), rs.getString(1));
+                    Assert.assertTrue(rs.getTimestamp(3).after(before), rs.getString(1));
+                }
+            }
+            Assert.assertEquals(priority.get("P20"), Long.valueOf(15));
+            Assert.assertEquals(priority.get("P4"), Long.valueOf(3));
+            Assert.assertEquals(priority.get("P2"), Long.valueOf(2));
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ShardedWorkqueueTest extends WorkqueueTestBase {
+
+    @Test
+    public void testShardedQueueRoutesByKeyAndClaimsAcrossShards() throws Exception {
+        String manifestPath = baseTestPath + "sharded.wqshards";
+        ShardManifest manifest = ShardManifest.create(manifestPath, 3, ShardManifest.CLAIM_ROUND_ROBIN, ".hsqldb");
+        AccessExecutor.executeEach(AccessExecutor.SOURCE_FILE, manifestPath, null, true,
+                (shard, conn) -> new WorkqueueSchema(conn).upgrade());
+
+        AccessExecutor.executeVoidDao(AccessExecutor.SOURCE_FILE, manifestPath, null, dao -> {
+            Assert.assertEquals(dao.insertBatch(invoices("K", 9).iterator(), 4, null).inserted, 9);
+            Assert.assertEquals(dao.countEligiblePending(), 9);
+
+            // El Id global indica el shard del [Key] y vuelve al mismo ítem en las transiciones
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < 9; i++) {
+                WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+                Assert.assertNotNull(item);
+                Assert.assertEquals(manifest.shardOfId(item.id), manifest.shardOfKey(item.key));
+                Assert.assertEquals(item.data.get("Invoice"), "INV-" + item.key.substring(1));
+                Assert.assertTrue(ids.add(item.id), "Duplicated global id " + item.id);
+                dao.completeFromWorkingById(item.id);
+            }
+            Assert.assertNull(dao.takeNextPendingAndSetWorking());
+
+            QueueStats stats = dao.queueStats();
+            Assert.assertEquals(stats.total, 9);
+            Assert.assertEquals((long) stats.byStatus.get("Completed"), 9);
+        });
+    }
+}
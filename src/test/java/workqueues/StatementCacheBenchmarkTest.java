@@ -0,0 +1,105 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
+import com.automationanywhere.botcommand.utilities.workqueue.StatementCache;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueStores;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latencia de claim + complete sobre una conexión reutilizada (como en una sesión), sin y con
+ * caché de statements. Opcional (grupo benchmark): corre con -Dwq.benchmark=true o indicando la
+ * cantidad de transiciones con -Dwq.bench.transitions (por defecto 500).
+ * Antes de medir se hace un calentamiento sin cronometrar, y las rondas alternan el orden
+ * para que ninguna variante se beneficie de correr segunda sobre la misma conexión.
+ */
+public class StatementCacheBenchmarkTest extends WorkqueueTestBase {
+
+    private static final int TRANSITIONS = Integer.getInteger("wq.bench.transitions", 500);
+    private static final int WARMUP = 100;
+    private static final int ROUNDS = 4;
+
+    @Test(groups = "benchmark")
+    public void testTransitionLatencyWithAndWithoutStatementCache() {
+        requireOptIn("benchmark", "wq.bench.transitions");
+        String dbPath = baseTestPath + "statements.accdb";
+        AccessExecutor.executeWithConnection(dbPath, true, conn -> new WorkqueueSchema(conn).upgrade());
+        AccessExecutor.executeVoidWithConnection(dbPath, conn -> {
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            int perRound = Math.max(1, TRANSITIONS / ROUNDS);
+            for (int i = 1; i <= WARMUP * 2 + perRound * ROUNDS * 2; i++) {
+                Map<String, String> data = new LinkedHashMap<>();
+                data.put("Invoice", "INV-" + i);
+                data.put("Amount", String.valueOf(i));
+                items.add(new WorkqueueItemDao.NewItem("S" + i, 0L, null, "Start", data));
+            }
+            new WorkqueueItemDao(conn).insertBatch(items.iterator(), 1000, null);
+
+            // Calentamiento de JIT, driver y archivo con las dos variantes; no se cronometra
+            run(conn, WARMUP, false);
+            run(conn, WARMUP, true);
+
+            long[] without = new long[perRound * ROUNDS];
+            long[] with = new long[perRound * ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                boolean cachedFirst = round % 2 == 1;
+                long[] first = run(conn, perRound, cachedFirst);
+                long[] second = run(conn, perRound, !cachedFirst);
+                System.arraycopy(cachedFirst ? first : second, 0, with, round * perRound, perRound);
+                System.arraycopy(cachedFirst ? second : first, 0, without, round * perRound, perRound);
+            }
+
+            System.out.printf("Claim+complete x%d (%d rondas alternadas): sin caché p50 %.2f ms p99 %.2f ms, " +
+                            "con caché p50 %.2f ms p99 %.2f ms%n", without.length, ROUNDS,
+                    percentile(without, 50), percentile(without, 99), percentile(with, 50), percentile(with, 99));
+            Assert.assertTrue(percentile(with, 50) <= percentile(without, 50), String.format(
+                    "El caché no debería empeorar la mediana: %.2f ms sin, %.2f ms con",
+                    percentile(without, 50), percentile(with, 50)));
+        });
+    }
+
+    // Un DAO por transición, como los comandos sobre una sesión; con caché se adjunta solo para esta tanda
+    private static long[] run(Connection conn, int transitions, boolean cached) throws Exception {
+        if (!cached) return run(conn, transitions);
+        StatementCache cache = StatementCache.attach(conn, WorkqueueStores.forConnection(conn));
+        try {
+            long[] nanos = run(conn, transitions);
+            Assert.assertTrue(cache.getHits() > cache.getMisses(), "El caché debería reutilizar los statements del hot path");
+            return nanos;
+        } finally {
+            StatementCache.detach(conn);
+        }
+    }
+
+    private static long[] run(Connection conn, int transitions) throws Exception {
+        long[] nanos = new long[transitions];
+        for (int i = 0; i < transitions; i++) {
+            long start = System.nanoTime();
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.setTransitionReturn(ItemProjection.NONE);
+            WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+            Assert.assertNotNull(item, "La cola no debería vaciarse durante el benchmark");
+            Assert.assertEquals(item.data.size(), 2);
+            dao.completeFromWorkingById(item.id);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static double percentile(long[] nanos, int p) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, idx)] / 1_000_000.0;
+    }
+}
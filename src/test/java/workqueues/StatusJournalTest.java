@@ -0,0 +1,203 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class StatusJournalTest extends WorkqueueTestBase {
+
+    private static final String CRASHED_OWNER = "crashed-bot";
+
+    @Test
+    public void testJournalOfKilledBotIsAppliedExactlyOnce() throws Exception {
+        String db = newQueueWithHistory("journal-crash");
+        List<String> args = new ArrayList<>();
+        args.add(db);
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, invoices("J", 4));
+            dao.takeNextPendingBatchAndSetWorking(4);
+            for (int i = 1; i <= 4; i++) {
+                String key = "J" + i;
+                args.add(key + "=" + dao.claimStamp(ItemIdentifierType.KEY, key).toInstant());
+            }
+        });
+
+        // Otro proceso registra las transiciones y muere antes de que su flusher las aplique
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StatusJournalTest.class.getName());
+        command.addAll(args);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(Paths.get(baseTestPath, "crashed-bot.log").toFile())
+                .start();
+        Assert.assertTrue(process.waitFor(60, TimeUnit.SECONDS), "El proceso no terminó");
+        Assert.assertEquals(process.exitValue(), 0, "Ver crashed-bot.log");
+
+        Path journal = Paths.get(db + ".journal." + CRASHED_OWNER);
+        Path rejected = Paths.get(journal + ".rejected");
+        Assert.assertEquals(Files.readAllLines(journal, StandardCharsets.UTF_8).size(), 4);
+        Path copy = Paths.get(baseTestPath, "journal-copy");
+        Files.copy(journal, copy);
+
+        // Mientras tanto el lease de J4 venció y otro bot lo volvió a tomar
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.releaseFromWorkingByKey("J4");
+            Thread.sleep(1100); // fuera de la tolerancia de la identidad del claim
+            Assert.assertEquals(dao.takeNextPendingAndSetWorking().key, "J4");
+        });
+
+        // La próxima sesión recupera el journal huérfano: J1..J3 una vez, J4 queda con el otro bot
+        new WorkqueueSession(db).close();
+        assertApplied(db);
+        Assert.assertFalse(Files.exists(journal));
+        Assert.assertFalse(Files.exists(Paths.get(journal + ".ckpt")));
+        List<String> rejectedLines = Files.readAllLines(rejected, StandardCharsets.UTF_8);
+        Assert.assertEquals(rejectedLines.size(), 1);
+        Assert.assertTrue(rejectedLines.get(0).contains("\tJ4\t"), rejectedLines.get(0));
+
+        // Caída después de aplicar y antes del checkpoint: reaplicar no duplica nada
+        Files.copy(copy, journal, StandardCopyOption.REPLACE_EXISTING);
+        new WorkqueueSession(db).close();
+        assertApplied(db);
+        Assert.assertFalse(Files.exists(journal));
+        Assert.assertEquals(Files.readAllLines(rejected, StandardCharsets.UTF_8).size(), 2); // J4 otra vez
+    }
+
+    @Test
+    public void testLiveJournalIsNotReplayedByOthers() throws Exception {
+        String db = newQueue("journal-live");
+        AccessExecutor.executeVoidWithConnection(db, conn -> insert(new WorkqueueItemDao(conn), invoices("L", 1)));
+        WorkqueueSession session = new WorkqueueSession(db, true, 3_600_000);
+        Path journal;
+        try {
+            WorkqueueItemDao.WorkItem claimed = session.executeDao(WorkqueueItemDao::takeNextPendingAndSetWorking);
+            session.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.KEY, claimed.key, null);
+            journal = session.getJournal().getJournalPath();
+            Assert.assertTrue(journal.getFileName().toString().endsWith(session.getSessionId()));
+
+            // El journal tiene dueño vivo: la recuperación lo saltea y el ítem sigue Working
+            Assert.assertEquals(StatusJournal.replayOrphans(db), 0);
+            Assert.assertEquals(session.executeDao(WorkqueueItemDao::queueStats).byStatus.get("Working"), Long.valueOf(1));
+
+            // Un ítem que no está Working se rechaza al registrar, no en el flush
+            try {
+                session.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.KEY, "NOPE", null);
+                Assert.fail("Debería fallar para un ítem inexistente");
+            } catch (RuntimeException expected) {
+                Assert.assertTrue(expected.getMessage().contains("NOPE"), expected.getMessage());
+            }
+        } finally {
+            session.close();
+        }
+        Assert.assertFalse(Files.exists(journal));
+        Assert.assertEquals(AccessExecutor.executeDao(db, WorkqueueItemDao::queueStats).byStatus.get("Completed"),
+                Long.valueOf(1));
+    }
+
+    @Test
+    public void testAppendDoesNotWaitForTheDatabase() throws Exception {
+        String db = newQueue("journal-append");
+        AccessExecutor.executeVoidWithConnection(db, conn -> insert(new WorkqueueItemDao(conn), invoices("A", 2)));
+        WorkqueueSession session = new WorkqueueSession(db, true, 3_600_000);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            WorkqueueItemDao.WorkItem first = session.executeDao(WorkqueueItemDao::takeNextPendingAndSetWorking);
+            WorkqueueItemDao.WorkItem second = session.executeDao(dao -> {
+                WorkqueueItemDao.WorkItem w = dao.takeNextPendingAndSetWorking();
+                dao.updateWorkflowById(w.id, 2L, "Post"); // cambia la identidad del claim
+                return w;
+            });
+
+            // Un flush en curso tiene la sesión tomada: registrar no debe esperarlo
+            CountDownLatch holding = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> flush = pool.submit(() -> session.execute(conn -> {
+                holding.countDown();
+                release.await();
+                return null;
+            }));
+            Assert.assertTrue(holding.await(10, TimeUnit.SECONDS));
+            try {
+                long start = System.nanoTime();
+                session.getJournal().append(ItemTransition.COMPLETE, ItemIdentifierType.ID, String.valueOf(first.id), null);
+                session.getJournal().append(ItemTransition.EXCEPTION, ItemIdentifierType.KEY, second.key, "SAP caído");
+                Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "append esperó a la base");
+            } finally {
+                release.countDown();
+            }
+            flush.get(10, TimeUnit.SECONDS);
+            session.getJournal().flush();
+            Assert.assertEquals(session.getJournal().pendingCount(), 0);
+            Assert.assertFalse(Files.exists(session.getJournal().getRejectedPath()));
+        } finally {
+            pool.shutdownNow();
+            session.close();
+        }
+        QueueStats stats = AccessExecutor.executeDao(db, WorkqueueItemDao::queueStats);
+        Assert.assertEquals(stats.byStatus.get("Completed"), Long.valueOf(1));
+        Assert.assertEquals(stats.byStatus.get("Exception"), Long.valueOf(1));
+    }
+
+    private static void assertApplied(String db) {
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            QueueStats stats = new WorkqueueItemDao(conn).queueStats();
+            Assert.assertEquals(stats.byStatus.get("Completed"), Long.valueOf(2));
+            Assert.assertEquals(stats.byStatus.get("Exception"), Long.valueOf(1));
+            Assert.assertEquals(stats.byStatus.get("Working"), Long.valueOf(1));
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT \"To Status\", COUNT(*) FROM \"Item History\" " +
+                         "WHERE \"From Status\"='Working' GROUP BY \"To Status\" ORDER BY \"To Status\"")) {
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "Completed");
+                Assert.assertEquals(rs.getInt(2), 2);
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "Exception");
+                Assert.assertEquals(rs.getInt(2), 1);
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(rs.getString(1), "Pending"); // el release de J4
+                Assert.assertFalse(rs.next());
+            }
+        });
+    }
+
+    /**
+     * Bot que se cae: {@code <archivo> <Key>=<claim>...}. Registra Complete (Exception para J2)
+     * en su journal, sin tocar la base, y termina sin cerrar nada.
+     */
+    public static void main(String[] args) throws Exception {
+        StatusJournal journal = new StatusJournal(args[0], CRASHED_OWNER, 3_600_000, StatusJournal.DEFAULT_MAX_BATCH);
+        for (int i = 1; i < args.length; i++) {
+            String key = args[i].substring(0, args[i].indexOf('='));
+            Timestamp claimedAt = Timestamp.from(Instant.parse(args[i].substring(key.length() + 1)));
+            if (key.equals("J2")) {
+                journal.append(ItemTransition.EXCEPTION, ItemIdentifierType.KEY, key, claimedAt, "SAP\tcaído");
+            } else {
+                journal.append(ItemTransition.COMPLETE, ItemIdentifierType.KEY, key, claimedAt, null);
+            }
+        }
+        Runtime.getRuntime().halt(0);
+    }
+}
@@ -0,0 +1,153 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TransitionBatchTest extends WorkqueueTestBase {
+
+    @Test
+    public void testTransitionBatchOutcomesByKey() {
+        String db = newQueue("batch-key");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, invoices("K", 4));
+            dao.takeNextPendingBatchAndSetWorking(3);        // K1..K3 Working, K4 Pending
+            dao.completeFromWorkingByKey("K3");
+
+            List<WorkqueueItemDao.TransitionResult> results = dao.transitionBatch(ItemTransition.COMPLETE,
+                    ItemIdentifierType.KEY, Arrays.asList("K1", "K2", "K3", "K4", "NOPE"), null, null);
+            Assert.assertEquals(results.size(), 5);
+            assertOutcome(results.get(0), "K1", ItemTransition.Outcome.UPDATED, null);
+            assertOutcome(results.get(1), "K2", ItemTransition.Outcome.UPDATED, null);
+            assertOutcome(results.get(2), "K3", ItemTransition.Outcome.WRONG_STATE, "Completed");
+            assertOutcome(results.get(3), "K4", ItemTransition.Outcome.WRONG_STATE, "Pending");
+            assertOutcome(results.get(4), "NOPE", ItemTransition.Outcome.NOT_FOUND, null);
+
+            Assert.assertEquals(statusOf(conn, "K1"), "Completed");
+            Assert.assertEquals(statusOf(conn, "K4"), "Pending");
+        });
+    }
+
+    @Test
+    public void testTransitionBatchOutcomesById() {
+        String db = newQueue("batch-id");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, invoices("I", 3));
+            List<WorkqueueItemDao.WorkItem> claimed = dao.takeNextPendingBatchAndSetWorking(2);
+            String first = String.valueOf(claimed.get(0).id);
+            String second = String.valueOf(claimed.get(1).id);
+            String pending = String.valueOf(idOf(conn, "I3"));
+
+            List<WorkqueueItemDao.TransitionResult> results = dao.transitionBatch(ItemTransition.EXCEPTION,
+                    ItemIdentifierType.ID, Arrays.asList(first, pending, "999999", second), "Lote rechazado", null);
+            assertOutcome(results.get(0), first, ItemTransition.Outcome.UPDATED, null);
+            assertOutcome(results.get(1), pending, ItemTransition.Outcome.WRONG_STATE, "Pending");
+            assertOutcome(results.get(2), "999999", ItemTransition.Outcome.NOT_FOUND, null);
+            assertOutcome(results.get(3), second, ItemTransition.Outcome.UPDATED, null);
+
+            // Repetir el lote: los que ya pasaron a Exception ahora son WRONG_STATE
+            results = dao.transitionBatch(ItemTransition.EXCEPTION, ItemIdentifierType.ID,
+                    Collections.singletonList(first), "otra vez", null);
+            assertOutcome(results.get(0), first, ItemTransition.Outcome.WRONG_STATE, "Exception");
+            Assert.assertEquals(dao.queueStats().byStatus.get("Exception"), Long.valueOf(2));
+        });
+    }
+
+    @Test
+    public void testDeferReturnsItemToPending() {
+        String db = newQueue("defer");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, invoices("D", 3));
+            dao.takeNextPendingBatchAndSetWorking(3);
+            Timestamp later = new Timestamp(System.currentTimeMillis() + 3_600_000L);
+
+            // Un ítem: Working → Pending con Defer Until, y el claim no lo toma hasta entonces
+            WorkqueueItemDao.WorkItem deferred = dao.deferFromWorkingByKey("D1", later);
+            Assert.assertEquals(deferred.key, "D1");
+            Assert.assertEquals(statusOf(conn, "D1"), "Pending");
+            dao.deferFromWorkingById(idOf(conn, "D2"), later);
+            Assert.assertEquals(statusOf(conn, "D2"), "Pending");
+
+            // En lote, igual; un Defer Until pasado se rechaza
+            List<WorkqueueItemDao.TransitionResult> results = dao.transitionBatch(ItemTransition.DEFER,
+                    ItemIdentifierType.KEY, Arrays.asList("D3", "D1"), null, later);
+            assertOutcome(results.get(0), "D3", ItemTransition.Outcome.UPDATED, null);
+            assertOutcome(results.get(1), "D1", ItemTransition.Outcome.WRONG_STATE, "Pending");
+            try {
+                dao.transitionBatch(ItemTransition.DEFER, ItemIdentifierType.KEY, Collections.singletonList("D3"),
+                        null, new Timestamp(System.currentTimeMillis() - 1000));
+                Assert.fail("Defer Until en el pasado debería rechazarse");
+            } catch (SQLException expected) {
+                // esperado
+            }
+
+            Assert.assertNull(dao.takeNextPendingAndSetWorking());
+            Assert.assertEquals(dao.pendingAvailability().deferred, 3);
+            Assert.assertEquals(dao.queueStats().byStatus.get("Pending"), Long.valueOf(3));
+        });
+    }
+
+    @Test
+    public void testInsertBatchSkipsDuplicateKeys() {
+        String db = newQueue("dedupe");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+
+            // Repetidos en la misma entrada, también entre lotes distintos (lotes de 2)
+            List<WorkqueueItemDao.NewItem> first = new ArrayList<>();
+            for (String key : Arrays.asList("A", "B", "A", "C", "B", "D")) first.add(item(key, 1, "Start", "Src", key));
+            WorkqueueItemDao.InsertReport report = dao.insertBatch(first.iterator(), 2, null);
+            Assert.assertEquals(report.processed, 6);
+            Assert.assertEquals(report.inserted, 4);
+            Assert.assertEquals(report.duplicateKeys, Arrays.asList("A", "B"));
+
+            // Keys que ya están en la tabla por una carga anterior
+            List<WorkqueueItemDao.NewItem> second = new ArrayList<>();
+            for (String key : Arrays.asList("C", "E", "A", "F")) second.add(item(key, 1, "Start", "Src", key));
+            report = dao.insertBatch(second.iterator(), 100, null);
+            Assert.assertEquals(report.inserted, 2);
+            Assert.assertEquals(report.duplicateKeys, Arrays.asList("C", "A"));
+
+            Assert.assertEquals(dao.queueStats().total, 6);
+            for (String key : Arrays.asList("A", "B", "C", "D", "E", "F")) Assert.assertNotNull(idOf(conn, key), key);
+        });
+    }
+
+    private static void assertOutcome(WorkqueueItemDao.TransitionResult r, String identifier,
+                                      ItemTransition.Outcome outcome, String status) {
+        Assert.assertEquals(r.identifier, identifier);
+        Assert.assertEquals(r.outcome, outcome, identifier);
+        Assert.assertEquals(r.status, status, identifier);
+    }
+
+    private static Long idOf(Connection conn, String key) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT \"Id\" FROM \"workqueue\" WHERE \"Key\"=?")) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static String statusOf(Connection conn, String key) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT \"Status\" FROM \"workqueue\" WHERE \"Key\"=?")) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TransitionReturnTest extends WorkqueueTestBase {
+
+    @Test
+    public void testTransitionReturnProjection() {
+        String db = newQueue("projection");
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) items.add(item("P" + i, i, "Start", "A", "a" + i, "B", "b" + i));
+            insert(dao, items);
+
+            dao.setTransitionReturn(ItemProjection.NONE);
+            Assert.assertNull(dao.completeFromWorkingById(dao.takeNextPendingAndSetWorking().id));
+
+            dao.setTransitionReturn(ItemProjection.HEADER);
+            WorkqueueItemDao.WorkItem header = dao.exceptionFromWorkingByKey(dao.takeNextPendingAndSetWorking().key, "x");
+            Assert.assertEquals(header.key, "P2");
+            Assert.assertEquals(header.stepWorkflow, "Start");
+            Assert.assertTrue(header.data.isEmpty());
+
+            dao.setTransitionReturn(ItemProjection.of(ItemProjection.MODE_SELECTED, Collections.singletonList("B")));
+            WorkqueueItemDao.WorkItem selected = dao.releaseFromWorkingById(dao.takeNextPendingAndSetWorking().id);
+            Assert.assertEquals(selected.data.size(), 1);
+            Assert.assertEquals(selected.data.get("B"), "b3");
+
+            dao.setTransitionReturn(ItemProjection.FULL);
+            WorkqueueItemDao.WorkItem full = dao.updateWorkflowById(dao.takeNextPendingAndSetWorking().id, 7L, "Next");
+            Assert.assertEquals(full.stepWorkflow, "Next");
+            Assert.assertEquals(full.data.get("A"), "a3");
+        });
+    }
+}
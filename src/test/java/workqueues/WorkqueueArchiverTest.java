@@ -0,0 +1,40 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.QueueStats;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueArchiver;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+
+public class WorkqueueArchiverTest extends WorkqueueTestBase {
+
+    @Test
+    public void testArchiveMovesClosedItemsInChunks() {
+        String db = newQueue("archive");
+        String archiveDir = baseTestPath + "archive/";
+        AccessExecutor.executeVoidWithConnection(db, conn -> {
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            insert(dao, invoices("K", 3));
+            dao.completeFromWorkingById(dao.takeNextPendingAndSetWorking().id);
+            dao.exceptionFromWorkingById(dao.takeNextPendingAndSetWorking().id, "Timeout");
+
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() + 1000);
+            WorkqueueArchiver.Report report = new WorkqueueArchiver(conn).archive(cutoff, archiveDir, "queue",
+                    WorkqueueArchiver.TARGET_CSV, WorkqueueArchiver.ROTATE_NONE, 1, 0);
+            Assert.assertEquals(report.itemsMoved, 2);
+            Assert.assertEquals(report.dataRowsMoved, 2);
+            Assert.assertEquals(report.chunks.size(), 2);
+
+            QueueStats stats = dao.queueStats();
+            Assert.assertEquals(stats.total, 1);
+            Assert.assertEquals((long) stats.byStatus.get("Pending"), 1);
+            Assert.assertTrue(Files.exists(Paths.get(archiveDir, "queue_archive_workqueue.csv")));
+            Assert.assertTrue(Files.exists(Paths.get(archiveDir, "queue_archive_item_data.csv")));
+        });
+    }
+}
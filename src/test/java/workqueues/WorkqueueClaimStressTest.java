@@ -0,0 +1,202 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ItemProjection;
+import com.automationanywhere.botcommand.utilities.workqueue.QueueStats;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim + complete concurrente sobre un mismo .accdb: N hilos en este proceso y N procesos
+ * JVM aparte, cada uno con su conexión. Verifica que ningún ítem se tome dos veces ni se
+ * pierda, e informa claims/s, carreras perdidas y latencia p50/p99 del claim.
+ * <p>
+ * Opcional (grupo stress): corre con -Dwq.stress=true o con alguna de -Dwq.stress.items
+ * (por defecto 2000), -Dwq.stress.threads (4), -Dwq.stress.processes (4) y
+ * -Dwq.stress.timeout en segundos (600).
+ */
+public class WorkqueueClaimStressTest {
+
+    private static final int ITEMS     = Integer.getInteger("wq.stress.items", 2000);
+    private static final int THREADS   = Integer.getInteger("wq.stress.threads", 4);
+    private static final int PROCESSES = Integer.getInteger("wq.stress.processes", 4);
+    private static final int TIMEOUT_S = Integer.getInteger("wq.stress.timeout", 600);
+
+    private String baseTestPath;
+    private String dbPath;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        baseTestPath = "src/test/target/test-artifacts/workqueue-stress-" + System.currentTimeMillis() + "/";
+        Files.createDirectories(Paths.get(baseTestPath));
+        dbPath = baseTestPath + "stress.accdb";
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(new File(baseTestPath));
+    }
+
+    @Test(groups = "stress")
+    public void testConcurrentClaimsNeitherDuplicateNorLoseItems() throws Exception {
+        WorkqueueTestBase.requireOptIn("stress", "wq.stress.items", "wq.stress.threads",
+                "wq.stress.processes", "wq.stress.timeout");
+        AccessExecutor.executeWithConnection(dbPath, true, conn -> new WorkqueueSchema(conn).upgrade());
+        AccessExecutor.executeVoidWithConnection(dbPath, conn -> {
+            List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+            for (int i = 1; i <= ITEMS; i++) {
+                Map<String, String> data = new LinkedHashMap<>();
+                data.put("Invoice", "INV-" + i);
+                items.add(new WorkqueueItemDao.NewItem("S" + i, (long) (i % 3), null, "Start", data));
+            }
+            new WorkqueueItemDao(conn).insertBatch(items.iterator(), 1000, null);
+        });
+
+        // Los procesos arrancan primero: su JVM tarda más en llegar al primer claim
+        List<Process> processes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        for (int p = 0; p < PROCESSES; p++) {
+            Path out = Paths.get(baseTestPath, "worker-" + p + ".txt");
+            outputs.add(out);
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    WorkqueueClaimStressTest.class.getName(), dbPath, out.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(Paths.get(baseTestPath, "worker-" + p + ".log").toFile())
+                    .start());
+        }
+
+        long start = System.nanoTime();
+        List<WorkerResult> results = Collections.synchronizedList(new ArrayList<>());
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    results.add(runWorker(dbPath));
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    done.countDown();
+                }
+            }, "wq-stress-" + t);
+            thread.start();
+        }
+
+        Assert.assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS), "Los hilos no terminaron a tiempo");
+        for (int p = 0; p < PROCESSES; p++) {
+            Process process = processes.get(p);
+            if (!process.waitFor(TIMEOUT_S, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                Assert.fail("El proceso " + p + " no terminó a tiempo");
+            }
+            Assert.assertEquals(process.exitValue(), 0, "El proceso " + p + " falló; ver worker-" + p + ".log");
+            results.add(WorkerResult.read(outputs.get(p)));
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (!errors.isEmpty()) throw new AssertionError("Falló un hilo: " + errors.get(0), errors.get(0));
+
+        // Cada ítem se tomó exactamente una vez entre todos los workers
+        Set<Long> claimed = new HashSet<>();
+        List<Long> duplicates = new ArrayList<>();
+        List<Long> latencies = new ArrayList<>();
+        long lostRaces = 0;
+        for (WorkerResult r : results) {
+            for (long id : r.ids) {
+                if (!claimed.add(id)) duplicates.add(id);
+            }
+            latencies.addAll(r.claimNanos);
+            lostRaces += r.lostRaces;
+        }
+        Assert.assertTrue(duplicates.isEmpty(), "Ítems tomados más de una vez: " + duplicates);
+        Assert.assertEquals(claimed.size(), ITEMS, "Ítems sin tomar");
+
+        QueueStats stats = AccessExecutor.executeDao(dbPath, WorkqueueItemDao::queueStats);
+        Assert.assertEquals(stats.byStatus.get("Completed"), Long.valueOf(ITEMS));
+        Assert.assertEquals(stats.byStatus.get("Pending"), Long.valueOf(0));
+        Assert.assertEquals(stats.byStatus.get("Working"), Long.valueOf(0));
+
+        Collections.sort(latencies);
+        System.out.printf("Stress %d ítems, %d hilos + %d procesos: %.1f claims/s, %d carreras perdidas, claim p50 %.2f ms p99 %.2f ms%n",
+                ITEMS, THREADS, PROCESSES, claimed.size() / seconds, lostRaces,
+                percentile(latencies, 50), percentile(latencies, 99));
+    }
+
+    /** Entrada de los procesos worker: {@code <archivo .accdb> <archivo de resultado>}. */
+    public static void main(String[] args) throws Exception {
+        WorkerResult result = runWorker(args[0]);
+        result.write(Paths.get(args[1]));
+        System.exit(0);
+    }
+
+    // Toma y completa hasta que no quedan elegibles; un claim vacío con elegibles es una carrera perdida
+    private static WorkerResult runWorker(String db) {
+        return AccessExecutor.executeWithConnection(db, conn -> {
+            WorkerResult result = new WorkerResult();
+            WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+            dao.setTransitionReturn(ItemProjection.NONE);
+            while (true) {
+                long t0 = System.nanoTime();
+                WorkqueueItemDao.WorkItem item = dao.takeNextPendingAndSetWorking();
+                long elapsed = System.nanoTime() - t0;
+                if (item == null) {
+                    if (dao.countEligiblePending() == 0) break;
+                    result.lostRaces++;
+                    continue;
+                }
+                result.ids.add(item.id);
+                result.claimNanos.add(elapsed);
+                dao.completeFromWorkingById(item.id); // el conteo final de Completed verifica que todos cerraron
+            }
+            return result;
+        });
+    }
+
+    private static final class WorkerResult {
+        final List<Long> ids = new ArrayList<>();
+        final List<Long> claimNanos = new ArrayList<>();
+        long lostRaces;
+
+        // Una línea por claim ("id nanos") y al final la cantidad de carreras perdidas
+        void write(Path path) throws Exception {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) lines.add(ids.get(i) + " " + claimNanos.get(i));
+            lines.add("lost " + lostRaces);
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        }
+
+        static WorkerResult read(Path path) throws Exception {
+            WorkerResult r = new WorkerResult();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals("lost")) {
+                    r.lostRaces = Long.parseLong(parts[1]);
+                } else {
+                    r.ids.add(Long.parseLong(parts[0]));
+                    r.claimNanos.add(Long.parseLong(parts[1]));
+                }
+            }
+            return r;
+        }
+    }
+
+    private static double percentile(List<Long> sortedNanos, int p) {
+        if (sortedNanos.isEmpty()) return 0;
+        int idx = (int) Math.ceil(p / 100.0 * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, idx)) / 1_000_000.0;
+    }
+}
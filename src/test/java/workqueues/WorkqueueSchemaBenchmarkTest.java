@@ -0,0 +1,131 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Benchmark antes/después de crear los índices sobre una cola generada.
+ * Opcional (grupo benchmark): corre con -Dwq.benchmark=true o indicando el tamaño con
+ * -Dwq.bench.items (por defecto 100000).
+ * Crear los índices no se puede deshacer en la misma corrida, así que en lugar de alternar
+ * cada medición va precedida de claims de calentamiento sin cronometrar.
+ */
+public class WorkqueueSchemaBenchmarkTest extends WorkqueueTestBase {
+
+    private static final int ITEMS = Integer.getInteger("wq.bench.items", 100_000);
+    private static final int DATA_PER_ITEM = 3;
+    private static final int CLAIMS = 200;
+    private static final int WARMUP_CLAIMS = 50;
+
+    @Test(groups = "benchmark")
+    public void testClaimLatencyBeforeAndAfterIndexes() {
+        requireOptIn("benchmark", "wq.bench.items");
+        String dbPath = baseTestPath + "bench.accdb";
+        AccessExecutor.executeWithConnection(dbPath, true, conn -> {
+            createTablesWithoutIndexes(conn);
+            generateQueue(conn, ITEMS);
+
+            WorkqueueSchema schema = new WorkqueueSchema(conn);
+            Assert.assertEquals(schema.check().missingIndexes.size(), WorkqueueSchema.REQUIRED_INDEXES.size(),
+                    "All required indexes should be reported missing before the upgrade");
+
+            averageClaimMillis(conn, WARMUP_CLAIMS); // la primera medición no paga el arranque de JIT y driver
+            double before = averageClaimMillis(conn, CLAIMS);
+
+            WorkqueueSchema.Report report = schema.upgrade();
+            Assert.assertTrue(report.missingIndexes.isEmpty(), "No index should be missing after the upgrade");
+            Assert.assertEquals(report.indexesCreated.size(), WorkqueueSchema.REQUIRED_INDEXES.size());
+
+            averageClaimMillis(conn, WARMUP_CLAIMS); // planes nuevos con los índices
+            double after = averageClaimMillis(conn, CLAIMS);
+
+            System.out.printf("Workqueue %d items: claim avg %.2f ms without indexes, %.2f ms with indexes%n",
+                    ITEMS, before, after);
+            Assert.assertTrue(after < before, String.format(
+                    "Los índices deberían bajar la latencia del claim: %.2f ms sin, %.2f ms con", before, after));
+            return null;
+        });
+    }
+
+    @Test
+    public void testUpgradeCreatesTablesOnEmptyFile() {
+        String emptyDb = baseTestPath + "empty.accdb";
+        WorkqueueSchema.Report report = AccessExecutor.executeWithConnection(emptyDb, true,
+                conn -> new WorkqueueSchema(conn).upgrade());
+
+        Assert.assertEquals(report.tablesCreated.size(), 2);
+        Assert.assertTrue(report.missingIndexes.isEmpty());
+
+        WorkqueueSchema.Report second = AccessExecutor.executeWithConnection(emptyDb,
+                conn -> new WorkqueueSchema(conn).check());
+        Assert.assertTrue(second.missingTables.isEmpty());
+        Assert.assertTrue(second.missingIndexes.isEmpty());
+    }
+
+    private static double averageClaimMillis(Connection conn, int claims) throws Exception {
+        WorkqueueItemDao dao = new WorkqueueItemDao(conn);
+        long start = System.nanoTime();
+        for (int i = 0; i < claims; i++) {
+            Assert.assertNotNull(dao.takeNextPendingAndSetWorking(), "Queue should not run out during the benchmark");
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / claims;
+    }
+
+    private static void createTablesWithoutIndexes(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE [workqueue] ([Id] COUNTER PRIMARY KEY, [Key] TEXT(255), [Status] TEXT(20), " +
+                    "[Status Workflow] LONG, [Step Workflow] TEXT(255), [Created Date] DATETIME, " +
+                    "[Last Updated] DATETIME, [Exception Reason] MEMO, [Priority] LONG, [Defer Until] DATETIME)");
+            st.executeUpdate("CREATE TABLE [Item Data] ([Id] COUNTER PRIMARY KEY, [Item ID] LONG, [Key] TEXT(255), " +
+                    "[Value] MEMO)");
+        }
+    }
+
+    private static void generateQueue(Connection conn, int items) throws Exception {
+        conn.setAutoCommit(false);
+        Timestamp base = Timestamp.from(Instant.now().minusSeconds(items));
+        try (PreparedStatement wq = conn.prepareStatement("INSERT INTO [workqueue] ([Key], [Status], [Status Workflow], " +
+                "[Step Workflow], [Created Date], [Last Updated], [Priority]) VALUES (?,?,?,?,?,?,?)");
+             PreparedStatement data = conn.prepareStatement("INSERT INTO [Item Data] ([Item ID], [Key], [Value]) " +
+                     "VALUES (?,?,?)")) {
+            for (int i = 1; i <= items; i++) {
+                Timestamp created = new Timestamp(base.getTime() + i * 1000L);
+                // Tabla recién creada: el COUNTER asigna Id = i
+                wq.setString(1, "KEY-" + i);
+                // Mezcla realista: la mayoría ya procesados, el resto pendiente
+                wq.setString(2, i % 10 == 0 ? "Pending" : (i % 7 == 0 ? "Exception" : "Completed"));
+                wq.setLong(3, 0);
+                wq.setString(4, "Start");
+                wq.setTimestamp(5, created);
+                wq.setTimestamp(6, created);
+                wq.setLong(7, i % 5);
+                wq.addBatch();
+                for (int d = 0; d < DATA_PER_ITEM; d++) {
+                    data.setLong(1, i);
+                    data.setString(2, "Field" + d);
+                    data.setString(3, "Value " + d + " of " + i);
+                    data.addBatch();
+                }
+                if (i % 5000 == 0) {
+                    wq.executeBatch();
+                    data.executeBatch();
+                    conn.commit();
+                }
+            }
+            wq.executeBatch();
+            data.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
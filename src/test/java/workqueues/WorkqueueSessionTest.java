@@ -0,0 +1,44 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.ConnectionProfile;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSession;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+
+public class WorkqueueSessionTest extends WorkqueueTestBase {
+
+    @Test
+    public void testSharedSessionClosesOnLastHandle() throws Exception {
+        String db = newQueue("shared");
+        WorkqueueSession first = new WorkqueueSession(db, ConnectionProfile.DEFAULT, false, 0);
+        WorkqueueSession second = new WorkqueueSession(db, ConnectionProfile.DEFAULT, false, 0);
+        Assert.assertEquals(second.getSessionId(), first.getSessionId());
+        Assert.assertEquals(first.getOpenHandles(), 2);
+
+        // Otra configuración sobre el mismo archivo: falla en lugar de devolver la sesión abierta
+        try {
+            new WorkqueueSession(db, ConnectionProfile.DEFAULT, true, 500);
+            Assert.fail("Debería rechazar write-behind sobre una sesión síncrona");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage().contains("otras opciones"), expected.getMessage());
+        }
+        Assert.assertEquals(first.getOpenHandles(), 2);
+
+        // El handle prestado no cierra nada
+        WorkqueueSession.findOpen(db).close();
+        first.close();
+        first.close(); // idempotente: no descuenta dos veces
+        Assert.assertTrue(first.isClosed());
+        Assert.assertFalse(second.isClosed());
+        Assert.assertEquals(second.executeDao(WorkqueueItemDao::queueStats).total, 0);
+
+        second.close();
+        Assert.assertTrue(second.isClosed());
+        Assert.assertNull(WorkqueueSession.findOpen(db));
+        Assert.assertNotNull(AccessExecutor.executeWithConnection(db, conn -> new WorkqueueItemDao(conn).queueStats()));
+    }
+}
@@ -0,0 +1,86 @@
+package workqueues;
+
+import com.automationanywhere.botcommand.utilities.workqueue.AccessExecutor;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueItemDao;
+import com.automationanywhere.botcommand.utilities.workqueue.WorkqueueSchema;
+import org.apache.commons.io.FileUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base de las pruebas funcionales de workqueue sobre HSQLDB embebido: carpeta temporal por
+ * clase, colas con el esquema completo y armado de ítems.
+ */
+abstract class WorkqueueTestBase {
+
+    protected String baseTestPath;
+
+    @BeforeClass
+    public void createTestDirectory() throws Exception {
+        baseTestPath = "src/test/target/test-artifacts/" + getClass().getSimpleName() + "-" + System.currentTimeMillis() + "/";
+        Files.createDirectories(Paths.get(baseTestPath));
+    }
+
+    @AfterClass
+    public void deleteTestDirectory() throws Exception {
+        FileUtils.deleteDirectory(new File(baseTestPath));
+    }
+
+    /**
+     * Pruebas largas de un grupo opcional ({@code benchmark}, {@code stress}): se saltean salvo que
+     * se pidan con {@code -Dwq.<grupo>=true} o con alguna de sus propiedades de tamaño.
+     */
+    protected static void requireOptIn(String group, String... properties) {
+        if (Boolean.getBoolean("wq." + group)) return;
+        for (String p : properties) {
+            if (System.getProperty(p) != null) return;
+        }
+        throw new SkipException("Prueba del grupo '" + group + "': se corre con -Dwq." + group + "=true");
+    }
+
+    /** Crea la cola {@code <name>.hsqldb} con tablas, columnas e índices; devuelve su ubicación. */
+    protected String newQueue(String name) {
+        String location = baseTestPath + name + ".hsqldb";
+        AccessExecutor.executeWithConnection(location, true, conn -> new WorkqueueSchema(conn).upgrade());
+        return location;
+    }
+
+    /** Igual que {@link #newQueue(String)}, con [Item History]. */
+    protected String newQueueWithHistory(String name) {
+        String location = newQueue(name);
+        AccessExecutor.executeWithConnection(location, conn -> new WorkqueueSchema(conn).ensureHistoryTable());
+        return location;
+    }
+
+    /** Ítem con Item Data en pares clave, valor. */
+    static WorkqueueItemDao.NewItem item(String key, long priority, String step, String... data) {
+        return item(key, priority, null, step, data);
+    }
+
+    static WorkqueueItemDao.NewItem item(String key, long priority, Long statusWorkflow, String step, String... data) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < data.length; i += 2) map.put(data[i], data[i + 1]);
+        return new WorkqueueItemDao.NewItem(key, priority, statusWorkflow, step, map);
+    }
+
+    /** {@code <prefix>1..n} en la etapa Start, con Priority = n° e Invoice = INV-n°. */
+    static List<WorkqueueItemDao.NewItem> invoices(String prefix, int count) {
+        List<WorkqueueItemDao.NewItem> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) items.add(item(prefix + i, i, "Start", "Invoice", "INV-" + i));
+        return items;
+    }
+
+    static void insert(WorkqueueItemDao dao, List<WorkqueueItemDao.NewItem> items) throws SQLException {
+        dao.insertBatch(items.iterator(), 100, null);
+    }
+}